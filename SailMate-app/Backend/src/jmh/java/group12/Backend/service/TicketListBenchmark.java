@@ -0,0 +1,138 @@
+package group12.Backend.service;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.dto.TicketVoyageView;
+import group12.Backend.entity.Ticket;
+import group12.Backend.entity.TicketPassenger;
+import group12.Backend.repository.TicketPassengerRepository;
+import group12.Backend.repository.TicketRepository;
+
+/**
+ * Listing the tickets of a user with many tickets: the original
+ * convertToDto, which parsed ticket_data once per ticket, against
+ * {@link TicketService#getTicketsByUserId} with passengers read from
+ * ticket_passenger rows and without passengers. The repositories return
+ * prepared rows, so this measures the work per ticket only; the saved
+ * voyage and station queries per ticket come on top of it in production.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="TicketList -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketListBenchmark {
+
+    private static final String USER = "user";
+
+    @Param({"10", "200"})
+    public int ticketCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Ticket> tickets;
+    private TicketService ticketService;
+
+    @Setup
+    public void setUp() throws Exception {
+        tickets = new ArrayList<>();
+        List<TicketVoyageView> views = new ArrayList<>();
+        List<TicketPassenger> rows = new ArrayList<>();
+        for (int i = 0; i < ticketCount; i++) {
+            List<TicketDTO.PassengerInfo> passengers = new ArrayList<>();
+            for (int p = 0; p < 3; p++) {
+                TicketDTO.PassengerInfo passenger = new TicketDTO.PassengerInfo("Name" + p, "Surname" + i,
+                        "1990-01-0" + (p + 1), "passenger" + p + "@example.com", "555000" + i);
+                passenger.setPassengerType("Adult");
+                passengers.add(passenger);
+                rows.add(new TicketPassenger("TKT-" + i, p, passenger.getName(), passenger.getSurname(),
+                        passenger.getBirthDate(), passenger.getEmail(), passenger.getPhoneNo(), "Adult"));
+            }
+            Ticket ticket = new Ticket("TKT-" + i, 100 + i, 3, 1500.0, "Economy", "1E-1,1E-2,1E-3", USER,
+                    objectMapper.writeValueAsString(passengers));
+            ticket.setId(i);
+            tickets.add(ticket);
+            views.add(new TicketVoyageView(ticket, "İstanbul", "Kadıköy", "İstanbul", "Karaköy",
+                    LocalDate.of(2025, 6, 1), LocalTime.of(10, 30), LocalTime.of(11, 0)));
+        }
+
+        TicketRepository ticketRepository = stub(TicketRepository.class, "findVoyageViewsByUserId", views);
+        TicketPassengerRepository ticketPassengerRepository =
+                stub(TicketPassengerRepository.class, "findByTicketIdInOrderByTicketIdAscPositionAsc", rows);
+        ticketService = new TicketService(ticketRepository, null, objectMapper, null, null,
+                new TicketPassengerService(ticketPassengerRepository, objectMapper), null, null, null);
+    }
+
+    @Benchmark
+    public List<TicketDTO.TicketResponse> originalParseTicketData() throws Exception {
+        List<TicketDTO.TicketResponse> responses = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            responses.add(originalConvertToDto(ticket));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public List<TicketDTO.TicketResponse> passengerRows() {
+        return ticketService.getTicketsByUserId(USER, true);
+    }
+
+    @Benchmark
+    public List<TicketDTO.TicketResponse> withoutPassengers() {
+        return ticketService.getTicketsByUserId(USER, false);
+    }
+
+    // TicketService.convertToDto before ticket_passenger, without the error handling
+    private TicketDTO.TicketResponse originalConvertToDto(Ticket ticket) throws Exception {
+        List<TicketDTO.PassengerInfo> passengers = objectMapper.readValue(
+                ticket.getTicketData(),
+                objectMapper.getTypeFactory().constructCollectionType(List.class, TicketDTO.PassengerInfo.class)
+        );
+        return new TicketDTO.TicketResponse(
+                ticket.getId(),
+                ticket.getTicketID(),
+                ticket.getVoyageId(),
+                ticket.getPassengerCount(),
+                ticket.getTotalPrice(),
+                ticket.getTicketClass(),
+                ticket.getSelectedSeats(),
+                ticket.getUserId(),
+                passengers,
+                ticket.getCreatedAt(),
+                ticket.getUpdatedAt()
+        );
+    }
+
+    // A repository answering one query with fixed rows
+    private static <T> T stub(Class<T> repository, String method, Object result) {
+        return repository.cast(Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository},
+                (proxy, invoked, args) -> {
+                    if (invoked.getName().equals(method)) {
+                        return result;
+                    }
+                    throw new UnsupportedOperationException(invoked.getName());
+                }));
+    }
+}
@@ -0,0 +1,113 @@
+package group12.Backend.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Turning a ticket's seat list into section masks: the split-based loop of
+ * the original SeatsSoldService.updateSeatCounts against {@link SeatCodeParser}
+ * through {@link SeatLayout#masksOf(CharSequence)}.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="SeatCodeParser -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatCodeParserBenchmark {
+
+    private static final SeatLayout FAST_FERRY = new SeatLayout("Fast Ferry", new int[]{40, 40, 20, 60, 60, 30});
+
+    @Param({"1E-3", "1E-3, 1E-4,2E-1,2B-5, 1P-12,2P-40"})
+    public String ticketData;
+
+    @Benchmark
+    public long[] originalSplit() {
+        return originalMasksOf(ticketData);
+    }
+
+    @Benchmark
+    public long[] layoutMasksOf() {
+        return FAST_FERRY.masksOf(ticketData);
+    }
+
+    @Benchmark
+    public int parserCount() {
+        return SeatCodeParser.count(ticketData);
+    }
+
+    /**
+     * The parsing of SeatsSoldService.updateSeatCounts before SeatCodeParser,
+     * writing the bits into section masks instead of the entity. Like the
+     * original it does not validate the codes.
+     */
+    static long[] originalMasksOf(String ticketData) {
+        long[] masks = new long[SeatSection.COUNT];
+        String[] codes = ticketData.split(",");
+
+        for (String code : codes) {
+            code = code.trim();
+
+            char rowType = code.charAt(0);
+            char classType = code.charAt(1);
+            int index = Integer.parseInt(code.substring(code.indexOf('-') + 1));
+
+            long bitMask = 1L << (index - 1);
+
+            switch (classType) {
+                case 'B': {
+                    switch (rowType) {
+                        case '1': {
+                            masks[SeatSection.LOWER_DECK_BUSINESS.ordinal()] |= bitMask;
+                            break;
+                        }
+                        case '2': {
+                            masks[SeatSection.UPPER_DECK_BUSINESS.ordinal()] |= bitMask;
+                            break;
+                        }
+                    }
+                    break;
+                }
+                case 'E': {
+                    switch (rowType) {
+                        case '1': {
+                            masks[SeatSection.LOWER_DECK_ECONOMY.ordinal()] |= bitMask;
+                            break;
+                        }
+                        case '2': {
+                            masks[SeatSection.UPPER_DECK_ECONOMY.ordinal()] |= bitMask;
+                            break;
+                        }
+                    }
+                    break;
+                }
+                case 'P': {
+                    switch (rowType) {
+                        case '1': {
+                            masks[SeatSection.LOWER_DECK_PROMO.ordinal()] |= bitMask;
+                            break;
+                        }
+                        case '2': {
+                            masks[SeatSection.UPPER_DECK_PROMO.ordinal()] |= bitMask;
+                            break;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        return masks;
+    }
+}
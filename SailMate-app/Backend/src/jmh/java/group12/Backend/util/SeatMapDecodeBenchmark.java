@@ -0,0 +1,140 @@
+package group12.Backend.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding one voyage's seats_sold row for /calculate-seats: the original
+ * seatsOperations.decode against {@link SeatMapCodec}, with the legacy and
+ * compact response shapes.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="SeatMapDecode -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatMapDecodeBenchmark {
+
+    private static final SeatLayout FAST_FERRY = new SeatLayout("Fast Ferry", new int[]{40, 40, 20, 60, 60, 30});
+
+    private Map<String, Object> seatsSold;
+    private long[] words;
+
+    @Setup
+    public void setUp() {
+        // About half of each section sold
+        words = new long[FAST_FERRY.wordCount()];
+        for (int i = 0; i < SeatSection.COUNT; i++) {
+            words[i] = 0x5A5A_5A5A_5A5A_5A5AL & ((1L << FAST_FERRY.capacity(SeatSection.byIndex(i))) - 1);
+        }
+        seatsSold = new HashMap<>();
+        seatsSold.put("id", 1);
+        seatsSold.put("voyageId", 1);
+        seatsSold.put("shipType", "Fast Ferry");
+        for (int i = 0; i < SeatSection.COUNT; i++) {
+            seatsSold.put(SeatSection.byIndex(i).getKey(), words[i]);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> originalDecode() {
+        return originalDecode(seatsSold);
+    }
+
+    @Benchmark
+    public SeatMap decodeMap() {
+        return SeatMapCodec.decode(seatsSold, FAST_FERRY);
+    }
+
+    @Benchmark
+    public SeatMap decodeWords() {
+        return SeatMapCodec.decode(1, 1, "Fast Ferry", FAST_FERRY, words);
+    }
+
+    @Benchmark
+    public Object decodeToLegacyResponse() {
+        return SeatMapCodec.decode(seatsSold, FAST_FERRY).toResponse(SeatMap.Format.LEGACY);
+    }
+
+    @Benchmark
+    public Object decodeToBase64Response() {
+        return SeatMapCodec.decode(seatsSold, FAST_FERRY).toResponse(SeatMap.Format.BASE64);
+    }
+
+    /**
+     * seatsOperations.decode as it was before SeatMapCodec, without the
+     * System.out.println of the whole result so the output stays readable.
+     * Only the two and three section loops are folded into one helper.
+     */
+    @SuppressWarnings("unchecked")
+    static HashMap<String, Object> originalDecode(Object seatsSold) {
+        HashMap<String, Object> response = new HashMap<>();
+        Map<String, Object> seatsSoldMap = (Map<String, Object>) seatsSold;
+
+        boolean isFastFerry = seatsSoldMap.get("shipType").equals("Fast Ferry");
+
+        int maxUpperPromo = (isFastFerry ? 40 : 20);
+        int maxUpperEconomy = (isFastFerry ? 40 : 20);
+        int maxUpperBusiness = 20;
+        int maxLowerPromo = (isFastFerry ? 60 : 40);
+        int maxLowerEconomy = (isFastFerry ? 60 : 40);
+        int maxLowerBusiness = (isFastFerry ? 30 : 10);
+        int[] taken = new int[3];
+
+        List<Boolean> seatsUpperDeckPromo = originalSection(seatsSoldMap.get("upperDeckPromo"), maxUpperPromo, taken, 0);
+        List<Boolean> seatsUpperDeckEconomy = originalSection(seatsSoldMap.get("upperDeckEconomy"), maxUpperEconomy, taken, 1);
+        List<Boolean> seatsUpperDeckBusiness = originalSection(seatsSoldMap.get("upperDeckBusiness"), maxUpperBusiness, taken, 2);
+        List<Boolean> seatsLowerDeckPromo = originalSection(seatsSoldMap.get("lowerDeckPromo"), maxLowerPromo, taken, 0);
+        List<Boolean> seatsLowerDeckEconomy = originalSection(seatsSoldMap.get("lowerDeckEconomy"), maxLowerEconomy, taken, 1);
+        List<Boolean> seatsLowerDeckBusiness = originalSection(seatsSoldMap.get("lowerDeckBusiness"), maxLowerBusiness, taken, 2);
+
+        response.put("id", seatsSoldMap.get("id"));
+        response.put("voyageId", seatsSoldMap.get("voyageId"));
+        response.put("shipType", seatsSoldMap.get("shipType"));
+        response.put("upperDeckPromo", seatsUpperDeckPromo);
+        response.put("upperDeckEconomy", seatsUpperDeckEconomy);
+        response.put("upperDeckBusiness", seatsUpperDeckBusiness);
+        response.put("lowerDeckPromo", seatsLowerDeckPromo);
+        response.put("lowerDeckEconomy", seatsLowerDeckEconomy);
+        response.put("lowerDeckBusiness", seatsLowerDeckBusiness);
+        response.put("totalPromoTaken", taken[0]);
+        response.put("totalEconomyTaken", taken[1]);
+        response.put("totalBusinessTaken", taken[2]);
+        response.put("promoAvailable", maxLowerPromo + maxUpperPromo - taken[0]);
+        response.put("economyAvailable", maxLowerEconomy + maxUpperEconomy - taken[1]);
+        response.put("businessAvailable", maxLowerBusiness + maxUpperBusiness - taken[2]);
+        return response;
+    }
+
+    private static List<Boolean> originalSection(Object value, int max, int[] taken, int seatClass) {
+        Long bits = ((Number) value).longValue();
+        List<Boolean> seats = new ArrayList<>();
+        for (int i = 0; i < max; i++) {
+            if ((bits & 1) == 1) {
+                seats.add(true);
+                taken[seatClass]++;
+            } else {
+                seats.add(false);
+            }
+            bits = bits >> 1;
+        }
+        return seats;
+    }
+}
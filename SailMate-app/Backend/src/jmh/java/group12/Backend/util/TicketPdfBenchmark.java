@@ -0,0 +1,67 @@
+package group12.Backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering a ticket PDF of one, six and fifty passengers with
+ * {@link TicketPDFGenerator}. The fonts and images are loaded once, so the
+ * time and allocation per page should stay flat as the page count grows.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="TicketPdf -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketPdfBenchmark {
+
+    @Param({"1", "6", "50"})
+    public int pages;
+
+    private List<TicketPDFGenerator.TicketData> tickets;
+
+    @Setup
+    public void setUp() {
+        String[] classes = {"Business", "Promo", "Economy"};
+        tickets = new ArrayList<>();
+        for (int i = 1; i <= pages; i++) {
+            TicketPDFGenerator.TicketData data = new TicketPDFGenerator.TicketData();
+            data.ticketId = "SM-" + i;
+            data.passengerName = "Passenger " + i;
+            data.date = "2025-06-01";
+            data.time = "09:30";
+            data.from = "İzmir";
+            data.to = "Çeşme";
+            data.seat = "B" + i;
+            data.gate = "3";
+            data.boardTill = "09:15";
+            data.ticketClass = classes[i % classes.length];
+            data.passengerType = "Adult";
+            tickets.add(data);
+        }
+    }
+
+    @Benchmark
+    public byte[] render() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TicketPDFGenerator.generateTicketPdfBytes(out, tickets);
+        return out.toByteArray();
+    }
+}
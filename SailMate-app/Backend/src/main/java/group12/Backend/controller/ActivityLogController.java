@@ -2,13 +2,13 @@ package group12.Backend.controller;
 
 import group12.Backend.dto.ActivityLogDTO;
 import group12.Backend.service.ActivityLogService;
-import group12.Backend.util.Authentication;
+import group12.Backend.service.ActivityLogWriter;
+import group12.Backend.util.PageCursor;
 
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,7 +23,7 @@ import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/activity-logs")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PageCursor.HEADER)
 public class ActivityLogController {
     
     private final ActivityLogService activityLogService;
@@ -33,11 +33,12 @@ public class ActivityLogController {
         this.activityLogService = activityLogService;
     }
     
-    // Get all activity logs (admin only)
+    // Get a page of all activity logs, newest first (admin only)
     @GetMapping
-    public ResponseEntity<List<ActivityLogDTO>> getAllActivityLogs(@RequestHeader("Authorization") String auth) throws Exception {
+    public ResponseEntity<List<ActivityLogDTO>> getAllActivityLogs(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   Claims claims) throws Exception {
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -48,17 +49,16 @@ public class ActivityLogController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized");
         }
         
-        return ResponseEntity.ok(activityLogService.getAllActivityLogs());
+        return activityLogService.getAllActivityLogs(cursor, limit).toResponse();
     }
     
     // Get activity log by ID
     @GetMapping("/{id}")
     public ResponseEntity<ActivityLogDTO> getActivityLogById(
             @PathVariable Integer id,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -78,10 +78,9 @@ public class ActivityLogController {
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<ActivityLogDTO>> getActivityLogsByUserId(
             @PathVariable String userId,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -105,10 +104,9 @@ public class ActivityLogController {
     public ResponseEntity<List<ActivityLogDTO>> getActivityLogsByEntity(
             @RequestParam String type,
             @RequestParam String id,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -126,10 +124,9 @@ public class ActivityLogController {
     @GetMapping("/action/{actionType}")
     public ResponseEntity<List<ActivityLogDTO>> getActivityLogsByActionType(
             @PathVariable String actionType,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -143,14 +140,13 @@ public class ActivityLogController {
         return ResponseEntity.ok(activityLogService.getActivityLogsByActionType(actionType));
     }
     
-    // Get activity logs with filters
+    // Get a page of activity logs matching the given filters, newest first
     @PostMapping("/filter")
-    public ResponseEntity<Page<ActivityLogDTO>> filterActivityLogs(
+    public ResponseEntity<List<ActivityLogDTO>> filterActivityLogs(
             @RequestBody ActivityLogDTO.ActivityLogFilterRequest filterRequest,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -161,17 +157,16 @@ public class ActivityLogController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized");
         }
         
-        return ResponseEntity.ok(activityLogService.getActivityLogsWithFilters(filterRequest));
+        return activityLogService.getActivityLogsWithFilters(filterRequest).toResponse();
     }
     
     // Create activity log
     @PostMapping
     public ResponseEntity<ActivityLogDTO> createActivityLog(
             @RequestBody ActivityLogDTO.ActivityLogCreateRequest request,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -184,10 +179,9 @@ public class ActivityLogController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> deleteActivityLog(
             @PathVariable Integer id,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -216,10 +210,9 @@ public class ActivityLogController {
     @GetMapping("/count/entity/{entityType}")
     public ResponseEntity<Map<String, Long>> getCountByEntityType(
             @PathVariable String entityType,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -241,10 +234,9 @@ public class ActivityLogController {
     @GetMapping("/count/action/{actionType}")
     public ResponseEntity<Map<String, Long>> getCountByActionType(
             @PathVariable String actionType,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -262,6 +254,24 @@ public class ActivityLogController {
         return ResponseEntity.ok(response);
     }
 
+    // Queue depth and batch write times of the background activity log writer
+    @GetMapping("/writer-stats")
+    public ResponseEntity<ActivityLogWriter.Stats> getWriterStats(Claims claims) throws Exception {
+        
+        // Authenticate user
+        if (claims == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
+        
+        // Check if user is admin or super
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if (!"admin".equalsIgnoreCase(role) && !"super".equalsIgnoreCase(role)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized");
+        }
+        
+        return ResponseEntity.ok(activityLogService.getWriterStats());
+    }
+
     @GetMapping("/count")
     public ResponseEntity<Long> getActivityLogCount() {
         return ResponseEntity.ok(activityLogService.getActivityLogCount());
@@ -64,8 +64,7 @@ public class AnnouncementController {
     
     // Create announcement
     @PostMapping
-    public ResponseEntity<AnnouncementDTO> createAnnouncement(@RequestBody AnnouncementDTO announcementDTO, @RequestHeader("Authorization") String auth) throws Exception{
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<AnnouncementDTO> createAnnouncement(@RequestBody AnnouncementDTO announcementDTO, Claims claims) throws Exception{
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -79,7 +78,7 @@ public class AnnouncementController {
             logRequest.setEntityId(created.getId().toString());
             logRequest.setDescription("Created announcement: " + created.getTitle());
             logRequest.setDescriptionTr("Duyuru oluşturuldu: " + created.getTitle());
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             // Send email notification to users with news subscription
             emailUtil.notifyAnnouncementAdded(created.getTitle());
@@ -96,9 +95,8 @@ public class AnnouncementController {
     public ResponseEntity<AnnouncementDTO> updateAnnouncement(
             @PathVariable Integer id, 
             @RequestBody AnnouncementDTO announcementDTO,
-            @RequestHeader("Authorization") String auth) throws Exception{
+            Claims claims) throws Exception{
 
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -124,7 +122,7 @@ public class AnnouncementController {
                 
                 logRequest.setDescription(description);
                 logRequest.setDescriptionTr(descriptionTr);
-                activityLogService.createActivityLog(logRequest, claims);
+                activityLogService.logActivity(logRequest, claims);
                 
                 return ResponseEntity.ok(updated);
             } else {
@@ -138,9 +136,8 @@ public class AnnouncementController {
     
     // Delete announcement
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteAnnouncement(@PathVariable Integer id, @RequestHeader("Authorization") String auth) throws Exception {
+    public ResponseEntity<Void> deleteAnnouncement(@PathVariable Integer id, Claims claims) throws Exception {
 
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -166,7 +163,7 @@ public class AnnouncementController {
                 
                 logRequest.setDescription(description);
                 logRequest.setDescriptionTr(descriptionTr);
-                activityLogService.createActivityLog(logRequest, claims);
+                activityLogService.logActivity(logRequest, claims);
                 
                 return ResponseEntity.noContent().build();
             } else {
@@ -27,11 +27,12 @@ import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api/complaints")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PageCursor.HEADER)
 public class ComplaintController {
     
     private final ComplaintService complaintService;
     private final ActivityLogService activityLogService;
+    private final ClerkUsers clerkUsers;
 
     // Static map for status translations
     private static final Map<Complaint.ComplaintStatus, String> STATUS_TRANSLATIONS = new HashMap<>();
@@ -43,19 +44,22 @@ public class ComplaintController {
     @Autowired
     private JavaMailSender emailSender;
     
-    public ComplaintController(ComplaintService complaintService, ActivityLogService activityLogService) {
+    public ComplaintController(ComplaintService complaintService, ActivityLogService activityLogService,
+                               ClerkUsers clerkUsers) {
         this.complaintService = complaintService;
         this.activityLogService = activityLogService;
+        this.clerkUsers = clerkUsers;
     }
     
     @GetMapping
-    public ResponseEntity<List<ComplaintDTO>> getAllComplaints(@RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<List<ComplaintDTO>> getAllComplaints(@RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer limit,
+                                                               Claims claims) throws Exception {
             if (claims == null)
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
             String role = (String) claims.get("meta_data", HashMap.class).get("role");
             if ("manager".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role)){
-                return ResponseEntity.ok(complaintService.getAllComplaints());
+                return complaintService.getAllComplaints(cursor, limit).toResponse();
 
             }
             else{
@@ -75,8 +79,7 @@ public class ComplaintController {
     
     @GetMapping("/status/{status}")
     public ResponseEntity<List<ComplaintDTO>> getComplaintsByStatus(
-            @PathVariable Complaint.ComplaintStatus status, @RequestHeader("Authorization") String auth) throws Exception {
-                Claims claims = Authentication.getClaims(auth);
+            @PathVariable Complaint.ComplaintStatus status, Claims claims) throws Exception {
                 if (claims == null)
                     throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
                 String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -90,8 +93,7 @@ public class ComplaintController {
     
     @PostMapping
     public ResponseEntity<ComplaintDTO> createComplaint(
-            @RequestBody ComplaintDTO.ComplaintCreateRequest request, @RequestHeader("Authorization") String auth) throws Exception {
-            Claims claims = Authentication.getClaims(auth);
+            @RequestBody ComplaintDTO.ComplaintCreateRequest request, Claims claims) throws Exception {
             if (claims == null)
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
             
@@ -104,7 +106,7 @@ public class ComplaintController {
             logRequest.setEntityId(createdComplaint.getId().toString());
             logRequest.setDescription("Created complaint: " + createdComplaint.getSubject() + " from " + createdComplaint.getSender());
             logRequest.setDescriptionTr("Şikayet oluşturuldu: " + createdComplaint.getSubject() + " gönderen: " + createdComplaint.getSender());
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             return new ResponseEntity<>(createdComplaint, HttpStatus.CREATED);
     }
@@ -113,8 +115,7 @@ public class ComplaintController {
     public ResponseEntity<ComplaintDTO> updateComplaintStatus(
             @PathVariable Integer id, 
             @RequestBody ComplaintDTO.ComplaintUpdateRequest request, 
-            @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+            Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -133,7 +134,7 @@ public class ComplaintController {
                 // Try to get the user who submitted the complaint
                 if (updatedComplaint.getUserId() != null && !updatedComplaint.getUserId().isEmpty()) {
                     try {
-                        user = ClerkUsers.getUser(updatedComplaint.getUserId());
+                        user = clerkUsers.getUser(updatedComplaint.getUserId());
                         if (user != null && user.containsKey("lan")) {
                             language = (String) user.get("lan");
                         }
@@ -217,7 +218,7 @@ public class ComplaintController {
             
             logRequest.setDescription(description.toString());
             logRequest.setDescriptionTr(descriptionTr.toString());
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             return ResponseEntity.ok(updatedComplaint);
         }
@@ -227,8 +228,7 @@ public class ComplaintController {
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteComplaint(@PathVariable Integer id, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Void> deleteComplaint(@PathVariable Integer id, Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -254,7 +254,7 @@ public class ComplaintController {
             
             logRequest.setDescription(description);
             logRequest.setDescriptionTr(descriptionTr);
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             return ResponseEntity.noContent().build();
         }
@@ -2,15 +2,23 @@ package group12.Backend.controller;
 
 import group12.Backend.dto.ActivityLogDTO;
 import group12.Backend.dto.CompletedTicketDTO;
+import group12.Backend.dto.CursorPage;
+import group12.Backend.dto.TicketSalesRow;
 import group12.Backend.service.ActivityLogService;
 import group12.Backend.service.CompletedTicketService;
-import group12.Backend.util.Authentication;
+import group12.Backend.service.TicketExportService;
+import group12.Backend.service.TicketPdfService;
 import group12.Backend.util.ClerkUsers;
+import group12.Backend.util.FileDownload;
+import group12.Backend.util.PageCursor;
 import group12.Backend.util.TicketPDFGenerator;
 import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -18,8 +26,10 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,43 +37,48 @@ import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/completed-tickets")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PageCursor.HEADER)
 public class CompletedTicketController {
 
     private final CompletedTicketService completedTicketService;
     private final ActivityLogService activityLogService;
+    private final TicketExportService ticketExportService;
+    private final TicketPdfService ticketPdfService;
 
     @Autowired
     public CompletedTicketController(CompletedTicketService completedTicketService,
-                                    ActivityLogService activityLogService) {
+                                    ActivityLogService activityLogService,
+                                    TicketExportService ticketExportService,
+                                    TicketPdfService ticketPdfService) {
         this.completedTicketService = completedTicketService;
         this.activityLogService = activityLogService;
+        this.ticketExportService = ticketExportService;
+        this.ticketPdfService = ticketPdfService;
     }
 
     /**
      * Get all completed tickets
+     * @param includePassengers whether to include the passengers of each ticket
      * @return ResponseEntity with all completed tickets
      */
     @GetMapping
-    public ResponseEntity<List<CompletedTicketDTO>> getAllCompletedTickets(@RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<List<CompletedTicketDTO>> getAllCompletedTickets(@RequestParam(required = false) String cursor,
+                                                                           @RequestParam(required = false) Integer limit,
+                                                                           @RequestParam(defaultValue = "false") boolean includePassengers,
+                                                                           Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
         if ("manager".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role)){
-            List<CompletedTicketDTO> tickets = completedTicketService.getAllCompletedTickets();
+            CursorPage<CompletedTicketDTO> tickets = completedTicketService.getAllCompletedTickets(cursor, limit, includePassengers);
             
-            // Log the activity
-            ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
-            logRequest.setActionType("READ");
-            logRequest.setEntityType("COMPLETED_TICKET");
-            logRequest.setEntityId("all");
-            logRequest.setDescription("Retrieved all completed tickets");
-            logRequest.setDescriptionTr("Tüm tamamlanmış biletler görüntülendi");
-            activityLogService.createActivityLog(logRequest, claims);
+            // One log per listing, not per page
+            if (cursor == null || cursor.isEmpty()) {
+                logRead("all", "Retrieved all completed tickets", "Tüm tamamlanmış biletler görüntülendi", claims);
+            }
             
-            return ResponseEntity.ok(tickets);
+            return tickets.toResponse();
         } else {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         }
@@ -75,8 +90,7 @@ public class CompletedTicketController {
      * @return ResponseEntity with the completed ticket
      */
     @GetMapping("/{id}")
-    public ResponseEntity<CompletedTicketDTO> getCompletedTicketById(@PathVariable Integer id, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<CompletedTicketDTO> getCompletedTicketById(@PathVariable Integer id, Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -87,14 +101,8 @@ public class CompletedTicketController {
             
             if (claims.getSubject().equals(ticketDTO.getUserId())) {
                 
-                // Log the activity
-                ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
-                logRequest.setActionType("READ");
-                logRequest.setEntityType("COMPLETED_TICKET");
-                logRequest.setEntityId(id.toString());
-                logRequest.setDescription("Retrieved completed ticket details for ticket ID: " + id);
-                logRequest.setDescriptionTr("Tamamlanmış bilet detayları görüntülendi, bilet ID: " + id);
-                activityLogService.createActivityLog(logRequest, claims);
+                logRead(id.toString(), "Retrieved completed ticket details for ticket ID: " + id,
+                        "Tamamlanmış bilet detayları görüntülendi, bilet ID: " + id, claims);
                 
                 return ResponseEntity.ok(ticketDTO);
             } else {
@@ -111,8 +119,7 @@ public class CompletedTicketController {
      * @return ResponseEntity with the completed ticket
      */
     @GetMapping("/ticket/{ticketId}")
-    public ResponseEntity<CompletedTicketDTO> getCompletedTicketByTicketId(@PathVariable String ticketId, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<CompletedTicketDTO> getCompletedTicketByTicketId(@PathVariable String ticketId, Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -123,14 +130,8 @@ public class CompletedTicketController {
             
             if ( claims.getSubject().equals(ticketDTO.getUserId())) {
                 
-                // Log the activity
-                ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
-                logRequest.setActionType("READ");
-                logRequest.setEntityType("COMPLETED_TICKET");
-                logRequest.setEntityId(ticketId);
-                logRequest.setDescription("Retrieved completed ticket details for ticket ID: " + ticketId);
-                logRequest.setDescriptionTr("Tamamlanmış bilet detayları görüntülendi, bilet ID: " + ticketId);
-                activityLogService.createActivityLog(logRequest, claims);
+                logRead(ticketId, "Retrieved completed ticket details for ticket ID: " + ticketId,
+                        "Tamamlanmış bilet detayları görüntülendi, bilet ID: " + ticketId, claims);
                 
                 return ResponseEntity.ok(ticketDTO);
             } else {
@@ -143,15 +144,16 @@ public class CompletedTicketController {
 
     /**
      * Get all completed tickets for a user
+     * @param includePassengers whether to include the passengers of each ticket
      * @return ResponseEntity with all the user's completed tickets
      */
     @GetMapping("/by-user")
-    public ResponseEntity<List<CompletedTicketDTO>> getCompletedTicketsByUser(@RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<List<CompletedTicketDTO>> getCompletedTicketsByUser(@RequestParam(defaultValue = "false") boolean includePassengers,
+                                                                              Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
-        List<CompletedTicketDTO> tickets = completedTicketService.getCompletedTicketsByUserId(claims.getSubject());
+        List<CompletedTicketDTO> tickets = completedTicketService.getCompletedTicketsByUserId(claims.getSubject(), includePassengers);
         
         return ResponseEntity.ok(tickets);
     }
@@ -159,17 +161,19 @@ public class CompletedTicketController {
     /**
      * Get all completed tickets for a voyage
      * @param voyageId The ID of the voyage
+     * @param includePassengers whether to include the passengers of each ticket
      * @return ResponseEntity with all completed tickets for the voyage
      */
     @GetMapping("/by-voyage/{voyageId}")
-    public ResponseEntity<List<CompletedTicketDTO>> getCompletedTicketsByVoyage(@PathVariable Integer voyageId, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<List<CompletedTicketDTO>> getCompletedTicketsByVoyage(@PathVariable Integer voyageId,
+                                                                                @RequestParam(defaultValue = "false") boolean includePassengers,
+                                                                                Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
         if ("admin".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role)){
-            List<CompletedTicketDTO> tickets = completedTicketService.getCompletedTicketsByVoyageId(voyageId);
+            List<CompletedTicketDTO> tickets = completedTicketService.getCompletedTicketsByVoyageId(voyageId, includePassengers);
             
             // Log the activity
             ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
@@ -178,7 +182,7 @@ public class CompletedTicketController {
             logRequest.setEntityId("voyage-" + voyageId);
             logRequest.setDescription("Retrieved all completed tickets for voyage ID: " + voyageId);
             logRequest.setDescriptionTr("Sefer ID: " + voyageId + " için tüm tamamlanmış biletler görüntülendi");
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             return ResponseEntity.ok(tickets);
         } else {
@@ -191,8 +195,7 @@ public class CompletedTicketController {
      * @return ResponseEntity with the count of completed tickets
      */
     @GetMapping("/count")
-    public ResponseEntity<Long> getCompletedTicketCount(@RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Long> getCompletedTicketCount(Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -205,42 +208,109 @@ public class CompletedTicketController {
         }
     }
 
+    /**
+     * Get the completed ticket sales of a year by month, class and route, for the manager charts
+     * @param year the year of ticket creation
+     * @return ResponseEntity with one row per month, class and route
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<List<TicketSalesRow>> getCompletedTicketSales(@RequestParam int year, Claims claims) throws Exception {
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if ("manager".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role)) {
+            return ResponseEntity.ok(completedTicketService.getSales(year));
+        } else {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
+    }
+
+    /**
+     * Export completed tickets as NDJSON or CSV. The rows are streamed to the
+     * response while they are read, so any number of tickets can be exported.
+     * @param format ndjson (default) or csv
+     * @param from first day of ticket creation, inclusive
+     * @param to last day of ticket creation, inclusive
+     * @param voyageId only tickets of this voyage
+     * @param ticketClass only tickets of this class
+     * @return the streamed export as an attachment
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCompletedTickets(@RequestParam(defaultValue = "ndjson") String format,
+                                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                        @RequestParam(required = false) Integer voyageId,
+                                                                        @RequestParam(required = false) String ticketClass,
+                                                                        Claims claims) throws Exception {
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if (!"manager".equalsIgnoreCase(role) && !"super".equalsIgnoreCase(role)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
+        
+        TicketExportService.Format exportFormat;
+        try {
+            exportFormat = TicketExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format);
+        }
+        TicketExportService.Filter filter = new TicketExportService.Filter(from, to, voyageId, ticketClass);
+        
+        // Log the activity
+        ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
+        logRequest.setActionType("READ");
+        logRequest.setEntityType("COMPLETED_TICKET");
+        logRequest.setEntityId("export");
+        logRequest.setDescription("Exported completed tickets as " + exportFormat.getExtension());
+        logRequest.setDescriptionTr("Tamamlanmış biletler " + exportFormat.getExtension() + " olarak dışa aktarıldı");
+        activityLogService.logActivity(logRequest, claims);
+        
+        // Runs on an async thread after this method returns, in its own read-only transaction
+        StreamingResponseBody body = out -> ticketExportService.exportCompletedTickets(filter, exportFormat, out);
+        
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("completed-tickets." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     /**
      * Download a completed ticket PDF
      * @param ticketId The unique ticket identifier
-     * @param auth Authorization header with JWT
-     * @return PDF file as byte array
-     * @throws Exception If the ticket is not found or PDF generation fails
+     * @param claims claims of the session token, null if not signed in
+     * @param request the request, for If-None-Match and sendfile
+     * @return the stored PDF file, 304 if the client has this version, or 404 if there is no such ticket
+     * @throws Exception If PDF generation fails
      */
     @GetMapping("/{ticketId}/download")
-    public ResponseEntity<byte[]> downloadCompletedTicket(@PathVariable String ticketId, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Resource> downloadCompletedTicket(@PathVariable String ticketId, Claims claims,
+                                                            HttpServletRequest request) throws Exception {
         
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
-        // Check if the ticket belongs to the user or if user is admin/super
-        Optional<CompletedTicketDTO> ticketOpt = completedTicketService.getCompletedTicketByTicketId(ticketId);
+        // Check if the ticket belongs to the user
+        Optional<String> owner = completedTicketService.getCompletedTicketOwner(ticketId);
         
-        if (!ticketOpt.isPresent()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Completed ticket not found with ID: " + ticketId);
+        if (!owner.isPresent()) {
+            return ResponseEntity.notFound().build();
         }
         
-        CompletedTicketDTO ticket = ticketOpt.get();
-        
-        if (!ticket.getUserId().equals(claims.getSubject())) {
+        if (!owner.get().equals(claims.getSubject())) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authorized to download this ticket");
         }
         
         try {
-            System.out.println("Downloading completed ticket: " + ticketId);
-            byte[] pdfBytes = completedTicketService.generateCompletedTicketPdfBytes(ticketId);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDisposition(ContentDisposition.inline()
-                .filename("ticket-" + ticketId + ".pdf")
-                .build());
+            Optional<TicketPdfService.StoredPdf> pdf = ticketPdfService.getCompletedTicketPdf(ticketId);
+            if (pdf.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
             
             // Log the activity
             ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
@@ -249,12 +319,23 @@ public class CompletedTicketController {
             logRequest.setEntityId(ticketId);
             logRequest.setDescription("Downloaded PDF for completed ticket ID: " + ticketId);
             logRequest.setDescriptionTr("Tamamlanmış bilet PDF'i indirildi, bilet ID: " + ticketId);
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            return FileDownload.send(request, pdf.get().file(), pdf.get().version(), MediaType.APPLICATION_PDF,
+                    ContentDisposition.inline().filename("ticket-" + ticketId + ".pdf").build());
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate completed ticket PDF: " + e.getMessage());
         }
     }
     
-}
\ No newline at end of file
+    // Log that completed tickets were read
+    private void logRead(String entityId, String description, String descriptionTr, Claims claims) {
+        ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
+        logRequest.setActionType("READ");
+        logRequest.setEntityType("COMPLETED_TICKET");
+        logRequest.setEntityId(entityId);
+        logRequest.setDescription(description);
+        logRequest.setDescriptionTr(descriptionTr);
+        activityLogService.logActivity(logRequest, claims);
+    }
+}
@@ -23,7 +23,7 @@ import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/notifications")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PageCursor.HEADER)
 public class NotificationController {
     
     private final NotificationService notificationService;
@@ -36,20 +36,20 @@ public class NotificationController {
     }
     
     
-    // Get all notifications for a user
+    // Get a page of the notifications of a user, newest first
     @GetMapping("/all")
-    public ResponseEntity<List<NotificationDTO>> getUserNotifications(@RequestHeader("Authorization") String auth) throws Exception{
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<List<NotificationDTO>> getUserNotifications(@RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer limit,
+                                                                      Claims claims) throws Exception{
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
 
-        return ResponseEntity.ok(notificationService.getUserNotifications(claims.getSubject()));
+        return notificationService.getUserNotifications(claims.getSubject(), cursor, limit).toResponse();
     }
     
     // Get only unread notifications for a user
     @GetMapping("/unread")
-    public ResponseEntity<List<NotificationDTO>> getUnreadNotifications(@RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<List<NotificationDTO>> getUnreadNotifications(Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         return ResponseEntity.ok(notificationService.getUnreadNotifications(claims.getSubject()));
@@ -65,8 +65,7 @@ public class NotificationController {
     
     // Count unread notifications
     @GetMapping("/count")
-    public ResponseEntity<Map<String, Long>> countUnreadNotifications(@RequestHeader("Authorization") String auth) throws Exception{
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Map<String, Long>> countUnreadNotifications(Claims claims) throws Exception{
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
             
@@ -92,9 +91,8 @@ public class NotificationController {
     public ResponseEntity<NotificationDTO> markNotificationRead(
             @PathVariable Integer id,
             @RequestBody NotificationDTO.NotificationMarkReadRequest requestMe,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         NotificationDTO updatedNotification = notificationService.markAsRead(id, requestMe);
@@ -108,8 +106,7 @@ public class NotificationController {
     
     // Mark all notifications as read for a user
     @PutMapping("/read-all")
-    public ResponseEntity<Map<String, Object>> markAllAsRead(@RequestHeader("Authorization") String auth) throws Exception{
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Map<String, Object>> markAllAsRead(Claims claims) throws Exception{
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -152,9 +149,8 @@ public class NotificationController {
     }
     
     @PostMapping("/broadcast")
-    public ResponseEntity<Map<String, Object>> sendBroadcastNotification(@RequestBody Map<String, String> request, @RequestHeader("Authorization") String auth) throws Exception {
+    public ResponseEntity<Map<String, Object>> sendBroadcastNotification(@RequestBody Map<String, String> request, Claims claims) throws Exception {
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -183,7 +179,7 @@ public class NotificationController {
         logRequest.setEntityId("broadcast");
         logRequest.setDescription("Sent broadcast notification: " + title);
         logRequest.setDescriptionTr("Toplu bildirim gönderildi: " + title);
-        activityLogService.createActivityLog(logRequest, claims);
+        activityLogService.logActivity(logRequest, claims);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -194,9 +190,8 @@ public class NotificationController {
     }
     
     @DeleteMapping("/broadcast/{id}")
-    public ResponseEntity<Map<String, Object>> deleteBroadcast(@PathVariable Integer id, @RequestHeader("Authorization") String auth) throws Exception {
+    public ResponseEntity<Map<String, Object>> deleteBroadcast(@PathVariable Integer id, Claims claims) throws Exception {
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -216,7 +211,7 @@ public class NotificationController {
             logRequest.setEntityId("broadcast/" + id);
             logRequest.setDescription("Deleted broadcast notification with ID: " + id);
             logRequest.setDescriptionTr("Toplu bildirim silindi, ID: " + id);
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
         }
         
         Map<String, Object> response = new HashMap<>();
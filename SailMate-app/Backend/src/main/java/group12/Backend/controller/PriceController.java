@@ -49,9 +49,8 @@ public class PriceController {
     public ResponseEntity<PriceDTO> updatePriceById(
             @PathVariable Integer id,
             @RequestBody PriceDTO priceDTO,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         try {
-            Claims claims = Authentication.getClaims(auth);
             if (claims == null)
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
             String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -99,7 +98,7 @@ public class PriceController {
                 
                 logRequest.setDescription(description.toString());
                 logRequest.setDescriptionTr(descriptionTr.toString());
-                activityLogService.createActivityLog(logRequest, claims);
+                activityLogService.logActivity(logRequest, claims);
                 
                 return new ResponseEntity<>(updatedPrice, HttpStatus.OK);
             }
@@ -115,9 +114,8 @@ public class PriceController {
     @PutMapping("/class/{className}")
     public ResponseEntity<PriceDTO> updatePriceByClassName(
             @PathVariable String className,
-            @RequestBody PriceDTO priceDTO, @RequestHeader("Authorization") String auth) throws Exception {
+            @RequestBody PriceDTO priceDTO, Claims claims) throws Exception {
         try {
-            Claims claims = Authentication.getClaims(auth);
             if (claims == null)
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
             String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -165,7 +163,7 @@ public class PriceController {
                 
                 logRequest.setDescription(description.toString());
                 logRequest.setDescriptionTr(descriptionTr.toString());
-                activityLogService.createActivityLog(logRequest, claims);
+                activityLogService.logActivity(logRequest, claims);
                 
                 return new ResponseEntity<>(updatedPrice, HttpStatus.OK);
             }
@@ -180,9 +178,8 @@ public class PriceController {
     @PostMapping("/notify-price-updates")
     public ResponseEntity<Map<String, Object>> notifyPriceUpdates(
             @RequestBody List<Map<String, Object>> priceChanges,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -1,18 +1,24 @@
 package group12.Backend.controller;
 
+import group12.Backend.dto.SeatAvailabilityDTO;
+import group12.Backend.dto.SeatReconciliationDTO;
 import group12.Backend.dto.SeatsSoldDTO;
 import group12.Backend.dto.VoyageDTO;
+import group12.Backend.service.SeatHoldService;
+import group12.Backend.service.SeatReconciliationService;
 import group12.Backend.service.SeatsSoldService;
-import group12.Backend.util.Authentication;
+import group12.Backend.service.TicketSeatService;
+import group12.Backend.util.PageCursor;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
-import group12.Backend.util.seatsOperations;
+import group12.Backend.util.SeatMap;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -22,19 +28,32 @@ import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/seats-sold")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PageCursor.HEADER)
 public class SeatsSoldController {
 
     private final SeatsSoldService seatsSoldService;
+    private final SeatHoldService seatHoldService;
+    private final TicketSeatService ticketSeatService;
+    private final SeatReconciliationService seatReconciliationService;
+
+    @Value("${seats.map.format:legacy}")
+    private String defaultSeatMapFormat;
 
     @Autowired
-    public SeatsSoldController(SeatsSoldService seatsSoldService) {
+    public SeatsSoldController(SeatsSoldService seatsSoldService, SeatHoldService seatHoldService,
+                               TicketSeatService ticketSeatService,
+                               SeatReconciliationService seatReconciliationService) {
         this.seatsSoldService = seatsSoldService;
+        this.seatHoldService = seatHoldService;
+        this.ticketSeatService = ticketSeatService;
+        this.seatReconciliationService = seatReconciliationService;
     }
 
+    // Get a page of all seats_sold records, newest first
     @GetMapping
-    public ResponseEntity<List<SeatsSoldDTO>> getAllSeatsSold() {
-        return ResponseEntity.ok(seatsSoldService.getAllSeatsSold());
+    public ResponseEntity<List<SeatsSoldDTO>> getAllSeatsSold(@RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit) {
+        return seatsSoldService.getAllSeatsSold(cursor, limit).toResponse();
     }
 
     @GetMapping("/{id}")
@@ -50,45 +69,73 @@ public class SeatsSoldController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+    @GetMapping("/voyage/{voyageId}/seat/{seatCode}")
+    public ResponseEntity<Map<String, Object>> getSeatHolder(
+            @PathVariable Integer voyageId,
+            @PathVariable String seatCode,
+            Claims claims) throws Exception {
+        
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if (!"admin".equalsIgnoreCase(role) && !"super".equalsIgnoreCase(role))
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized to look up seat holders");
+        
+        Optional<String> ticketId;
+        try {
+            ticketId = ticketSeatService.findTicketHoldingSeat(voyageId, seatCode);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("seat", seatCode);
+        response.put("sold", ticketId.isPresent());
+        response.put("ticketId", ticketId.orElse(null));
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/calculate-seats-with-voyage")
-    public ResponseEntity<List<Map<String, Object>>> calculateSeatsWithVoyage(@RequestBody Map<String, List<VoyageDTO>> requestBody) {
+    public ResponseEntity<List<Object>> calculateSeatsWithVoyage(
+            @RequestBody Map<String, List<VoyageDTO>> requestBody,
+            @RequestParam(required = false) String format) {
         List<VoyageDTO> voyages = requestBody.get("voyages");
         
         if (voyages == null || voyages.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
+        SeatMap.Format seatMapFormat = resolveFormat(format);
     
-        List<Map<String, Object>> seatInformationList = new ArrayList<>();
-        
+        // Only the IDs are needed; all seat maps are loaded with one query
+        List<Integer> voyageIds = new ArrayList<>(voyages.size());
         for (VoyageDTO voyage : voyages) {
-            // Fetch seats sold for each voyage
-            Optional<SeatsSoldDTO> seatsSoldOptional = seatsSoldService.getSeatsSoldByVoyageId(voyage.getId());
-            
-            if (seatsSoldOptional.isPresent()) {
-                // Convert SeatsSoldDTO to Map and decode
-                Map<String, Object> seatsSoldMap = convertSeatsSoldToMap(seatsSoldOptional.get());
-                Map<String, Object> decodedSeatsInfo = seatsOperations.decode(seatsSoldMap);
-                seatInformationList.add(decodedSeatsInfo);
-            }
+            voyageIds.add(voyage.getId());
+        }
+        
+        List<Object> seatInformationList = new ArrayList<>(voyages.size());
+        for (SeatMap seatMap : seatsSoldService.getSeatMaps(voyageIds).values()) {
+            seatInformationList.add(seatMap.toResponse(seatMapFormat));
         }
     
         return ResponseEntity.ok(seatInformationList);
     }
+
+    @GetMapping("/availability")
+    public ResponseEntity<List<SeatAvailabilityDTO>> getAvailability(
+            @RequestParam List<Integer> voyageIds,
+            @RequestParam(required = false) String format) {
+        SeatMap.Format seatMapFormat = format != null ? resolveFormat(format) : null;
+        return ResponseEntity.ok(seatsSoldService.getAvailability(voyageIds, seatMapFormat));
+    }
     
-    // Helper method to convert SeatsSoldDTO to Map
-    private Map<String, Object> convertSeatsSoldToMap(SeatsSoldDTO seatsSold) {
-        Map<String, Object> seatsSoldMap = new HashMap<>();
-        seatsSoldMap.put("id", seatsSold.getId());
-        seatsSoldMap.put("voyageId", seatsSold.getVoyageId());
-        seatsSoldMap.put("shipType", seatsSold.getShipType());
-        seatsSoldMap.put("upperDeckPromo", seatsSold.getUpperDeckPromo());
-        seatsSoldMap.put("upperDeckEconomy", seatsSold.getUpperDeckEconomy());
-        seatsSoldMap.put("upperDeckBusiness", seatsSold.getUpperDeckBusiness());
-        seatsSoldMap.put("lowerDeckPromo", seatsSold.getLowerDeckPromo());
-        seatsSoldMap.put("lowerDeckEconomy", seatsSold.getLowerDeckEconomy());
-        seatsSoldMap.put("lowerDeckBusiness", seatsSold.getLowerDeckBusiness());
-        
-        return seatsSoldMap;
+    // Helper method to pick the seat map format, falling back to seats.map.format
+    private SeatMap.Format resolveFormat(String format) {
+        try {
+            return SeatMap.Format.of(format != null ? format : defaultSeatMapFormat);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown seat map format: " + format);
+        }
     }
     
     // Helper method to create an empty seat list
@@ -102,9 +149,8 @@ public class SeatsSoldController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> deleteSeatsSold(
             @PathVariable Integer id,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -130,9 +176,8 @@ public class SeatsSoldController {
     @PostMapping("/initialize/{voyageId}")
     public ResponseEntity<SeatsSoldDTO> initializeForVoyage(
             @PathVariable Integer voyageId,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -149,16 +194,22 @@ public class SeatsSoldController {
     public ResponseEntity<Map<String, Object>> ticketCancelled(
             @RequestParam String ticketData,
             @RequestParam Integer voyageId,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
         if ("admin".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role)) {
 
-            seatsSoldService.updateSeatCounts(voyageId, ticketData, false);
+            boolean updated;
+            try {
+                updated = seatsSoldService.updateSeatCounts(voyageId, ticketData, false);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            if (!updated)
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Some of the seats are not sold");
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Seat counts updated successfully");
@@ -172,26 +223,131 @@ public class SeatsSoldController {
     public ResponseEntity<Map<String, Object>> ticketCreated(
         @RequestParam String ticketData,
         @RequestParam Integer voyageId,
-            @RequestHeader("Authorization") String auth) throws Exception {
+        @RequestParam(required = false) String holdToken,
+            Claims claims) throws Exception {
         
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
-            seatsSoldService.updateSeatCounts(voyageId, ticketData, true);
+            boolean updated;
+            try {
+                // Seats held during checkout become a sale; otherwise (or if the hold expired) claim them directly
+                updated = (holdToken != null && seatHoldService.convertHold(holdToken, claims.getSubject(), voyageId, ticketData))
+                        || seatsSoldService.updateSeatCounts(voyageId, ticketData, true);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            if (!updated)
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Some of the seats are already sold");
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Seat counts updated successfully");
             return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/hold")
+    public ResponseEntity<Map<String, Object>> holdSeats(
+            @RequestParam String ticketData,
+            @RequestParam Integer voyageId,
+            Claims claims) throws Exception {
+        
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        
+        Optional<SeatHoldService.SeatHold> hold;
+        try {
+            hold = seatHoldService.holdSeats(voyageId, ticketData, claims.getSubject());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (hold.isEmpty())
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Some of the seats are already sold or held");
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("holdToken", hold.get().getToken());
+        response.put("expiresAt", hold.get().getExpiresAt());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    // Pick seats for a group booking server-side and hold them; the hold token is passed on to /ticket-created
+    @PostMapping("/assign")
+    public ResponseEntity<Map<String, Object>> assignSeats(
+            @RequestParam Integer voyageId,
+            @RequestParam String seatClass,
+            @RequestParam Integer passengerCount,
+            @RequestParam(required = false) String deck,
+            Claims claims) throws Exception {
+        
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        
+        Optional<SeatHoldService.SeatHold> hold;
+        try {
+            if (seatClass.length() != 1 || (deck != null && deck.length() != 1))
+                throw new IllegalArgumentException("Seat class and deck must be a single character");
+            hold = seatHoldService.assignSeats(voyageId, Character.toUpperCase(seatClass.charAt(0)), passengerCount,
+                    deck != null ? deck.charAt(0) : 0, claims.getSubject());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (hold.isEmpty())
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Not enough free seats in this class");
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("holdToken", hold.get().getToken());
+        response.put("seats", hold.get().getSeats());
+        response.put("expiresAt", hold.get().getExpiresAt());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @DeleteMapping("/hold/{holdToken}")
+    public ResponseEntity<Void> releaseHold(
+            @PathVariable String holdToken,
+            Claims claims) throws Exception {
+        
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        
+        if (seatHoldService.releaseHold(holdToken, claims.getSubject()))
+            return ResponseEntity.noContent().build();
+        return ResponseEntity.notFound().build();
+    }
+
+    // Compare seats_sold with the seats of the tickets; with repair=true lasting discrepancies are fixed
+    @PostMapping("/reconcile")
+    public ResponseEntity<SeatReconciliationDTO> reconcileSeats(
+            @RequestParam(defaultValue = "false") boolean repair,
+            Claims claims) throws Exception {
+        
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if (!"admin".equalsIgnoreCase(role) && !"super".equalsIgnoreCase(role))
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized to reconcile seats");
+        
+        try {
+            return ResponseEntity.ok(seatReconciliationService.reconcile(repair));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
     @PostMapping("/calculate-seats")
-    public ResponseEntity<List<Map<String, Object>>> calculateSeats(@RequestBody List<Object> seatsSoldList){
-        System.out.println("Initial in controller: " + seatsSoldList);
-        List<Map<String, Object>> decodedSeatsList = new ArrayList<>();
-        for (Object seatsSold : seatsSoldList) {
-            decodedSeatsList.add(seatsOperations.decode(seatsSold));
+    public ResponseEntity<List<Object>> calculateSeats(
+            @RequestBody List<Map<String, Object>> seatsSoldList,
+            @RequestParam(required = false) String format) {
+        SeatMap.Format seatMapFormat = resolveFormat(format);
+        List<Object> decodedSeatsList = new ArrayList<>(seatsSoldList.size());
+        try {
+            for (Map<String, Object> seatsSold : seatsSoldList) {
+                decodedSeatsList.add(seatsSoldService.decodeSeatMap(seatsSold).toResponse(seatMapFormat));
+            }
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid seats sold data: " + e.getMessage());
         }
         return ResponseEntity.ok(decodedSeatsList);
     }
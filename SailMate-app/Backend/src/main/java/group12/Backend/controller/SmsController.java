@@ -1,6 +1,5 @@
 package group12.Backend.controller;
 
-import group12.Backend.util.Authentication;
 import group12.Backend.util.ClerkUsers;
 import io.jsonwebtoken.Claims;
 import java.io.OutputStream;
@@ -8,6 +7,7 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,17 +18,19 @@ import org.springframework.web.server.ResponseStatusException;
 @CrossOrigin(origins = "*")
 public class SmsController {
     
+    @Autowired
+    private ClerkUsers clerkUsers;
+    
     // Send SMS
     @PostMapping("/send")
     public ResponseEntity<String> sendSms(
             @RequestBody SmsRequest request,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         try {
-            Claims claims = Authentication.getClaims(auth);
             if (claims == null)
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
 
-            HashMap<String, Object> user = ClerkUsers.getUser(claims.getSubject());
+            HashMap<String, Object> user = clerkUsers.getUser(claims.getSubject());
             if(user == null || user.isEmpty())
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found");
             
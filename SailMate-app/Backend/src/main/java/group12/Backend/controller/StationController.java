@@ -113,8 +113,7 @@ public class StationController {
     }
     
     @PostMapping
-    public ResponseEntity<Station> createStation(@RequestBody StationDTO stationDTO, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Station> createStation(@RequestBody StationDTO stationDTO, Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -129,7 +128,7 @@ public class StationController {
             logRequest.setEntityId(savedStation.getId().toString());
             logRequest.setDescription("Created station: " + savedStation.getTitle() + " in " + savedStation.getCity());
             logRequest.setDescriptionTr("İstasyon oluşturuldu: " + savedStation.getTitle() + ", " + savedStation.getCity() + " şehrinde");
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             // Send email notification to users with news subscription
             emailUtil.notifyStationCreated(savedStation.getTitle(), savedStation.getCity());
@@ -142,8 +141,7 @@ public class StationController {
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteStation(@PathVariable Integer id, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Void> deleteStation(@PathVariable Integer id, Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -172,7 +170,7 @@ public class StationController {
             logRequest.setEntityId(id.toString());
             logRequest.setDescription("Deleted station: " + stationTitle + " in " + stationCity);
             logRequest.setDescriptionTr("İstasyon silindi: " + stationTitle + ", " + stationCity + " şehrinde");
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             // Send email notification to users with news subscription
             emailUtil.notifyStationDeleted(stationTitle, stationCity);
@@ -187,9 +185,8 @@ public class StationController {
     @PutMapping("/{id}")
     public ResponseEntity<Station> updateStation(
             @PathVariable Integer id,
-            @RequestBody StationDTO stationDTO, @RequestHeader("Authorization") String auth) throws Exception {
+            @RequestBody StationDTO stationDTO, Claims claims) throws Exception {
 
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -252,7 +249,7 @@ public class StationController {
             
             logRequest.setDescription(descriptionBuilder.toString());
             logRequest.setDescriptionTr(descriptionTrBuilder.toString());
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             return ResponseEntity.ok(updatedStation);
         }
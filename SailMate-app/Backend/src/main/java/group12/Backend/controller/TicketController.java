@@ -5,26 +5,33 @@ import com.fasterxml.jackson.core.json.ByteSourceJsonBootstrapper;
 
 import group12.Backend.dto.ActivityLogDTO;
 import group12.Backend.dto.TicketDTO;
+import group12.Backend.dto.TicketSalesRow;
 import group12.Backend.service.ActivityLogService;
+import group12.Backend.service.OutboxService;
+import group12.Backend.service.TicketExportService;
+import group12.Backend.service.TicketPdfService;
 import group12.Backend.service.TicketService;
-import group12.Backend.service.VoyageService;
-import group12.Backend.entity.Voyage;
-import group12.Backend.util.Authentication;
 import group12.Backend.util.ClerkUsers;
+import group12.Backend.util.FileDownload;
+import group12.Backend.util.PageCursor;
 import io.jsonwebtoken.Claims;
 import jakarta.mail.internet.MimeMessage;
+import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,53 +42,74 @@ import org.springframework.http.MediaType;
 
 @RestController
 @RequestMapping("/api/tickets")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PageCursor.HEADER)
 public class TicketController {
     
     private final TicketService ticketService;
-    private final VoyageService voyageService;
     private final ActivityLogService activityLogService;
+    private final OutboxService outboxService;
+    private final TicketExportService ticketExportService;
+    private final TicketPdfService ticketPdfService;
+    private final ClerkUsers clerkUsers;
 
     @Autowired
     private JavaMailSender emailSender;
 
     @Autowired
-    public TicketController(TicketService ticketService, VoyageService voyageService, ActivityLogService activityLogService) {
+    public TicketController(TicketService ticketService, ActivityLogService activityLogService,
+                            OutboxService outboxService, TicketExportService ticketExportService,
+                            TicketPdfService ticketPdfService, ClerkUsers clerkUsers) {
         this.ticketService = ticketService;
-        this.voyageService = voyageService;
         this.activityLogService = activityLogService;
+        this.outboxService = outboxService;
+        this.ticketExportService = ticketExportService;
+        this.ticketPdfService = ticketPdfService;
+        this.clerkUsers = clerkUsers;
     }
 
     /**
-     * Get all tickets
-     * @return ResponseEntity with all tickets
+     * Get a page of all tickets, newest first
+     * @param cursor the cursor from the X-Next-Cursor header of the previous page, omitted for the first page
+     * @param limit the page size, capped at {@link PageCursor#MAX_LIMIT}
+     * @param includePassengers whether to include the passengers of each ticket
+     * @return ResponseEntity with the tickets of the page
      */
     @GetMapping
-    public ResponseEntity<List<TicketDTO.TicketResponse>> getAllTickets(@RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<List<TicketDTO.TicketResponse>> getAllTickets(@RequestParam(required = false) String cursor,
+                                                                        @RequestParam(required = false) Integer limit,
+                                                                        @RequestParam(defaultValue = "false") boolean includePassengers,
+                                                                        Claims claims) throws Exception {
         
-        List<TicketDTO.TicketResponse> tickets = ticketService.getAllTickets();
+        return ticketService.getAllTickets(cursor, limit, includePassengers).toResponse();
+    }
+
+    /**
+     * Get the ticket sales of a year by month, class and route, for the manager charts
+     * @param year the year of ticket creation
+     * @return ResponseEntity with one row per month, class and route
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<List<TicketSalesRow>> getTicketSales(@RequestParam int year, Claims claims) throws Exception {
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
-        return ResponseEntity.ok(tickets);
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if (!"manager".equalsIgnoreCase(role) && !"super".equalsIgnoreCase(role)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
+        
+        return ResponseEntity.ok(ticketService.getSales(year));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<TicketDTO.TicketResponse> getTicketById(@PathVariable Integer id, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<TicketDTO.TicketResponse> getTicketById(@PathVariable Integer id, Claims claims) throws Exception {
         
         Optional<TicketDTO.TicketResponse> ticket = ticketService.getTicketById(id);
         
         if (ticket.isPresent()) {
+            // Voyage and station details are loaded with the ticket
             TicketDTO.TicketResponse ticketResponse = ticket.get();
             
-            // Try to enrich with voyage information
-            try {
-                enrichTicketWithVoyageInfo(ticketResponse);
-            } catch (Exception e) {
-                // Log the error but still return the basic ticket
-                System.err.println("Error enriching ticket with voyage info: " + e.getMessage());
-            }
-            
             // Log the activity
             ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
             logRequest.setActionType("READ");
@@ -89,7 +117,7 @@ public class TicketController {
             logRequest.setEntityId(id.toString());
             logRequest.setDescription("Retrieved ticket details for ticket ID: " + id);
             logRequest.setDescriptionTr("Bilet detayları görüntülendi, bilet ID: " + id);
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             return ResponseEntity.ok(ticketResponse);
         } else {
@@ -98,27 +126,17 @@ public class TicketController {
     }
 
     @GetMapping("/by-user")
-    public ResponseEntity<List<TicketDTO.TicketResponse>> getTicketsByUserId(@RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<List<TicketDTO.TicketResponse>> getTicketsByUserId(@RequestParam(defaultValue = "false") boolean includePassengers,
+                                                                             Claims claims) throws Exception {
         
-        List<TicketDTO.TicketResponse> tickets = ticketService.getTicketsByUserId(claims.getSubject());
-        
-        // Try to enrich each ticket with voyage information
-        for (TicketDTO.TicketResponse ticket : tickets) {
-            try {
-                enrichTicketWithVoyageInfo(ticket);
-            } catch (Exception e) {
-                // Log the error but continue with the next ticket
-                System.err.println("Error enriching ticket with voyage info: " + e.getMessage());
-            }
-        }
+        // Voyage and station details are loaded with the tickets in one query
+        List<TicketDTO.TicketResponse> tickets = ticketService.getTicketsByUserId(claims.getSubject(), includePassengers);
         
         return ResponseEntity.ok(tickets);
     }
 
     @GetMapping("/ticketID/{ticketID}")
-    public ResponseEntity<TicketDTO.TicketResponse> getTicketByTicketID(@PathVariable String ticketID, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<TicketDTO.TicketResponse> getTicketByTicketID(@PathVariable String ticketID, Claims claims) throws Exception {
         if(claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authorized");
         
@@ -127,23 +145,18 @@ public class TicketController {
         if (ticket.isPresent()) {
             TicketDTO.TicketResponse ticketResponse = ticket.get();
             if(ticketResponse.getUserId().equals(claims.getSubject())){
-                try {
-                    enrichTicketWithVoyageInfo(ticketResponse);
-                    ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
-                    logRequest.setActionType("READ");
-                    logRequest.setEntityType("TICKET");
-                    logRequest.setEntityId(ticketID);
-                    logRequest.setDescription("Retrieved ticket details for ticket ID: " + ticketID);
-                    logRequest.setDescriptionTr("Bilet detayları görüntülendi, bilet ID: " + ticketID);
-                    activityLogService.createActivityLog(logRequest, claims);
-                    return ResponseEntity.ok(ticketResponse);
-                    
-                } catch (Exception e) {
-                    // Log the error but still return the basic ticket
-                    System.err.println("Error enriching ticket with voyage info: " + e.getMessage());
+                // A ticket whose voyage no longer exists is treated as not found
+                if (ticketResponse.getVoyageId() != null && ticketResponse.getDepartureDate() == null) {
                     return ResponseEntity.notFound().build();
                 }
-
+                ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
+                logRequest.setActionType("READ");
+                logRequest.setEntityType("TICKET");
+                logRequest.setEntityId(ticketID);
+                logRequest.setDescription("Retrieved ticket details for ticket ID: " + ticketID);
+                logRequest.setDescriptionTr("Bilet detayları görüntülendi, bilet ID: " + ticketID);
+                activityLogService.logActivity(logRequest, claims);
+                return ResponseEntity.ok(ticketResponse);
             }
             else{
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authorized");
@@ -153,82 +166,58 @@ public class TicketController {
             return ResponseEntity.notFound().build();
         }
     }
+    // Sends the stored PDF without loading the ticket; it is only rendered here if the outbox has not rendered the ticket yet
     @GetMapping("/{ticketId}/download")
-    public ResponseEntity<byte[]> downloadTicket(@PathVariable String ticketId, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Resource> downloadTicket(@PathVariable String ticketId, Claims claims,
+                                                   HttpServletRequest request) throws Exception {
         
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         try {
-            System.out.println(ticketId);
-            byte[] pdfBytes = ticketService.generateTicketPdfBytes(ticketId);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDisposition(ContentDisposition.inline()
-                .filename("ticket-" + ticketId + ".pdf")
-                .build());
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            Optional<TicketPdfService.StoredPdf> pdf = ticketPdfService.getTicketPdf(ticketId);
+            if (pdf.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return FileDownload.send(request, pdf.get().file(), pdf.get().version(), MediaType.APPLICATION_PDF,
+                    ContentDisposition.inline().filename("ticket-" + ticketId + ".pdf").build());
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate ticket PDF: " + e.getMessage());
         }
     }
     @PostMapping
-    public ResponseEntity<?> createTicket(@RequestBody TicketDTO.TicketRequest ticketRequest, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<?> createTicket(@RequestBody TicketDTO.TicketRequest ticketRequest, Claims claims) throws Exception {
         if(claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authorized");
 
         try {
-            TicketDTO.TicketResponse createdTicket = ticketService.createTicket(ticketRequest);
-            
-            // Prepare voyage details for logging
-            String voyageDetails = "";
-            String voyageDetailsTr = "";
-            try {
-                Voyage voyage = voyageService.getVoyageEntityById(ticketRequest.getVoyageId()).orElse(null);
-                if (voyage != null) {
-                    voyageDetails = String.format(" for voyage from %s to %s on %s", 
-                        voyage.getFromStation().getTitle(),
-                        voyage.getToStation().getTitle(),
-                        voyage.getDepartureDate()
-                    );
-                    voyageDetailsTr = String.format(" %s - %s seferi için, tarih: %s", 
-                        voyage.getFromStation().getTitle(),
-                        voyage.getToStation().getTitle(),
-                        voyage.getDepartureDate()
-                    );
-                }
-            } catch (Exception e) {
-                // If voyage details can't be fetched, continue without them
-            }
-            
-            // Log the activity
-            ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
-            logRequest.setActionType("CREATE");
-            logRequest.setEntityType("TICKET");
-            logRequest.setEntityId(createdTicket.getTicketID());
-            
-            String description = String.format(
-                "Created ticket %s%s for %d passenger(s), class: %s", 
-                createdTicket.getTicketID(),
-                voyageDetails,
-                ticketRequest.getPassengerCount(),
-                ticketRequest.getTicketClass()
-            );
-            
-            String descriptionTr = String.format(
-                "Bilet oluşturuldu: %s%s, %d yolcu için, sınıf: %s", 
-                createdTicket.getTicketID(),
-                voyageDetailsTr,
-                ticketRequest.getPassengerCount(),
-                ticketRequest.getTicketClass()
-            );
-            
-            logRequest.setDescription(description);
-            logRequest.setDescriptionTr(descriptionTr);
-            activityLogService.createActivityLog(logRequest, claims);
-            
+            TicketDTO.TicketResponse createdTicket = ticketService.createTicket(ticketRequest, claims);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdTicket);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error processing passenger data: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error creating ticket: " + e.getMessage());
+        }
+    }
+
+    // Claim the seats and create the ticket in one transaction; replaces POST /api/tickets + /api/seats-sold/ticket-created
+    @PostMapping("/book")
+    public ResponseEntity<?> bookTicket(@RequestBody TicketDTO.TicketRequest ticketRequest,
+                                        @RequestParam(required = false) String holdToken,
+                                        Claims claims) throws Exception {
+        if(claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authorized");
+
+        try {
+            TicketDTO.TicketResponse createdTicket = ticketService.bookTicket(ticketRequest, holdToken, claims);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdTicket);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (JsonProcessingException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Error processing passenger data: " + e.getMessage());
@@ -239,69 +228,19 @@ public class TicketController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateTicket(@PathVariable Integer id, @RequestBody TicketDTO.TicketUpdateRequest updateRequest, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<?> updateTicket(@PathVariable Integer id, @RequestBody TicketDTO.TicketUpdateRequest updateRequest, Claims claims) throws Exception {
         
+        if(claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authorized");
+
         try {
-            // Get original ticket for comparison (for logging)
-            Optional<TicketDTO.TicketResponse> originalTicket = ticketService.getTicketById(id);
-            String originalTicketClass = originalTicket.isPresent() ? originalTicket.get().getTicketClass() : "unknown";
-            String ticketID = originalTicket.isPresent() ? originalTicket.get().getTicketID() : String.valueOf(id);
-            
-            Optional<TicketDTO.TicketResponse> updatedTicket = ticketService.updateTicket(id, updateRequest);
-            
-            if (updatedTicket.isPresent()) {
-                // Log what changed
-                StringBuilder changes = new StringBuilder();
-                StringBuilder changesTr = new StringBuilder();
-                
-                if (updateRequest.getTicketClass() != null && !updateRequest.getTicketClass().equals(originalTicketClass)) {
-                    changes.append(String.format("class changed from %s to %s", originalTicketClass, updateRequest.getTicketClass()));
-                    changesTr.append(String.format("sınıf %s'dan %s'a değiştirildi", originalTicketClass, updateRequest.getTicketClass()));
-                }
-                
-                if (updateRequest.getPassengerCount() != null && originalTicket.isPresent() && 
-                    !updateRequest.getPassengerCount().equals(originalTicket.get().getPassengerCount())) {
-                    if (changes.length() > 0) changes.append(", ");
-                    if (changesTr.length() > 0) changesTr.append(", ");
-                    
-                    changes.append(String.format("passenger count changed from %d to %d", 
-                        originalTicket.get().getPassengerCount(), updateRequest.getPassengerCount()));
-                    changesTr.append(String.format("yolcu sayısı %d'dan %d'a değiştirildi", 
-                        originalTicket.get().getPassengerCount(), updateRequest.getPassengerCount()));
-                }
-                
-                if (updateRequest.getSelectedSeats() != null && originalTicket.isPresent() && 
-                    !updateRequest.getSelectedSeats().equals(originalTicket.get().getSelectedSeats())) {
-                    if (changes.length() > 0) changes.append(", ");
-                    if (changesTr.length() > 0) changesTr.append(", ");
-                    
-                    changes.append(String.format("seats changed from %s to %s", 
-                        originalTicket.get().getSelectedSeats(), updateRequest.getSelectedSeats()));
-                    changesTr.append(String.format("koltuklar %s'dan %s'a değiştirildi", 
-                        originalTicket.get().getSelectedSeats(), updateRequest.getSelectedSeats()));
-                }
-                
-                String description = String.format("Updated ticket %s", ticketID);
-                String descriptionTr = String.format("Bilet güncellendi %s", ticketID);
-                
-                if (changes.length() > 0) {
-                    description += " (" + changes.toString() + ")";
-                    descriptionTr += " (" + changesTr.toString() + ")";
-                }
-                
-                // Log the activity
-                ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
-                logRequest.setActionType("UPDATE");
-                logRequest.setEntityType("TICKET");
-                logRequest.setEntityId(ticketID);
-                logRequest.setDescription(description);
-                logRequest.setDescriptionTr(descriptionTr);
-                activityLogService.createActivityLog(logRequest, claims);
-            }
+            // The activity log is queued with the update
+            Optional<TicketDTO.TicketResponse> updatedTicket = ticketService.updateTicket(id, updateRequest, claims);
             
             return updatedTicket.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (JsonProcessingException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Error processing passenger data: " + e.getMessage());
@@ -312,224 +251,21 @@ public class TicketController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTicket(@PathVariable Integer id, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Void> deleteTicket(@PathVariable Integer id, Claims claims) throws Exception {
         
         if(claims == null){
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authorized");
         }
-        // Get ticket details for the log before deletion
-        Optional<TicketDTO.TicketResponse> ticketToDelete = ticketService.getTicketById(id);
-
-        String ticketID = ticketToDelete.isPresent() ? ticketToDelete.get().getTicketID() : String.valueOf(id);
-
-        HashMap<String, Object> user = ClerkUsers.getUser(claims.getSubject());
-        
-        // Get user's language preference, default to English if not specified
-        String language = user.containsKey("lan") ? (String) user.get("lan") : "en";
-        
-        boolean deleted = ticketService.deleteTicket(id);
-        
-        if (deleted) {
-            // Build the description for the log
-            StringBuilder description = new StringBuilder("Deleted ticket " + ticketID);
-            StringBuilder descriptionTr = new StringBuilder("Bilet silindi " + ticketID);
-            
-            // Add voyage details if available
-            if (ticketToDelete.isPresent() && ticketToDelete.get().getVoyageId() != null) {
-                try {
-                    TicketDTO.TicketResponse ticket = ticketToDelete.get();
-                    enrichTicketWithVoyageInfo(ticket);
-                    
-                    description.append(String.format(" for voyage from %s to %s on %s", 
-                        ticket.getFromStationTitle(),
-                        ticket.getToStationTitle(),
-                        ticket.getDepartureDate()
-                    ));
-                    
-                    descriptionTr.append(String.format(", %s - %s seferi için, tarih: %s", 
-                        ticket.getFromStationTitle(),
-                        ticket.getToStationTitle(),
-                        ticket.getDepartureDate()
-                    ));
-                    
-                    // Send email notification about ticket cancellation
-                    try {
-                        SimpleMailMessage message = new SimpleMailMessage();
-                        message.setFrom("sailmatesup@gmail.com");
-                        message.setTo((String) user.get("email"));
-                        
-                        if ("tr".equals(language)) {
-                            // Turkish email
-                            message.setSubject("SailMate Bilet İptali - İade Onayı");
-                            message.setText("Sayın " + user.get("full_name") + ",\n\n" +
-                                    "Bilet no #" + ticketID + " başarıyla iptal edilmiştir.\n\n" +
-                                    "Sefer Detayları:\n" +
-                                    "Nereden: " + ticket.getFromStationTitle() + "\n" +
-                                    "Nereye: " + ticket.getToStationTitle() + "\n" +
-                                    "Kalkış Tarihi: " + ticket.getDepartureDate() + "\n" +
-                                    "Yolcu Sayısı: " + ticket.getPassengerCount() + "\n" +
-                                    "Koltuk Sınıfı: " + ticket.getTicketClass() + "\n" +
-                                    "Seçilen Koltuklar: " + ticket.getSelectedSeats() + "\n\n" +
-                                    "Bilet tutarının tamamı için iade işlemi başlatılmıştır ve orijinal ödeme yönteminize göre işleme alınacaktır. " +
-                                    "İade, bankanızın işlem süresine bağlı olarak 5-7 iş günü içinde hesabınızda görünmelidir.\n\n" +
-                                    "İadenizle ilgili herhangi bir sorunuz varsa veya daha fazla yardıma ihtiyacınız olursa, lütfen destek ekibimizle iletişime geçin.\n\n" +
-                                    "Feribot seyahat ihtiyaçlarınız için SailMate'i tercih ettiğiniz için teşekkür ederiz.\n\n" +
-                                    "İyi yolculuklar,\n" +
-                                    "SailMate Ekibi");
-                        } else {
-                            // English email (default)
-                            message.setSubject("SailMate Ticket Cancellation - Refund Confirmation");
-                            message.setText("Dear " + user.get("full_name")+",\n\n" +
-                                    "Your ticket #" + ticketID + " has been successfully cancelled.\n\n" +
-                                    "Voyage Details:\n" +
-                                    "From: " + ticket.getFromStationTitle() + "\n" +
-                                    "To: " + ticket.getToStationTitle() + "\n" +
-                                    "Departure Date: " + ticket.getDepartureDate() + "\n" +
-                                    "Passenger Count: " + ticket.getPassengerCount() + "\n" +
-                                    "Seat Class: " + ticket.getTicketClass() + "\n" +
-                                    "Selected Seats: " + ticket.getSelectedSeats() + "\n\n" +
-                                    "A refund has been initiated for the full ticket amount and will be processed according to your original payment method. " +
-                                    "The refund should appear in your account within 5-7 business days, depending on your bank's processing time.\n\n" +
-                                    "If you have any questions regarding your refund or need further assistance, please contact our support team.\n\n" +
-                                    "Thank you for choosing SailMate for your ferry travel needs.\n\n" +
-                                    "Smooth sailing,\n" +
-                                    "The SailMate Team");
-                        }
-                        
-                        emailSender.send(message);
-                        System.out.println("Cancellation email sent successfully to: " + (String) user.get("email"));
-                    } catch (Exception e) {
-                        // Log the error but don't fail the request
-                        System.err.println("Failed to send cancellation email: " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                } catch (Exception e) {
-                    // If enrichment fails, continue without voyage details
-                    // Still try to send a basic cancellation email
-                    try {
-                        SimpleMailMessage message = new SimpleMailMessage();
-                        message.setFrom("sailmatesup@gmail.com");
-                        message.setTo((String) user.get("email"));
-                        
-                        if ("tr".equals(language)) {
-                            // Basic Turkish email
-                            message.setSubject("SailMate Bilet İptali - İade Onayı");
-                            message.setText("Sayın " + user.get("full_name") + ",\n\n" +
-                                    "Bilet no #" + ticketID + " başarıyla iptal edilmiştir.\n\n" +
-                                    "Bilet tutarının tamamı için iade işlemi başlatılmıştır ve orijinal ödeme yönteminize göre işleme alınacaktır. " +
-                                    "İade, bankanızın işlem süresine bağlı olarak 5-7 iş günü içinde hesabınızda görünmelidir.\n\n" +
-                                    "İadenizle ilgili herhangi bir sorunuz varsa veya daha fazla yardıma ihtiyacınız olursa, lütfen destek ekibimizle iletişime geçin.\n\n" +
-                                    "Feribot seyahat ihtiyaçlarınız için SailMate'i tercih ettiğiniz için teşekkür ederiz.\n\n" +
-                                    "İyi yolculuklar,\n" +
-                                    "SailMate Ekibi");
-                        } else {
-                            // Basic English email (default)
-                            message.setSubject("SailMate Ticket Cancellation - Refund Confirmation");
-                            message.setText("Dear " + user.get("full_name")+",\n\n" +
-                                    "Your ticket #" + ticketID + " has been successfully cancelled.\n\n" +
-                                    "A refund has been initiated for the full ticket amount and will be processed according to your original payment method. " +
-                                    "The refund should appear in your account within 5-7 business days, depending on your bank's processing time.\n\n" +
-                                    "If you have any questions regarding your refund or need further assistance, please contact our support team.\n\n" +
-                                    "Thank you for choosing SailMate for your ferry travel needs.\n\n" +
-                                    "Smooth sailing,\n" +
-                                    "The SailMate Team");
-                        }
-                        
-                        emailSender.send(message);
-                        System.out.println("Basic cancellation email sent successfully to: " + (String) user.get("email"));
-                    } catch (Exception mailEx) {
-                        System.err.println("Failed to send basic cancellation email: " + mailEx.getMessage());
-                        mailEx.printStackTrace();
-                    }
-                }
-            } else {
-                // Send a basic cancellation email if ticket details aren't available
-                try {
-                    SimpleMailMessage message = new SimpleMailMessage();
-                    message.setFrom("sailmatesup@gmail.com");
-                    message.setTo((String) user.get("email"));
-                    
-                    if ("tr".equals(language)) {
-                        // Basic Turkish email
-                        message.setSubject("SailMate Bilet İptali - İade Onayı");
-                        message.setText("Sayın " + user.get("full_name") + ",\n\n" +
-                                "Bilet no #" + ticketID + " başarıyla iptal edilmiştir.\n\n" +
-                                "Bilet tutarının tamamı için iade işlemi başlatılmıştır ve orijinal ödeme yönteminize göre işleme alınacaktır. " +
-                                "İade, bankanızın işlem süresine bağlı olarak 5-7 iş günü içinde hesabınızda görünmelidir.\n\n" +
-                                "İadenizle ilgili herhangi bir sorunuz varsa veya daha fazla yardıma ihtiyacınız olursa, lütfen destek ekibimizle iletişime geçin.\n\n" +
-                                "Feribot seyahat ihtiyaçlarınız için SailMate'i tercih ettiğiniz için teşekkür ederiz.\n\n" +
-                                "İyi yolculuklar,\n" +
-                                "SailMate Ekibi");
-                    } else {
-                        // Basic English email (default)
-                        message.setSubject("SailMate Ticket Cancellation - Refund Confirmation");
-                        message.setText("Dear " + user.get("full_name")+",\n\n" +
-                                "Your ticket #" + ticketID + " has been successfully cancelled.\n\n" +
-                                "A refund has been initiated for the full ticket amount and will be processed according to your original payment method. " +
-                                "The refund should appear in your account within 5-7 business days, depending on your bank's processing time.\n\n" +
-                                "If you have any questions regarding your refund or need further assistance, please contact our support team.\n\n" +
-                                "Thank you for choosing SailMate for your ferry travel needs.\n\n" +
-                                "Smooth sailing,\n" +
-                                "The SailMate Team");
-                    }
-                    
-                    emailSender.send(message);
-                    System.out.println("Basic cancellation email sent successfully to: " + (String) user.get("email"));
-                } catch (Exception e) {
-                    System.err.println("Failed to send basic cancellation email: " + e.getMessage());
-                    e.printStackTrace();
-                }
-            }
-            
-            // Log the activity
-            ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
-            logRequest.setActionType("DELETE");
-            logRequest.setEntityType("TICKET");
-            logRequest.setEntityId(ticketID);
-            logRequest.setDescription(description.toString());
-            logRequest.setDescriptionTr(descriptionTr.toString());
-            activityLogService.createActivityLog(logRequest, claims);
-            
+        // The cancellation email and activity log are queued with the deletion
+        if (ticketService.deleteTicket(id, claims)) {
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
         }
     }
     
-    private void enrichTicketWithVoyageInfo(TicketDTO.TicketResponse ticket) {
-        if (ticket.getVoyageId() != null) {
-            // Get voyage data
-            try {
-                // Get voyage information by ID
-                Voyage voyage = voyageService.getVoyageEntityById(ticket.getVoyageId())
-                    .orElseThrow(() -> new RuntimeException("Voyage not found with id: " + ticket.getVoyageId()));
-                if (voyage != null) {
-                    // Extract station information and add it to the ticket
-                    if (voyage.getFromStation() != null) {
-                        ticket.setFromStationCity(voyage.getFromStation().getCity());
-                        ticket.setFromStationTitle(voyage.getFromStation().getTitle());
-                    }
-                    
-                    if (voyage.getToStation() != null) {
-                        ticket.setToStationCity(voyage.getToStation().getCity());
-                        ticket.setToStationTitle(voyage.getToStation().getTitle());
-                    }
-                    
-                    // Add departure and arrival times
-                    ticket.setDepartureDate(voyage.getDepartureDate());
-                    ticket.setDepartureTime(voyage.getDepartureTime());
-                    ticket.setArrivalTime(voyage.getArrivalTime());
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("Error fetching voyage information: " + e.getMessage(), e);
-            }
-        }
-    }
-
     @GetMapping("/count")
-    public ResponseEntity<Long> getTicketCount(@RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Long> getTicketCount(Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -541,10 +277,63 @@ public class TicketController {
         }
     }
 
+    /**
+     * Export tickets as NDJSON or CSV. The rows are streamed to the
+     * response while they are read, so any number of tickets can be exported.
+     * @param format ndjson (default) or csv
+     * @param from first day of ticket creation, inclusive
+     * @param to last day of ticket creation, inclusive
+     * @param voyageId only tickets of this voyage
+     * @param ticketClass only tickets of this class
+     * @return the streamed export as an attachment
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTickets(@RequestParam(defaultValue = "ndjson") String format,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                               @RequestParam(required = false) Integer voyageId,
+                                                               @RequestParam(required = false) String ticketClass,
+                                                               Claims claims) throws Exception {
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if (!"manager".equalsIgnoreCase(role) && !"super".equalsIgnoreCase(role)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
+        
+        TicketExportService.Format exportFormat;
+        try {
+            exportFormat = TicketExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format);
+        }
+        TicketExportService.Filter filter = new TicketExportService.Filter(from, to, voyageId, ticketClass);
+        
+        // Log the activity
+        ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
+        logRequest.setActionType("READ");
+        logRequest.setEntityType("TICKET");
+        logRequest.setEntityId("export");
+        logRequest.setDescription("Exported tickets as " + exportFormat.getExtension());
+        logRequest.setDescriptionTr("Biletler " + exportFormat.getExtension() + " olarak dışa aktarıldı");
+        activityLogService.logActivity(logRequest, claims);
+        
+        // Runs on an async thread after this method returns, in its own read-only transaction
+        StreamingResponseBody body = out -> ticketExportService.exportTickets(filter, exportFormat, out);
+        
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("tickets." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @PostMapping("/send-email")
-    public ResponseEntity<?> sendTicketEmail(@RequestBody Map<String, Object> ticketInfo, @RequestHeader("Authorization") String auth) throws Exception {
+    public ResponseEntity<?> sendTicketEmail(@RequestBody Map<String, Object> ticketInfo, Claims claims) throws Exception {
         try {
-            Claims claims = Authentication.getClaims(auth);     
             if (claims == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid authentication token");
             }
@@ -555,7 +344,7 @@ public class TicketController {
             if (userId == null || userId.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User ID not found in token");
             }
-            HashMap<String, Object> user = ClerkUsers.getUser(claims.getSubject());
+            HashMap<String, Object> user = clerkUsers.getUser(claims.getSubject());
             if(user == null)
                 return ResponseEntity.badRequest().body("User not found");
             
@@ -614,12 +403,9 @@ public class TicketController {
                 throw new Exception("Could not find ticket with ID: " + ticketId);
             }
             
+            // The ticket comes with the necessary info from the voyage
             TicketDTO.TicketResponse ticket = ticketOpt.get();
             
-            // Enrich the ticket with voyage information 
-            enrichTicketWithVoyageInfo(ticket);
-            
-            // Now the ticket should contain all the necessary info from the voyage
             Integer voyageId = ticket.getVoyageId();
             String fromStation = ticket.getFromStationTitle() != null ? ticket.getFromStationTitle() : "N/A";
             String toStation = ticket.getToStationTitle() != null ? ticket.getToStationTitle() : "N/A";
@@ -686,9 +472,8 @@ public class TicketController {
             helper.setSubject(emailSubject);
             helper.setText(emailContent);
             
-            // Generate and attach the PDF ticket
-            byte[] pdfBytes = ticketService.generateTicketPdfBytes(ticketId);
-            helper.addAttachment("ticket-" + ticketId + ".pdf", new ByteArrayResource(pdfBytes));
+            // Attach the stored PDF ticket
+            helper.addAttachment("ticket-" + ticketId + ".pdf", storedPdf(ticketId));
             
             emailSender.send(message);
             System.out.println("One-way ticket confirmation email with PDF sent to: " + (String) user.get("email"));
@@ -716,10 +501,6 @@ public class TicketController {
             TicketDTO.TicketResponse depTicket = depTicketOpt.get();
             TicketDTO.TicketResponse retTicket = retTicketOpt.get();
             
-            // Enrich tickets with voyage information
-            enrichTicketWithVoyageInfo(depTicket);
-            enrichTicketWithVoyageInfo(retTicket);
-            
             // Extract departure ticket details
             String depFromStation = depTicket.getFromStationTitle() != null ? depTicket.getFromStationTitle() : "N/A";
             String depToStation = depTicket.getToStationTitle() != null ? depTicket.getToStationTitle() : "N/A";
@@ -816,18 +597,16 @@ public class TicketController {
             helper.setSubject(emailSubject);
             helper.setText(emailContent);
             
-            // Generate and attach the PDF tickets
-            byte[] departurePdfBytes = ticketService.generateTicketPdfBytes(depTicketId);
+            // Attach the stored PDF tickets
             String departureAttachmentName = language.equals("tr") ? 
                 "gidis-bileti-" + depTicketId + ".pdf" : 
                 "outbound-ticket-" + depTicketId + ".pdf";
-            helper.addAttachment(departureAttachmentName, new ByteArrayResource(departurePdfBytes));
+            helper.addAttachment(departureAttachmentName, storedPdf(depTicketId));
             
-            byte[] returnPdfBytes = ticketService.generateTicketPdfBytes(retTicketId);
             String returnAttachmentName = language.equals("tr") ? 
                 "donus-bileti-" + retTicketId + ".pdf" : 
                 "return-ticket-" + retTicketId + ".pdf";
-            helper.addAttachment(returnAttachmentName, new ByteArrayResource(returnPdfBytes));
+            helper.addAttachment(returnAttachmentName, storedPdf(retTicketId));
             
             emailSender.send(message);
             System.out.println("Round-trip ticket confirmation email with PDFs sent to: " + (String) user.get("email"));
@@ -836,4 +615,10 @@ public class TicketController {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    private FileSystemResource storedPdf(String ticketId) throws Exception {
+        TicketPdfService.StoredPdf pdf = ticketPdfService.getTicketPdf(ticketId)
+                .orElseThrow(() -> new Exception("Ticket not found with ticket_id: " + ticketId));
+        return new FileSystemResource(pdf.file());
+    }
+}
@@ -1,11 +1,11 @@
 package group12.Backend.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import group12.Backend.util.Authentication;
 import group12.Backend.util.ClerkUsers;
 
 import java.util.HashMap;
@@ -23,17 +23,19 @@ import io.jsonwebtoken.Claims;
 @CrossOrigin(origins = "*")
 public class UserController {
 
+    @Autowired
+    private ClerkUsers clerkUsers;
+
     @GetMapping("/all-users")
-    public ResponseEntity<Map<String, Object>> getAllUsers(@RequestHeader("Authorization") String auth
+    public ResponseEntity<Map<String, Object>> getAllUsers(Claims claims
     ) throws Exception {
 
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
         if ("manager".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role) || "admin".equalsIgnoreCase(role)) {
-            Map<String, Object> users = ClerkUsers.allUsers();
+            Map<String, Object> users = clerkUsers.allUsers();
             if (users == null) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(Map.of("error", "Failed to fetch users"));
@@ -49,16 +51,15 @@ public class UserController {
     public ResponseEntity<Map<String, Object>> updateUserRole(
             @RequestParam String userId,
             @RequestParam String newRole,
-            @RequestHeader("Authorization") String auth
+            Claims claims
             ) throws Exception{
         
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
         if ("manager".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role) || "admin".equalsIgnoreCase(role)) {
-            ClerkUsers.updateUserRole(userId, newRole.toLowerCase());
+            clerkUsers.updateUserRole(userId, newRole.toLowerCase());
             return ResponseEntity.ok(Map.of("success", true));
         }
         else{
@@ -68,16 +69,15 @@ public class UserController {
 
     @GetMapping("/users-count")
     public ResponseEntity<Map<String, Object>> getUsersLength(
-            @RequestHeader("Authorization") String auth
+            Claims claims
     ) throws Exception {
         
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
     
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
         if ("manager".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role) || "admin".equalsIgnoreCase(role)) {
-            Map<String, Object> users = ClerkUsers.allUsers();
+            Map<String, Object> users = clerkUsers.allUsers();
             Map<String, Object> response = new HashMap<>();
             response.put("count", users.size());
             return ResponseEntity.ok(response);
@@ -86,20 +86,36 @@ public class UserController {
         }
     }
 
+    // Hit ratio and reload times of the cached Clerk users
+    @GetMapping("/directory-stats")
+    public ResponseEntity<ClerkUsers.Stats> getDirectoryStats(
+            Claims claims
+    ) throws Exception {
+
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if ("manager".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role)) {
+            return ResponseEntity.ok(clerkUsers.stats());
+        } else {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authorized");
+        }
+    }
+
     @DeleteMapping("/delete-user/{userId}")
     public ResponseEntity<Map<String, Object>> deleteUser(
             @PathVariable String userId,
-            @RequestHeader("Authorization") String auth
+            Claims claims
     ) throws Exception {
         
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
         if ("manager".equalsIgnoreCase(role) || "super".equalsIgnoreCase(role) || "admin".equalsIgnoreCase(role)) {
             try {
-                ClerkUsers.deleteUser(userId);
+                clerkUsers.deleteUser(userId);
                 return ResponseEntity.ok(Map.of("success", true, "message", "User deleted successfully"));
             } catch (Exception e) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
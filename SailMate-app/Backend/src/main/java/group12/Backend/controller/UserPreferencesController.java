@@ -2,6 +2,7 @@ package group12.Backend.controller;
 
 import group12.Backend.util.*;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,14 +18,16 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class UserPreferencesController {
     
+    @Autowired
+    private ClerkUsers clerkUsers;
+    
     // Update user preferences
     @PostMapping("")
     public ResponseEntity<Map<String, Object>> updateUserPreferences(
             @RequestBody Map<String, Object> request,
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -59,7 +62,7 @@ public class UserPreferencesController {
             metadataUpdates.put("news", newsSubscription);
             
             // Update user's metadata in Clerk with both preferences
-            ClerkUsers.updateUserMetadata(userId, metadataUpdates);
+            clerkUsers.updateUserMetadata(userId, metadataUpdates);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -81,10 +84,9 @@ public class UserPreferencesController {
     // Get user preferences
     @GetMapping("")
     public ResponseEntity<Map<String, Object>> getUserPreferences(
-            @RequestHeader("Authorization") String auth) throws Exception {
+            Claims claims) throws Exception {
         
         // Authenticate user
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         
@@ -92,7 +94,7 @@ public class UserPreferencesController {
         
         try {
             // Get user from Clerk
-            Map<String, Object> userData = ClerkUsers.getUser(userId);
+            Map<String, Object> userData = clerkUsers.getUser(userId);
             
             // Try to get metadata from claims
             Map<String, Object> metadata = new HashMap<>();
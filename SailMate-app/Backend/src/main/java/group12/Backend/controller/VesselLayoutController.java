@@ -0,0 +1,56 @@
+package group12.Backend.controller;
+
+import group12.Backend.entity.VesselLayout;
+import group12.Backend.service.VesselLayoutService;
+import io.jsonwebtoken.Claims;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/vessel-layouts")
+@CrossOrigin(origins = "*")
+public class VesselLayoutController {
+
+    private final VesselLayoutService vesselLayoutService;
+
+    @Autowired
+    public VesselLayoutController(VesselLayoutService vesselLayoutService) {
+        this.vesselLayoutService = vesselLayoutService;
+    }
+
+    // Get the seat layouts of all vessel types
+    @GetMapping
+    public ResponseEntity<List<VesselLayout>> getAllLayouts() {
+        return ResponseEntity.ok(vesselLayoutService.getAllLayouts());
+    }
+
+    // Create or replace the seat layout of a vessel type.
+    // Voyages already loaded into the seat inventory keep their old layout until restart.
+    @PutMapping("/{shipType}")
+    public ResponseEntity<VesselLayout> saveLayout(
+            @PathVariable String shipType,
+            @RequestBody VesselLayout vesselLayout,
+            Claims claims) throws Exception {
+
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if (!"admin".equalsIgnoreCase(role) && !"super".equalsIgnoreCase(role))
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authorized to change vessel layouts");
+
+        vesselLayout.setShipType(shipType);
+        try {
+            return ResponseEntity.ok(vesselLayoutService.saveLayout(vesselLayout));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -1,30 +1,39 @@
 package group12.Backend.controller;
 
+import com.itextpdf.text.DocumentException;
 import group12.Backend.util.*;
 import group12.Backend.dto.ActivityLogDTO;
+import group12.Backend.dto.SeatAvailabilityDTO;
 import group12.Backend.dto.VoyageDTO;
 import group12.Backend.entity.Voyage;
 import group12.Backend.service.ActivityLogService;
+import group12.Backend.service.SeatsSoldService;
+import group12.Backend.service.VoyageManifestService;
 import group12.Backend.service.VoyageService;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api/voyages")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PageCursor.HEADER)
 public class VoyageController {
 
     @Autowired
@@ -33,6 +42,12 @@ public class VoyageController {
     @Autowired
     private ActivityLogService activityLogService;
     
+    @Autowired
+    private SeatsSoldService seatsSoldService;
+    
+    @Autowired
+    private VoyageManifestService voyageManifestService;
+    
     // Static map for status translations
     private static final Map<Voyage.VoyageStatus, String> STATUS_TRANSLATIONS = new HashMap<>();
     static {
@@ -40,10 +55,12 @@ public class VoyageController {
         STATUS_TRANSLATIONS.put(Voyage.VoyageStatus.cancel, "İPTAL EDİLDİ");
     }
     
-    // Get all voyages
+    // Get a page of all voyages in departure order, optionally starting at a departure date
     @GetMapping
-    public ResponseEntity<List<VoyageDTO>> getAllVoyages() {
-        return ResponseEntity.ok(voyageService.getAllVoyages());
+    public ResponseEntity<List<VoyageDTO>> getAllVoyages(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit) {
+        return voyageService.getAllVoyages(fromDate, cursor, limit).toResponse();
     }
     
     // Get all future voyages
@@ -69,15 +86,36 @@ public class VoyageController {
     public ResponseEntity<List<VoyageDTO>> searchVoyages(
             @RequestParam Integer fromStationId,
             @RequestParam Integer toStationId,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate departureDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate departureDate,
+            @RequestParam(defaultValue = "false") boolean withSeats,
+            @RequestParam(required = false) String seatMapFormat) {
+            
+        List<VoyageDTO> voyages = voyageService.findVoyages(fromStationId, toStationId, departureDate);
+        if (withSeats && !voyages.isEmpty()) {
+            SeatMap.Format format = null;
+            if (seatMapFormat != null) {
+                try {
+                    format = SeatMap.Format.of(seatMapFormat);
+                } catch (IllegalArgumentException e) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown seat map format: " + seatMapFormat);
+                }
+            }
             
-        return ResponseEntity.ok(voyageService.findVoyages(fromStationId, toStationId, departureDate));
+            // One query for the seats of all voyages on the page
+            Map<Integer, VoyageDTO> byId = new HashMap<>();
+            for (VoyageDTO voyage : voyages) {
+                byId.put(voyage.getId(), voyage);
+            }
+            for (SeatAvailabilityDTO availability : seatsSoldService.getAvailability(byId.keySet(), format)) {
+                byId.get(availability.voyageId()).setSeatAvailability(availability);
+            }
+        }
+        return ResponseEntity.ok(voyages);
     }
     
     // Create a new voyage
     @PostMapping
-    public ResponseEntity<VoyageDTO> createVoyage(@RequestBody VoyageDTO voyageDTO, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<VoyageDTO> createVoyage(@RequestBody VoyageDTO voyageDTO, Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -102,7 +140,7 @@ public class VoyageController {
             
             logRequest.setDescription(description);
             logRequest.setDescriptionTr(descriptionTr);
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             return ResponseEntity.status(HttpStatus.CREATED).body(createdVoyage);
         }
@@ -114,9 +152,8 @@ public class VoyageController {
     // Create multiple voyages at once
     @PostMapping("/bulk")
     public ResponseEntity<Map<String, Object>> createBulkVoyages(
-            @RequestBody List<VoyageDTO> voyageDTOs, @RequestHeader("Authorization") String auth) throws Exception {
+            @RequestBody List<VoyageDTO> voyageDTOs, Claims claims) throws Exception {
 
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -130,7 +167,7 @@ public class VoyageController {
             logRequest.setEntityId("bulk");
             logRequest.setDescription("Created " + createdCount + " voyages in bulk operation");
             logRequest.setDescriptionTr("Toplu işlemle " + createdCount + " sefer oluşturuldu");
-            activityLogService.createActivityLog(logRequest, claims);
+            activityLogService.logActivity(logRequest, claims);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -147,9 +184,8 @@ public class VoyageController {
     
     // Update a voyage
     @PutMapping("/{id}")
-    public ResponseEntity<VoyageDTO> updateVoyage(@PathVariable Integer id, @RequestBody VoyageDTO voyageDTO, @RequestHeader("Authorization") String auth) throws Exception {
+    public ResponseEntity<VoyageDTO> updateVoyage(@PathVariable Integer id, @RequestBody VoyageDTO voyageDTO, Claims claims) throws Exception {
 
-        Claims claims = Authentication.getClaims(auth);
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -212,7 +248,7 @@ public class VoyageController {
                 
                 logRequest.setDescription(description.toString());
                 logRequest.setDescriptionTr(descriptionTr.toString());
-                activityLogService.createActivityLog(logRequest, claims);
+                activityLogService.logActivity(logRequest, claims);
                 
                 return ResponseEntity.ok(updatedVoyage);
             } else {
@@ -226,8 +262,7 @@ public class VoyageController {
     
     // Cancel a voyage
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<Map<String, Object>> cancelVoyage(@PathVariable Integer id, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Map<String, Object>> cancelVoyage(@PathVariable Integer id, Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -274,7 +309,7 @@ public class VoyageController {
                 
                 logRequest.setDescription(description.toString());
                 logRequest.setDescriptionTr(descriptionTr.toString());
-                activityLogService.createActivityLog(logRequest, claims);
+                activityLogService.logActivity(logRequest, claims);
                 
                 response.put("success", true);
                 response.put("message", "Voyage cancelled successfully");
@@ -292,8 +327,7 @@ public class VoyageController {
     
     // Delete a voyage (soft delete by marking as inactive)
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> deleteVoyage(@PathVariable Integer id, @RequestHeader("Authorization") String auth) throws Exception {
-        Claims claims = Authentication.getClaims(auth);
+    public ResponseEntity<Map<String, Object>> deleteVoyage(@PathVariable Integer id, Claims claims) throws Exception {
         if (claims == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
         String role = (String) claims.get("meta_data", HashMap.class).get("role");
@@ -340,7 +374,7 @@ public class VoyageController {
                 
                 logRequest.setDescription(description.toString());
                 logRequest.setDescriptionTr(descriptionTr.toString());
-                activityLogService.createActivityLog(logRequest, claims);
+                activityLogService.logActivity(logRequest, claims);
                 
                 response.put("success", true);
                 response.put("message", "Voyage deleted successfully");
@@ -380,12 +414,70 @@ public class VoyageController {
         }
     }
 
+    // Get one PDF with the boarding passes of all passengers of a voyage, for port staff
+    @GetMapping("/{id}/boarding-passes")
+    public ResponseEntity<StreamingResponseBody> getBoardingPasses(@PathVariable Integer id, Claims claims) throws Exception {
+        Voyage voyage = getManifestVoyage(id, claims, "boarding passes", "biniş kartları");
+        StreamingResponseBody body = out -> {
+            try {
+                voyageManifestService.writeBoardingPasses(voyage, out);
+            } catch (DocumentException e) {
+                throw new IOException("Failed to generate boarding passes: " + e.getMessage(), e);
+            }
+        };
+        return manifestResponse(body, MediaType.APPLICATION_PDF, "voyage-" + id + "-boarding-passes.pdf");
+    }
+    
+    // Get the passenger manifest of a voyage as CSV
+    @GetMapping("/{id}/manifest")
+    public ResponseEntity<StreamingResponseBody> getManifest(@PathVariable Integer id, Claims claims) throws Exception {
+        Voyage voyage = getManifestVoyage(id, claims, "passenger manifest", "yolcu listesi");
+        StreamingResponseBody body = out -> voyageManifestService.writeManifestCsv(voyage, out);
+        return manifestResponse(body, MediaType.parseMediaType("text/csv"), "voyage-" + id + "-manifest.csv");
+    }
+    
     @GetMapping("/count-active")
     public ResponseEntity<Integer> countActiveVoyages() {
         int count = voyageService.countActiveVoyages();
         return ResponseEntity.ok(count);
     }
     
+    // Check that an admin asks for the manifest of an existing voyage, and log it
+    private Voyage getManifestVoyage(Integer id, Claims claims, String document, String documentTr) throws Exception {
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        String role = (String) claims.get("meta_data", HashMap.class).get("role");
+        if (!"admin".equalsIgnoreCase(role) && !"super".equalsIgnoreCase(role)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
+        
+        Optional<Voyage> voyage = voyageService.getVoyageEntityById(id);
+        if (voyage.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Voyage not found with id: " + id);
+        }
+        
+        // Log the activity
+        ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
+        logRequest.setActionType("READ");
+        logRequest.setEntityType("VOYAGE");
+        logRequest.setEntityId(id.toString());
+        logRequest.setDescription("Downloaded " + document + " of voyage ID: " + id);
+        logRequest.setDescriptionTr("Sefer " + documentTr + " indirildi, sefer ID: " + id);
+        activityLogService.logActivity(logRequest, claims);
+        
+        return voyage.get();
+    }
+    
+    private ResponseEntity<StreamingResponseBody> manifestResponse(StreamingResponseBody body, MediaType contentType, String filename) {
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(filename)
+                        .build()
+                        .toString())
+                .body(body);
+    }
+    
     // Helper method to translate status to Turkish
     private String getStatusTranslation(Voyage.VoyageStatus status) {
         if (status == null) return "";
@@ -173,8 +173,9 @@ public class ActivityLogDTO {
         private String userRole;
         private String startDate;
         private String endDate;
-        private Integer page;
-        private Integer size;
+        // Cursor of the page, from the X-Next-Cursor header of the previous one; null for the first page
+        private String cursor;
+        private Integer limit;
         
         // Getters and Setters
         public String getActionType() {
@@ -225,20 +226,20 @@ public class ActivityLogDTO {
             this.endDate = endDate;
         }
         
-        public Integer getPage() {
-            return page;
+        public String getCursor() {
+            return cursor;
         }
         
-        public void setPage(Integer page) {
-            this.page = page;
+        public void setCursor(String cursor) {
+            this.cursor = cursor;
         }
         
-        public Integer getSize() {
-            return size;
+        public Integer getLimit() {
+            return limit;
         }
         
-        public void setSize(Integer size) {
-            this.size = size;
+        public void setLimit(Integer limit) {
+            this.limit = limit;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package group12.Backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * One completed ticket in a completed ticket export, read as a projection so
+ * no entity is managed while the export streams.
+ */
+public record CompletedTicketExportRow(String ticketId,
+                                       Integer voyageId,
+                                       String depCity,
+                                       String depStationTitle,
+                                       String arrCity,
+                                       String arrStationTitle,
+                                       LocalDate depDate,
+                                       LocalTime depTime,
+                                       LocalTime arrTime,
+                                       String shipType,
+                                       Integer passengerCount,
+                                       Double totalPrice,
+                                       String ticketClass,
+                                       String selectedSeats,
+                                       String userId,
+                                       LocalDateTime createdAt) {
+
+    public static final String[] COLUMNS = {
+            "ticketId", "voyageId", "depCity", "depStationTitle", "arrCity", "arrStationTitle", "depDate",
+            "depTime", "arrTime", "shipType", "passengerCount", "totalPrice", "ticketClass", "selectedSeats",
+            "userId", "createdAt"
+    };
+
+    /**
+     * @return the values in the order of {@link #COLUMNS}, for CSV
+     */
+    public Object[] values() {
+        return new Object[]{
+                ticketId, voyageId, depCity, depStationTitle, arrCity, arrStationTitle, depDate,
+                depTime, arrTime, shipType, passengerCount, totalPrice, ticketClass, selectedSeats,
+                userId, createdAt
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package group12.Backend.dto;
+
+import group12.Backend.util.PageCursor;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a list endpoint, see {@link PageCursor}.
+ *
+ * @param items the items of the page
+ * @param nextCursor the cursor of the next page, null on the last page
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Build a page from rows queried with a limit one larger than the page
+     * size; the extra row only tells whether there is a next page.
+     * @param rows at most limit + 1 rows in page order
+     * @param limit the page size
+     * @param cursorOf the cursor that continues after a row
+     */
+    public static <E> CursorPage<E> of(List<E> rows, int limit, Function<E, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<E> items = rows.subList(0, limit);
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+
+    /**
+     * Convert the items one by one, keeping the cursor
+     */
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            mapped.add(mapper.apply(item));
+        }
+        return new CursorPage<>(mapped, nextCursor);
+    }
+
+    /**
+     * @return the items as the response body, with the next cursor in the {@link PageCursor#HEADER} header
+     */
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(PageCursor.HEADER, nextCursor);
+        }
+        return response.body(items);
+    }
+}
@@ -0,0 +1,42 @@
+package group12.Backend.dto;
+
+/**
+ * Payloads of outbox events, stored as JSON in outbox_events.payload.
+ * Notifications use {@link NotificationDTO.NotificationCreateRequest} as is.
+ */
+public class OutboxDTO {
+
+    /**
+     * An activity log; the user's full name is looked up when the event is processed
+     */
+    public record ActivityLogEvent(
+            String actionType,
+            String entityType,
+            String entityId,
+            String userId,
+            String userRole,
+            String description,
+            String descriptionTr) {
+    }
+
+    /**
+     * A ticket cancellation email. The voyage fields are null if the voyage
+     * could not be loaded, in which case the short email is sent.
+     */
+    public record CancellationEmailEvent(
+            String userId,
+            String ticketID,
+            String fromStation,
+            String toStation,
+            String departureDate,
+            Integer passengerCount,
+            String ticketClass,
+            String selectedSeats) {
+    }
+
+    /**
+     * Render the stored PDF of a ticket again, or remove it if the ticket is gone
+     */
+    public record TicketPdfEvent(String ticketID) {
+    }
+}
@@ -0,0 +1,16 @@
+package group12.Backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Remaining seats per class of one voyage, optionally with its full seat map.
+ *
+ * @param seatMap the seat map in the requested format, or null if none was requested
+ */
+public record SeatAvailabilityDTO(Integer voyageId,
+                                  String shipType,
+                                  int promoAvailable,
+                                  int economyAvailable,
+                                  int businessAvailable,
+                                  @JsonInclude(JsonInclude.Include.NON_NULL) Object seatMap) {
+}
@@ -0,0 +1,35 @@
+package group12.Backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Result of comparing the seats_sold bitmaps with the seats of the tickets.
+ *
+ * @param voyagesChecked number of active voyages compared
+ * @param discrepancies one entry per voyage whose bitmap or ticket count does not match
+ */
+public record SeatReconciliationDTO(LocalDateTime startedAt,
+                                    long durationMillis,
+                                    boolean repair,
+                                    int voyagesChecked,
+                                    List<VoyageDiscrepancy> discrepancies) {
+
+    /**
+     * @param missingSeats seats of tickets that are free in seats_sold
+     * @param extraSeats seats taken in seats_sold that belong to no ticket
+     * @param doubleSoldSeats seats that appear on more than one ticket, or on a
+     *                        ticket and a checkout hold
+     * @param seatsRepaired seats corrected by this run; discrepancies are only
+     *                      repaired once two runs in a row have seen them
+     */
+    public record VoyageDiscrepancy(Integer voyageId,
+                                    String missingSeats,
+                                    String extraSeats,
+                                    String doubleSoldSeats,
+                                    long expectedTicketCount,
+                                    long recordedTicketCount,
+                                    int seatsRepaired,
+                                    boolean ticketCountRepaired) {
+    }
+}
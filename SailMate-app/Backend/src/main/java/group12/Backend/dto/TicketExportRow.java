@@ -0,0 +1,39 @@
+package group12.Backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * One ticket in a ticket export, read as a projection so no entity is
+ * managed while the export streams. The voyage fields are null if the voyage
+ * no longer exists.
+ */
+public record TicketExportRow(String ticketId,
+                              Integer voyageId,
+                              String fromStationTitle,
+                              String toStationTitle,
+                              LocalDate departureDate,
+                              LocalTime departureTime,
+                              Integer passengerCount,
+                              Double totalPrice,
+                              String ticketClass,
+                              String selectedSeats,
+                              String userId,
+                              LocalDateTime createdAt) {
+
+    public static final String[] COLUMNS = {
+            "ticketId", "voyageId", "fromStationTitle", "toStationTitle", "departureDate", "departureTime",
+            "passengerCount", "totalPrice", "ticketClass", "selectedSeats", "userId", "createdAt"
+    };
+
+    /**
+     * @return the values in the order of {@link #COLUMNS}, for CSV
+     */
+    public Object[] values() {
+        return new Object[]{
+                ticketId, voyageId, fromStationTitle, toStationTitle, departureDate, departureTime,
+                passengerCount, totalPrice, ticketClass, selectedSeats, userId, createdAt
+        };
+    }
+}
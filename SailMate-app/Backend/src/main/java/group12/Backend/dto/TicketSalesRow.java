@@ -0,0 +1,22 @@
+package group12.Backend.dto;
+
+/**
+ * Sales of one ticket class on one route in one month, summed by the
+ * database for the manager charts. The route fields are null for tickets
+ * whose voyage no longer exists.
+ *
+ * @param month the month of ticket creation, 1 to 12
+ * @param tickets the number of tickets sold
+ * @param revenue the total price of the tickets
+ * @param passengers the number of passengers on the tickets
+ */
+public record TicketSalesRow(Integer month,
+                             String ticketClass,
+                             String fromCity,
+                             String fromStationTitle,
+                             String toCity,
+                             String toStationTitle,
+                             Long tickets,
+                             Double revenue,
+                             Long passengers) {
+}
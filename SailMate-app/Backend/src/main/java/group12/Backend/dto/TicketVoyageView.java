@@ -0,0 +1,46 @@
+package group12.Backend.dto;
+
+import group12.Backend.entity.Ticket;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A ticket with the voyage and station fields shown next to it, loaded in one
+ * joined query by {@link group12.Backend.repository.TicketRepository}.
+ * The voyage fields are null if the voyage no longer exists.
+ *
+ * @param ticket the ticket entity, managed if loaded inside a transaction
+ */
+public record TicketVoyageView(Ticket ticket,
+                               String fromStationCity,
+                               String fromStationTitle,
+                               String toStationCity,
+                               String toStationTitle,
+                               LocalDate departureDate,
+                               LocalTime departureTime,
+                               LocalTime arrivalTime) {
+
+    /**
+     * @return whether the voyage of the ticket was found
+     */
+    public boolean hasVoyage() {
+        return departureDate != null;
+    }
+
+    /**
+     * Copy the voyage fields onto a ticket response
+     * @param response the response built from {@link #ticket()}
+     * @return the same response
+     */
+    public TicketDTO.TicketResponse enrich(TicketDTO.TicketResponse response) {
+        response.setFromStationCity(fromStationCity);
+        response.setFromStationTitle(fromStationTitle);
+        response.setToStationCity(toStationCity);
+        response.setToStationTitle(toStationTitle);
+        response.setDepartureDate(departureDate);
+        response.setDepartureTime(departureTime);
+        response.setArrivalTime(arrivalTime);
+        return response;
+    }
+}
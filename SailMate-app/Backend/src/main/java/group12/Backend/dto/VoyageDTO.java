@@ -1,5 +1,6 @@
 package group12.Backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import group12.Backend.entity.Voyage.VoyageStatus;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -24,6 +25,10 @@ public class VoyageDTO {
     private java.time.LocalDateTime createdAt;
     private java.time.LocalDateTime updatedAt;
     
+    // Only filled by search when seat availability is requested
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private SeatAvailabilityDTO seatAvailability;
+    
     // Getters and Setters
     public Integer getId() {
         return id;
@@ -168,4 +173,12 @@ public class VoyageDTO {
     public void setUpdatedAt(java.time.LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public SeatAvailabilityDTO getSeatAvailability() {
+        return seatAvailability;
+    }
+    
+    public void setSeatAvailability(SeatAvailabilityDTO seatAvailability) {
+        this.seatAvailability = seatAvailability;
+    }
 }
\ No newline at end of file
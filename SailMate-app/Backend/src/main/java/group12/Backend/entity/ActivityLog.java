@@ -4,7 +4,16 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "activity_log")
+@Table(name = "activity_log",
+       indexes = {
+           // Each filter of the log views, followed by the (created_at, id) sort and cursor
+           @Index(name = "idx_activity_date", columnList = "created_at, id"),
+           @Index(name = "idx_activity_action_date", columnList = "action_type, created_at, id"),
+           @Index(name = "idx_activity_entity_type_date", columnList = "entity_type, created_at, id"),
+           @Index(name = "idx_activity_entity_date", columnList = "entity_type, entity_id, created_at, id"),
+           @Index(name = "idx_activity_user_date", columnList = "user_id, created_at, id"),
+           @Index(name = "idx_activity_role_date", columnList = "user_role, created_at, id")
+       })
 public class ActivityLog {
     
     @Id
@@ -35,7 +44,7 @@ public class ActivityLog {
     @Column(name = "description_tr", nullable = false, columnDefinition = "TEXT")
     private String descriptionTr;
     
-    @Column(name = "created_at", updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     @PrePersist
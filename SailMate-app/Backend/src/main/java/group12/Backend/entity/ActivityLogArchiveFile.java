@@ -0,0 +1,86 @@
+package group12.Backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A file of activity logs moved out of activity_log by ActivityLogArchiveService.
+ * A month is normally archived as a single part; further parts only hold logs
+ * of the month left behind by an interrupted run.
+ */
+@Entity
+@Table(name = "activity_log_archive",
+       uniqueConstraints = @UniqueConstraint(name = "uk_activity_archive_part", columnNames = {"month", "part"}))
+public class ActivityLogArchiveFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Month of the logs, as yyyy-MM
+    @Column(name = "month", nullable = false, length = 7)
+    private String month;
+
+    @Column(name = "part", nullable = false)
+    private Integer part;
+
+    // Name of the file in the archive directory
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "log_count", nullable = false)
+    private Long logCount;
+
+    // Highest log ID in the file; logs of the month up to it are deleted from activity_log
+    @Column(name = "last_log_id", nullable = false)
+    private Integer lastLogId;
+
+    @Column(name = "archived_at", updatable = false)
+    private LocalDateTime archivedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        archivedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public ActivityLogArchiveFile() {
+    }
+
+    public ActivityLogArchiveFile(String month, Integer part, String fileName, Long logCount, Integer lastLogId) {
+        this.month = month;
+        this.part = part;
+        this.fileName = fileName;
+        this.logCount = logCount;
+        this.lastLogId = lastLogId;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public Integer getPart() {
+        return part;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Long getLogCount() {
+        return logCount;
+    }
+
+    public Integer getLastLogId() {
+        return lastLogId;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,71 @@
+package group12.Backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Number of activity logs of one day with the same action, entity type and
+ * role, maintained by ActivityLogRollupService. Counts keep including logs
+ * that have been archived, so the dashboard counts never scan activity_log.
+ *
+ * Logs without a role are counted under the role "".
+ */
+@Entity
+@Table(name = "activity_log_daily_count",
+       uniqueConstraints = @UniqueConstraint(name = "uk_activity_count_day",
+               columnNames = {"log_date", "action_type", "entity_type", "user_role"}),
+       indexes = {
+           // Cover the sums of the count endpoints
+           @Index(name = "idx_activity_count_action", columnList = "action_type, log_count"),
+           @Index(name = "idx_activity_count_entity", columnList = "entity_type, log_count")
+       })
+public class ActivityLogDailyCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "log_date", nullable = false)
+    private LocalDate logDate;
+
+    @Column(name = "action_type", nullable = false, length = 50)
+    private String actionType;
+
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private String entityType;
+
+    @Column(name = "user_role", nullable = false, length = 50)
+    private String userRole;
+
+    @Column(name = "log_count", nullable = false)
+    private Long logCount;
+
+    // Constructors
+    public ActivityLogDailyCount() {
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getLogDate() {
+        return logDate;
+    }
+
+    public String getActionType() {
+        return actionType;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public String getUserRole() {
+        return userRole;
+    }
+
+    public Long getLogCount() {
+        return logCount;
+    }
+}
@@ -0,0 +1,51 @@
+package group12.Backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * How far activity_log has been added to activity_log_daily_count. The single
+ * row is locked while logs are rolled up or a rolled up log is deleted, so
+ * instances never count a log twice.
+ */
+@Entity
+@Table(name = "activity_log_rollup_state")
+public class ActivityLogRollupState {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    // Logs up to this ID are counted in activity_log_daily_count
+    @Column(name = "rolled_up_id", nullable = false)
+    private Integer rolledUpId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ActivityLogRollupState() {
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public Integer getRolledUpId() {
+        return rolledUpId;
+    }
+
+    public void setRolledUpId(Integer rolledUpId) {
+        this.rolledUpId = rolledUpId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
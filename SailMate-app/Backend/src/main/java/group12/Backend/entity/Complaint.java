@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "complaint")
+@Table(name = "complaint",
+       indexes = @Index(name = "idx_complaint_date", columnList = "created_at, id"))
 public class Complaint {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,7 +33,7 @@ public class Complaint {
     @Column(nullable = false)
     private ComplaintStatus status = ComplaintStatus.active;
     
-    @Column(name = "created_at", updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     @Column(name = "updated_at")
@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "completed_tickets")
+@Table(name = "completed_tickets",
+       indexes = @Index(name = "idx_completed_date", columnList = "created_at, id"))
 public class CompletedTicket {
     
     @Id
@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "seats_sold")
+@Table(name = "seats_sold",
+       indexes = @Index(name = "idx_seats_date", columnList = "created_at, id"))
 public class SeatsSold {
     
     @Id
@@ -36,10 +37,14 @@ public class SeatsSold {
     @Column(name = "lower_deck_business", nullable = false)
     private Long lowerDeckBusiness = 0L;
     
+    // Seats past the 64th of a section, as little-endian words; see SeatLayout
+    @Column(name = "overflow_seats", columnDefinition = "VARBINARY(1024)")
+    private byte[] overflowSeats;
+    
     @Column(name = "total_tickets_sold", nullable = false)
     private Long totalTicketsSold = 0L;
     
-    @Column(name = "created_at", updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     @Column(name = "updated_at")
@@ -138,6 +143,14 @@ public class SeatsSold {
         this.lowerDeckBusiness = lowerDeckBusiness;
     }
     
+    public byte[] getOverflowSeats() {
+        return overflowSeats;
+    }
+    
+    public void setOverflowSeats(byte[] overflowSeats) {
+        this.overflowSeats = overflowSeats;
+    }
+    
     public Long getTotalTicketsSold() {
         return totalTicketsSold;
     }
@@ -6,7 +6,8 @@ import java.time.LocalDateTime;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "tickets")
+@Table(name = "tickets",
+       indexes = @Index(name = "idx_ticket_date", columnList = "created_at, id"))
 public class Ticket {
     
     @Id
@@ -0,0 +1,49 @@
+package group12.Backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Lease of a ticket ID node number by a backend instance, so no two running
+ * instances generate IDs with the same node. Also records how far the owner
+ * may have issued IDs, so the next owner never starts behind it.
+ */
+@Entity
+@Table(name = "ticket_id_nodes")
+public class TicketIdNode {
+
+    @Id
+    private Integer node;
+
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    // Database time the lease runs out unless renewed
+    @Column(name = "leased_until", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime leasedUntil;
+
+    // Epoch milliseconds (owner's clock) up to which IDs of this node may have been issued
+    @Column(name = "issued_until", nullable = false)
+    private Long issuedUntil;
+
+    // Constructors
+    public TicketIdNode() {
+    }
+
+    // Getters
+    public Integer getNode() {
+        return node;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getLeasedUntil() {
+        return leasedUntil;
+    }
+
+    public Long getIssuedUntil() {
+        return issuedUntil;
+    }
+}
@@ -0,0 +1,135 @@
+package group12.Backend.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * One passenger of a ticket. Replaces parsing the ticket_data JSON whenever
+ * passengers are shown; ticket_data is still written with the same content.
+ *
+ * Rows are keyed by the public ticket ID so they stay valid when a ticket is
+ * moved to completed_tickets.
+ */
+@Entity
+@Table(name = "ticket_passenger",
+       uniqueConstraints = @UniqueConstraint(name = "uk_ticket_passenger_position",
+               columnNames = {"ticket_id", "position"}))
+public class TicketPassenger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ticket_id", nullable = false, length = 32)
+    private String ticketId;
+
+    // Order of the passenger in the booking, from 0
+    @Column(name = "position", nullable = false)
+    private Integer position;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "surname")
+    private String surname;
+
+    @Column(name = "birth_date", length = 32)
+    private String birthDate;
+
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "phone_no", length = 64)
+    private String phoneNo;
+
+    @Column(name = "passenger_type", length = 32)
+    private String passengerType;
+
+    // Constructors
+    public TicketPassenger() {
+    }
+
+    public TicketPassenger(String ticketId, Integer position, String name, String surname, String birthDate,
+                           String email, String phoneNo, String passengerType) {
+        this.ticketId = ticketId;
+        this.position = position;
+        this.name = name;
+        this.surname = surname;
+        this.birthDate = birthDate;
+        this.email = email;
+        this.phoneNo = phoneNo;
+        this.passengerType = passengerType;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public void setSurname(String surname) {
+        this.surname = surname;
+    }
+
+    public String getBirthDate() {
+        return birthDate;
+    }
+
+    public void setBirthDate(String birthDate) {
+        this.birthDate = birthDate;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPhoneNo() {
+        return phoneNo;
+    }
+
+    public void setPhoneNo(String phoneNo) {
+        this.phoneNo = phoneNo;
+    }
+
+    public String getPassengerType() {
+        return passengerType;
+    }
+
+    public void setPassengerType(String passengerType) {
+        this.passengerType = passengerType;
+    }
+}
@@ -0,0 +1,106 @@
+package group12.Backend.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * One seat of a ticket. The unique key on (voyage, deck, class, index) lets
+ * the database reject a second sale of the same seat, and makes "who sits in
+ * 2B-5 on this voyage" an index lookup instead of a scan over selected_seats.
+ *
+ * Rows are keyed by the public ticket ID so they stay valid when a ticket is
+ * moved to completed_tickets.
+ */
+@Entity
+@Table(name = "ticket_seat",
+       uniqueConstraints = @UniqueConstraint(name = "uk_ticket_seat_voyage_seat",
+               columnNames = {"voyage_id", "deck", "seat_class", "seat_index"}),
+       indexes = @Index(name = "idx_ticket_seat_ticket", columnList = "ticket_id"))
+public class TicketSeat {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "voyage_id", nullable = false)
+    private Integer voyageId;
+    
+    @Column(name = "deck", nullable = false, length = 1)
+    private String deck;
+    
+    @Column(name = "seat_class", nullable = false, length = 1)
+    private String seatClass;
+    
+    @Column(name = "seat_index", nullable = false)
+    private Integer seatIndex;
+    
+    @Column(name = "ticket_id", nullable = false, length = 32)
+    private String ticketId;
+    
+    // Constructors
+    public TicketSeat() {
+    }
+    
+    public TicketSeat(Integer voyageId, char deck, char seatClass, Integer seatIndex, String ticketId) {
+        this.voyageId = voyageId;
+        this.deck = String.valueOf(deck);
+        this.seatClass = String.valueOf(seatClass);
+        this.seatIndex = seatIndex;
+        this.ticketId = ticketId;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Integer getVoyageId() {
+        return voyageId;
+    }
+    
+    public void setVoyageId(Integer voyageId) {
+        this.voyageId = voyageId;
+    }
+    
+    public String getDeck() {
+        return deck;
+    }
+    
+    public void setDeck(String deck) {
+        this.deck = deck;
+    }
+    
+    public String getSeatClass() {
+        return seatClass;
+    }
+    
+    public void setSeatClass(String seatClass) {
+        this.seatClass = seatClass;
+    }
+    
+    public Integer getSeatIndex() {
+        return seatIndex;
+    }
+    
+    public void setSeatIndex(Integer seatIndex) {
+        this.seatIndex = seatIndex;
+    }
+    
+    public String getTicketId() {
+        return ticketId;
+    }
+    
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+    
+    /**
+     * @return the seat code as used in selected_seats, e.g. "2B-5"
+     */
+    public String getSeatCode() {
+        return deck + seatClass + "-" + seatIndex;
+    }
+}
@@ -0,0 +1,135 @@
+package group12.Backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Seat counts of a vessel type, referenced by {@link Voyage#getShipType()}.
+ * Seats are numbered 1..n within each deck/class section.
+ */
+@Entity
+@Table(name = "vessel_layouts")
+public class VesselLayout {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    @Column(name = "ship_type", nullable = false, unique = true)
+    private String shipType;
+    
+    @Column(name = "upper_deck_promo_seats", nullable = false)
+    private Integer upperDeckPromoSeats = 0;
+    
+    @Column(name = "upper_deck_economy_seats", nullable = false)
+    private Integer upperDeckEconomySeats = 0;
+    
+    @Column(name = "upper_deck_business_seats", nullable = false)
+    private Integer upperDeckBusinessSeats = 0;
+    
+    @Column(name = "lower_deck_promo_seats", nullable = false)
+    private Integer lowerDeckPromoSeats = 0;
+    
+    @Column(name = "lower_deck_economy_seats", nullable = false)
+    private Integer lowerDeckEconomySeats = 0;
+    
+    @Column(name = "lower_deck_business_seats", nullable = false)
+    private Integer lowerDeckBusinessSeats = 0;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Constructors
+    public VesselLayout() {
+    }
+    
+    public VesselLayout(String shipType, int upperDeckPromoSeats, int upperDeckEconomySeats, int upperDeckBusinessSeats,
+                        int lowerDeckPromoSeats, int lowerDeckEconomySeats, int lowerDeckBusinessSeats) {
+        this.shipType = shipType;
+        this.upperDeckPromoSeats = upperDeckPromoSeats;
+        this.upperDeckEconomySeats = upperDeckEconomySeats;
+        this.upperDeckBusinessSeats = upperDeckBusinessSeats;
+        this.lowerDeckPromoSeats = lowerDeckPromoSeats;
+        this.lowerDeckEconomySeats = lowerDeckEconomySeats;
+        this.lowerDeckBusinessSeats = lowerDeckBusinessSeats;
+    }
+    
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+    
+    public void setId(Integer id) {
+        this.id = id;
+    }
+    
+    public String getShipType() {
+        return shipType;
+    }
+    
+    public void setShipType(String shipType) {
+        this.shipType = shipType;
+    }
+    
+    public Integer getUpperDeckPromoSeats() {
+        return upperDeckPromoSeats;
+    }
+    
+    public void setUpperDeckPromoSeats(Integer upperDeckPromoSeats) {
+        this.upperDeckPromoSeats = upperDeckPromoSeats;
+    }
+    
+    public Integer getUpperDeckEconomySeats() {
+        return upperDeckEconomySeats;
+    }
+    
+    public void setUpperDeckEconomySeats(Integer upperDeckEconomySeats) {
+        this.upperDeckEconomySeats = upperDeckEconomySeats;
+    }
+    
+    public Integer getUpperDeckBusinessSeats() {
+        return upperDeckBusinessSeats;
+    }
+    
+    public void setUpperDeckBusinessSeats(Integer upperDeckBusinessSeats) {
+        this.upperDeckBusinessSeats = upperDeckBusinessSeats;
+    }
+    
+    public Integer getLowerDeckPromoSeats() {
+        return lowerDeckPromoSeats;
+    }
+    
+    public void setLowerDeckPromoSeats(Integer lowerDeckPromoSeats) {
+        this.lowerDeckPromoSeats = lowerDeckPromoSeats;
+    }
+    
+    public Integer getLowerDeckEconomySeats() {
+        return lowerDeckEconomySeats;
+    }
+    
+    public void setLowerDeckEconomySeats(Integer lowerDeckEconomySeats) {
+        this.lowerDeckEconomySeats = lowerDeckEconomySeats;
+    }
+    
+    public Integer getLowerDeckBusinessSeats() {
+        return lowerDeckBusinessSeats;
+    }
+    
+    public void setLowerDeckBusinessSeats(Integer lowerDeckBusinessSeats) {
+        this.lowerDeckBusinessSeats = lowerDeckBusinessSeats;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -5,7 +5,8 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "voyages")
+@Table(name = "voyages",
+       indexes = @Index(name = "idx_voyage_date", columnList = "departure_date, departure_time, id"))
 public class Voyage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
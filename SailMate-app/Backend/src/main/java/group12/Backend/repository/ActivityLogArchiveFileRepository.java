@@ -0,0 +1,19 @@
+package group12.Backend.repository;
+
+import group12.Backend.entity.ActivityLogArchiveFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ActivityLogArchiveFileRepository extends JpaRepository<ActivityLogArchiveFile, Long> {
+
+    // Find the parts of an archived month (yyyy-MM) in the order they were written
+    List<ActivityLogArchiveFile> findByMonthOrderByPart(String month);
+
+    // Find the archived months (yyyy-MM), newest first
+    @Query("SELECT DISTINCT f.month FROM ActivityLogArchiveFile f ORDER BY f.month DESC")
+    List<String> findArchivedMonths();
+}
@@ -0,0 +1,61 @@
+package group12.Backend.repository;
+
+import group12.Backend.entity.ActivityLogDailyCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ActivityLogDailyCountRepository extends JpaRepository<ActivityLogDailyCount, Long> {
+
+    /**
+     * Add the logs with afterId < id <= lastId to the daily counts in a single statement
+     * @return the number of rows inserted or updated, as reported by MySQL
+     */
+    @Modifying
+    @Query(value = "INSERT INTO activity_log_daily_count (log_date, action_type, entity_type, user_role, log_count) " +
+                   "SELECT * FROM (SELECT DATE(a.created_at) AS day, a.action_type AS action, a.entity_type AS entity, " +
+                   "COALESCE(a.user_role, '') AS role, COUNT(*) AS logs FROM activity_log a " +
+                   "WHERE a.id > :afterId AND a.id <= :lastId GROUP BY 1, 2, 3, 4) added " +
+                   "ON DUPLICATE KEY UPDATE log_count = log_count + added.logs", nativeQuery = true)
+    int addLogs(@Param("afterId") int afterId, @Param("lastId") int lastId);
+
+    // Drop the counts of the days since a day, before they are counted again
+    @Modifying
+    @Query("DELETE FROM ActivityLogDailyCount c WHERE c.logDate >= :fromDate")
+    int deleteSince(@Param("fromDate") LocalDate fromDate);
+
+    /**
+     * Count the logs created since a day with id <= lastId again, from activity_log
+     * @return the number of count rows inserted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO activity_log_daily_count (log_date, action_type, entity_type, user_role, log_count) " +
+                   "SELECT DATE(a.created_at), a.action_type, a.entity_type, COALESCE(a.user_role, ''), COUNT(*) " +
+                   "FROM activity_log a WHERE a.created_at >= :from AND a.id <= :lastId GROUP BY 1, 2, 3, 4",
+           nativeQuery = true)
+    int countSince(@Param("from") LocalDateTime from, @Param("lastId") int lastId);
+
+    // Take a deleted log off the count of its day
+    @Modifying
+    @Query("UPDATE ActivityLogDailyCount c SET c.logCount = c.logCount - 1 WHERE c.logDate = :logDate " +
+           "AND c.actionType = :actionType AND c.entityType = :entityType AND c.userRole = :userRole AND c.logCount > 0")
+    int subtractLog(@Param("logDate") LocalDate logDate,
+                    @Param("actionType") String actionType,
+                    @Param("entityType") String entityType,
+                    @Param("userRole") String userRole);
+
+    @Query("SELECT COALESCE(SUM(c.logCount), 0) FROM ActivityLogDailyCount c")
+    long sumLogCount();
+
+    @Query("SELECT COALESCE(SUM(c.logCount), 0) FROM ActivityLogDailyCount c WHERE c.entityType = :entityType")
+    long sumLogCountByEntityType(@Param("entityType") String entityType);
+
+    @Query("SELECT COALESCE(SUM(c.logCount), 0) FROM ActivityLogDailyCount c WHERE c.actionType = :actionType")
+    long sumLogCountByActionType(@Param("actionType") String actionType);
+}
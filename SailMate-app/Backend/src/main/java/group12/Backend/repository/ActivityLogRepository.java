@@ -1,18 +1,23 @@
 package group12.Backend.repository;
 
+import group12.Backend.dto.ActivityLogDTO;
 import group12.Backend.entity.ActivityLog;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ActivityLogRepository extends JpaRepository<ActivityLog, Integer> {
+public interface ActivityLogRepository extends JpaRepository<ActivityLog, Integer>, JpaSpecificationExecutor<ActivityLog> {
     
     // Find logs by user ID
     List<ActivityLog> findByUserIdOrderByCreatedAtDesc(String userId);
@@ -29,24 +34,55 @@ public interface ActivityLogRepository extends JpaRepository<ActivityLog, Intege
     // Find logs created between dates
     List<ActivityLog> findByCreatedAtBetweenOrderByCreatedAtDesc(LocalDateTime startDate, LocalDateTime endDate);
     
-    // Find logs with pagination and filtering
-    @Query("SELECT a FROM ActivityLog a WHERE " +
-           "(:actionType IS NULL OR a.actionType = :actionType) AND " +
-           "(:entityType IS NULL OR a.entityType = :entityType) AND " +
-           "(:userId IS NULL OR a.userId = :userId) AND " +
-           "(:userRole IS NULL OR a.userRole = :userRole) " +
-           "ORDER BY a.createdAt DESC")
-    Page<ActivityLog> findWithFilters(
-        @Param("actionType") String actionType,
-        @Param("entityType") String entityType,
-        @Param("userId") String userId,
-        @Param("userRole") String userRole,
-        Pageable pageable
-    );
-    
-    // Count logs by entity type
-    long countByEntityType(String entityType);
-    
-    // Count logs by action type
-    long countByActionType(String actionType);
-}
\ No newline at end of file
+    // Count the logs after an ID, which are not rolled up yet
+    long countByIdGreaterThan(Integer id);
+    
+    long countByIdGreaterThanAndEntityType(Integer id, String entityType);
+    
+    long countByIdGreaterThanAndActionType(Integer id, String actionType);
+    
+    @Query("SELECT MAX(a.id) FROM ActivityLog a")
+    Integer findMaxId();
+    
+    @Query("SELECT MIN(a.createdAt) FROM ActivityLog a")
+    LocalDateTime findOldestCreatedAt();
+    
+    // Find the highest ID of the logs created in [from, to)
+    @Query("SELECT MAX(a.id) FROM ActivityLog a WHERE a.createdAt >= :from AND a.createdAt < :to")
+    Integer findMaxIdCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Stream the logs created in [from, to) with an ID up to lastId, in ID order.
+     * Rows are fetched in chunks and are not kept by the persistence context, so a whole month
+     * can be read; the caller must close the stream inside a transaction.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new group12.Backend.dto.ActivityLogDTO(a.id, a.actionType, a.entityType, a.entityId, a.userId, " +
+           "a.fullName, a.userRole, a.description, a.descriptionTr, a.createdAt) FROM ActivityLog a " +
+           "WHERE a.createdAt >= :from AND a.createdAt < :to AND a.id <= :lastId ORDER BY a.id")
+    Stream<ActivityLogDTO> streamForArchive(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("lastId") Integer lastId);
+    
+    // Delete up to limit archived logs created in [from, to) with an ID up to lastId
+    @Modifying
+    @Query(value = "DELETE FROM activity_log WHERE created_at >= :from AND created_at < :to AND id <= :lastId " +
+                   "LIMIT :limit", nativeQuery = true)
+    int deleteArchived(@Param("from") LocalDateTime from,
+                       @Param("to") LocalDateTime to,
+                       @Param("lastId") Integer lastId,
+                       @Param("limit") int limit);
+    
+    /**
+     * Set created_at of rows without one, so the keyset pages reach them
+     * @param createdAt the time to set
+     * @param limit maximum number of rows to update
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Query(value = "UPDATE activity_log SET created_at = :createdAt WHERE created_at IS NULL LIMIT :limit", nativeQuery = true)
+    int fillMissingCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("limit") int limit);
+}
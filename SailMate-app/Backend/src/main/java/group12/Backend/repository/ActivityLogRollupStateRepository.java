@@ -0,0 +1,27 @@
+package group12.Backend.repository;
+
+import group12.Backend.entity.ActivityLogRollupState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ActivityLogRollupStateRepository extends JpaRepository<ActivityLogRollupState, Integer> {
+
+    // Create the state row on the first rollup; a row created by another instance is kept
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO activity_log_rollup_state (id, rolled_up_id) VALUES (:id, 0)",
+           nativeQuery = true)
+    int createIfMissing(@Param("id") Integer id);
+
+    // Read the state row with SELECT ... FOR UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ActivityLogRollupState s WHERE s.id = :id")
+    Optional<ActivityLogRollupState> lockById(@Param("id") Integer id);
+}
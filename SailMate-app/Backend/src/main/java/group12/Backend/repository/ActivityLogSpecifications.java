@@ -0,0 +1,106 @@
+package group12.Backend.repository;
+
+import group12.Backend.dto.ActivityLogDTO;
+import group12.Backend.entity.ActivityLog;
+import group12.Backend.util.PageCursor;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queries of activity logs with optional filters.
+ *
+ * Only the filters that are given become predicates, so MySQL can pick the
+ * composite index of the filtered column, e.g. idx_activity_user_date on
+ * (user_id, created_at, id), and read the page in {@link #NEWEST_FIRST}
+ * order straight from it. "(:x IS NULL OR a.x = :x)" would have to be
+ * planned for any value and ends up scanning idx_activity_date.
+ */
+public final class ActivityLogSpecifications {
+
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    private ActivityLogSpecifications() {
+    }
+
+    /**
+     * Filters of the log views; null filters match all logs
+     * @param from first created_at, inclusive
+     * @param to last created_at, inclusive
+     */
+    public record Filter(String actionType, String entityType, String userId, String userRole,
+                         LocalDateTime from, LocalDateTime to) {
+
+        public static final Filter ALL = new Filter(null, null, null, null, null, null);
+
+        /**
+         * Whether a log read from the archive matches, comparing text without
+         * regard to case like the collation of activity_log
+         */
+        public boolean test(ActivityLogDTO log) {
+            return matches(actionType, log.getActionType())
+                    && matches(entityType, log.getEntityType())
+                    && matches(userId, log.getUserId())
+                    && matches(userRole, log.getUserRole())
+                    && (from == null || !log.getCreatedAt().isBefore(from))
+                    && (to == null || !log.getCreatedAt().isAfter(to));
+        }
+
+        private static boolean matches(String filter, String value) {
+            return filter == null || filter.equalsIgnoreCase(value);
+        }
+    }
+
+    /**
+     * Logs matching all filters of a view
+     */
+    public static Specification<ActivityLog> matching(Filter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.actionType() != null) {
+                predicates.add(cb.equal(root.get("actionType"), filter.actionType()));
+            }
+            if (filter.entityType() != null) {
+                predicates.add(cb.equal(root.get("entityType"), filter.entityType()));
+            }
+            if (filter.userId() != null) {
+                predicates.add(cb.equal(root.get("userId"), filter.userId()));
+            }
+            if (filter.userRole() != null) {
+                predicates.add(cb.equal(root.get("userRole"), filter.userRole()));
+            }
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            if (filter.from() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.from()));
+            }
+            if (filter.to() != null) {
+                predicates.add(cb.lessThanOrEqualTo(createdAt, filter.to()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Logs after a cursor in {@link #NEWEST_FIRST} order, as
+     * created_at <= ? AND (created_at < ? OR id < ?), which bounds the index range on created_at
+     */
+    public static Specification<ActivityLog> after(PageCursor.Created cursor) {
+        return (root, query, cb) -> {
+            if (cursor.createdAt() == null) {
+                return cb.and();
+            }
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            Path<Integer> id = root.get("id");
+            return cb.and(
+                    cb.lessThanOrEqualTo(createdAt, cursor.createdAt()),
+                    cb.or(cb.lessThan(createdAt, cursor.createdAt()), cb.lessThan(id, cursor.id())));
+        };
+    }
+}
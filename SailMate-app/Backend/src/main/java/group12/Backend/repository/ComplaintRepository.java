@@ -1,13 +1,40 @@
 package group12.Backend.repository;
 
 import group12.Backend.entity.Complaint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ComplaintRepository extends JpaRepository<Complaint, Integer> {
     List<Complaint> findByUserId(String userId);
     List<Complaint> findByStatus(Complaint.ComplaintStatus status);
-}
\ No newline at end of file
+    
+    /**
+     * Find a page of complaints, newest first, starting after a cursor
+     * @param createdAt created_at of the last item of the previous page, null for the first page
+     * @param id ID of the last item of the previous page, null for the first page
+     * @param limit maximum number of items to return
+     * @return the items
+     */
+    @Query("SELECT c FROM Complaint c WHERE (:createdAt IS NULL OR c.createdAt < :createdAt " +
+           "OR (c.createdAt = :createdAt AND c.id < :id)) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Complaint> findPage(@Param("createdAt") LocalDateTime createdAt, @Param("id") Integer id, Limit limit);
+    
+    /**
+     * Set created_at of rows without one, so the keyset pages reach them
+     * @param createdAt the time to set
+     * @param limit maximum number of rows to update
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Query(value = "UPDATE complaint SET created_at = :createdAt WHERE created_at IS NULL LIMIT :limit", nativeQuery = true)
+    int fillMissingCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("limit") int limit);
+}
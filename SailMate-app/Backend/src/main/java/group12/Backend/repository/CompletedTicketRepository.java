@@ -1,11 +1,22 @@
 package group12.Backend.repository;
 
+import group12.Backend.dto.CompletedTicketExportRow;
+import group12.Backend.dto.TicketSalesRow;
 import group12.Backend.entity.CompletedTicket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CompletedTicketRepository extends JpaRepository<CompletedTicket, Integer> {
@@ -16,6 +27,14 @@ public interface CompletedTicketRepository extends JpaRepository<CompletedTicket
      * @return an Optional containing the completed ticket if found
      */
     Optional<CompletedTicket> findByTicketId(String ticketId);
+
+    /**
+     * Find the owner of a completed ticket without loading the ticket
+     * @param ticketId the unique ticket identifier
+     * @return an Optional containing the user ID if the ticket exists
+     */
+    @Query("SELECT t.userId FROM CompletedTicket t WHERE t.ticketId = :ticketId")
+    Optional<String> findUserIdByTicketId(@Param("ticketId") String ticketId);
     
     /**
      * Find all completed tickets by user ID
@@ -30,4 +49,88 @@ public interface CompletedTicketRepository extends JpaRepository<CompletedTicket
      * @return list of completed tickets for the voyage
      */
     List<CompletedTicket> findByVoyageId(Integer voyageId);
-}
\ No newline at end of file
+    
+    /**
+     * Stream completed tickets for an export in ID order. Rows are fetched from
+     * the server in chunks; must be consumed inside a transaction and closed.
+     * Null filters match all completed tickets.
+     * @param from only tickets created at or after this time
+     * @param to only tickets created before this time
+     * @param voyageId only tickets of this voyage
+     * @param ticketClass only tickets of this class
+     * @return the completed tickets
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new group12.Backend.dto.CompletedTicketExportRow(t.ticketId, t.voyageId, t.depCity, " +
+           "t.depStationTitle, t.arrCity, t.arrStationTitle, t.depDate, t.depTime, t.arrTime, t.shipType, " +
+           "t.passengerCount, t.totalPrice, t.ticketClass, t.selectedSeats, t.userId, t.createdAt) " +
+           "FROM CompletedTicket t " +
+           "WHERE (:from IS NULL OR t.createdAt >= :from) AND (:to IS NULL OR t.createdAt < :to) " +
+           "AND (:voyageId IS NULL OR t.voyageId = :voyageId) " +
+           "AND (:ticketClass IS NULL OR t.ticketClass = :ticketClass) " +
+           "ORDER BY t.id")
+    Stream<CompletedTicketExportRow> streamForExport(@Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to,
+                                                     @Param("voyageId") Integer voyageId,
+                                                     @Param("ticketClass") String ticketClass);
+    
+    /**
+     * Find completed tickets with seats that have no ticket_seat rows yet, in ID order
+     * @param afterId only return completed tickets with a larger ID
+     * @param limit maximum number of completed tickets to return
+     * @return the completed tickets
+     */
+    @Query(value = "SELECT t.* FROM completed_tickets t WHERE t.id > :afterId AND t.selected_seats <> 'auto' " +
+           "AND NOT EXISTS (SELECT 1 FROM ticket_seat s WHERE s.ticket_id = t.ticket_id) " +
+           "ORDER BY t.id LIMIT :limit", nativeQuery = true)
+    List<CompletedTicket> findWithoutSeatRows(@Param("afterId") Integer afterId, @Param("limit") int limit);
+    
+    /**
+     * Find completed tickets with passengers that have no ticket_passenger rows yet, in ID order
+     * @param afterId only return completed tickets with a larger ID
+     * @param limit maximum number of completed tickets to return
+     * @return the completed tickets
+     */
+    @Query(value = "SELECT t.* FROM completed_tickets t WHERE t.id > :afterId AND JSON_LENGTH(t.ticket_data) > 0 " +
+           "AND NOT EXISTS (SELECT 1 FROM ticket_passenger p WHERE p.ticket_id = t.ticket_id) " +
+           "ORDER BY t.id LIMIT :limit", nativeQuery = true)
+    List<CompletedTicket> findWithoutPassengerRows(@Param("afterId") Integer afterId, @Param("limit") int limit);
+    
+    /**
+     * Find a page of completed tickets, newest first, starting after a cursor
+     * @param createdAt created_at of the last item of the previous page, null for the first page
+     * @param id ID of the last item of the previous page, null for the first page
+     * @param limit maximum number of items to return
+     * @return the items
+     */
+    @Query("SELECT t FROM CompletedTicket t WHERE (:createdAt IS NULL OR t.createdAt < :createdAt " +
+           "OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<CompletedTicket> findPage(@Param("createdAt") LocalDateTime createdAt, @Param("id") Integer id, Limit limit);
+    
+    /**
+     * Sum the completed tickets created in a time range by month, class and route
+     * @param from only tickets created at or after this time
+     * @param to only tickets created before this time
+     * @return one row per month, class and route
+     */
+    @Query("SELECT new group12.Backend.dto.TicketSalesRow(month(t.createdAt), t.ticketClass, " +
+           "t.depCity, t.depStationTitle, t.arrCity, t.arrStationTitle, " +
+           "COUNT(t), SUM(t.totalPrice), SUM(t.passengerCount)) " +
+           "FROM CompletedTicket t WHERE t.createdAt >= :from AND t.createdAt < :to " +
+           "GROUP BY month(t.createdAt), t.ticketClass, t.depCity, t.depStationTitle, t.arrCity, t.arrStationTitle")
+    List<TicketSalesRow> findSales(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Set created_at of rows without one, so the keyset pages reach them
+     * @param createdAt the time to set
+     * @param limit maximum number of rows to update
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Query(value = "UPDATE completed_tickets SET created_at = :createdAt WHERE created_at IS NULL LIMIT :limit", nativeQuery = true)
+    int fillMissingCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("limit") int limit);
+}
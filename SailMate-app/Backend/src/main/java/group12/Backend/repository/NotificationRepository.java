@@ -1,12 +1,14 @@
 package group12.Backend.repository;
 
 import group12.Backend.entity.Notification;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -46,4 +48,27 @@ public interface NotificationRepository extends JpaRepository<Notification, Inte
     
     // Find all notifications of a specific type
     List<Notification> findByTypeOrderByCreatedAtDesc(Notification.NotificationType type);
-}
\ No newline at end of file
+    
+    /**
+     * Find a page of a user's notifications, newest first, starting after a cursor
+     * @param userId the ID of the user
+     * @param createdAt created_at of the last item of the previous page, null for the first page
+     * @param id ID of the last item of the previous page, null for the first page
+     * @param limit maximum number of items to return
+     * @return the items
+     */
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND (:createdAt IS NULL OR n.createdAt < :createdAt " +
+           "OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageByUserId(@Param("userId") String userId, @Param("createdAt") LocalDateTime createdAt, @Param("id") Integer id, Limit limit);
+    
+    /**
+     * Set created_at of rows without one, so the keyset pages reach them
+     * @param createdAt the time to set
+     * @param limit maximum number of rows to update
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Query(value = "UPDATE notification SET created_at = :createdAt WHERE created_at IS NULL LIMIT :limit", nativeQuery = true)
+    int fillMissingCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("limit") int limit);
+}
@@ -0,0 +1,43 @@
+package group12.Backend.repository;
+
+import group12.Backend.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Lock the oldest due events; rows locked by another dispatcher are skipped instead of waited for
+    @Query(value = "SELECT * FROM outbox_events WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockDueEvents(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Mark a batch of events as sent
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = group12.Backend.entity.OutboxEvent.Status.SENT, " +
+           "e.processedAt = :processedAt, e.lastError = null WHERE e.id IN :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("processedAt") LocalDateTime processedAt);
+
+    // Record a failed attempt: retry at nextAttemptAt, or give up with status FAILED
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.lastError = :lastError WHERE e.id = :id")
+    int markFailedAttempt(@Param("id") Long id,
+                          @Param("status") OutboxEvent.Status status,
+                          @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                          @Param("lastError") String lastError);
+
+    // Count events by status, for monitoring
+    long countByStatus(OutboxEvent.Status status);
+
+    // Delete sent events processed before a date
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = group12.Backend.entity.OutboxEvent.Status.SENT AND e.processedAt < :date")
+    int deleteSentBefore(@Param("date") LocalDateTime date);
+}
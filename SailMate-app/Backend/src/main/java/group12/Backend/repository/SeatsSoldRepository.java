@@ -1,9 +1,18 @@
 package group12.Backend.repository;
 
 import group12.Backend.entity.SeatsSold;
+import group12.Backend.entity.Voyage;
+import group12.Backend.util.SeatSection;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,7 +20,248 @@ public interface SeatsSoldRepository extends JpaRepository<SeatsSold, Integer> {
     
     Optional<SeatsSold> findByVoyageId(Integer voyageId);
     
+    /**
+     * Find the voyages with a seats_sold record and the given status
+     * @param status the voyage status
+     * @return the voyage IDs
+     */
+    @Query("SELECT s.voyage.id FROM SeatsSold s WHERE s.voyage.status = :status ORDER BY s.voyage.id")
+    List<Integer> findVoyageIdsByVoyageStatus(@Param("status") Voyage.VoyageStatus status);
+    
+    /**
+     * Load the bitmaps of several voyages in one query, without loading the
+     * voyages and their stations
+     * @param voyageIds the voyage IDs
+     * @return one row per voyage that has a seats_sold record
+     */
+    @Query("SELECT s.id AS id, s.voyage.id AS voyageId, s.shipType AS shipType, " +
+           "s.upperDeckPromo AS upperDeckPromo, s.upperDeckEconomy AS upperDeckEconomy, " +
+           "s.upperDeckBusiness AS upperDeckBusiness, s.lowerDeckPromo AS lowerDeckPromo, " +
+           "s.lowerDeckEconomy AS lowerDeckEconomy, s.lowerDeckBusiness AS lowerDeckBusiness, " +
+           "s.overflowSeats AS overflowSeats, s.totalTicketsSold AS totalTicketsSold " +
+           "FROM SeatsSold s WHERE s.voyage.id IN :voyageIds")
+    List<SeatBitmaps> findBitmapsByVoyageIdIn(@Param("voyageIds") Collection<Integer> voyageIds);
+    
+    /**
+     * Load the bitmap of one voyage without loading the voyage
+     * @param voyageId the voyage ID
+     * @return the row, or empty if the voyage has no seats_sold record
+     */
+    @Query("SELECT s.id AS id, s.voyage.id AS voyageId, s.shipType AS shipType, " +
+           "s.upperDeckPromo AS upperDeckPromo, s.upperDeckEconomy AS upperDeckEconomy, " +
+           "s.upperDeckBusiness AS upperDeckBusiness, s.lowerDeckPromo AS lowerDeckPromo, " +
+           "s.lowerDeckEconomy AS lowerDeckEconomy, s.lowerDeckBusiness AS lowerDeckBusiness, " +
+           "s.overflowSeats AS overflowSeats, s.totalTicketsSold AS totalTicketsSold " +
+           "FROM SeatsSold s WHERE s.voyage.id = :voyageId")
+    Optional<SeatBitmaps> findBitmapsByVoyageId(@Param("voyageId") Integer voyageId);
+    
     boolean existsByVoyageId(Integer voyageId);
     
     void deleteByVoyageId(Integer voyageId);
-}
\ No newline at end of file
+    
+    /**
+     * Mark seats as sold in a single statement. The row is only updated if none
+     * of the requested seats is already sold, so two buyers can never both get
+     * the same seat. MySQL does bit arithmetic on unsigned 64-bit values, so the
+     * result is cast back to the signed column; otherwise the 64th seat of a
+     * section, the sign bit, is out of range for BIGINT.
+     * @param voyageId the voyage ID
+     * @param ticketDelta amount added to total_tickets_sold
+     * @return 1 if all seats were claimed, 0 if any was already sold or the row does not exist
+     */
+    @Modifying
+    @Query(value = "UPDATE seats_sold SET " +
+           "upper_deck_promo = CAST(upper_deck_promo | :upperDeckPromo AS SIGNED), " +
+           "upper_deck_economy = CAST(upper_deck_economy | :upperDeckEconomy AS SIGNED), " +
+           "upper_deck_business = CAST(upper_deck_business | :upperDeckBusiness AS SIGNED), " +
+           "lower_deck_promo = CAST(lower_deck_promo | :lowerDeckPromo AS SIGNED), " +
+           "lower_deck_economy = CAST(lower_deck_economy | :lowerDeckEconomy AS SIGNED), " +
+           "lower_deck_business = CAST(lower_deck_business | :lowerDeckBusiness AS SIGNED), " +
+           "total_tickets_sold = total_tickets_sold + :ticketDelta, " +
+           "updated_at = CURRENT_TIMESTAMP " +
+           "WHERE voyage_id = :voyageId " +
+           "AND (upper_deck_promo & :upperDeckPromo) = 0 " +
+           "AND (upper_deck_economy & :upperDeckEconomy) = 0 " +
+           "AND (upper_deck_business & :upperDeckBusiness) = 0 " +
+           "AND (lower_deck_promo & :lowerDeckPromo) = 0 " +
+           "AND (lower_deck_economy & :lowerDeckEconomy) = 0 " +
+           "AND (lower_deck_business & :lowerDeckBusiness) = 0",
+           nativeQuery = true)
+    int claimSeats(
+        @Param("voyageId") Integer voyageId,
+        @Param("upperDeckPromo") long upperDeckPromo,
+        @Param("upperDeckEconomy") long upperDeckEconomy,
+        @Param("upperDeckBusiness") long upperDeckBusiness,
+        @Param("lowerDeckPromo") long lowerDeckPromo,
+        @Param("lowerDeckEconomy") long lowerDeckEconomy,
+        @Param("lowerDeckBusiness") long lowerDeckBusiness,
+        @Param("ticketDelta") long ticketDelta
+    );
+    
+    /**
+     * Mark seats as free again in a single statement. The row is only updated if
+     * all of the requested seats are sold, so a repeated cancellation cannot
+     * clear seats of other tickets. The seats are tested as (~column & mask) = 0,
+     * because comparing the unsigned (column & mask) with a negative mask
+     * never matches the 64th seat of a section.
+     * @param voyageId the voyage ID
+     * @param ticketDelta amount added to total_tickets_sold (negative for a cancellation)
+     * @return 1 if all seats were released, 0 if any was not sold or the row does not exist
+     */
+    @Modifying
+    @Query(value = "UPDATE seats_sold SET " +
+           "upper_deck_promo = CAST(upper_deck_promo & ~:upperDeckPromo AS SIGNED), " +
+           "upper_deck_economy = CAST(upper_deck_economy & ~:upperDeckEconomy AS SIGNED), " +
+           "upper_deck_business = CAST(upper_deck_business & ~:upperDeckBusiness AS SIGNED), " +
+           "lower_deck_promo = CAST(lower_deck_promo & ~:lowerDeckPromo AS SIGNED), " +
+           "lower_deck_economy = CAST(lower_deck_economy & ~:lowerDeckEconomy AS SIGNED), " +
+           "lower_deck_business = CAST(lower_deck_business & ~:lowerDeckBusiness AS SIGNED), " +
+           "total_tickets_sold = total_tickets_sold + :ticketDelta, " +
+           "updated_at = CURRENT_TIMESTAMP " +
+           "WHERE voyage_id = :voyageId " +
+           "AND (~upper_deck_promo & :upperDeckPromo) = 0 " +
+           "AND (~upper_deck_economy & :upperDeckEconomy) = 0 " +
+           "AND (~upper_deck_business & :upperDeckBusiness) = 0 " +
+           "AND (~lower_deck_promo & :lowerDeckPromo) = 0 " +
+           "AND (~lower_deck_economy & :lowerDeckEconomy) = 0 " +
+           "AND (~lower_deck_business & :lowerDeckBusiness) = 0",
+           nativeQuery = true)
+    int releaseSeats(
+        @Param("voyageId") Integer voyageId,
+        @Param("upperDeckPromo") long upperDeckPromo,
+        @Param("upperDeckEconomy") long upperDeckEconomy,
+        @Param("upperDeckBusiness") long upperDeckBusiness,
+        @Param("lowerDeckPromo") long lowerDeckPromo,
+        @Param("lowerDeckEconomy") long lowerDeckEconomy,
+        @Param("lowerDeckBusiness") long lowerDeckBusiness,
+        @Param("ticketDelta") long ticketDelta
+    );
+    
+    /**
+     * {@link #claimSeats} for vessels with more than 64 seats in a section. The
+     * overflow mask must have the same length as the stored overflow_seats.
+     * @return 1 if all seats were claimed, 0 if any was already sold or the row does not exist
+     */
+    @Modifying
+    @Query(value = "UPDATE seats_sold SET " +
+           "upper_deck_promo = CAST(upper_deck_promo | :upperDeckPromo AS SIGNED), " +
+           "upper_deck_economy = CAST(upper_deck_economy | :upperDeckEconomy AS SIGNED), " +
+           "upper_deck_business = CAST(upper_deck_business | :upperDeckBusiness AS SIGNED), " +
+           "lower_deck_promo = CAST(lower_deck_promo | :lowerDeckPromo AS SIGNED), " +
+           "lower_deck_economy = CAST(lower_deck_economy | :lowerDeckEconomy AS SIGNED), " +
+           "lower_deck_business = CAST(lower_deck_business | :lowerDeckBusiness AS SIGNED), " +
+           "overflow_seats = overflow_seats | :overflowSeats, " +
+           "total_tickets_sold = total_tickets_sold + :ticketDelta, " +
+           "updated_at = CURRENT_TIMESTAMP " +
+           "WHERE voyage_id = :voyageId " +
+           "AND (upper_deck_promo & :upperDeckPromo) = 0 " +
+           "AND (upper_deck_economy & :upperDeckEconomy) = 0 " +
+           "AND (upper_deck_business & :upperDeckBusiness) = 0 " +
+           "AND (lower_deck_promo & :lowerDeckPromo) = 0 " +
+           "AND (lower_deck_economy & :lowerDeckEconomy) = 0 " +
+           "AND (lower_deck_business & :lowerDeckBusiness) = 0 " +
+           "AND BIT_COUNT(overflow_seats & :overflowSeats) = 0",
+           nativeQuery = true)
+    int claimSeatsWithOverflow(
+        @Param("voyageId") Integer voyageId,
+        @Param("upperDeckPromo") long upperDeckPromo,
+        @Param("upperDeckEconomy") long upperDeckEconomy,
+        @Param("upperDeckBusiness") long upperDeckBusiness,
+        @Param("lowerDeckPromo") long lowerDeckPromo,
+        @Param("lowerDeckEconomy") long lowerDeckEconomy,
+        @Param("lowerDeckBusiness") long lowerDeckBusiness,
+        @Param("overflowSeats") byte[] overflowSeats,
+        @Param("ticketDelta") long ticketDelta
+    );
+    
+    /**
+     * {@link #releaseSeats} for vessels with more than 64 seats in a section. The
+     * overflow mask must have the same length as the stored overflow_seats.
+     * @return 1 if all seats were released, 0 if any was not sold or the row does not exist
+     */
+    @Modifying
+    @Query(value = "UPDATE seats_sold SET " +
+           "upper_deck_promo = CAST(upper_deck_promo & ~:upperDeckPromo AS SIGNED), " +
+           "upper_deck_economy = CAST(upper_deck_economy & ~:upperDeckEconomy AS SIGNED), " +
+           "upper_deck_business = CAST(upper_deck_business & ~:upperDeckBusiness AS SIGNED), " +
+           "lower_deck_promo = CAST(lower_deck_promo & ~:lowerDeckPromo AS SIGNED), " +
+           "lower_deck_economy = CAST(lower_deck_economy & ~:lowerDeckEconomy AS SIGNED), " +
+           "lower_deck_business = CAST(lower_deck_business & ~:lowerDeckBusiness AS SIGNED), " +
+           "overflow_seats = overflow_seats & ~:overflowSeats, " +
+           "total_tickets_sold = total_tickets_sold + :ticketDelta, " +
+           "updated_at = CURRENT_TIMESTAMP " +
+           "WHERE voyage_id = :voyageId " +
+           "AND (~upper_deck_promo & :upperDeckPromo) = 0 " +
+           "AND (~upper_deck_economy & :upperDeckEconomy) = 0 " +
+           "AND (~upper_deck_business & :upperDeckBusiness) = 0 " +
+           "AND (~lower_deck_promo & :lowerDeckPromo) = 0 " +
+           "AND (~lower_deck_economy & :lowerDeckEconomy) = 0 " +
+           "AND (~lower_deck_business & :lowerDeckBusiness) = 0 " +
+           "AND (overflow_seats & :overflowSeats) = :overflowSeats",
+           nativeQuery = true)
+    int releaseSeatsWithOverflow(
+        @Param("voyageId") Integer voyageId,
+        @Param("upperDeckPromo") long upperDeckPromo,
+        @Param("upperDeckEconomy") long upperDeckEconomy,
+        @Param("upperDeckBusiness") long upperDeckBusiness,
+        @Param("lowerDeckPromo") long lowerDeckPromo,
+        @Param("lowerDeckEconomy") long lowerDeckEconomy,
+        @Param("lowerDeckBusiness") long lowerDeckBusiness,
+        @Param("overflowSeats") byte[] overflowSeats,
+        @Param("ticketDelta") long ticketDelta
+    );
+    
+    /**
+     * Find a page of seats_sold records, newest first, starting after a cursor
+     * @param createdAt created_at of the last item of the previous page, null for the first page
+     * @param id ID of the last item of the previous page, null for the first page
+     * @param limit maximum number of items to return
+     * @return the items
+     */
+    @Query("SELECT s FROM SeatsSold s JOIN FETCH s.voyage v " +
+           "LEFT JOIN FETCH v.fromStation LEFT JOIN FETCH v.toStation " +
+           "WHERE (:createdAt IS NULL OR s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SeatsSold> findPage(@Param("createdAt") LocalDateTime createdAt, @Param("id") Integer id, Limit limit);
+    
+    /**
+     * Bitmap columns of a seats_sold row
+     */
+    interface SeatBitmaps {
+        Integer getId();
+        Integer getVoyageId();
+        String getShipType();
+        Long getUpperDeckPromo();
+        Long getUpperDeckEconomy();
+        Long getUpperDeckBusiness();
+        Long getLowerDeckPromo();
+        Long getLowerDeckEconomy();
+        Long getLowerDeckBusiness();
+        byte[] getOverflowSeats();
+        Long getTotalTicketsSold();
+        
+        /**
+         * @return the six section columns in {@link SeatSection} order
+         */
+        default long[] columns() {
+            long[] columns = new long[SeatSection.COUNT];
+            columns[SeatSection.UPPER_DECK_PROMO.ordinal()] = getUpperDeckPromo();
+            columns[SeatSection.UPPER_DECK_ECONOMY.ordinal()] = getUpperDeckEconomy();
+            columns[SeatSection.UPPER_DECK_BUSINESS.ordinal()] = getUpperDeckBusiness();
+            columns[SeatSection.LOWER_DECK_PROMO.ordinal()] = getLowerDeckPromo();
+            columns[SeatSection.LOWER_DECK_ECONOMY.ordinal()] = getLowerDeckEconomy();
+            columns[SeatSection.LOWER_DECK_BUSINESS.ordinal()] = getLowerDeckBusiness();
+            return columns;
+        }
+    }
+    
+    /**
+     * Set created_at of rows without one, so the keyset pages reach them
+     * @param createdAt the time to set
+     * @param limit maximum number of rows to update
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Query(value = "UPDATE seats_sold SET created_at = :createdAt WHERE created_at IS NULL LIMIT :limit", nativeQuery = true)
+    int fillMissingCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("limit") int limit);
+}
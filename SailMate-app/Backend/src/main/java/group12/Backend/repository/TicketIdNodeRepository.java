@@ -0,0 +1,49 @@
+package group12.Backend.repository;
+
+import group12.Backend.entity.TicketIdNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Node leases of {@link group12.Backend.util.TicketIdNodeLease}. Lease times
+ * are compared with the database clock, so instances with different clocks agree on them.
+ */
+@Repository
+public interface TicketIdNodeRepository extends JpaRepository<TicketIdNode, Integer> {
+
+    // Lease a node nobody has used yet; 0 if another instance created it first
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO ticket_id_nodes (node, owner, leased_until, issued_until) " +
+                   "VALUES (:node, :owner, NOW(3) + INTERVAL :seconds SECOND, :issuedUntil)", nativeQuery = true)
+    int create(@Param("node") int node, @Param("owner") String owner, @Param("seconds") long seconds,
+               @Param("issuedUntil") long issuedUntil);
+
+    // Take or renew the lease of a node that is expired or already ours; 0 if another instance holds it
+    @Modifying
+    @Query(value = "UPDATE ticket_id_nodes SET owner = :owner, leased_until = NOW(3) + INTERVAL :seconds SECOND, " +
+                   "issued_until = GREATEST(issued_until, :issuedUntil) " +
+                   "WHERE node = :node AND (owner = :owner OR leased_until < NOW(3))", nativeQuery = true)
+    int claim(@Param("node") int node, @Param("owner") String owner, @Param("seconds") long seconds,
+              @Param("issuedUntil") long issuedUntil);
+
+    // Give the node up on shutdown, recording how far its IDs were issued
+    @Modifying
+    @Query(value = "UPDATE ticket_id_nodes SET leased_until = NOW(3), issued_until = GREATEST(issued_until, :issuedUntil) " +
+                   "WHERE node = :node AND owner = :owner", nativeQuery = true)
+    int release(@Param("node") int node, @Param("owner") String owner, @Param("issuedUntil") long issuedUntil);
+
+    @Query(value = "SELECT issued_until FROM ticket_id_nodes WHERE node = :node", nativeQuery = true)
+    Optional<Long> findIssuedUntil(@Param("node") int node);
+
+    @Query(value = "SELECT node FROM ticket_id_nodes WHERE leased_until < NOW(3) ORDER BY node", nativeQuery = true)
+    List<Integer> findExpiredNodes();
+
+    @Query(value = "SELECT node FROM ticket_id_nodes ORDER BY node", nativeQuery = true)
+    List<Integer> findAllNodes();
+}
@@ -0,0 +1,38 @@
+package group12.Backend.repository;
+
+import group12.Backend.entity.TicketPassenger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TicketPassengerRepository extends JpaRepository<TicketPassenger, Long> {
+
+    /**
+     * Find the passengers of a ticket in booking order
+     * @param ticketId the public ticket ID
+     * @return the passengers
+     */
+    List<TicketPassenger> findByTicketIdOrderByPositionAsc(String ticketId);
+
+    /**
+     * Find the passengers of several tickets in one query, for ticket lists
+     * @param ticketIds the public ticket IDs
+     * @return the passengers, grouped by ticket and in booking order
+     */
+    List<TicketPassenger> findByTicketIdInOrderByTicketIdAscPositionAsc(Collection<String> ticketIds);
+
+    /**
+     * Remove all passengers of a ticket in a single statement
+     * @param ticketId the public ticket ID
+     * @return the number of passengers removed
+     */
+    @Modifying
+    @Query("DELETE FROM TicketPassenger p WHERE p.ticketId = :ticketId")
+    int deleteByTicketId(@Param("ticketId") String ticketId);
+}
@@ -1,11 +1,23 @@
 package group12.Backend.repository;
 
+import group12.Backend.dto.TicketExportRow;
+import group12.Backend.dto.TicketSalesRow;
+import group12.Backend.dto.TicketVoyageView;
 import group12.Backend.entity.Ticket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Integer> {
@@ -24,6 +36,73 @@ public interface TicketRepository extends JpaRepository<Ticket, Integer> {
      */
     Optional<Ticket> findByTicketID(String ticketID);
     
+    String VOYAGE_VIEW_SELECT = "SELECT new group12.Backend.dto.TicketVoyageView(t, " +
+           "fs.city, fs.title, ts.city, ts.title, v.departureDate, v.departureTime, v.arrivalTime) " +
+           "FROM Ticket t LEFT JOIN Voyage v ON v.id = t.voyageId " +
+           "LEFT JOIN v.fromStation fs LEFT JOIN v.toStation ts ";
+    
+    /**
+     * Find all tickets of a user with their voyage and stations in one query
+     * @param userId the ID of the user
+     * @return the tickets with voyage details
+     */
+    @Query(VOYAGE_VIEW_SELECT + "WHERE t.userId = :userId")
+    List<TicketVoyageView> findVoyageViewsByUserId(@Param("userId") String userId);
+    
+    /**
+     * Find a ticket by its unique ticketID with its voyage and stations in one query
+     * @param ticketID the unique ticket identifier
+     * @return the ticket with voyage details if found
+     */
+    @Query(VOYAGE_VIEW_SELECT + "WHERE t.ticketID = :ticketID")
+    Optional<TicketVoyageView> findVoyageViewByTicketID(@Param("ticketID") String ticketID);
+    
+    /**
+     * Find a ticket by its ID with its voyage and stations in one query
+     * @param id the ID of the ticket
+     * @return the ticket with voyage details if found
+     */
+    @Query(VOYAGE_VIEW_SELECT + "WHERE t.id = :id")
+    Optional<TicketVoyageView> findVoyageViewById(@Param("id") Integer id);
+    
+    /**
+     * Stream the seat lists of a voyage's tickets without loading the tickets.
+     * Must be consumed inside a transaction and closed.
+     * @param voyageId the ID of the voyage
+     * @return one selected_seats value per ticket
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t.selectedSeats FROM Ticket t WHERE t.voyageId = :voyageId")
+    Stream<String> streamSelectedSeatsByVoyageId(@Param("voyageId") Integer voyageId);
+    
+    /**
+     * Stream tickets for an export in ID order, with the voyage and stations joined.
+     * Rows are fetched from the server in chunks; must be consumed inside a
+     * transaction and closed. Null filters match all tickets.
+     * @param from only tickets created at or after this time
+     * @param to only tickets created before this time
+     * @param voyageId only tickets of this voyage
+     * @param ticketClass only tickets of this class
+     * @return the tickets
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new group12.Backend.dto.TicketExportRow(t.ticketID, t.voyageId, fs.title, ts.title, " +
+           "v.departureDate, v.departureTime, t.passengerCount, t.totalPrice, t.ticketClass, t.selectedSeats, " +
+           "t.userId, t.createdAt) " +
+           "FROM Ticket t LEFT JOIN Voyage v ON v.id = t.voyageId " +
+           "LEFT JOIN v.fromStation fs LEFT JOIN v.toStation ts " +
+           "WHERE (:from IS NULL OR t.createdAt >= :from) AND (:to IS NULL OR t.createdAt < :to) " +
+           "AND (:voyageId IS NULL OR t.voyageId = :voyageId) " +
+           "AND (:ticketClass IS NULL OR t.ticketClass = :ticketClass) " +
+           "ORDER BY t.id")
+    Stream<TicketExportRow> streamForExport(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("voyageId") Integer voyageId,
+                                            @Param("ticketClass") String ticketClass);
+    
     /**
      * Find all tickets for a specific voyage
      * @param voyageId the ID of the voyage
@@ -31,10 +110,77 @@ public interface TicketRepository extends JpaRepository<Ticket, Integer> {
      */
     List<Ticket> findByVoyageId(Integer voyageId);
     
+    /**
+     * Find the tickets of a voyage page by page, in ID order
+     * @param voyageId the ID of the voyage
+     * @param afterId the last ticket ID of the previous page, 0 for the first page
+     * @param limit the page size
+     * @return the next page of tickets for the voyage
+     */
+    List<Ticket> findByVoyageIdAndIdGreaterThanOrderByIdAsc(Integer voyageId, Integer afterId, Limit limit);
+    
     /**
      * Find tickets by ticket class
      * @param ticketClass the class of ticket (e.g., Business, Economy, Promo)
      * @return list of tickets matching the given class
      */
     List<Ticket> findByTicketClass(String ticketClass);
-}
\ No newline at end of file
+    
+    /**
+     * Find tickets with seats that have no ticket_seat rows yet, in ID order
+     * @param afterId only return tickets with a larger ID
+     * @param limit maximum number of tickets to return
+     * @return the tickets
+     */
+    @Query(value = "SELECT t.* FROM tickets t WHERE t.id > :afterId AND t.selected_seats <> 'auto' " +
+           "AND NOT EXISTS (SELECT 1 FROM ticket_seat s WHERE s.ticket_id = t.ticket_id) " +
+           "ORDER BY t.id LIMIT :limit", nativeQuery = true)
+    List<Ticket> findWithoutSeatRows(@Param("afterId") Integer afterId, @Param("limit") int limit);
+    
+    /**
+     * Find tickets with passengers that have no ticket_passenger rows yet, in ID order
+     * @param afterId only return tickets with a larger ID
+     * @param limit maximum number of tickets to return
+     * @return the tickets
+     */
+    @Query(value = "SELECT t.* FROM tickets t WHERE t.id > :afterId AND JSON_LENGTH(t.ticket_data) > 0 " +
+           "AND NOT EXISTS (SELECT 1 FROM ticket_passenger p WHERE p.ticket_id = t.ticket_id) " +
+           "ORDER BY t.id LIMIT :limit", nativeQuery = true)
+    List<Ticket> findWithoutPassengerRows(@Param("afterId") Integer afterId, @Param("limit") int limit);
+    
+    /**
+     * Find a page of tickets, newest first, starting after a cursor
+     * @param createdAt created_at of the last item of the previous page, null for the first page
+     * @param id ID of the last item of the previous page, null for the first page
+     * @param limit maximum number of items to return
+     * @return the items
+     */
+    @Query("SELECT t FROM Ticket t WHERE (:createdAt IS NULL OR t.createdAt < :createdAt " +
+           "OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Ticket> findPage(@Param("createdAt") LocalDateTime createdAt, @Param("id") Integer id, Limit limit);
+    
+    /**
+     * Sum the tickets created in a time range by month, class and route
+     * @param from only tickets created at or after this time
+     * @param to only tickets created before this time
+     * @return one row per month, class and route
+     */
+    @Query("SELECT new group12.Backend.dto.TicketSalesRow(month(t.createdAt), t.ticketClass, " +
+           "fs.city, fs.title, ts.city, ts.title, COUNT(t), SUM(t.totalPrice), SUM(t.passengerCount)) " +
+           "FROM Ticket t LEFT JOIN Voyage v ON v.id = t.voyageId " +
+           "LEFT JOIN v.fromStation fs LEFT JOIN v.toStation ts " +
+           "WHERE t.createdAt >= :from AND t.createdAt < :to " +
+           "GROUP BY month(t.createdAt), t.ticketClass, fs.city, fs.title, ts.city, ts.title")
+    List<TicketSalesRow> findSales(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Set created_at of rows without one, so the keyset pages reach them
+     * @param createdAt the time to set
+     * @param limit maximum number of rows to update
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Query(value = "UPDATE tickets SET created_at = :createdAt WHERE created_at IS NULL LIMIT :limit", nativeQuery = true)
+    int fillMissingCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("limit") int limit);
+}
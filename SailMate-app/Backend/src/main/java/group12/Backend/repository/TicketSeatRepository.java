@@ -0,0 +1,56 @@
+package group12.Backend.repository;
+
+import group12.Backend.entity.TicketSeat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TicketSeatRepository extends JpaRepository<TicketSeat, Long> {
+    
+    /**
+     * Find the holder of a single seat
+     * @return the seat row if the seat is sold
+     */
+    Optional<TicketSeat> findByVoyageIdAndDeckAndSeatClassAndSeatIndex(Integer voyageId, String deck,
+                                                                        String seatClass, Integer seatIndex);
+    
+    /**
+     * Find all seats of a ticket
+     * @param ticketId the public ticket ID
+     * @return the seats of the ticket
+     */
+    List<TicketSeat> findByTicketId(String ticketId);
+    
+    /**
+     * Find all sold seats of a voyage in seat order, for manifests
+     * @param voyageId the voyage ID
+     * @return the seats of the voyage
+     */
+    List<TicketSeat> findByVoyageIdOrderByDeckAscSeatClassAscSeatIndexAsc(Integer voyageId);
+    
+    boolean existsByTicketId(String ticketId);
+    
+    /**
+     * Free all seats of a ticket in a single statement
+     * @param ticketId the public ticket ID
+     * @return the number of seats freed
+     */
+    @Modifying
+    @Query("DELETE FROM TicketSeat s WHERE s.ticketId = :ticketId")
+    int deleteByTicketId(@Param("ticketId") String ticketId);
+    
+    /**
+     * Move all seats of a ticket to another voyage. Fails on the unique key if
+     * any of them is already sold there.
+     * @return the number of seats moved
+     */
+    @Modifying
+    @Query("UPDATE TicketSeat s SET s.voyageId = :voyageId WHERE s.ticketId = :ticketId")
+    int updateVoyageIdByTicketId(@Param("ticketId") String ticketId, @Param("voyageId") Integer voyageId);
+}
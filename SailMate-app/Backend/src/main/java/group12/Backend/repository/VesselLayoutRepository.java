@@ -0,0 +1,13 @@
+package group12.Backend.repository;
+
+import group12.Backend.entity.VesselLayout;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VesselLayoutRepository extends JpaRepository<VesselLayout, Integer> {
+    
+    Optional<VesselLayout> findByShipType(String shipType);
+}
@@ -2,7 +2,9 @@ package group12.Backend.repository;
 
 import group12.Backend.entity.Voyage;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -65,4 +67,18 @@ public interface VoyageRepository extends JpaRepository<Voyage, Integer> {
         @Param("toId") Integer toStationId,
         @Param("startDate") LocalDate startDate,
         @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+    
+    // Find a page of voyages in departure order, starting after a cursor (all null for the first page)
+    // and departing on or after fromDate (null for all voyages)
+    @Query("SELECT v FROM Voyage v LEFT JOIN FETCH v.fromStation LEFT JOIN FETCH v.toStation " +
+           "WHERE (:fromDate IS NULL OR v.departureDate >= :fromDate) " +
+           "AND (:departureDate IS NULL OR v.departureDate > :departureDate " +
+           "OR (v.departureDate = :departureDate AND (v.departureTime > :departureTime " +
+           "OR (v.departureTime = :departureTime AND v.id > :id)))) " +
+           "ORDER BY v.departureDate, v.departureTime, v.id")
+    List<Voyage> findPage(@Param("fromDate") LocalDate fromDate,
+                          @Param("departureDate") LocalDate departureDate,
+                          @Param("departureTime") LocalTime departureTime,
+                          @Param("id") Integer id,
+                          Limit limit);
+}
@@ -0,0 +1,83 @@
+package group12.Backend.scheduler;
+
+import group12.Backend.repository.ActivityLogRepository;
+import group12.Backend.repository.ComplaintRepository;
+import group12.Backend.repository.CompletedTicketRepository;
+import group12.Backend.repository.NotificationRepository;
+import group12.Backend.repository.SeatsSoldRepository;
+import group12.Backend.repository.TicketRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+/**
+ * Sets created_at of rows inserted without one. The list endpoints page by
+ * (created_at, id), and a row with a NULL created_at matches no cursor, so
+ * it could only ever show up on a first page. Runs once after startup; new
+ * rows always get a created_at, so there is nothing to do once it has run.
+ *
+ * The rows get {@link #MISSING_CREATED_AT}, which keeps them at the end of
+ * the newest first lists, where MySQL sorts NULLs, in their ID order.
+ */
+@Component
+public class CreatedAtBackfill {
+
+    private static final Logger logger = Logger.getLogger(CreatedAtBackfill.class.getName());
+
+    static final LocalDateTime MISSING_CREATED_AT = LocalDateTime.of(1970, 1, 2, 0, 0);
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private ComplaintRepository complaintRepository;
+
+    @Autowired
+    private SeatsSoldRepository seatsSoldRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private CompletedTicketRepository completedTicketRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Map<String, BiFunction<LocalDateTime, Integer, Integer>> tables = new LinkedHashMap<>();
+        tables.put("activity_log", activityLogRepository::fillMissingCreatedAt);
+        tables.put("notification", notificationRepository::fillMissingCreatedAt);
+        tables.put("complaint", complaintRepository::fillMissingCreatedAt);
+        tables.put("seats_sold", seatsSoldRepository::fillMissingCreatedAt);
+        tables.put("tickets", ticketRepository::fillMissingCreatedAt);
+        tables.put("completed_tickets", completedTicketRepository::fillMissingCreatedAt);
+
+        tables.forEach((table, fill) -> {
+            int rows = 0;
+            int updated;
+            do {
+                updated = transactionTemplate.execute(status -> fill.apply(MISSING_CREATED_AT, BATCH_SIZE));
+                rows += updated;
+            } while (updated == BATCH_SIZE);
+            if (rows > 0) {
+                logger.info(String.format("Set created_at of %d %s rows that had none", rows, table));
+            }
+        });
+    }
+}
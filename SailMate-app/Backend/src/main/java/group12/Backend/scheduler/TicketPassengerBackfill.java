@@ -0,0 +1,102 @@
+package group12.Backend.scheduler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.entity.CompletedTicket;
+import group12.Backend.entity.Ticket;
+import group12.Backend.repository.CompletedTicketRepository;
+import group12.Backend.repository.TicketRepository;
+import group12.Backend.service.TicketPassengerService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Fills ticket_passenger from ticket_data for tickets and completed tickets
+ * created before the table existed. Runs once after startup and only picks
+ * up tickets without passenger rows, so it is cheap once everything has been
+ * migrated. Until a ticket is reached, its passengers are read from
+ * ticket_data as before.
+ *
+ * Each ticket is written in its own transaction, so a ticket whose
+ * passengers are edited meanwhile only skips that ticket: the edit has
+ * already written its rows, and the unique key rejects the stale copy. A
+ * ticket whose ticket_data cannot be parsed is logged and skipped.
+ */
+@Component
+public class TicketPassengerBackfill {
+
+    private static final Logger logger = Logger.getLogger(TicketPassengerBackfill.class.getName());
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private CompletedTicketRepository completedTicketRepository;
+
+    @Autowired
+    private TicketPassengerService ticketPassengerService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int tickets = 0;
+        int lastId = 0;
+        List<Ticket> batch;
+        do {
+            batch = ticketRepository.findWithoutPassengerRows(lastId, BATCH_SIZE);
+            for (Ticket ticket : batch) {
+                lastId = ticket.getId();
+                if (save(ticket.getTicketID(), ticket.getTicketData())) {
+                    tickets++;
+                }
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        int completedTickets = 0;
+        lastId = 0;
+        List<CompletedTicket> completedBatch;
+        do {
+            completedBatch = completedTicketRepository.findWithoutPassengerRows(lastId, BATCH_SIZE);
+            for (CompletedTicket ticket : completedBatch) {
+                lastId = ticket.getId();
+                if (save(ticket.getTicketId(), ticket.getTicketData())) {
+                    completedTickets++;
+                }
+            }
+        } while (completedBatch.size() == BATCH_SIZE);
+
+        if (tickets > 0 || completedTickets > 0) {
+            logger.info(String.format("Backfilled passengers of %d tickets and %d completed tickets",
+                    tickets, completedTickets));
+        }
+    }
+
+    private boolean save(String ticketId, String ticketData) {
+        List<TicketDTO.PassengerInfo> passengers;
+        try {
+            passengers = ticketPassengerService.parseTicketData(ticketData);
+        } catch (JsonProcessingException e) {
+            logger.warning(String.format("Could not backfill passengers of ticket %s: %s", ticketId, e.getMessage()));
+            return false;
+        }
+        try {
+            return transactionTemplate.execute(status -> ticketPassengerService.savePassengers(ticketId, passengers)) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // The passengers were edited since the ticket was read, and the edit already wrote the rows
+            logger.fine(String.format("Passengers of ticket %s were written meanwhile", ticketId));
+            return false;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package group12.Backend.scheduler;
+
+import group12.Backend.entity.CompletedTicket;
+import group12.Backend.entity.Ticket;
+import group12.Backend.repository.CompletedTicketRepository;
+import group12.Backend.repository.TicketRepository;
+import group12.Backend.service.TicketSeatService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Fills ticket_seat for tickets and completed tickets created before the
+ * table existed. Runs once after startup and only picks up tickets without
+ * seat rows, so it is cheap once everything has been migrated.
+ *
+ * Each ticket is written in its own transaction. A ticket whose seats are
+ * already taken by another ticket is an existing double sale; it is logged
+ * and skipped so the rest of the backfill can continue.
+ */
+@Component
+public class TicketSeatBackfill {
+    
+    private static final Logger logger = Logger.getLogger(TicketSeatBackfill.class.getName());
+    
+    private static final int BATCH_SIZE = 500;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private CompletedTicketRepository completedTicketRepository;
+    
+    @Autowired
+    private TicketSeatService ticketSeatService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int tickets = 0;
+        int lastId = 0;
+        List<Ticket> batch;
+        do {
+            batch = ticketRepository.findWithoutSeatRows(lastId, BATCH_SIZE);
+            for (Ticket ticket : batch) {
+                lastId = ticket.getId();
+                if (assign(ticket.getTicketID(), ticket.getVoyageId(), ticket.getSelectedSeats())) {
+                    tickets++;
+                }
+            }
+        } while (batch.size() == BATCH_SIZE);
+        
+        int completedTickets = 0;
+        lastId = 0;
+        List<CompletedTicket> completedBatch;
+        do {
+            completedBatch = completedTicketRepository.findWithoutSeatRows(lastId, BATCH_SIZE);
+            for (CompletedTicket ticket : completedBatch) {
+                lastId = ticket.getId();
+                if (assign(ticket.getTicketId(), ticket.getVoyageId(), ticket.getSelectedSeats())) {
+                    completedTickets++;
+                }
+            }
+        } while (completedBatch.size() == BATCH_SIZE);
+        
+        if (tickets > 0 || completedTickets > 0) {
+            logger.info(String.format("Backfilled seats of %d tickets and %d completed tickets",
+                    tickets, completedTickets));
+        }
+    }
+    
+    private boolean assign(String ticketId, Integer voyageId, String selectedSeats) {
+        if (voyageId == null) {
+            return false;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    ticketSeatService.assignSeats(ticketId, voyageId, selectedSeats));
+            return true;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            logger.warning(String.format("Could not backfill seats of ticket %s: %s", ticketId, e.getMessage()));
+            return false;
+        }
+    }
+}
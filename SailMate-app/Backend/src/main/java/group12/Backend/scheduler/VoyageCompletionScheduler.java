@@ -7,6 +7,7 @@ import group12.Backend.entity.Voyage;
 import group12.Backend.repository.CompletedTicketRepository;
 import group12.Backend.repository.TicketRepository;
 import group12.Backend.repository.VoyageRepository;
+import group12.Backend.service.OutboxService;
 import jakarta.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,6 +35,9 @@ public class VoyageCompletionScheduler {
     @Autowired
     private CompletedTicketRepository completedTicketRepository;
 
+    @Autowired
+    private OutboxService outboxService;
+
     @PostConstruct
     public void onStartup() {
         logger.info("Application started - running voyage completion check immediately");
@@ -140,6 +144,9 @@ public class VoyageCompletionScheduler {
             
             // Delete the original ticket
             ticketRepository.delete(ticket);
+
+            // Moves the stored PDF over to the completed ticket
+            outboxService.enqueueTicketPdf(ticket.getTicketID());
             
             ticketsProcessed++;
         }
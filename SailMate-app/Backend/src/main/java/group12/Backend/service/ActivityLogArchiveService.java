@@ -0,0 +1,319 @@
+package group12.Backend.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import group12.Backend.dto.ActivityLogDTO;
+import group12.Backend.entity.ActivityLogArchiveFile;
+import group12.Backend.repository.ActivityLogArchiveFileRepository;
+import group12.Backend.repository.ActivityLogRepository;
+import group12.Backend.repository.ActivityLogSpecifications;
+import group12.Backend.util.PageCursor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves months of activity logs out of activity_log into compressed files on
+ * local disk, so the table only holds the last activity-log.archive.keep-months
+ * months.
+ *
+ * Every night each older month is written to {archive-dir}/{yyyy-MM}.{part}.jsonl.gz,
+ * one log per line, recorded in activity_log_archive and then deleted from the
+ * table in chunks. A run that stops after recording a part finishes its deletes
+ * on the next run; logs of the month that were not in the part go to the next
+ * part. A month is only archived once all its logs are rolled up, so the counts
+ * of {@link ActivityLogRollupService} still include it.
+ *
+ * Archived logs are still returned by the date range and paged views, which
+ * stream a month's files and keep only the logs of the page. A page reads at
+ * most {@link #MONTHS_PER_PAGE} months; if that does not fill it, the page ends
+ * early and its cursor continues before the last month read.
+ */
+@Service
+public class ActivityLogArchiveService {
+
+    private static final Logger logger = Logger.getLogger(ActivityLogArchiveService.class.getName());
+
+    private static final String EXTENSION = ".jsonl.gz";
+    private static final int DELETE_CHUNK = 5_000;
+
+    static final int MONTHS_PER_PAGE = 1;
+
+    static final Comparator<ActivityLogDTO> NEWEST_FIRST =
+            Comparator.comparing(ActivityLogDTO::getCreatedAt).thenComparing(ActivityLogDTO::getId).reversed();
+
+    /**
+     * Archived logs found for a page
+     * @param logs the logs, newest first
+     * @param resumeAfter where the next page continues if the search stopped
+     * before the page was full and older months are left, otherwise null
+     */
+    public record Page(List<ActivityLogDTO> logs, PageCursor.Created resumeAfter) {
+    }
+
+    private final ActivityLogRepository activityLogRepository;
+    private final ActivityLogArchiveFileRepository archiveFileRepository;
+    private final ActivityLogRollupService rollupService;
+    private final ObjectWriter jsonWriter;
+    private final ObjectReader jsonReader;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readTransaction;
+    private final Path archiveDir;
+    private final int keepMonths;
+
+    @Autowired
+    public ActivityLogArchiveService(ActivityLogRepository activityLogRepository,
+                                     ActivityLogArchiveFileRepository archiveFileRepository,
+                                     ActivityLogRollupService rollupService,
+                                     ObjectMapper objectMapper,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${activity-log.archive.dir:data/activity-log-archive}") String archiveDir,
+                                     @Value("${activity-log.archive.keep-months:6}") int keepMonths) {
+        this.activityLogRepository = activityLogRepository;
+        this.archiveFileRepository = archiveFileRepository;
+        this.rollupService = rollupService;
+        this.jsonWriter = objectMapper.writerFor(ActivityLogDTO.class);
+        this.jsonReader = objectMapper.readerFor(ActivityLogDTO.class);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.archiveDir = Path.of(archiveDir).toAbsolutePath();
+        this.keepMonths = keepMonths;
+    }
+
+    @Scheduled(cron = "${activity-log.archive.cron:0 0 4 * * *}")
+    public void archiveOldMonths() {
+        try {
+            archiveBefore(YearMonth.now().minusMonths(keepMonths));
+        } catch (IOException | RuntimeException e) {
+            logger.severe("Activity log archiving failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Archive every month before a month, oldest first
+     * @return the number of months archived
+     */
+    public int archiveBefore(YearMonth firstKept) throws IOException {
+        LocalDateTime oldest = activityLogRepository.findOldestCreatedAt();
+        int archived = 0;
+        for (YearMonth month = oldest != null ? YearMonth.from(oldest) : firstKept;
+             month.isBefore(firstKept); month = month.plusMonths(1)) {
+            if (archiveMonth(month)) {
+                archived++;
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Move the logs of a month from activity_log to the next part file of the month
+     * @return false if the month has no logs in the table, or they are not all rolled up yet
+     */
+    public boolean archiveMonth(YearMonth month) throws IOException {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        List<ActivityLogArchiveFile> parts = archiveFileRepository.findByMonthOrderByPart(month.toString());
+        if (!parts.isEmpty()) {
+            // Finish the deletes of a run that stopped half way
+            int archivedId = parts.stream().mapToInt(ActivityLogArchiveFile::getLastLogId).max().getAsInt();
+            deleteArchived(from, to, archivedId);
+        }
+
+        Integer lastId = activityLogRepository.findMaxIdCreatedBetween(from, to);
+        if (lastId == null) {
+            return false;
+        }
+        if (lastId > rollupService.getRolledUpId()) {
+            logger.info("Not archiving activity logs of " + month + " yet, they are not all rolled up");
+            return false;
+        }
+
+        int part = parts.size() + 1;
+        String fileName = month + "." + part + EXTENSION;
+        long count = write(archiveDir.resolve(fileName), from, to, lastId);
+        transaction.executeWithoutResult(status -> archiveFileRepository.save(
+                new ActivityLogArchiveFile(month.toString(), part, fileName, count, lastId)));
+        int deleted = deleteArchived(from, to, lastId);
+        logger.info(String.format("Archived %d activity logs of %s to %s, deleted %d", count, month, fileName, deleted));
+        return true;
+    }
+
+    private long write(Path file, LocalDateTime from, LocalDateTime to, Integer lastId) throws IOException {
+        Files.createDirectories(archiveDir);
+        // Written next to the target and moved in place, so readers never see half a file
+        Path temp = Files.createTempFile(archiveDir, file.getFileName().toString(), ".tmp");
+        try {
+            long count;
+            try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+                 GZIPOutputStream gzip = new GZIPOutputStream(fileOut, 1 << 16);
+                 Writer out = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 1 << 16);
+                 SequenceWriter logs = jsonWriter.withRootValueSeparator("\n").writeValues(out)) {
+                count = readTransaction.execute(status -> {
+                    long written = 0;
+                    try (Stream<ActivityLogDTO> rows = activityLogRepository.streamForArchive(from, to, lastId)) {
+                        for (ActivityLogDTO log : (Iterable<ActivityLogDTO>) rows::iterator) {
+                            logs.write(log);
+                            written++;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return written;
+                });
+                logs.flush();
+                gzip.finish();
+                // The logs are deleted from the table next, so the file must be on disk first
+                fileOut.getFD().sync();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return count;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private int deleteArchived(LocalDateTime from, LocalDateTime to, Integer lastId) {
+        int deleted = 0;
+        int chunk;
+        do {
+            chunk = transaction.execute(status -> activityLogRepository.deleteArchived(from, to, lastId, DELETE_CHUNK));
+            deleted += chunk;
+        } while (chunk == DELETE_CHUNK);
+        return deleted;
+    }
+
+    /**
+     * @return the archived months, newest first
+     */
+    public List<YearMonth> getArchivedMonths() {
+        return archiveFileRepository.findArchivedMonths().stream().map(YearMonth::parse).toList();
+    }
+
+    /**
+     * Read all archived logs of a month, in no particular order
+     */
+    public List<ActivityLogDTO> read(YearMonth month) throws IOException {
+        List<ActivityLogDTO> logs = new ArrayList<>();
+        forEach(month, logs::add);
+        return logs;
+    }
+
+    // Streams the logs of a month's files one at a time
+    private void forEach(YearMonth month, Consumer<ActivityLogDTO> action) throws IOException {
+        for (ActivityLogArchiveFile part : archiveFileRepository.findByMonthOrderByPart(month.toString())) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(archiveDir.resolve(part.getFileName())), 1 << 16),
+                    StandardCharsets.UTF_8));
+                 MappingIterator<ActivityLogDTO> rows = jsonReader.readValues(in)) {
+                while (rows.hasNextValue()) {
+                    action.accept(rows.nextValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Find archived logs matching a filter, newest first, continuing after a
+     * cursor; only the months the filter and cursor can reach are read
+     * @param after the cursor, or {@link PageCursor.Created#FIRST}
+     * @param limit the most logs to return
+     * @param maxMonths the most months to read, see {@link Page#resumeAfter}
+     */
+    public Page find(ActivityLogSpecifications.Filter filter, PageCursor.Created after, int limit, int maxMonths)
+            throws IOException {
+        List<ActivityLogDTO> found = new ArrayList<>();
+        int monthsRead = 0;
+        YearMonth lastRead = null;
+        for (YearMonth month : getArchivedMonths()) {
+            if (found.size() >= limit
+                    || filter.from() != null && month.isBefore(YearMonth.from(filter.from()))) {
+                break;
+            }
+            if (filter.to() != null && month.isAfter(YearMonth.from(filter.to())) || !reaches(after, month)) {
+                continue;
+            }
+            if (monthsRead == maxMonths) {
+                // Continues with the logs created before the last month read
+                return new Page(found, new PageCursor.Created(lastRead.atDay(1).atStartOfDay(), 0));
+            }
+            found.addAll(newest(month, filter, after, limit - found.size()));
+            monthsRead++;
+            lastRead = month;
+        }
+        return new Page(found, null);
+    }
+
+    // Whether a month can hold logs after a cursor in newest first order
+    private static boolean reaches(PageCursor.Created cursor, YearMonth month) {
+        if (cursor.createdAt() == null) {
+            return true;
+        }
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        return start.isBefore(cursor.createdAt()) || start.isEqual(cursor.createdAt()) && cursor.id() > 0;
+    }
+
+    /**
+     * @return the newest logs of a month matching the filter and after the
+     * cursor, newest first; only that many logs are held while the files are read
+     */
+    private List<ActivityLogDTO> newest(YearMonth month, ActivityLogSpecifications.Filter filter,
+                                        PageCursor.Created after, int limit) throws IOException {
+        // The oldest log kept is at the head, and makes room for a newer one
+        PriorityQueue<ActivityLogDTO> newest = new PriorityQueue<>(NEWEST_FIRST.reversed());
+        forEach(month, log -> {
+            if (filter.test(log) && isAfter(log, after)) {
+                newest.add(log);
+                if (newest.size() > limit) {
+                    newest.poll();
+                }
+            }
+        });
+        List<ActivityLogDTO> logs = new ArrayList<>(newest);
+        logs.sort(NEWEST_FIRST);
+        return logs;
+    }
+
+    // Whether a log comes after a cursor in newest first order
+    private static boolean isAfter(ActivityLogDTO log, PageCursor.Created cursor) {
+        if (cursor.createdAt() == null) {
+            return true;
+        }
+        int compared = log.getCreatedAt().compareTo(cursor.createdAt());
+        return compared < 0 || compared == 0 && log.getId() < cursor.id();
+    }
+}
@@ -0,0 +1,170 @@
+package group12.Backend.service;
+
+import group12.Backend.entity.ActivityLog;
+import group12.Backend.entity.ActivityLogRollupState;
+import group12.Backend.repository.ActivityLogDailyCountRepository;
+import group12.Backend.repository.ActivityLogRepository;
+import group12.Backend.repository.ActivityLogRollupStateRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.logging.Logger;
+
+/**
+ * Keeps daily counts of the activity logs by action, entity type and role in
+ * activity_log_daily_count, so the dashboard counts read a few rollup rows
+ * instead of counting activity_log.
+ *
+ * Logs are rolled up by ID. activity_log_rollup_state holds the last rolled up
+ * ID, and every activity-log.rollup.interval-ms the logs after it are added to
+ * the counts with one INSERT ... SELECT. A log is only rolled up on the run
+ * after its ID was first seen, so a log with a lower ID has had a whole
+ * interval to commit. A count is the rollups plus the few logs after the last
+ * rolled up ID. After an upgrade the first runs roll up the existing logs,
+ * {@link #CHUNK_IDS} IDs per transaction.
+ *
+ * A log that takes longer than an interval to commit is below the rolled up ID
+ * once it shows up, and not in any count. activity-log.rollup.reconcile-cron
+ * therefore counts the last activity-log.rollup.reconcile-days days again from
+ * activity_log, which brings such logs into the counts.
+ */
+@Service
+public class ActivityLogRollupService {
+
+    private static final Logger logger = Logger.getLogger(ActivityLogRollupService.class.getName());
+
+    static final int CHUNK_IDS = 50_000;
+
+    private final ActivityLogRepository activityLogRepository;
+    private final ActivityLogDailyCountRepository dailyCountRepository;
+    private final ActivityLogRollupStateRepository stateRepository;
+    private final TransactionTemplate transaction;
+    private final int reconcileDays;
+
+    // Highest log ID seen by the previous run, rolled up by the next one
+    private int seenId;
+
+    @Autowired
+    public ActivityLogRollupService(ActivityLogRepository activityLogRepository,
+                                    ActivityLogDailyCountRepository dailyCountRepository,
+                                    ActivityLogRollupStateRepository stateRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${activity-log.rollup.reconcile-days:2}") int reconcileDays) {
+        this.activityLogRepository = activityLogRepository;
+        this.dailyCountRepository = dailyCountRepository;
+        this.stateRepository = stateRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.reconcileDays = reconcileDays;
+    }
+
+    @Scheduled(fixedDelayString = "${activity-log.rollup.interval-ms:60000}")
+    public void rollUp() {
+        try {
+            Integer maxId = activityLogRepository.findMaxId();
+            int lastId = seenId;
+            seenId = maxId != null ? maxId : 0;
+            if (lastId > 0) {
+                rollUpTo(lastId);
+            }
+        } catch (RuntimeException e) {
+            logger.severe("Activity log rollup failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add the logs up to an ID to the daily counts, unless another instance already did
+     */
+    void rollUpTo(int lastId) {
+        transaction.executeWithoutResult(status -> stateRepository.createIfMissing(ActivityLogRollupState.ID));
+        boolean more;
+        do {
+            // Each chunk reports whether logs up to lastId are left
+            more = Boolean.TRUE.equals(transaction.execute(status -> {
+                ActivityLogRollupState state = stateRepository.lockById(ActivityLogRollupState.ID).orElseThrow();
+                int afterId = state.getRolledUpId();
+                if (afterId >= lastId) {
+                    return false;
+                }
+                int chunkEnd = (int) Math.min(lastId, (long) afterId + CHUNK_IDS);
+                dailyCountRepository.addLogs(afterId, chunkEnd);
+                state.setRolledUpId(chunkEnd);
+                state.setUpdatedAt(LocalDateTime.now());
+                return chunkEnd < lastId;
+            }));
+        } while (more);
+    }
+
+    @Scheduled(cron = "${activity-log.rollup.reconcile-cron:0 30 * * * *}")
+    public void reconcileInBackground() {
+        try {
+            reconcile(LocalDate.now().minusDays(reconcileDays));
+        } catch (RuntimeException e) {
+            logger.severe("Activity log count reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Count the rolled up logs since a day again from activity_log, replacing
+     * the counts of those days. Holds the rollup state lock, so no rollup or
+     * deletion changes the counts meanwhile.
+     */
+    void reconcile(LocalDate fromDate) {
+        transaction.executeWithoutResult(status -> stateRepository.lockById(ActivityLogRollupState.ID)
+                .ifPresent(state -> {
+                    dailyCountRepository.deleteSince(fromDate);
+                    dailyCountRepository.countSince(fromDate.atStartOfDay(), state.getRolledUpId());
+                }));
+    }
+
+    /**
+     * @return the highest log ID counted in the rollups, 0 if none is
+     */
+    public int getRolledUpId() {
+        return stateRepository.findById(ActivityLogRollupState.ID)
+                .map(ActivityLogRollupState::getRolledUpId)
+                .orElse(0);
+    }
+
+    /**
+     * Take a log that is about to be deleted off the counts, if it is in them.
+     * Locks the rollup state until the caller's transaction ends, so the log
+     * cannot be rolled up while it is being deleted.
+     */
+    @Transactional
+    public void forget(ActivityLog log) {
+        stateRepository.lockById(ActivityLogRollupState.ID)
+                .filter(state -> log.getId() <= state.getRolledUpId())
+                .ifPresent(state -> dailyCountRepository.subtractLog(log.getCreatedAt().toLocalDate(),
+                        log.getActionType(), log.getEntityType(), log.getUserRole() != null ? log.getUserRole() : ""));
+    }
+
+    // Counts read the rollups and the logs after them in the same snapshot
+
+    @Transactional(readOnly = true)
+    public long count() {
+        int rolledUpId = getRolledUpId();
+        return dailyCountRepository.sumLogCount() + activityLogRepository.countByIdGreaterThan(rolledUpId);
+    }
+
+    @Transactional(readOnly = true)
+    public long countByEntityType(String entityType) {
+        int rolledUpId = getRolledUpId();
+        return dailyCountRepository.sumLogCountByEntityType(entityType)
+                + activityLogRepository.countByIdGreaterThanAndEntityType(rolledUpId, entityType);
+    }
+
+    @Transactional(readOnly = true)
+    public long countByActionType(String actionType) {
+        int rolledUpId = getRolledUpId();
+        return dailyCountRepository.sumLogCountByActionType(actionType)
+                + activityLogRepository.countByIdGreaterThanAndActionType(rolledUpId, actionType);
+    }
+}
@@ -1,19 +1,22 @@
 package group12.Backend.service;
 
 import group12.Backend.dto.ActivityLogDTO;
+import group12.Backend.dto.CursorPage;
+import group12.Backend.dto.OutboxDTO;
 import group12.Backend.entity.ActivityLog;
 import group12.Backend.repository.ActivityLogRepository;
+import group12.Backend.repository.ActivityLogSpecifications;
 import group12.Backend.util.ClerkUsers;
+import group12.Backend.util.PageCursor;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import io.jsonwebtoken.Claims;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -28,10 +31,21 @@ import java.util.HashMap;
 public class ActivityLogService {
     
     private final ActivityLogRepository activityLogRepository;
+    private final ClerkUsers clerkUsers;
+    private final ActivityLogWriter activityLogWriter;
+    private final ActivityLogRollupService activityLogRollupService;
+    private final ActivityLogArchiveService activityLogArchiveService;
     
     @Autowired
-    public ActivityLogService(ActivityLogRepository activityLogRepository) {
+    public ActivityLogService(ActivityLogRepository activityLogRepository, ClerkUsers clerkUsers,
+                              ActivityLogWriter activityLogWriter,
+                              ActivityLogRollupService activityLogRollupService,
+                              ActivityLogArchiveService activityLogArchiveService) {
         this.activityLogRepository = activityLogRepository;
+        this.clerkUsers = clerkUsers;
+        this.activityLogWriter = activityLogWriter;
+        this.activityLogRollupService = activityLogRollupService;
+        this.activityLogArchiveService = activityLogArchiveService;
     }
     
     // Convert Entity to DTO
@@ -50,12 +64,37 @@ public class ActivityLogService {
         );
     }
     
-    // Get all activity logs
-    public List<ActivityLogDTO> getAllActivityLogs() {
-        return activityLogRepository.findAll()
+    // Get a page of all activity logs, newest first; the cursor is null for the first page
+    public CursorPage<ActivityLogDTO> getAllActivityLogs(String cursor, Integer limit) throws IOException {
+        return findPage(ActivityLogSpecifications.Filter.ALL, cursor, limit);
+    }
+    
+    // Get a page of the logs matching a filter, newest first; once activity_log runs out the page continues
+    // with the archived months
+    private CursorPage<ActivityLogDTO> findPage(ActivityLogSpecifications.Filter filter, String cursor, Integer limit)
+            throws IOException {
+        PageCursor.Created after = PageCursor.Created.parse(cursor);
+        int pageSize = PageCursor.limit(limit);
+        Specification<ActivityLog> where = ActivityLogSpecifications.matching(filter)
+                .and(ActivityLogSpecifications.after(after));
+        List<ActivityLogDTO> rows = activityLogRepository.findBy(where,
+                        query -> query.sortBy(ActivityLogSpecifications.NEWEST_FIRST).limit(pageSize + 1).all())
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        if (rows.size() <= pageSize) {
+            ActivityLogDTO last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+            PageCursor.Created archiveAfter = last == null ? after : new PageCursor.Created(last.getCreatedAt(), last.getId());
+            ActivityLogArchiveService.Page archived = activityLogArchiveService.find(filter, archiveAfter,
+                    pageSize + 1 - rows.size(), ActivityLogArchiveService.MONTHS_PER_PAGE);
+            rows.addAll(archived.logs());
+            if (archived.resumeAfter() != null) {
+                // A short page; the next one reads the older months
+                PageCursor.Created resume = archived.resumeAfter();
+                return new CursorPage<>(rows, PageCursor.Created.of(resume.createdAt(), resume.id()));
+            }
+        }
+        return CursorPage.of(rows, pageSize, log -> PageCursor.Created.of(log.getCreatedAt(), log.getId()));
     }
     
     // Get activity log by ID
@@ -88,31 +127,42 @@ public class ActivityLogService {
                 .collect(Collectors.toList());
     }
     
-    // Get activity logs with filters and pagination
-    public Page<ActivityLogDTO> getActivityLogsWithFilters(
-            ActivityLogDTO.ActivityLogFilterRequest filterRequest) {
+    // Get a page of the activity logs matching the given filters, newest first; empty filters match all logs
+    public CursorPage<ActivityLogDTO> getActivityLogsWithFilters(
+            ActivityLogDTO.ActivityLogFilterRequest filterRequest) throws IOException {
         
-        // Set default page and size if not provided
-        int page = filterRequest.getPage() != null ? filterRequest.getPage() : 0;
-        int size = filterRequest.getSize() != null ? filterRequest.getSize() : 20;
-        
-        // Create pageable
-        Pageable pageable = PageRequest.of(page, size);
-        
-        // Find with filters
-        Page<ActivityLog> activityLogs = activityLogRepository.findWithFilters(
-            filterRequest.getActionType(),
-            filterRequest.getEntityType(),
-            filterRequest.getUserId(),
-            filterRequest.getUserRole(),
-            pageable
+        ActivityLogSpecifications.Filter filter = new ActivityLogSpecifications.Filter(
+            emptyToNull(filterRequest.getActionType()),
+            emptyToNull(filterRequest.getEntityType()),
+            emptyToNull(filterRequest.getUserId()),
+            emptyToNull(filterRequest.getUserRole()),
+            parseDate(filterRequest.getStartDate(), false),
+            parseDate(filterRequest.getEndDate(), true)
         );
+        return findPage(filter, filterRequest.getCursor(), filterRequest.getLimit());
+    }
+    
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+    
+    // Queue an activity log of the signed in user; it is written in the background with others
+    public void logActivity(ActivityLogDTO.ActivityLogCreateRequest request, Claims claims) {
+        Map<String, Object> metadata = claims.get("meta_data", HashMap.class);
+        String role = metadata != null ? (String) metadata.get("role") : null;
         
-        // Convert to DTOs
-        return activityLogs.map(this::convertToDTO);
+        activityLogWriter.write(
+            request.getActionType(),
+            request.getEntityType(),
+            request.getEntityId(),
+            claims.getSubject(),
+            role != null ? role.toLowerCase() : "user",
+            request.getDescription(),
+            request.getDescriptionTr()
+        );
     }
     
-    // Create an activity log
+    // Create an activity log and wait for it to be saved
     @Transactional
     public ActivityLogDTO createActivityLog(
             ActivityLogDTO.ActivityLogCreateRequest request,
@@ -128,20 +178,8 @@ public class ActivityLogService {
         // Set role as a string
         String userRole = role != null ? role.toLowerCase() : "user";
         
-        // Get user full name from ClerkUsers
-        String fullName = "";
-        try {
-            Map<String, Object> allUsers = ClerkUsers.allUsers();
-            if (allUsers != null && allUsers.containsKey(userId)) {
-                Map<String, Object> userInfo = (Map<String, Object>) allUsers.get(userId);
-                if (userInfo.containsKey("full_name")) {
-                    fullName = (String) userInfo.get("full_name");
-                }
-            }
-        } catch (Exception e) {
-            // Log the error but continue
-            System.err.println("Error getting user full name: " + e.getMessage());
-        }
+        // Get user full name from the cached Clerk users; "" if it cannot be found
+        String fullName = clerkUsers.fullName(userId);
         
         // Create the activity log
         ActivityLog activityLog = new ActivityLog(
@@ -162,6 +200,23 @@ public class ActivityLogService {
         return convertToDTO(savedLog);
     }
     
+    // Create an activity log queued through the outbox; the caller has already resolved the user's name
+    @Transactional
+    public ActivityLogDTO createActivityLog(OutboxDTO.ActivityLogEvent event, String fullName) {
+        ActivityLog activityLog = new ActivityLog(
+            event.actionType(),
+            event.entityType(),
+            event.entityId(),
+            event.userId(),
+            fullName != null ? fullName : "",
+            event.userRole(),
+            event.description(),
+            event.descriptionTr()
+        );
+        
+        return convertToDTO(activityLogRepository.save(activityLog));
+    }
+    
     // Create a system activity log (without user authentication)
     @Transactional
     public ActivityLogDTO createSystemActivityLog(
@@ -190,12 +245,12 @@ public class ActivityLogService {
         return convertToDTO(savedLog);
     }
     
-    // Get activity logs between dates
-    public List<ActivityLogDTO> getActivityLogsBetweenDates(LocalDateTime startDate, LocalDateTime endDate) {
-        return activityLogRepository.findByCreatedAtBetweenOrderByCreatedAtDesc(startDate, endDate)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // Get a page of the activity logs between dates, newest first, including the archived months in the range;
+    // the cursor is null for the first page
+    public CursorPage<ActivityLogDTO> getActivityLogsBetweenDates(LocalDateTime startDate, LocalDateTime endDate,
+                                                                  String cursor, Integer limit) throws IOException {
+        return findPage(new ActivityLogSpecifications.Filter(null, null, null, null, startDate, endDate),
+                cursor, limit);
     }
     
     // Helper method to parse date strings
@@ -219,24 +274,31 @@ public class ActivityLogService {
     // Delete an activity log (admin only)
     @Transactional
     public boolean deleteActivityLog(Integer id) {
-        if (activityLogRepository.existsById(id)) {
-            activityLogRepository.deleteById(id);
+        Optional<ActivityLog> activityLog = activityLogRepository.findById(id);
+        if (activityLog.isPresent()) {
+            activityLogRollupService.forget(activityLog.get());
+            activityLogRepository.delete(activityLog.get());
             return true;
         }
         return false;
     }
     
-    // Get count of activity logs by entity type
+    // Get count of activity logs by entity type, archived logs included
     public long getCountByEntityType(String entityType) {
-        return activityLogRepository.countByEntityType(entityType);
+        return activityLogRollupService.countByEntityType(entityType);
     }
     
-    // Get count of activity logs by action type
+    // Get count of activity logs by action type, archived logs included
     public long getCountByActionType(String actionType) {
-        return activityLogRepository.countByActionType(actionType);
+        return activityLogRollupService.countByActionType(actionType);
     }
 
+    // Get count of all activity logs, archived logs included
     public long getActivityLogCount() {
-        return activityLogRepository.count();
+        return activityLogRollupService.count();
+    }
+    
+    public ActivityLogWriter.Stats getWriterStats() {
+        return activityLogWriter.stats();
     }
 }
\ No newline at end of file
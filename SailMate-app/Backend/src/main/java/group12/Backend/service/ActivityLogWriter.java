@@ -0,0 +1,277 @@
+package group12.Backend.service;
+
+import group12.Backend.util.ClerkUsers;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Writes activity logs in the background, so requests do not wait for them.
+ *
+ * Logs are queued in a bounded ring buffer of activity-log.queue-capacity
+ * entries. A single writer thread takes them in batches of up to
+ * activity-log.batch-size, waiting at most activity-log.flush-interval-ms for
+ * a batch to fill, looks up the users' names in {@link ClerkUsers} and writes
+ * each batch with one multi-row INSERT. The time of a log is the time it was
+ * queued.
+ *
+ * When the queue is full, activity-log.overflow decides: "block" makes the
+ * request wait up to activity-log.block-timeout-ms for room, "drop-reads"
+ * drops READ logs (new or queued) to make room for the others, which then
+ * wait like "block". Logs still queued at shutdown are written before the
+ * application stops.
+ */
+@Service
+public class ActivityLogWriter {
+
+    private static final Logger logger = Logger.getLogger(ActivityLogWriter.class.getName());
+
+    private static final String INSERT = "INSERT INTO activity_log (action_type, entity_type, entity_id, user_id, "
+            + "full_name, user_role, description, description_tr, created_at) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 9;
+    private static final int MAX_ATTEMPTS = 3;
+
+    public enum Overflow {
+        BLOCK, DROP_READS;
+
+        /**
+         * @param value "block" or "drop-reads", case-insensitive
+         * @throws IllegalArgumentException if the policy is unknown
+         */
+        public static Overflow parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /**
+     * Counters of the writer
+     * @param queued logs waiting to be written
+     * @param dropped logs dropped because the queue was full, or their batch could not be written
+     * @param lastFlushMillis duration of the last batch, including the name lookups
+     */
+    public record Stats(int queued, int capacity, long written, long dropped, long flushes,
+                        double averageBatchSize, long lastFlushMillis, long maxFlushMillis) {
+    }
+
+    private record Entry(String actionType, String entityType, String entityId, String userId, String userRole,
+                         String description, String descriptionTr, LocalDateTime createdAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClerkUsers clerkUsers;
+    private final ArrayBlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Overflow overflow;
+    private final long blockTimeoutMs;
+    private final String fullBatchInsert;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private volatile long lastFlushMillis;
+    private volatile long maxFlushMillis;
+
+    @Autowired
+    public ActivityLogWriter(JdbcTemplate jdbcTemplate,
+                             ClerkUsers clerkUsers,
+                             @Value("${activity-log.queue-capacity:10000}") int capacity,
+                             @Value("${activity-log.batch-size:200}") int batchSize,
+                             @Value("${activity-log.flush-interval-ms:500}") long flushIntervalMs,
+                             @Value("${activity-log.overflow:block}") String overflow,
+                             @Value("${activity-log.block-timeout-ms:2000}") long blockTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clerkUsers = clerkUsers;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.overflow = Overflow.parse(overflow);
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.fullBatchInsert = insert(batchSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::writeLogs, "activity-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Write the queued logs before the database goes away
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 30_000);
+        }
+    }
+
+    /**
+     * Queue an activity log; the user's full name is looked up when it is written
+     * @return false if the log was dropped because the queue is full
+     */
+    public boolean write(String actionType, String entityType, String entityId, String userId, String userRole,
+                         String description, String descriptionTr) {
+        Entry entry = new Entry(actionType, entityType, entityId, userId, userRole, description, descriptionTr,
+                LocalDateTime.now());
+        if (queue.offer(entry)) {
+            return true;
+        }
+        if (overflow == Overflow.DROP_READS) {
+            if (isRead(entry)) {
+                dropped.increment();
+                return false;
+            }
+            if (dropQueuedRead() && queue.offer(entry)) {
+                return true;
+            }
+        }
+        try {
+            if (queue.offer(entry, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        logger.warning("Activity log queue is full, dropped " + entry.actionType() + " log of "
+                + entry.entityType() + " " + entry.entityId());
+        return false;
+    }
+
+    public Stats stats() {
+        long flushCount = flushes.sum();
+        long writtenCount = written.sum();
+        return new Stats(queue.size(), queue.size() + queue.remainingCapacity(), writtenCount, dropped.sum(),
+                flushCount, flushCount > 0 ? (double) writtenCount / flushCount : 0, lastFlushMillis, maxFlushMillis);
+    }
+
+    private static boolean isRead(Entry entry) {
+        return "READ".equalsIgnoreCase(entry.actionType());
+    }
+
+    private boolean dropQueuedRead() {
+        for (Iterator<Entry> it = queue.iterator(); it.hasNext(); ) {
+            if (isRead(it.next())) {
+                it.remove();
+                dropped.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeLogs() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+            } catch (InterruptedException e) {
+                // Only stop() ends the writer, and it does not interrupt it
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Take more logs until the batch is full or the flush interval has passed since its first log
+    private void fill(List<Entry> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long wait = deadline - System.nanoTime();
+            Entry next = wait > 0 && running ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        long started = System.nanoTime();
+        Map<String, String> names = new HashMap<>();
+        Object[] args = new Object[batch.size() * COLUMNS];
+        int i = 0;
+        for (Entry entry : batch) {
+            args[i++] = entry.actionType();
+            args[i++] = entry.entityType();
+            args[i++] = entry.entityId();
+            args[i++] = entry.userId();
+            args[i++] = entry.userId() != null ? names.computeIfAbsent(entry.userId(), clerkUsers::fullName) : "";
+            args[i++] = entry.userRole();
+            args[i++] = entry.description();
+            args[i++] = entry.descriptionTr();
+            args[i++] = entry.createdAt();
+        }
+        String sql = batch.size() == batchSize ? fullBatchInsert : insert(batch.size());
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jdbcTemplate.update(sql, args);
+                break;
+            } catch (DataAccessException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    dropped.add(batch.size());
+                    logger.severe("Cannot write " + batch.size() + " activity logs, dropped: " + e.getMessage());
+                    return;
+                }
+                logger.warning("Cannot write activity logs (attempt " + attempt + "): " + e.getMessage());
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(attempt));
+            }
+        }
+
+        written.add(batch.size());
+        flushes.increment();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        lastFlushMillis = millis;
+        if (millis > maxFlushMillis) {
+            maxFlushMillis = millis;
+        }
+    }
+
+    private static String insert(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (ROW.length() + 2));
+        sql.append(INSERT);
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+}
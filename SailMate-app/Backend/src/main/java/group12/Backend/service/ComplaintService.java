@@ -1,9 +1,12 @@
 package group12.Backend.service;
 
 import group12.Backend.dto.ComplaintDTO;
+import group12.Backend.dto.CursorPage;
 import group12.Backend.entity.Complaint;
 import group12.Backend.repository.ComplaintRepository;
+import group12.Backend.util.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,10 +22,13 @@ public class ComplaintService {
         this.complaintRepository = complaintRepository;
     }
     
-    public List<ComplaintDTO> getAllComplaints() {
-        return complaintRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // Get a page of all complaints, newest first; the cursor is null for the first page
+    public CursorPage<ComplaintDTO> getAllComplaints(String cursor, Integer limit) {
+        PageCursor.Created after = PageCursor.Created.parse(cursor);
+        int pageSize = PageCursor.limit(limit);
+        return CursorPage.of(complaintRepository.findPage(after.createdAt(), after.id(), Limit.of(pageSize + 1)), pageSize,
+                        complaint -> PageCursor.Created.of(complaint.getCreatedAt(), complaint.getId()))
+                .map(this::convertToDTO);
     }
     
     public ComplaintDTO getComplaintById(Integer id) {
@@ -1,42 +1,51 @@
 package group12.Backend.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import group12.Backend.dto.CompletedTicketDTO;
+import group12.Backend.dto.CursorPage;
 import group12.Backend.dto.TicketDTO;
+import group12.Backend.dto.TicketSalesRow;
 import group12.Backend.entity.CompletedTicket;
 import group12.Backend.repository.CompletedTicketRepository;
+import group12.Backend.util.PageCursor;
 import group12.Backend.util.TicketPDFGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class CompletedTicketService {
     
     private final CompletedTicketRepository completedTicketRepository;
-    private final ObjectMapper objectMapper;
+    private final TicketPassengerService ticketPassengerService;
     
     @Autowired
     public CompletedTicketService(CompletedTicketRepository completedTicketRepository, 
-                                 ObjectMapper objectMapper) {
+                                 TicketPassengerService ticketPassengerService) {
         this.completedTicketRepository = completedTicketRepository;
-        this.objectMapper = objectMapper;
+        this.ticketPassengerService = ticketPassengerService;
     }
     
     /**
-     * Get all completed tickets
-     * @return list of all completed tickets as DTO responses
+     * Get a page of all completed tickets, newest first
+     * @param cursor the cursor returned with the previous page, null for the first page
+     * @param limit the requested page size, capped by {@link PageCursor#limit}
+     * @param includePassengers whether to load the passengers of the tickets
+     * @return the page of completed tickets as DTO responses
      */
-    public List<CompletedTicketDTO> getAllCompletedTickets() {
-        return completedTicketRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public CursorPage<CompletedTicketDTO> getAllCompletedTickets(String cursor, Integer limit, boolean includePassengers) {
+        PageCursor.Created after = PageCursor.Created.parse(cursor);
+        int pageSize = PageCursor.limit(limit);
+        CursorPage<CompletedTicket> page = CursorPage.of(
+                completedTicketRepository.findPage(after.createdAt(), after.id(), Limit.of(pageSize + 1)), pageSize,
+                ticket -> PageCursor.Created.of(ticket.getCreatedAt(), ticket.getId()));
+        return new CursorPage<>(convertToDtos(page.items(), includePassengers), page.nextCursor());
     }
     
     /**
@@ -58,27 +67,34 @@ public class CompletedTicketService {
         return completedTicketRepository.findByTicketId(ticketId)
                 .map(this::convertToDto);
     }
+
+    /**
+     * Find the user a completed ticket belongs to
+     * @param ticketId the unique ticket identifier
+     * @return the user ID, or empty if there is no such completed ticket
+     */
+    public Optional<String> getCompletedTicketOwner(String ticketId) {
+        return completedTicketRepository.findUserIdByTicketId(ticketId);
+    }
     
     /**
      * Find completed tickets by user ID
      * @param userId the ID of the user
+     * @param includePassengers whether to load the passengers of the tickets
      * @return list of completed tickets belonging to the user
      */
-    public List<CompletedTicketDTO> getCompletedTicketsByUserId(String userId) {
-        return completedTicketRepository.findByUserId(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public List<CompletedTicketDTO> getCompletedTicketsByUserId(String userId, boolean includePassengers) {
+        return convertToDtos(completedTicketRepository.findByUserId(userId), includePassengers);
     }
     
     /**
      * Find completed tickets by voyage ID
      * @param voyageId the ID of the voyage
+     * @param includePassengers whether to load the passengers of the tickets
      * @return list of completed tickets for the voyage
      */
-    public List<CompletedTicketDTO> getCompletedTicketsByVoyageId(Integer voyageId) {
-        return completedTicketRepository.findByVoyageId(voyageId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public List<CompletedTicketDTO> getCompletedTicketsByVoyageId(Integer voyageId, boolean includePassengers) {
+        return convertToDtos(completedTicketRepository.findByVoyageId(voyageId), includePassengers);
     }
     
     /**
@@ -100,58 +116,46 @@ public class CompletedTicketService {
     }
     
     /**
-     * Generate PDF bytes for a completed ticket
+     * Sum the completed tickets created in a year by month, class and route
+     * @param year the year of ticket creation
+     * @return one row per month, class and route
+     */
+    public List<TicketSalesRow> getSales(int year) {
+        return completedTicketRepository.findSales(LocalDate.of(year, 1, 1).atStartOfDay(),
+                LocalDate.of(year + 1, 1, 1).atStartOfDay());
+    }
+    
+    /**
+     * Collect the boarding pass pages of a completed ticket, one per passenger
      * @param ticketId the ticket identifier
-     * @return the PDF as a byte array
-     * @throws Exception if ticket not found or PDF generation fails
+     * @return the pages, or empty if there is no such completed ticket
+     * @throws Exception if the passenger data of the ticket is invalid
      */
-    public byte[] generateCompletedTicketPdfBytes(String ticketId) throws Exception {
+    public Optional<List<TicketPDFGenerator.TicketData>> getCompletedTicketPdfData(String ticketId) throws Exception {
         try {
             Optional<CompletedTicket> ticketOpt = completedTicketRepository.findByTicketId(ticketId);
             if (ticketOpt.isEmpty()) {
-                throw new Exception("Completed ticket not found with ticket_id: " + ticketId);
+                return Optional.empty();
             }
             
             CompletedTicket ticket = ticketOpt.get();
-            String fromStation = ticket.getDepStationTitle();
-            String toStation = ticket.getArrStationTitle();
-            String departureDate = ticket.getDepDate().toString();
-            String departureTime = ticket.getDepTime().toString();
-            System.out.println("Raw JSON ticketData for completed ticket: " + ticket.getTicketData());
-    
-            // Deserialize the passenger list from JSON
-            List<TicketDTO.PassengerInfo> passengers = objectMapper.readValue(
-                ticket.getTicketData(),
-                new com.fasterxml.jackson.core.type.TypeReference<List<TicketDTO.PassengerInfo>>() {}
-            );
+            List<TicketDTO.PassengerInfo> passengers =
+                    ticketPassengerService.getPassengers(ticket.getTicketId(), ticket.getTicketData());
+            if (passengers == null) {
+                throw new Exception("Invalid passenger data for completed ticket_id: " + ticketId);
+            }
     
             // Prepare ticket data for PDF generation
             List<TicketPDFGenerator.TicketData> ticketDataList = new ArrayList<>();
             for (TicketDTO.PassengerInfo passenger : passengers) {
-                TicketPDFGenerator.TicketData ticketData = new TicketPDFGenerator.TicketData();
-                ticketData.ticketId = ticket.getTicketId();
-                ticketData.passengerName = (passenger.getName() + " " + passenger.getSurname()).toUpperCase();
-                ticketData.from = fromStation;
-                ticketData.to = toStation;
-                ticketData.date = departureDate;
-                ticketData.time = departureTime;
-                ticketData.seat = ticket.getSelectedSeats();
-                ticketData.gate = "1";
-                ticketData.boardTill = "Board 15m before";
-                ticketData.ticketClass = ticket.getTicketClass().toUpperCase();
-                ticketData.passengerType = passenger.getPassengerType() != null ? 
-                                          passenger.getPassengerType().toUpperCase() : "ADULT";
-                ticketDataList.add(ticketData);
+                ticketDataList.add(TicketPDFGenerator.TicketData.of(ticket, passenger));
             }
             
-            // Generate the PDF bytes
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            TicketPDFGenerator.generateTicketPdfBytes(outputStream, ticketDataList);
-            return outputStream.toByteArray();
+            return Optional.of(ticketDataList);
     
         } catch (Exception e) {
             e.printStackTrace();
-            throw new Exception("Failed to generate completed ticket PDF: " + e.getMessage(), e);
+            throw new Exception("Failed to prepare completed ticket PDF: " + e.getMessage(), e);
         }
     }
     
@@ -161,60 +165,54 @@ public class CompletedTicketService {
      * @return the completed ticket DTO
      */
     private CompletedTicketDTO convertToDto(CompletedTicket completedTicket) {
-        try {
-            // Convert JSON string to PassengerInfo list
-            List<TicketDTO.PassengerInfo> passengers = objectMapper.readValue(
-                    completedTicket.getTicketData(),
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, TicketDTO.PassengerInfo.class)
-            );
-            
-            return new CompletedTicketDTO(
-                    completedTicket.getId(),
-                    completedTicket.getTicketId(),
-                    completedTicket.getVoyageId(),
-                    completedTicket.getDepCity(),
-                    completedTicket.getDepStationTitle(),
-                    completedTicket.getArrCity(),
-                    completedTicket.getArrStationTitle(),
-                    completedTicket.getDepDate(),
-                    completedTicket.getDepTime(),
-                    completedTicket.getArrTime(),
-                    completedTicket.getShipType(),
-                    completedTicket.getFuelType(),
-                    completedTicket.getPassengerCount(),
-                    completedTicket.getTotalPrice(),
-                    completedTicket.getTicketClass(),
-                    completedTicket.getSelectedSeats(),
-                    completedTicket.getUserId(),
-                    passengers,
-                    completedTicket.getCreatedAt(),
-                    completedTicket.getUpdatedAt()
-            );
-        } catch (JsonProcessingException e) {
-            // Log error and return partial data if JSON processing fails
-            System.err.println("Error parsing passenger data: " + e.getMessage());
-            return new CompletedTicketDTO(
-                    completedTicket.getId(),
-                    completedTicket.getTicketId(),
-                    completedTicket.getVoyageId(),
-                    completedTicket.getDepCity(),
-                    completedTicket.getDepStationTitle(),
-                    completedTicket.getArrCity(),
-                    completedTicket.getArrStationTitle(),
-                    completedTicket.getDepDate(),
-                    completedTicket.getDepTime(),
-                    completedTicket.getArrTime(),
-                    completedTicket.getShipType(),
-                    completedTicket.getFuelType(),
-                    completedTicket.getPassengerCount(),
-                    completedTicket.getTotalPrice(),
-                    completedTicket.getTicketClass(),
-                    completedTicket.getSelectedSeats(),
-                    completedTicket.getUserId(),
-                    null,
-                    completedTicket.getCreatedAt(),
-                    completedTicket.getUpdatedAt()
-            );
+        return convertToDto(completedTicket,
+                ticketPassengerService.getPassengers(completedTicket.getTicketId(), completedTicket.getTicketData()));
+    }
+    
+    /**
+     * Convert completed ticket entities to DTOs, loading passengers of all tickets with one query
+     * @param completedTickets the completed ticket entities
+     * @param includePassengers whether to load passengers; if not, passengers are null
+     * @return the completed ticket DTOs
+     */
+    private List<CompletedTicketDTO> convertToDtos(List<CompletedTicket> completedTickets, boolean includePassengers) {
+        Map<String, List<TicketDTO.PassengerInfo>> passengers = Map.of();
+        if (includePassengers) {
+            Map<String, String> ticketData = new HashMap<>();
+            for (CompletedTicket completedTicket : completedTickets) {
+                ticketData.put(completedTicket.getTicketId(), completedTicket.getTicketData());
+            }
+            passengers = ticketPassengerService.getPassengers(ticketData);
+        }
+        List<CompletedTicketDTO> dtos = new ArrayList<>(completedTickets.size());
+        for (CompletedTicket completedTicket : completedTickets) {
+            dtos.add(convertToDto(completedTicket, passengers.get(completedTicket.getTicketId())));
         }
+        return dtos;
+    }
+    
+    private CompletedTicketDTO convertToDto(CompletedTicket completedTicket, List<TicketDTO.PassengerInfo> passengers) {
+        return new CompletedTicketDTO(
+                completedTicket.getId(),
+                completedTicket.getTicketId(),
+                completedTicket.getVoyageId(),
+                completedTicket.getDepCity(),
+                completedTicket.getDepStationTitle(),
+                completedTicket.getArrCity(),
+                completedTicket.getArrStationTitle(),
+                completedTicket.getDepDate(),
+                completedTicket.getDepTime(),
+                completedTicket.getArrTime(),
+                completedTicket.getShipType(),
+                completedTicket.getFuelType(),
+                completedTicket.getPassengerCount(),
+                completedTicket.getTotalPrice(),
+                completedTicket.getTicketClass(),
+                completedTicket.getSelectedSeats(),
+                completedTicket.getUserId(),
+                passengers,
+                completedTicket.getCreatedAt(),
+                completedTicket.getUpdatedAt()
+        );
     }
-}
\ No newline at end of file
+}
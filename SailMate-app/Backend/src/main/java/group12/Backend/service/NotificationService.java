@@ -1,11 +1,14 @@
 package group12.Backend.service;
 
+import group12.Backend.dto.CursorPage;
 import group12.Backend.dto.NotificationDTO;
 import group12.Backend.entity.Notification;
 import group12.Backend.repository.NotificationRepository;
 import group12.Backend.util.ClerkUsers;
+import group12.Backend.util.PageCursor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,10 +23,12 @@ import java.util.stream.Collectors;
 public class NotificationService {
     
     private final NotificationRepository notificationRepository;
+    private final ClerkUsers clerkUsers;
     
     @Autowired
-    public NotificationService(NotificationRepository notificationRepository) {
+    public NotificationService(NotificationRepository notificationRepository, ClerkUsers clerkUsers) {
         this.notificationRepository = notificationRepository;
+        this.clerkUsers = clerkUsers;
     }
     
     // Convert Entity to DTO
@@ -42,12 +47,13 @@ public class NotificationService {
         return dto;
     }
     
-    // Get all notifications for a user
-    public List<NotificationDTO> getUserNotifications(String userId) {
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // Get a page of a user's notifications, newest first; the cursor is null for the first page
+    public CursorPage<NotificationDTO> getUserNotifications(String userId, String cursor, Integer limit) {
+        PageCursor.Created after = PageCursor.Created.parse(cursor);
+        int pageSize = PageCursor.limit(limit);
+        return CursorPage.of(notificationRepository.findPageByUserId(userId, after.createdAt(), after.id(), Limit.of(pageSize + 1)),
+                        pageSize, notification -> PageCursor.Created.of(notification.getCreatedAt(), notification.getId()))
+                .map(this::convertToDTO);
     }
     
     // Get unread notifications for a user
@@ -165,7 +171,7 @@ public class NotificationService {
         List<NotificationDTO> createdNotifications = new ArrayList<>();
         
         // Get all users from ClerkUsers utility
-        Map<String, Object> allUsers = ClerkUsers.allUsers();
+        Map<String, Object> allUsers = clerkUsers.allUsers();
         
         if (allUsers != null && !allUsers.isEmpty()) {
             // For each user, create an individual notification
@@ -0,0 +1,225 @@
+package group12.Backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import group12.Backend.dto.NotificationDTO;
+import group12.Backend.dto.OutboxDTO;
+import group12.Backend.entity.OutboxEvent;
+import group12.Backend.repository.OutboxEventRepository;
+import group12.Backend.util.ClerkUsers;
+import group12.Backend.util.EmailUtil;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Carries out the events written by {@link OutboxService}.
+ *
+ * Each poll locks a batch of due events with SKIP LOCKED and leases them by
+ * moving next_attempt_at forward, then processes them outside of that
+ * transaction. A dispatcher that dies half way leaves its events pending, and
+ * they are picked up again when the lease runs out; handlers therefore have to
+ * tolerate the odd duplicate. Failed events are retried with exponential
+ * backoff until outbox.max-attempts, then marked FAILED.
+ *
+ * Clerk users are fetched once per batch and shared by the activity logs and
+ * emails of that batch.
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger logger = Logger.getLogger(OutboxDispatcher.class.getName());
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final NotificationService notificationService;
+    private final ActivityLogService activityLogService;
+    private final EmailUtil emailUtil;
+    private final TicketPdfService ticketPdfService;
+    private final ClerkUsers clerkUsers;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+    private final long leaseSeconds;
+    private final int retentionDays;
+
+    @Autowired
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            NotificationService notificationService,
+                            ActivityLogService activityLogService,
+                            EmailUtil emailUtil,
+                            TicketPdfService ticketPdfService,
+                            ClerkUsers clerkUsers,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${outbox.batch-size:50}") int batchSize,
+                            @Value("${outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${outbox.backoff-initial-ms:2000}") long backoffInitialMs,
+                            @Value("${outbox.backoff-max-ms:600000}") long backoffMaxMs,
+                            @Value("${outbox.lease-seconds:120}") long leaseSeconds,
+                            @Value("${outbox.retention-days:7}") int retentionDays) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.notificationService = notificationService;
+        this.activityLogService = activityLogService;
+        this.emailUtil = emailUtil;
+        this.ticketPdfService = ticketPdfService;
+        this.clerkUsers = clerkUsers;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffInitialMs = backoffInitialMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.leaseSeconds = leaseSeconds;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        try {
+            // A full batch means there may be more, so keep going instead of waiting for the next poll
+            int dispatched;
+            do {
+                dispatched = dispatchBatch();
+            } while (dispatched == batchSize);
+        } catch (RuntimeException e) {
+            logger.severe("Outbox dispatch failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSentEvents() {
+        int deleted = transaction.execute(status ->
+                outboxEventRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0) {
+            logger.info("Purged " + deleted + " sent outbox events");
+        }
+    }
+
+    /**
+     * Process one batch of due events
+     * @return the number of events in the batch
+     */
+    int dispatchBatch() {
+        List<OutboxEvent> events = transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> due = outboxEventRepository.lockDueEvents(now, batchSize);
+            for (OutboxEvent event : due) {
+                event.setAttempts(event.getAttempts() + 1);
+                event.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        BatchContext context = new BatchContext();
+        List<Long> sent = new ArrayList<>(events.size());
+        List<OutboxEvent> failed = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            try {
+                handle(event, context);
+                sent.add(event.getId());
+            } catch (Exception e) {
+                event.setLastError(truncate(event.getEventType() + ": " + e.getMessage()));
+                failed.add(event);
+            }
+        }
+
+        transaction.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                outboxEventRepository.markSent(sent, LocalDateTime.now());
+            }
+            for (OutboxEvent event : failed) {
+                boolean giveUp = event.getAttempts() >= maxAttempts;
+                outboxEventRepository.markFailedAttempt(event.getId(),
+                        giveUp ? OutboxEvent.Status.FAILED : OutboxEvent.Status.PENDING,
+                        LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(event.getAttempts()))),
+                        event.getLastError());
+                if (giveUp) {
+                    logger.severe("Giving up on outbox event " + event.getId() + " after "
+                            + event.getAttempts() + " attempts: " + event.getLastError());
+                } else {
+                    logger.warning("Outbox event " + event.getId() + " failed, attempt "
+                            + event.getAttempts() + ": " + event.getLastError());
+                }
+            }
+        });
+        return events.size();
+    }
+
+    private void handle(OutboxEvent event, BatchContext context) throws Exception {
+        switch (event.getEventType()) {
+            case NOTIFICATION -> notificationService.createNotification(
+                    objectMapper.readValue(event.getPayload(), NotificationDTO.NotificationCreateRequest.class));
+            case ACTIVITY_LOG -> {
+                OutboxDTO.ActivityLogEvent log = objectMapper.readValue(event.getPayload(), OutboxDTO.ActivityLogEvent.class);
+                // The name is cosmetic, so Clerk being down must not hold the log back
+                Map<String, Object> user = context.user(log.userId(), false);
+                activityLogService.createActivityLog(log, user != null ? (String) user.get("full_name") : "");
+            }
+            case CANCELLATION_EMAIL -> {
+                OutboxDTO.CancellationEmailEvent email =
+                        objectMapper.readValue(event.getPayload(), OutboxDTO.CancellationEmailEvent.class);
+                emailUtil.sendTicketCancellationEmail(context.user(email.userId(), true), email);
+            }
+            case TICKET_PDF -> ticketPdfService.refresh(
+                    objectMapper.readValue(event.getPayload(), OutboxDTO.TicketPdfEvent.class).ticketID());
+        }
+    }
+
+    /**
+     * Delay before the next attempt: backoff-initial-ms doubled per attempt
+     * up to backoff-max-ms, minus up to a fifth so retries of a batch spread out
+     */
+    long backoffMillis(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        long delay = Math.min(backoffInitialMs << doublings, backoffMaxMs);
+        return delay - ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 512 ? error : error.substring(0, 512);
+    }
+
+    /**
+     * Clerk users shared by the events of a batch, fetched on first use
+     */
+    private class BatchContext {
+        private Map<String, Object> users;
+        private boolean usersFailed;
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> user(String userId, boolean required) throws Exception {
+            if (users == null && !usersFailed) {
+                try {
+                    users = clerkUsers.allUsers();
+                } catch (RuntimeException e) {
+                    logger.warning("Cannot load Clerk users: " + e.getMessage());
+                }
+                usersFailed = users == null;
+            }
+            Map<String, Object> user = users != null ? (Map<String, Object>) users.get(userId) : null;
+            if (user == null && required) {
+                // Not in the list (or the list failed): ask for the single user, which throws if Clerk is down
+                user = clerkUsers.getUser(userId);
+            }
+            return user;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package group12.Backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import group12.Backend.dto.ActivityLogDTO;
+import group12.Backend.dto.NotificationDTO;
+import group12.Backend.dto.OutboxDTO;
+import group12.Backend.entity.OutboxEvent;
+import group12.Backend.repository.OutboxEventRepository;
+import io.jsonwebtoken.Claims;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records side effects of ticket changes as outbox events. Called inside the
+ * transaction of the change, the event is only written if the change
+ * commits; {@link OutboxDispatcher} carries it out afterwards, so the request
+ * does not wait for Clerk or the mail server.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Queue a user notification
+     */
+    @Transactional
+    public void enqueueNotification(NotificationDTO.NotificationCreateRequest request) {
+        enqueue(OutboxEvent.EventType.NOTIFICATION, request);
+    }
+
+    /**
+     * Queue an activity log of the user in the claims
+     */
+    @Transactional
+    public void enqueueActivityLog(ActivityLogDTO.ActivityLogCreateRequest request, Claims claims) {
+        Map<String, Object> metadata = claims.get("meta_data", HashMap.class);
+        String role = metadata != null ? (String) metadata.get("role") : null;
+
+        enqueue(OutboxEvent.EventType.ACTIVITY_LOG, new OutboxDTO.ActivityLogEvent(
+                request.getActionType(),
+                request.getEntityType(),
+                request.getEntityId(),
+                claims.getSubject(),
+                role != null ? role.toLowerCase() : "user",
+                request.getDescription(),
+                request.getDescriptionTr()));
+    }
+
+    /**
+     * Queue a ticket cancellation email
+     */
+    @Transactional
+    public void enqueueCancellationEmail(OutboxDTO.CancellationEmailEvent email) {
+        enqueue(OutboxEvent.EventType.CANCELLATION_EMAIL, email);
+    }
+
+    /**
+     * Queue rendering the stored PDF of a ticket whose ticket or voyage changed
+     */
+    @Transactional
+    public void enqueueTicketPdf(String ticketID) {
+        enqueue(OutboxEvent.EventType.TICKET_PDF, new OutboxDTO.TicketPdfEvent(ticketID));
+    }
+
+    private void enqueue(OutboxEvent.EventType type, Object payload) {
+        try {
+            outboxEventRepository.save(new OutboxEvent(type, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + type + " event: " + e.getMessage(), e);
+        }
+    }
+}
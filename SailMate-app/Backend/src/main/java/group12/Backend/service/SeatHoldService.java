@@ -0,0 +1,278 @@
+package group12.Backend.service;
+
+import group12.Backend.util.VoyageSeatMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Time-limited seat holds taken while a customer is checking out.
+ *
+ * A hold reserves seats in the in-memory inventory so nobody else can buy
+ * them, and is either converted into a sale when the ticket is created or
+ * released when its TTL runs out. Expiry is driven by a {@link DelayQueue}
+ * drained by a single background thread, so only due holds are ever looked at.
+ * Converted or released holds are left in the queue and skipped when they
+ * come due, which keeps every operation at O(log n).
+ */
+@Service
+public class SeatHoldService {
+
+    private static final Logger logger = Logger.getLogger(SeatHoldService.class.getName());
+
+    public static final int MAX_GROUP_SIZE = 10;
+
+    private final SeatInventoryService seatInventoryService;
+    private final ConcurrentHashMap<String, SeatHold> holds = new ConcurrentHashMap<>();
+    private final DelayQueue<SeatHold> expiryQueue = new DelayQueue<>();
+    private final long ttlMillis;
+    private Thread expiryThread;
+
+    @Autowired
+    public SeatHoldService(SeatInventoryService seatInventoryService,
+                           @Value("${seats.hold.ttl-seconds:600}") long ttlSeconds) {
+        this.seatInventoryService = seatInventoryService;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+    }
+
+    @PostConstruct
+    public void startExpiryThread() {
+        expiryThread = new Thread(this::expireHolds, "seat-hold-expiry");
+        expiryThread.setDaemon(true);
+        expiryThread.start();
+    }
+
+    @PreDestroy
+    public void stopExpiryThread() {
+        expiryThread.interrupt();
+    }
+
+    /**
+     * Hold seats on a voyage
+     * @param voyageId the voyage ID
+     * @param ticketData comma separated seat codes
+     * @param userId the user taking the hold
+     * @return the hold, or empty if any of the seats is already sold or held
+     * @throws IllegalArgumentException if no valid seats are given
+     */
+    public Optional<SeatHold> holdSeats(Integer voyageId, String ticketData, String userId) {
+        long[] masks = seatInventoryService.masksOf(voyageId, ticketData);
+        boolean empty = true;
+        for (long mask : masks) {
+            empty &= mask == 0;
+        }
+        if (empty) {
+            throw new IllegalArgumentException("No seats to hold");
+        }
+        if (!seatInventoryService.holdSeats(voyageId, masks)) {
+            return Optional.empty();
+        }
+        return Optional.of(register(voyageId, userId, masks, ticketData));
+    }
+
+    /**
+     * Pick seats for a group server-side and hold them
+     * @param voyageId the voyage ID
+     * @param seatClass 'P', 'E' or 'B'
+     * @param passengerCount number of seats, at most {@value #MAX_GROUP_SIZE}
+     * @param preferredDeck '1' or '2' to try that deck first, or 0 for no preference
+     * @param userId the user taking the hold
+     * @return the hold with the picked seats, or empty if there are not enough free seats
+     * @throws IllegalArgumentException if the class, deck or passenger count is invalid
+     */
+    public Optional<SeatHold> assignSeats(Integer voyageId, char seatClass, int passengerCount,
+                                          char preferredDeck, String userId) {
+        if (passengerCount < 1 || passengerCount > MAX_GROUP_SIZE) {
+            throw new IllegalArgumentException("Passenger count must be between 1 and " + MAX_GROUP_SIZE);
+        }
+        if (preferredDeck != 0 && preferredDeck != '1' && preferredDeck != '2') {
+            throw new IllegalArgumentException("Deck must be 1 or 2");
+        }
+        return seatInventoryService.holdBestSeats(voyageId, seatClass, passengerCount, preferredDeck)
+                .map(masks -> register(voyageId, userId, masks, seatInventoryService.seatCodesOf(voyageId, masks)));
+    }
+
+    private SeatHold register(Integer voyageId, String userId, long[] masks, String seats) {
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), voyageId, userId, masks, seats,
+                seatInventoryService.peek(voyageId).orElse(null), System.currentTimeMillis() + ttlMillis);
+        holds.put(hold.getToken(), hold);
+        expiryQueue.put(hold);
+        return hold;
+    }
+
+    /**
+     * Turn a hold into a sale. Seats of the hold that are not part of the sale are released.
+     * @param token the hold token
+     * @param userId the user buying the seats
+     * @param voyageId the voyage of the ticket
+     * @param ticketData the seats of the ticket
+     * @return true if all seats were held by this hold and are now sold; otherwise the hold is released
+     */
+    public boolean convertHold(String token, String userId, Integer voyageId, String ticketData) {
+        long[] masks = takeHold(token, userId, voyageId, ticketData);
+        if (masks == null) {
+            return false;
+        }
+        if (!seatInventoryService.convertHeldSeats(voyageId, masks)) {
+            seatInventoryService.releaseHeldSeats(voyageId, masks);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Turn a hold into a sale that is written to seats_sold as part of the
+     * caller's transaction. Seats of the hold that are not part of the sale are released.
+     * @return the number of seats sold, 0 if the hold is unknown, does not cover the seats or
+     *         could not be converted, in which case the hold is released
+     * @see #convertHold(String, String, Integer, String)
+     */
+    public int convertHoldThrough(String token, String userId, Integer voyageId, String ticketData) {
+        long[] masks = takeHold(token, userId, voyageId, ticketData);
+        if (masks == null) {
+            return 0;
+        }
+        int sold = seatInventoryService.convertHeldSeatsThrough(voyageId, masks);
+        if (sold == 0) {
+            // The hold is already removed, so nothing else would ever free its seats
+            seatInventoryService.releaseHeldSeats(voyageId, masks);
+        }
+        return sold;
+    }
+
+    // Remove a hold covering the seats and release its other seats; returns the seats to convert or null.
+    // The caller owns the returned seats and must convert or release them.
+    private long[] takeHold(String token, String userId, Integer voyageId, String ticketData) {
+        SeatHold hold = holds.get(token);
+        if (hold == null || !hold.getUserId().equals(userId) || !hold.getVoyageId().equals(voyageId)) {
+            return null;
+        }
+
+        long[] masks = seatInventoryService.masksOf(voyageId, ticketData);
+        long[] rest = new long[masks.length];
+        for (int i = 0; i < masks.length; i++) {
+            if ((hold.masks[i] & masks[i]) != masks[i]) {
+                return null;
+            }
+            rest[i] = hold.masks[i] & ~masks[i];
+        }
+
+        // Whoever removes the hold first (buyer or expiry) owns its seats
+        if (!holds.remove(token, hold)) {
+            return null;
+        }
+        if (!isCurrent(hold)) {
+            // The seat map was evicted with the hold's seats; the seats held in the new one belong to others
+            return null;
+        }
+        seatInventoryService.releaseHeldSeats(voyageId, rest);
+        return masks;
+    }
+
+    /**
+     * Give up a hold before it expires
+     * @param token the hold token
+     * @param userId the user who took the hold
+     * @return true if the hold existed and its seats were released
+     */
+    public boolean releaseHold(String token, String userId) {
+        SeatHold hold = holds.get(token);
+        if (hold == null || !hold.getUserId().equals(userId) || !holds.remove(token, hold)) {
+            return false;
+        }
+        release(hold);
+        return true;
+    }
+
+    // Whether the hold was taken on the seat map currently loaded for its voyage
+    private boolean isCurrent(SeatHold hold) {
+        return hold.seatMap != null && seatInventoryService.peek(hold.getVoyageId()).orElse(null) == hold.seatMap;
+    }
+
+    private void release(SeatHold hold) {
+        if (isCurrent(hold)) {
+            seatInventoryService.releaseHeldSeats(hold.getVoyageId(), hold.masks);
+        }
+    }
+
+    private void expireHolds() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                SeatHold hold = expiryQueue.take();
+                if (holds.remove(hold.getToken(), hold)) {
+                    release(hold);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.severe("Failed to expire seat hold: " + e.getMessage());
+            }
+        }
+    }
+
+    public static class SeatHold implements Delayed {
+        private final String token;
+        private final Integer voyageId;
+        private final String userId;
+        private final long[] masks;
+        private final String seats;
+        private final VoyageSeatMap seatMap;
+        private final long expiresAtMillis;
+
+        SeatHold(String token, Integer voyageId, String userId, long[] masks, String seats,
+                 VoyageSeatMap seatMap, long expiresAtMillis) {
+            this.token = token;
+            this.voyageId = voyageId;
+            this.userId = userId;
+            this.masks = masks;
+            this.seats = seats;
+            this.seatMap = seatMap;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public Integer getVoyageId() {
+            return voyageId;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        /**
+         * @return the held seats as a comma separated seat list
+         */
+        public String getSeats() {
+            return seats;
+        }
+
+        public Instant getExpiresAt() {
+            return Instant.ofEpochMilli(expiresAtMillis);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
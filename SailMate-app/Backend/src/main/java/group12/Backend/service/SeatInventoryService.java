@@ -0,0 +1,528 @@
+package group12.Backend.service;
+
+import group12.Backend.entity.SeatsSold;
+import group12.Backend.entity.Voyage;
+import group12.Backend.repository.SeatsSoldRepository;
+import group12.Backend.repository.VoyageRepository;
+import group12.Backend.util.SeatAssigner;
+import group12.Backend.util.SeatCodeParser;
+import group12.Backend.util.SeatLayout;
+import group12.Backend.util.SeatSection;
+import group12.Backend.util.VoyageSeatMap;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * In-memory seat inventory in front of the seats_sold table.
+ *
+ * Each voyage's seat bitmap is loaded once and then claimed and
+ * released with CAS operations in {@link VoyageSeatMap}, so buyers of the same
+ * sailing no longer serialize on the database row. Changed voyages are
+ * written back to seats_sold by a scheduled flush, using the conditional
+ * bitwise updates of {@link SeatsSoldRepository} so the database itself
+ * rejects a write that would sell a seat twice.
+ *
+ * The in-memory copy is authoritative for this backend instance; any direct
+ * change to seats_sold must go through {@link #evict(Integer)}. If a write-back
+ * is rejected anyway, the voyage is rebased on the current row and the
+ * changes not yet written are sent again. The seat map's monitor is never held
+ * across a database statement, so it cannot deadlock with the row lock.
+ */
+@Service
+public class SeatInventoryService {
+
+    private static final Logger logger = Logger.getLogger(SeatInventoryService.class.getName());
+
+    // How often a seat pick is retried when other buyers keep taking the picked seats
+    private static final int MAX_ASSIGN_ATTEMPTS = 5;
+
+    private final ConcurrentHashMap<Integer, VoyageSeatMap> voyages = new ConcurrentHashMap<>();
+    private final SeatsSoldRepository seatsSoldRepository;
+    private final VoyageRepository voyageRepository;
+    private final VesselLayoutService vesselLayoutService;
+    private final TransactionTemplate transactionTemplate;
+    private final Object flushLock = new Object();
+
+    @Autowired
+    public SeatInventoryService(SeatsSoldRepository seatsSoldRepository,
+                                VoyageRepository voyageRepository,
+                                VesselLayoutService vesselLayoutService,
+                                TransactionTemplate transactionTemplate) {
+        this.seatsSoldRepository = seatsSoldRepository;
+        this.voyageRepository = voyageRepository;
+        this.vesselLayoutService = vesselLayoutService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Claim the seats of a ticket
+     * @param voyageId the voyage the seats belong to
+     * @param ticketData comma separated seat codes, e.g. "1E-3,1E-4,2E-1"
+     * @return true if all seats were free and are now sold, false if any was already taken
+     */
+    public boolean claimSeats(Integer voyageId, String ticketData) {
+        VoyageSeatMap seatMap = load(voyageId);
+        return seatMap.claim(seatMap.getLayout().masksOf(ticketData));
+    }
+
+    /**
+     * Release the seats of a cancelled ticket
+     * @param voyageId the voyage the seats belong to
+     * @param ticketData comma separated seat codes
+     * @return true if all seats were sold and are now free, false if any was not sold
+     */
+    public boolean releaseSeats(Integer voyageId, String ticketData) {
+        VoyageSeatMap seatMap = load(voyageId);
+        return seatMap.release(seatMap.getLayout().masksOf(ticketData));
+    }
+
+    /**
+     * Check whether all seats are still free
+     * @param voyageId the voyage the seats belong to
+     * @param ticketData comma separated seat codes
+     * @return true if none of the seats are sold
+     */
+    public boolean isAvailable(Integer voyageId, String ticketData) {
+        VoyageSeatMap seatMap = load(voyageId);
+        return seatMap.isAvailable(seatMap.getLayout().masksOf(ticketData));
+    }
+
+    /**
+     * Encode seats in the bitmap layout of a voyage's vessel
+     * @param voyageId the voyage the seats belong to
+     * @param ticketData comma separated seat codes
+     * @return the seats as a bitmap
+     * @throws IllegalArgumentException if a seat code is malformed or does not exist on the vessel
+     */
+    public long[] masksOf(Integer voyageId, String ticketData) {
+        return load(voyageId).getLayout().masksOf(ticketData);
+    }
+
+    /**
+     * Hold seats for a customer during checkout
+     * @param voyageId the voyage the seats belong to
+     * @param masks the seats as returned by {@link #masksOf(Integer, String)}
+     * @return true if all seats were free and are now held
+     */
+    public boolean holdSeats(Integer voyageId, long[] masks) {
+        return load(voyageId).hold(masks);
+    }
+
+    /**
+     * Pick the best free seats of a class with {@link SeatAssigner} and hold
+     * them. If another buyer takes one of the picked seats first, the pick is
+     * repeated on the new state.
+     * @param voyageId the voyage
+     * @param seatClass 'P', 'E' or 'B'
+     * @param count number of seats
+     * @param preferredDeck '1' or '2' to try that deck first, or 0 for no preference
+     * @return the held seats as a bitmap, or empty if there are not enough free seats
+     * @throws IllegalArgumentException if the seat class or count is invalid
+     */
+    public Optional<long[]> holdBestSeats(Integer voyageId, char seatClass, int count, char preferredDeck) {
+        VoyageSeatMap seatMap = load(voyageId);
+        for (int attempt = 0; attempt < MAX_ASSIGN_ATTEMPTS; attempt++) {
+            long[] masks = SeatAssigner.findSeats(seatMap.getLayout(), seatMap.snapshot(), seatClass, count, preferredDeck);
+            if (masks == null) {
+                return Optional.empty();
+            }
+            if (seatMap.hold(masks)) {
+                return Optional.of(masks);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the seats of a bitmap as a comma separated seat list
+     */
+    public String seatCodesOf(Integer voyageId, long[] masks) {
+        return SeatCodeParser.encode(load(voyageId).getLayout(), masks);
+    }
+
+    /**
+     * Free seats of an expired or abandoned hold
+     * @param voyageId the voyage the seats belong to
+     * @param masks the seats as returned by {@link #masksOf(Integer, String)}
+     */
+    public void releaseHeldSeats(Integer voyageId, long[] masks) {
+        VoyageSeatMap seatMap = voyages.get(voyageId);
+        if (seatMap != null) {
+            seatMap.releaseHold(masks);
+        }
+    }
+
+    /**
+     * Turn held seats into a sale
+     * @param voyageId the voyage the seats belong to
+     * @param masks the seats as returned by {@link #masksOf(Integer, String)}
+     * @return true if all seats were still held and are now sold
+     */
+    public boolean convertHeldSeats(Integer voyageId, long[] masks) {
+        VoyageSeatMap seatMap = voyages.get(voyageId);
+        return seatMap != null && seatMap.convertHold(masks);
+    }
+
+    /**
+     * Get the in-memory seat map of a voyage if it is currently loaded
+     * @param voyageId the voyage ID
+     * @return the seat map, or empty if the voyage has not been touched yet
+     */
+    public Optional<VoyageSeatMap> peek(Integer voyageId) {
+        return Optional.ofNullable(voyages.get(voyageId));
+    }
+
+    /**
+     * Get the seat map of a voyage, loading it from seats_sold if needed
+     * @param voyageId the voyage ID
+     * @return the seat map
+     */
+    public VoyageSeatMap getSeatMap(Integer voyageId) {
+        return load(voyageId);
+    }
+
+    /**
+     * Apply the corrections of a reconciliation. The changes reach seats_sold
+     * with the next write-back like any other sale.
+     * @see VoyageSeatMap#reconcile(long[], long[], long)
+     */
+    public int reconcile(Integer voyageId, long[] missing, long[] extra, long ticketDelta) {
+        return load(voyageId).reconcile(missing, extra, ticketDelta);
+    }
+
+    /**
+     * Drop a voyage from memory without writing it back. Used when seats_sold
+     * is changed or deleted directly, so the next access reloads it.
+     * @param voyageId the voyage ID
+     */
+    public void evict(Integer voyageId) {
+        voyages.remove(voyageId);
+    }
+
+    /**
+     * Claim seats and write them to seats_sold immediately, as part of the
+     * caller's transaction. If that transaction rolls back the seats are freed
+     * in memory again.
+     * @param voyageId the voyage the seats belong to
+     * @param ticketData comma separated seat codes
+     * @return the number of seats claimed, 0 if any of them was already sold
+     */
+    public int claimSeatsThrough(Integer voyageId, String ticketData) {
+        VoyageSeatMap seatMap = load(voyageId);
+        return writeThrough(voyageId, seatMap, seatMap.getLayout().masksOf(ticketData), true);
+    }
+
+    /**
+     * Release seats and write them to seats_sold immediately, as part of the
+     * caller's transaction.
+     * @param voyageId the voyage the seats belong to
+     * @param ticketData comma separated seat codes
+     * @return the number of seats released, 0 if any of them was not sold
+     */
+    public int releaseSeatsThrough(Integer voyageId, String ticketData) {
+        VoyageSeatMap seatMap = load(voyageId);
+        return writeThrough(voyageId, seatMap, seatMap.getLayout().masksOf(ticketData), false);
+    }
+
+    /**
+     * Write the changes of every dirty voyage back to seats_sold. Each voyage
+     * costs at most one conditional release and one conditional claim
+     * statement, however many tickets were sold since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${seats.inventory.flush-interval-ms:500}")
+    public void flush() {
+        // The scheduled flush and the one on shutdown must not send the same changes twice
+        synchronized (flushLock) {
+            voyages.forEach((voyageId, seatMap) -> {
+                if (!seatMap.clearDirty()) {
+                    return;
+                }
+                try {
+                    writeBack(voyageId, seatMap, true);
+                } catch (Exception e) {
+                    // Keep the changes in memory and retry on the next flush
+                    seatMap.markDirty();
+                    logger.severe("Failed to write back seats of voyage " + voyageId + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    // Caller must hold flushLock
+    private void writeBack(Integer voyageId, VoyageSeatMap seatMap, boolean retry) {
+        long[] claimed;
+        long[] released;
+        long ticketDelta;
+        boolean hasReleases = false;
+        boolean hasClaims;
+        synchronized (seatMap) {
+            long[] words = seatMap.soldSnapshot();
+            long[] persisted = seatMap.getPersistedWords();
+            claimed = new long[words.length];
+            released = new long[words.length];
+            boolean anyClaimed = false;
+            for (int i = 0; i < words.length; i++) {
+                claimed[i] = words[i] & ~persisted[i];
+                released[i] = persisted[i] & ~words[i];
+                anyClaimed |= claimed[i] != 0;
+                hasReleases |= released[i] != 0;
+            }
+            ticketDelta = seatMap.getTotalTicketsSold() - seatMap.getPersistedTotal();
+            hasClaims = anyClaimed || ticketDelta != 0;
+        }
+        if (!hasReleases && !hasClaims) {
+            return;
+        }
+
+        // Write-throughs only touch seats that are persisted already, so they can run meanwhile
+        boolean sendReleases = hasReleases;
+        boolean applied = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (sendReleases && update(voyageId, seatMap.getLayout(), released, 0, false) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            if (hasClaims && update(voyageId, seatMap.getLayout(), claimed, ticketDelta, true) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        }));
+
+        if (applied) {
+            synchronized (seatMap) {
+                seatMap.markPersisted(claimed, released, ticketDelta);
+            }
+        } else if (rebase(voyageId, seatMap) && retry && seatMap.clearDirty()) {
+            writeBack(voyageId, seatMap, false);
+        }
+    }
+
+    // seats_sold was changed behind our back: start over from the row, keeping what is not written yet.
+    // Returns false if that has to wait for the next flush.
+    private boolean rebase(Integer voyageId, VoyageSeatMap seatMap) {
+        long writesStarted;
+        synchronized (seatMap) {
+            if (seatMap.hasWritesInFlight()) {
+                seatMap.markDirty();
+                return false;
+            }
+            writesStarted = seatMap.getWritesStarted();
+        }
+
+        Optional<SeatsSold> stored = transactionTemplate.execute(status -> seatsSoldRepository.findByVoyageId(voyageId));
+
+        synchronized (seatMap) {
+            // A write-through since the read may or may not be in it
+            if (seatMap.hasWritesInFlight() || seatMap.getWritesStarted() != writesStarted) {
+                seatMap.markDirty();
+                return false;
+            }
+            if (stored.isEmpty()) {
+                if (!seatMap.hasUnpersistedClaims() && !seatMap.hasHolds()) {
+                    logger.warning("Seats of voyage " + voyageId + " are gone from seats_sold, dropping them");
+                    voyages.remove(voyageId, seatMap);
+                } else {
+                    seatMap.markDirty();
+                    logger.severe("Seats of voyage " + voyageId + " are gone from seats_sold while tickets are pending");
+                }
+                return false;
+            }
+            logger.warning("Seats of voyage " + voyageId + " diverged from seats_sold, reconciling");
+            seatMap.rebase(wordsOf(seatMap.getLayout(), stored.get()), stored.get().getTotalTicketsSold());
+            return true;
+        }
+    }
+
+    /**
+     * Turn held seats into a sale and write them to seats_sold immediately,
+     * as part of the caller's transaction. If that transaction rolls back the
+     * seats are freed; the hold is gone either way.
+     * @param voyageId the voyage the seats belong to
+     * @param masks the held seats
+     * @return the number of seats sold, 0 if any of them was not held
+     */
+    public int convertHeldSeatsThrough(Integer voyageId, long[] masks) {
+        VoyageSeatMap seatMap = voyages.get(voyageId);
+        if (seatMap == null) {
+            return 0;
+        }
+        synchronized (seatMap) {
+            if (!seatMap.convertHold(masks)) {
+                return 0;
+            }
+            seatMap.markPersisted(masks, true);
+            seatMap.beginWrite();
+        }
+        return persistThrough(voyageId, seatMap, masks, true);
+    }
+
+    private int writeThrough(Integer voyageId, VoyageSeatMap seatMap, long[] masks, boolean claim) {
+        // The change is marked persisted together with making it, so a write-back never sends it as well
+        synchronized (seatMap) {
+            if (claim ? !seatMap.claim(masks) : !seatMap.release(masks)) {
+                return 0;
+            }
+            seatMap.markPersisted(masks, claim);
+            seatMap.beginWrite();
+        }
+        return persistThrough(voyageId, seatMap, masks, claim);
+    }
+
+    // Write a change already made and marked persisted in memory to seats_sold, and undo it if that or
+    // the transaction fails. Must be called without the seat map's monitor.
+    private int persistThrough(Integer voyageId, VoyageSeatMap seatMap, long[] masks, boolean claim) {
+        int updated;
+        try {
+            updated = update(voyageId, seatMap.getLayout(), masks, claim ? 1 : -1, claim);
+        } catch (RuntimeException e) {
+            undoWrite(seatMap, masks, claim);
+            throw e;
+        }
+        if (updated == 0) {
+            // The database disagrees with memory; undo and let the caller report a conflict
+            undoWrite(seatMap, masks, claim);
+            logger.warning("Seats of voyage " + voyageId + " diverged from seats_sold");
+            return 0;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        synchronized (seatMap) {
+                            seatMap.endWrite();
+                        }
+                    } else {
+                        undoWrite(seatMap, masks, claim);
+                    }
+                }
+            });
+        } else {
+            synchronized (seatMap) {
+                seatMap.endWrite();
+            }
+        }
+
+        int changed = 0;
+        for (long mask : masks) {
+            changed += Long.bitCount(mask);
+        }
+        return changed;
+    }
+
+    private void undoWrite(VoyageSeatMap seatMap, long[] masks, boolean claim) {
+        synchronized (seatMap) {
+            if (claim)
+                seatMap.release(masks);
+            else
+                seatMap.claim(masks);
+            seatMap.markPersisted(masks, !claim);
+            seatMap.endWrite();
+        }
+    }
+
+    private int update(Integer voyageId, SeatLayout layout, long[] masks, long ticketDelta, boolean claim) {
+        if (layout.overflowWordCount() > 0) {
+            return updateWithOverflow(voyageId, layout, masks, ticketDelta, claim);
+        }
+        if (claim) {
+            return seatsSoldRepository.claimSeats(voyageId,
+                    masks[SeatSection.UPPER_DECK_PROMO.ordinal()],
+                    masks[SeatSection.UPPER_DECK_ECONOMY.ordinal()],
+                    masks[SeatSection.UPPER_DECK_BUSINESS.ordinal()],
+                    masks[SeatSection.LOWER_DECK_PROMO.ordinal()],
+                    masks[SeatSection.LOWER_DECK_ECONOMY.ordinal()],
+                    masks[SeatSection.LOWER_DECK_BUSINESS.ordinal()],
+                    ticketDelta);
+        }
+        return seatsSoldRepository.releaseSeats(voyageId,
+                masks[SeatSection.UPPER_DECK_PROMO.ordinal()],
+                masks[SeatSection.UPPER_DECK_ECONOMY.ordinal()],
+                masks[SeatSection.UPPER_DECK_BUSINESS.ordinal()],
+                masks[SeatSection.LOWER_DECK_PROMO.ordinal()],
+                masks[SeatSection.LOWER_DECK_ECONOMY.ordinal()],
+                masks[SeatSection.LOWER_DECK_BUSINESS.ordinal()],
+                ticketDelta);
+    }
+
+    private int updateWithOverflow(Integer voyageId, SeatLayout layout, long[] masks, long ticketDelta, boolean claim) {
+        byte[] overflow = layout.overflowBytes(masks);
+        if (claim) {
+            return seatsSoldRepository.claimSeatsWithOverflow(voyageId,
+                    masks[SeatSection.UPPER_DECK_PROMO.ordinal()],
+                    masks[SeatSection.UPPER_DECK_ECONOMY.ordinal()],
+                    masks[SeatSection.UPPER_DECK_BUSINESS.ordinal()],
+                    masks[SeatSection.LOWER_DECK_PROMO.ordinal()],
+                    masks[SeatSection.LOWER_DECK_ECONOMY.ordinal()],
+                    masks[SeatSection.LOWER_DECK_BUSINESS.ordinal()],
+                    overflow,
+                    ticketDelta);
+        }
+        return seatsSoldRepository.releaseSeatsWithOverflow(voyageId,
+                masks[SeatSection.UPPER_DECK_PROMO.ordinal()],
+                masks[SeatSection.UPPER_DECK_ECONOMY.ordinal()],
+                masks[SeatSection.UPPER_DECK_BUSINESS.ordinal()],
+                masks[SeatSection.LOWER_DECK_PROMO.ordinal()],
+                masks[SeatSection.LOWER_DECK_ECONOMY.ordinal()],
+                masks[SeatSection.LOWER_DECK_BUSINESS.ordinal()],
+                overflow,
+                ticketDelta);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private VoyageSeatMap load(Integer voyageId) {
+        VoyageSeatMap seatMap = voyages.get(voyageId);
+        if (seatMap != null) {
+            return seatMap;
+        }
+
+        VoyageSeatMap loaded = transactionTemplate.execute(status -> {
+            SeatsSold seatsSold = seatsSoldRepository.findByVoyageId(voyageId).orElseGet(() -> {
+                Voyage voyage = voyageRepository.findById(voyageId)
+                        .orElseThrow(() -> new IllegalArgumentException("Voyage not found with id: " + voyageId));
+                return seatsSoldRepository.save(new SeatsSold(voyage, voyage.getShipType()));
+            });
+
+            SeatLayout layout = vesselLayoutService.getLayout(seatsSold.getShipType());
+            long[] words = wordsOf(layout, seatsSold);
+
+            // The conditional updates need overflow_seats to match the layout's size
+            byte[] overflow = layout.overflowBytes(words);
+            if (overflow.length > 0 && !Arrays.equals(overflow, seatsSold.getOverflowSeats())) {
+                seatsSold.setOverflowSeats(overflow);
+                seatsSoldRepository.save(seatsSold);
+            }
+            return new VoyageSeatMap(layout, words, seatsSold.getTotalTicketsSold());
+        });
+
+        VoyageSeatMap existing = voyages.putIfAbsent(voyageId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static long[] wordsOf(SeatLayout layout, SeatsSold seatsSold) {
+        long[] columns = new long[SeatSection.COUNT];
+        columns[SeatSection.UPPER_DECK_PROMO.ordinal()] = seatsSold.getUpperDeckPromo();
+        columns[SeatSection.UPPER_DECK_ECONOMY.ordinal()] = seatsSold.getUpperDeckEconomy();
+        columns[SeatSection.UPPER_DECK_BUSINESS.ordinal()] = seatsSold.getUpperDeckBusiness();
+        columns[SeatSection.LOWER_DECK_PROMO.ordinal()] = seatsSold.getLowerDeckPromo();
+        columns[SeatSection.LOWER_DECK_ECONOMY.ordinal()] = seatsSold.getLowerDeckEconomy();
+        columns[SeatSection.LOWER_DECK_BUSINESS.ordinal()] = seatsSold.getLowerDeckBusiness();
+        return layout.toWords(columns, seatsSold.getOverflowSeats());
+    }
+}
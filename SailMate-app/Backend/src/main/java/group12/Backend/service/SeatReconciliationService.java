@@ -0,0 +1,244 @@
+package group12.Backend.service;
+
+import group12.Backend.dto.SeatReconciliationDTO;
+import group12.Backend.dto.SeatReconciliationDTO.VoyageDiscrepancy;
+import group12.Backend.entity.Voyage;
+import group12.Backend.repository.SeatsSoldRepository;
+import group12.Backend.repository.TicketRepository;
+import group12.Backend.util.SeatCodeParser;
+import group12.Backend.util.SeatLayout;
+import group12.Backend.util.VoyageSeatMap;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Compares the seat bitmaps of active voyages with the seats of their
+ * tickets and optionally repairs them.
+ *
+ * Voyages are checked in parallel on a dedicated fork-join pool. For each
+ * voyage the expected bitmap is built by streaming selected_seats of its
+ * tickets, so no ticket entities are loaded. The expected ticket count is
+ * the number of tickets. Voyages held in the in-memory inventory are compared
+ * with it, held seats included; the others are compared with their seats_sold
+ * row, so a run does not load every active voyage into memory.
+ *
+ * Repairs go through the in-memory inventory with the same CAS operations as
+ * bookings, so nothing is locked. A booking that is half way through (ticket
+ * saved, seats not yet claimed, or the other way round) looks like a
+ * discrepancy for a moment; that is why a discrepancy is only repaired once
+ * the previous run has seen it too.
+ */
+@Service
+public class SeatReconciliationService {
+
+    private static final Logger logger = Logger.getLogger(SeatReconciliationService.class.getName());
+
+    private final SeatsSoldRepository seatsSoldRepository;
+    private final TicketRepository ticketRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final VesselLayoutService vesselLayoutService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ForkJoinPool pool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Discrepancies of the previous run by voyage, to tell lasting ones from bookings in flight
+    private volatile Map<Integer, Discrepancy> previous = Map.of();
+
+    @Autowired
+    public SeatReconciliationService(SeatsSoldRepository seatsSoldRepository,
+                                     TicketRepository ticketRepository,
+                                     SeatInventoryService seatInventoryService,
+                                     VesselLayoutService vesselLayoutService,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${seats.reconcile.parallelism:4}") int parallelism) {
+        this.seatsSoldRepository = seatsSoldRepository;
+        this.ticketRepository = ticketRepository;
+        this.seatInventoryService = seatInventoryService;
+        this.vesselLayoutService = vesselLayoutService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Scheduled(cron = "${seats.reconcile.cron:0 0 * * * *}")
+    public void scheduledReconcile() {
+        try {
+            reconcile(true);
+        } catch (IllegalStateException e) {
+            logger.info("Skipping scheduled seat reconciliation: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check all active voyages
+     * @param repair whether to repair discrepancies seen by this and the previous run
+     * @return the discrepancies found
+     * @throws IllegalStateException if a reconciliation is already running
+     */
+    public SeatReconciliationDTO reconcile(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A seat reconciliation is already running");
+        }
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            long start = System.currentTimeMillis();
+            List<Integer> voyageIds = seatsSoldRepository.findVoyageIdsByVoyageStatus(Voyage.VoyageStatus.active);
+
+            Map<Integer, Discrepancy> seen = new ConcurrentHashMap<>();
+            List<VoyageDiscrepancy> discrepancies = pool.submit(() -> voyageIds.parallelStream()
+                    .map(voyageId -> checkVoyage(voyageId, repair, seen))
+                    .filter(Objects::nonNull)
+                    .toList()).get();
+            previous = seen;
+
+            long duration = System.currentTimeMillis() - start;
+            logger.info(String.format("Seat reconciliation checked %d voyages in %d ms, %d with discrepancies",
+                    voyageIds.size(), duration, discrepancies.size()));
+            return new SeatReconciliationDTO(startedAt, duration, repair, voyageIds.size(), discrepancies);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seat reconciliation was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seat reconciliation failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private VoyageDiscrepancy checkVoyage(Integer voyageId, boolean repair, Map<Integer, Discrepancy> seen) {
+        try {
+            SeatLayout layout = seatInventoryService.peek(voyageId)
+                    .map(VoyageSeatMap::getLayout)
+                    .or(() -> readBitmaps(voyageId).map(row -> vesselLayoutService.getLayout(row.getShipType())))
+                    .orElse(null);
+            if (layout == null) {
+                return null;
+            }
+            int wordCount = layout.wordCount();
+            long[] expected = new long[wordCount];
+            long[] doubleSold = new long[wordCount];
+            long expectedTickets = readOnlyTransaction.execute(status -> {
+                long tickets = 0;
+                try (Stream<String> seatLists = ticketRepository.streamSelectedSeatsByVoyageId(voyageId)) {
+                    for (String selectedSeats : (Iterable<String>) seatLists::iterator) {
+                        tickets++;
+                        long[] masks;
+                        try {
+                            masks = layout.masksOf(selectedSeats);
+                        } catch (IllegalArgumentException e) {
+                            logger.warning("Skipping seats of a ticket on voyage " + voyageId + ": " + e.getMessage());
+                            continue;
+                        }
+                        for (int i = 0; i < wordCount; i++) {
+                            doubleSold[i] |= expected[i] & masks[i];
+                            expected[i] |= masks[i];
+                        }
+                    }
+                }
+                return tickets;
+            });
+
+            // Read after the tickets, so a sale completing meanwhile shows as extra rather than missing.
+            // Voyages that are not in memory are read from seats_sold, without loading them into the inventory.
+            long[] taken;
+            long[] sold;
+            long recordedTickets;
+            Optional<VoyageSeatMap> inMemory = seatInventoryService.peek(voyageId);
+            if (inMemory.isPresent() && inMemory.get().getLayout() == layout) {
+                VoyageSeatMap seatMap = inMemory.get();
+                sold = seatMap.soldSnapshot();
+                taken = seatMap.snapshot();
+                recordedTickets = seatMap.getTotalTicketsSold();
+            } else {
+                Optional<SeatsSoldRepository.SeatBitmaps> row = readBitmaps(voyageId);
+                if (row.isEmpty() || inMemory.isPresent()) {
+                    // Removed, or loaded with a different layout meanwhile; the next run checks it
+                    return null;
+                }
+                sold = layout.toWords(row.get().columns(), row.get().getOverflowSeats());
+                taken = sold;
+                recordedTickets = row.get().getTotalTicketsSold();
+            }
+
+            // A held seat is taken, so it is not missing even if a ticket has it, and not extra either.
+            // A ticket's seat that is held will be sold again when the hold converts, so it counts as double sold.
+            long[] missing = new long[wordCount];
+            long[] extra = new long[wordCount];
+            boolean seatsDiffer = false;
+            boolean anyDoubleSold = false;
+            for (int i = 0; i < wordCount; i++) {
+                missing[i] = expected[i] & ~taken[i];
+                extra[i] = sold[i] & ~expected[i];
+                doubleSold[i] |= expected[i] & taken[i] & ~sold[i];
+                seatsDiffer |= (missing[i] | extra[i]) != 0;
+                anyDoubleSold |= doubleSold[i] != 0;
+            }
+            long ticketDelta = expectedTickets - recordedTickets;
+            if (!seatsDiffer && ticketDelta == 0 && !anyDoubleSold) {
+                return null;
+            }
+
+            Discrepancy current = new Discrepancy(missing, extra, ticketDelta);
+            seen.put(voyageId, current);
+
+            int seatsRepaired = 0;
+            boolean ticketCountRepaired = false;
+            Discrepancy last = previous.get(voyageId);
+            if (repair && last != null && last.missing.length == wordCount) {
+                long[] repairMissing = new long[wordCount];
+                long[] repairExtra = new long[wordCount];
+                for (int i = 0; i < wordCount; i++) {
+                    repairMissing[i] = missing[i] & last.missing[i];
+                    repairExtra[i] = extra[i] & last.extra[i];
+                }
+                ticketCountRepaired = ticketDelta != 0 && ticketDelta == last.ticketDelta;
+                seatsRepaired = seatInventoryService.reconcile(voyageId, repairMissing, repairExtra,
+                        ticketCountRepaired ? ticketDelta : 0);
+                if (seatsRepaired > 0 || ticketCountRepaired) {
+                    logger.warning(String.format("Repaired %d seats and %s the ticket count of voyage %d",
+                            seatsRepaired, ticketCountRepaired ? "corrected" : "kept", voyageId));
+                }
+            }
+
+            return new VoyageDiscrepancy(voyageId,
+                    SeatCodeParser.encode(layout, missing),
+                    SeatCodeParser.encode(layout, extra),
+                    SeatCodeParser.encode(layout, doubleSold),
+                    expectedTickets, recordedTickets, seatsRepaired, ticketCountRepaired);
+        } catch (RuntimeException e) {
+            // One broken voyage must not stop the others
+            logger.severe("Failed to reconcile seats of voyage " + voyageId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Optional<SeatsSoldRepository.SeatBitmaps> readBitmaps(Integer voyageId) {
+        return readOnlyTransaction.execute(status -> seatsSoldRepository.findBitmapsByVoyageId(voyageId));
+    }
+
+    private record Discrepancy(long[] missing, long[] extra, long ticketDelta) {
+    }
+}
@@ -1,15 +1,28 @@
 package group12.Backend.service;
 
+import group12.Backend.dto.CursorPage;
+import group12.Backend.dto.SeatAvailabilityDTO;
 import group12.Backend.dto.SeatsSoldDTO;
 import group12.Backend.entity.SeatsSold;
 import group12.Backend.entity.Voyage;
 import group12.Backend.repository.SeatsSoldRepository;
 import group12.Backend.repository.VoyageRepository;
+import group12.Backend.util.PageCursor;
+import group12.Backend.util.SeatMap;
+import group12.Backend.util.SeatLayout;
+import group12.Backend.util.SeatMapCodec;
+import group12.Backend.util.SeatSection;
+import group12.Backend.util.VoyageSeatMap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -18,17 +31,25 @@ public class SeatsSoldService {
 
     private final SeatsSoldRepository seatsSoldRepository;
     private final VoyageRepository voyageRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final VesselLayoutService vesselLayoutService;
 
     @Autowired
-    public SeatsSoldService(SeatsSoldRepository seatsSoldRepository, VoyageRepository voyageRepository) {
+    public SeatsSoldService(SeatsSoldRepository seatsSoldRepository, VoyageRepository voyageRepository,
+                            SeatInventoryService seatInventoryService, VesselLayoutService vesselLayoutService) {
         this.seatsSoldRepository = seatsSoldRepository;
         this.voyageRepository = voyageRepository;
+        this.seatInventoryService = seatInventoryService;
+        this.vesselLayoutService = vesselLayoutService;
     }
 
-    public List<SeatsSoldDTO> getAllSeatsSold() {
-        return seatsSoldRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // Get a page of all seats_sold records, newest first; the cursor is null for the first page
+    public CursorPage<SeatsSoldDTO> getAllSeatsSold(String cursor, Integer limit) {
+        PageCursor.Created after = PageCursor.Created.parse(cursor);
+        int pageSize = PageCursor.limit(limit);
+        return CursorPage.of(seatsSoldRepository.findPage(after.createdAt(), after.id(), Limit.of(pageSize + 1)), pageSize,
+                        seatsSold -> PageCursor.Created.of(seatsSold.getCreatedAt(), seatsSold.getId()))
+                .map(this::convertToDTO);
     }
 
     public Optional<SeatsSoldDTO> getSeatsSoldById(Integer id) {
@@ -41,6 +62,53 @@ public class SeatsSoldService {
                 .map(this::convertToDTO);
     }
 
+    // Decode the seat maps of several voyages with a single query, in the order of the given IDs.
+    // Voyages without a seats_sold record are left out.
+    public Map<Integer, SeatMap> getSeatMaps(Collection<Integer> voyageIds) {
+        Map<Integer, SeatMap> seatMaps = new LinkedHashMap<>();
+        if (voyageIds.isEmpty()) {
+            return seatMaps;
+        }
+
+        Map<Integer, SeatsSoldRepository.SeatBitmaps> rows = new HashMap<>();
+        for (SeatsSoldRepository.SeatBitmaps row : seatsSoldRepository.findBitmapsByVoyageIdIn(voyageIds)) {
+            rows.put(row.getVoyageId(), row);
+        }
+
+        for (Integer voyageId : voyageIds) {
+            SeatsSoldRepository.SeatBitmaps row = rows.get(voyageId);
+            if (row == null || seatMaps.containsKey(voyageId)) {
+                continue;
+            }
+            // Seats sold since the last write-back are only in memory
+            Optional<VoyageSeatMap> inMemory = seatInventoryService.peek(voyageId);
+            SeatLayout layout = inMemory.map(VoyageSeatMap::getLayout)
+                    .orElseGet(() -> vesselLayoutService.getLayout(row.getShipType()));
+            long[] words = inMemory.map(VoyageSeatMap::snapshot)
+                    .orElseGet(() -> layout.toWords(row.columns(), row.getOverflowSeats()));
+            seatMaps.put(voyageId, SeatMapCodec.decode(row.getId(), voyageId, row.getShipType(), layout, words));
+        }
+        return seatMaps;
+    }
+
+    // Remaining seats per class for several voyages; includes the seat map when a format is given
+    public List<SeatAvailabilityDTO> getAvailability(Collection<Integer> voyageIds, SeatMap.Format seatMapFormat) {
+        return getSeatMaps(voyageIds).values().stream()
+                .map(seatMap -> new SeatAvailabilityDTO(
+                        seatMap.voyageId(),
+                        seatMap.shipType(),
+                        seatMap.promoAvailable(),
+                        seatMap.economyAvailable(),
+                        seatMap.businessAvailable(),
+                        seatMapFormat != null ? seatMap.toResponse(seatMapFormat) : null))
+                .collect(Collectors.toList());
+    }
+
+    // Decode a seats_sold map sent by a client with the layout of its ship type
+    public SeatMap decodeSeatMap(Map<String, Object> seatsSold) {
+        return SeatMapCodec.decode(seatsSold, vesselLayoutService.getLayout((String) seatsSold.get("shipType")));
+    }
+
     @Transactional
     public SeatsSoldDTO createSeatsSold(SeatsSoldDTO seatsSoldDTO) {
         SeatsSold seatsSold = convertToEntity(seatsSoldDTO);
@@ -55,16 +123,20 @@ public class SeatsSoldService {
 
         SeatsSold seatsSold = convertToEntity(seatsSoldDTO);
         seatsSold.setId(id);
-        return Optional.of(convertToDTO(seatsSoldRepository.save(seatsSold)));
+        SeatsSold saved = seatsSoldRepository.save(seatsSold);
+        seatInventoryService.evict(saved.getVoyage().getId());
+        return Optional.of(convertToDTO(saved));
     }
 
     @Transactional
     public boolean deleteSeatsSold(Integer id) {
-        if (!seatsSoldRepository.existsById(id)) {
+        Optional<SeatsSold> seatsSold = seatsSoldRepository.findById(id);
+        if (seatsSold.isEmpty()) {
             return false;
         }
 
-        seatsSoldRepository.deleteById(id);
+        seatsSoldRepository.delete(seatsSold.get());
+        seatInventoryService.evict(seatsSold.get().getVoyage().getId());
         return true;
     }
 
@@ -75,6 +147,7 @@ public class SeatsSoldService {
         }
 
         seatsSoldRepository.deleteByVoyageId(voyageId);
+        seatInventoryService.evict(voyageId);
         return true;
     }
 
@@ -107,103 +180,52 @@ public class SeatsSoldService {
         return convertToDTO(seatsSoldRepository.save(seatsSold));
     }
 
-    // Update seats when a ticket is purchased or changed
+    // Update seats when a ticket is purchased or changed.
+    // Returns false instead of touching the bitmaps if a purchased seat is already
+    // sold or a cancelled seat is not sold.
+    public boolean updateSeatCounts(Integer voyageId, String ticketData, boolean isPurchased) {
+        if (isPurchased)
+            return seatInventoryService.claimSeats(voyageId, ticketData);
+        else
+            return seatInventoryService.releaseSeats(voyageId, ticketData);
+    }
+
+    // Claim seats and write them to seats_sold within the current transaction.
+    // Returns the number of seats claimed, 0 if any of them is already sold.
     @Transactional
-    public void updateSeatCounts(Integer voyageId, String ticketData, boolean isPurchased) {
-        Optional<SeatsSold> seatsSoldOpt = seatsSoldRepository.findByVoyageId(voyageId);
-    
-        SeatsSold seatsSold;
-        if (seatsSoldOpt.isPresent()) {
-            seatsSold = seatsSoldOpt.get();
-        } else {
-            Voyage voyage = voyageRepository.findById(voyageId)
-                    .orElseThrow(() -> new IllegalArgumentException("Voyage not found with id: " + voyageId));
-            seatsSold = new SeatsSold();
-            seatsSold.setVoyage(voyage);
-            seatsSold.setShipType(voyage.getShipType());
-        }
-    
-        String[] codes = ticketData.split(",");
-    
-        for (String code : codes) {
-            code = code.trim();
-    
-            char rowType = code.charAt(0);
-            char classType = code.charAt(1);
-            int index = Integer.parseInt(code.substring(code.indexOf('-') + 1));
-    
-            int bitMask = 1 << (index - 1); // replaces pow(2, index - 1)
-    
-            switch (classType) {
-                case 'B': {
-                    switch (rowType) {
-                        case '1': {
-                            if (isPurchased)
-                                seatsSold.setLowerDeckBusiness(seatsSold.getLowerDeckBusiness() + bitMask);
-                            else
-                                seatsSold.setLowerDeckBusiness(seatsSold.getLowerDeckBusiness() - bitMask);
-                            break;
-                        }
-                        case '2': {
-                            if (isPurchased)
-                                seatsSold.setUpperDeckBusiness(seatsSold.getUpperDeckBusiness() + bitMask);
-                            else
-                                seatsSold.setUpperDeckBusiness(seatsSold.getUpperDeckBusiness() - bitMask);
-                            break;
-                        }
-                    }
-                    break;
-                }
-                case 'E': {
-                    switch (rowType) {
-                        case '1': {
-                            if (isPurchased)
-                                seatsSold.setLowerDeckEconomy(seatsSold.getLowerDeckEconomy() + bitMask);
-                            else
-                                seatsSold.setLowerDeckEconomy(seatsSold.getLowerDeckEconomy() - bitMask);
-                            break;
-                        }
-                        case '2': {
-                            if (isPurchased)
-                                seatsSold.setUpperDeckEconomy(seatsSold.getUpperDeckEconomy() + bitMask);
-                            else
-                                seatsSold.setUpperDeckEconomy(seatsSold.getUpperDeckEconomy() - bitMask);
-                            break;
-                        }
-                    }
-                    break;
-                }
-                case 'P': {
-                    switch (rowType) {
-                        case '1': {
-                            if (isPurchased)
-                                seatsSold.setLowerDeckPromo(seatsSold.getLowerDeckPromo() + bitMask);
-                            else
-                                seatsSold.setLowerDeckPromo(seatsSold.getLowerDeckPromo() - bitMask);
-                            break;
-                        }
-                        case '2': {
-                            if (isPurchased)
-                                seatsSold.setUpperDeckPromo(seatsSold.getUpperDeckPromo() + bitMask);
-                            else
-                                seatsSold.setUpperDeckPromo(seatsSold.getUpperDeckPromo() - bitMask);
-                            break;
-                        }
-                    }
-                    break;
-                }
-            }
-        }
-        seatsSold.recalculateTotal(isPurchased);
-        seatsSoldRepository.save(seatsSold);
+    public int claimSeats(Integer voyageId, String ticketData) {
+        return seatInventoryService.claimSeatsThrough(voyageId, ticketData);
+    }
+
+    // Release seats and write them to seats_sold within the current transaction.
+    // Returns the number of seats released, 0 if any of them is not sold.
+    @Transactional
+    public int releaseSeats(Integer voyageId, String ticketData) {
+        return seatInventoryService.releaseSeatsThrough(voyageId, ticketData);
     }
 
-    // Convert Entity to DTO
+    // Convert Entity to DTO, preferring the in-memory bitmaps which may not be written back yet
     private SeatsSoldDTO convertToDTO(SeatsSold seatsSold) {
         SeatsSoldDTO dto = new SeatsSoldDTO();
         dto.setId(seatsSold.getId());
         dto.setVoyageId(seatsSold.getVoyage().getId());
         dto.setShipType(seatsSold.getShipType());
+        dto.setCreatedAt(seatsSold.getCreatedAt());
+        dto.setUpdatedAt(seatsSold.getUpdatedAt());
+
+        Optional<VoyageSeatMap> seatMap = seatInventoryService.peek(seatsSold.getVoyage().getId());
+        if (seatMap.isPresent()) {
+            long[] words = seatMap.get().snapshot();
+            dto.setUpperDeckPromo(words[SeatSection.UPPER_DECK_PROMO.ordinal()]);
+            dto.setUpperDeckEconomy(words[SeatSection.UPPER_DECK_ECONOMY.ordinal()]);
+            dto.setUpperDeckBusiness(words[SeatSection.UPPER_DECK_BUSINESS.ordinal()]);
+            dto.setLowerDeckPromo(words[SeatSection.LOWER_DECK_PROMO.ordinal()]);
+            dto.setLowerDeckEconomy(words[SeatSection.LOWER_DECK_ECONOMY.ordinal()]);
+            dto.setLowerDeckBusiness(words[SeatSection.LOWER_DECK_BUSINESS.ordinal()]);
+            dto.setTotalTicketsSold(seatMap.get().getTotalTicketsSold());
+            return dto;
+        }
+
         dto.setUpperDeckPromo(seatsSold.getUpperDeckPromo());
         dto.setUpperDeckEconomy(seatsSold.getUpperDeckEconomy());
         dto.setUpperDeckBusiness(seatsSold.getUpperDeckBusiness());
@@ -211,8 +233,6 @@ public class SeatsSoldService {
         dto.setLowerDeckEconomy(seatsSold.getLowerDeckEconomy());
         dto.setLowerDeckBusiness(seatsSold.getLowerDeckBusiness());
         dto.setTotalTicketsSold(seatsSold.getTotalTicketsSold());
-        dto.setCreatedAt(seatsSold.getCreatedAt());
-        dto.setUpdatedAt(seatsSold.getUpdatedAt());
         return dto;
     }
 
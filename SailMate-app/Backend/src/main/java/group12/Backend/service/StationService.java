@@ -30,16 +30,19 @@ public class StationService {
     private final VoyageRepository voyageRepository;
     private final TicketRepository ticketRepository;
     private final NotificationService notificationService;
+    private final OutboxService outboxService;
     
     @Autowired
     public StationService(StationRepository stationRepository, 
                           VoyageRepository voyageRepository,
                           TicketRepository ticketRepository,
-                          NotificationService notificationService) {
+                          NotificationService notificationService,
+                          OutboxService outboxService) {
         this.stationRepository = stationRepository;
         this.voyageRepository = voyageRepository;
         this.ticketRepository = ticketRepository;
         this.notificationService = notificationService;
+        this.outboxService = outboxService;
     }
     
     public List<Station> getAllStations() {
@@ -232,6 +235,11 @@ public class StationService {
             List<Ticket> affectedTickets = ticketRepository.findByVoyageId(voyage.getId());
             
             for (Ticket ticket : affectedTickets) {
+                // The boarding pass prints the station title, so render it again
+                if (changedFields.contains("title")) {
+                    outboxService.enqueueTicketPdf(ticket.getTicketID());
+                }
+                
                 String stationType;
                 String stationTypeTr;
                 String oldLocation;
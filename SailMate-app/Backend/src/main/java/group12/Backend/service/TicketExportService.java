@@ -0,0 +1,151 @@
+package group12.Backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import group12.Backend.dto.CompletedTicketExportRow;
+import group12.Backend.dto.TicketExportRow;
+import group12.Backend.repository.CompletedTicketRepository;
+import group12.Backend.repository.TicketRepository;
+import group12.Backend.util.CsvWriter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exports tickets and completed tickets as NDJSON or CSV. Rows are streamed
+ * from the database as projections and written straight to the output, so
+ * heap use does not depend on the number of rows exported.
+ */
+@Service
+public class TicketExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = MediaType.parseMediaType(mediaType);
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @param value the format name, case-insensitive
+         * @throws IllegalArgumentException if the format is unknown
+         */
+        public static Format parse(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Filters of an export; null fields match all tickets
+     * @param from first day of ticket creation, inclusive
+     * @param to last day of ticket creation, inclusive
+     */
+    public record Filter(LocalDate from, LocalDate to, Integer voyageId, String ticketClass) {
+
+        LocalDateTime fromTime() {
+            return from != null ? from.atStartOfDay() : null;
+        }
+
+        LocalDateTime toTime() {
+            return to != null ? to.plusDays(1).atStartOfDay() : null;
+        }
+    }
+
+    private final TicketRepository ticketRepository;
+    private final CompletedTicketRepository completedTicketRepository;
+    private final ObjectWriter jsonWriter;
+
+    @Autowired
+    public TicketExportService(TicketRepository ticketRepository,
+                               CompletedTicketRepository completedTicketRepository,
+                               ObjectMapper objectMapper) {
+        this.ticketRepository = ticketRepository;
+        this.completedTicketRepository = completedTicketRepository;
+        // The output is flushed when the buffer fills, not after every row
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Write the tickets matching a filter to a stream, in ID order
+     * @return the number of tickets written
+     */
+    @Transactional(readOnly = true)
+    public long exportTickets(Filter filter, Format format, OutputStream out) throws IOException {
+        try (Stream<TicketExportRow> rows = ticketRepository.streamForExport(
+                filter.fromTime(), filter.toTime(), filter.voyageId(), filter.ticketClass())) {
+            return write(rows, TicketExportRow.COLUMNS, TicketExportRow::values, format, out);
+        }
+    }
+
+    /**
+     * Write the completed tickets matching a filter to a stream, in ID order
+     * @return the number of completed tickets written
+     */
+    @Transactional(readOnly = true)
+    public long exportCompletedTickets(Filter filter, Format format, OutputStream out) throws IOException {
+        try (Stream<CompletedTicketExportRow> rows = completedTicketRepository.streamForExport(
+                filter.fromTime(), filter.toTime(), filter.voyageId(), filter.ticketClass())) {
+            return write(rows, CompletedTicketExportRow.COLUMNS, CompletedTicketExportRow::values, format, out);
+        }
+    }
+
+    private <T> long write(Stream<T> rows, String[] columns, Function<T, Object[]> values,
+                           Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        if (format == Format.CSV) {
+            CsvWriter csv = new CsvWriter(writer);
+            csv.writeRow((Object[]) columns);
+            while (iterator.hasNext()) {
+                csv.writeRow(values.apply(iterator.next()));
+                count++;
+            }
+        } else {
+            JsonGenerator generator = jsonWriter.createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Rows are separated by the newline written below, not Jackson's default space
+            generator.setRootValueSeparator(null);
+            while (iterator.hasNext()) {
+                jsonWriter.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+            generator.flush();
+        }
+        writer.flush();
+        return count;
+    }
+}
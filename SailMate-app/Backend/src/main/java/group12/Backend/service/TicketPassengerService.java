@@ -0,0 +1,155 @@
+package group12.Backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.entity.TicketPassenger;
+import group12.Backend.repository.TicketPassengerRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Maintains the ticket_passenger table, the typed copy of ticket_data.
+ * Writes join the caller's transaction, so the passenger rows change together
+ * with the ticket itself.
+ *
+ * Reads fall back to parsing ticket_data for tickets that have no rows yet,
+ * i.e. until {@link group12.Backend.scheduler.TicketPassengerBackfill} has
+ * reached them.
+ */
+@Service
+public class TicketPassengerService {
+
+    private static final Logger logger = Logger.getLogger(TicketPassengerService.class.getName());
+
+    private final TicketPassengerRepository ticketPassengerRepository;
+    private final ObjectMapper objectMapper;
+    private final JavaType passengerListType;
+
+    @Autowired
+    public TicketPassengerService(TicketPassengerRepository ticketPassengerRepository, ObjectMapper objectMapper) {
+        this.ticketPassengerRepository = ticketPassengerRepository;
+        this.objectMapper = objectMapper;
+        this.passengerListType = objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, TicketDTO.PassengerInfo.class);
+    }
+
+    /**
+     * Record the passengers of a ticket
+     * @param ticketId the public ticket ID
+     * @param passengers the passengers in booking order, may be null
+     * @return the number of passengers recorded
+     */
+    @Transactional
+    public int savePassengers(String ticketId, List<TicketDTO.PassengerInfo> passengers) {
+        if (passengers == null || passengers.isEmpty()) {
+            return 0;
+        }
+        List<TicketPassenger> rows = new ArrayList<>(passengers.size());
+        for (int i = 0; i < passengers.size(); i++) {
+            TicketDTO.PassengerInfo passenger = passengers.get(i);
+            rows.add(new TicketPassenger(ticketId, i, passenger.getName(), passenger.getSurname(),
+                    passenger.getBirthDate(), passenger.getEmail(), passenger.getPhoneNo(),
+                    passenger.getPassengerType()));
+        }
+        ticketPassengerRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    /**
+     * Replace the passengers of a ticket, e.g. after they were edited
+     * @return the number of passengers recorded
+     */
+    @Transactional
+    public int replacePassengers(String ticketId, List<TicketDTO.PassengerInfo> passengers) {
+        ticketPassengerRepository.deleteByTicketId(ticketId);
+        // Flush the delete first, the new rows reuse its (ticket_id, position) keys
+        ticketPassengerRepository.flush();
+        return savePassengers(ticketId, passengers);
+    }
+
+    /**
+     * Remove all passengers of a ticket
+     * @return the number of passengers removed
+     */
+    @Transactional
+    public int removePassengers(String ticketId) {
+        return ticketPassengerRepository.deleteByTicketId(ticketId);
+    }
+
+    /**
+     * Get the passengers of one ticket
+     * @param ticketId the public ticket ID
+     * @param ticketData the ticket_data JSON of the ticket, used if it has no rows yet
+     * @return the passengers in booking order, or null if ticket_data cannot be parsed either
+     */
+    public List<TicketDTO.PassengerInfo> getPassengers(String ticketId, String ticketData) {
+        List<TicketPassenger> rows = ticketPassengerRepository.findByTicketIdOrderByPositionAsc(ticketId);
+        return rows.isEmpty() ? parse(ticketId, ticketData) : toDtos(rows);
+    }
+
+    /**
+     * Get the passengers of several tickets with one query
+     * @param ticketDataByTicketId ticket_data JSON by public ticket ID, used for tickets without rows
+     * @return the passengers by public ticket ID; null for a ticket whose ticket_data cannot be parsed
+     */
+    public Map<String, List<TicketDTO.PassengerInfo>> getPassengers(Map<String, String> ticketDataByTicketId) {
+        Map<String, List<TicketDTO.PassengerInfo>> passengers = new HashMap<>();
+        if (ticketDataByTicketId.isEmpty()) {
+            return passengers;
+        }
+        for (TicketPassenger row : ticketPassengerRepository.findByTicketIdInOrderByTicketIdAscPositionAsc(ticketDataByTicketId.keySet())) {
+            passengers.computeIfAbsent(row.getTicketId(), id -> new ArrayList<>()).add(toDto(row));
+        }
+        for (Map.Entry<String, String> ticket : ticketDataByTicketId.entrySet()) {
+            if (!passengers.containsKey(ticket.getKey())) {
+                passengers.put(ticket.getKey(), parse(ticket.getKey(), ticket.getValue()));
+            }
+        }
+        return passengers;
+    }
+
+    /**
+     * Parse a ticket_data JSON array
+     * @throws JsonProcessingException if the JSON is not a passenger list
+     */
+    public List<TicketDTO.PassengerInfo> parseTicketData(String ticketData) throws JsonProcessingException {
+        return objectMapper.readValue(ticketData, passengerListType);
+    }
+
+    private List<TicketDTO.PassengerInfo> parse(String ticketId, String ticketData) {
+        if (ticketData == null) {
+            return null;
+        }
+        try {
+            return parseTicketData(ticketData);
+        } catch (JsonProcessingException e) {
+            logger.warning("Error parsing passenger data of ticket " + ticketId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<TicketDTO.PassengerInfo> toDtos(List<TicketPassenger> rows) {
+        List<TicketDTO.PassengerInfo> passengers = new ArrayList<>(rows.size());
+        for (TicketPassenger row : rows) {
+            passengers.add(toDto(row));
+        }
+        return passengers;
+    }
+
+    private static TicketDTO.PassengerInfo toDto(TicketPassenger row) {
+        TicketDTO.PassengerInfo passenger = new TicketDTO.PassengerInfo(
+                row.getName(), row.getSurname(), row.getBirthDate(), row.getEmail(), row.getPhoneNo());
+        passenger.setPassengerType(row.getPassengerType());
+        return passenger;
+    }
+}
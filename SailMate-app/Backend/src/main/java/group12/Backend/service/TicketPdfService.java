@@ -0,0 +1,266 @@
+package group12.Backend.service;
+
+import group12.Backend.util.TicketIdGenerator;
+import group12.Backend.util.TicketPDFGenerator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the boarding pass PDFs of tickets in a local file store, so a
+ * download or confirmation email sends a file instead of rendering it.
+ *
+ * A PDF is stored as {store-dir}/{ticket ID}/{version}.pdf, where the version
+ * is a hash of everything printed on it and doubles as the ETag. The current
+ * version of the ticket and of the completed ticket is kept in the index
+ * files "ticket" and "completed" of the same directory, so a download reads
+ * the index and sends the file without loading the ticket. The outbox renders
+ * a changed ticket and points its index at the new version; until it has, a
+ * download gets the previous version. Completing a voyage usually prints the
+ * same pages, so the completed ticket reuses the file rendered for the ticket.
+ */
+@Service
+public class TicketPdfService {
+
+    private static final Logger logger = Logger.getLogger(TicketPdfService.class.getName());
+
+    // Bump when the layout in TicketPDFGenerator changes, so stored PDFs are rendered again
+    private static final String LAYOUT_REVISION = "1";
+    private static final String EXTENSION = ".pdf";
+    private static final String TICKET_INDEX = "ticket";
+    private static final String COMPLETED_INDEX = "completed";
+
+    /**
+     * A rendered PDF in the store
+     * @param file the PDF file
+     * @param version the hash of its content, used as ETag
+     */
+    public record StoredPdf(Path file, String version) {
+    }
+
+    private final TicketService ticketService;
+    private final CompletedTicketService completedTicketService;
+    private final Path storeDir;
+
+    @Autowired
+    public TicketPdfService(TicketService ticketService,
+                            CompletedTicketService completedTicketService,
+                            @Value("${tickets.pdf.store-dir:data/ticket-pdfs}") String storeDir) {
+        this.ticketService = ticketService;
+        this.completedTicketService = completedTicketService;
+        this.storeDir = Path.of(storeDir).toAbsolutePath();
+    }
+
+    /**
+     * Get the current PDF of an active ticket from the store. Only a ticket the
+     * outbox has not rendered yet is loaded and rendered here.
+     * @return the PDF, or empty if there is no such ticket
+     */
+    public Optional<StoredPdf> getTicketPdf(String ticketId) throws Exception {
+        if (!TicketIdGenerator.isValid(ticketId)) {
+            return Optional.empty();
+        }
+        Optional<StoredPdf> current = current(ticketId, TICKET_INDEX);
+        if (current.isPresent()) {
+            return current;
+        }
+        return render(ticketId, TICKET_INDEX, ticketService.getTicketPdfData(ticketId), false);
+    }
+
+    /**
+     * Get the current PDF of a completed ticket from the store, rendering it
+     * if the outbox has not yet
+     * @return the PDF, or empty if there is no such completed ticket
+     */
+    public Optional<StoredPdf> getCompletedTicketPdf(String ticketId) throws Exception {
+        if (!TicketIdGenerator.isValid(ticketId)) {
+            return Optional.empty();
+        }
+        Optional<StoredPdf> current = current(ticketId, COMPLETED_INDEX);
+        if (current.isPresent()) {
+            return current;
+        }
+        return render(ticketId, COMPLETED_INDEX, completedTicketService.getCompletedTicketPdfData(ticketId), false);
+    }
+
+    /**
+     * Bring the store up to date with a ticket, called by the outbox after it
+     * changed: render its current version and point the index at it, and drop
+     * older versions, or remove its PDFs if the ticket no longer exists
+     */
+    public void refresh(String ticketId) throws Exception {
+        if (!TicketIdGenerator.isValid(ticketId)) {
+            return;
+        }
+        boolean ticket = render(ticketId, TICKET_INDEX, ticketService.getTicketPdfData(ticketId), true).isPresent();
+        boolean completed = render(ticketId, COMPLETED_INDEX,
+                completedTicketService.getCompletedTicketPdfData(ticketId), true).isPresent();
+        if (!ticket && !completed) {
+            remove(ticketId);
+        } else {
+            removeUnindexedVersions(ticketDir(ticketId));
+        }
+    }
+
+    // The PDF the index points at, if both exist
+    private Optional<StoredPdf> current(String ticketId, String index) throws IOException {
+        Path dir = ticketDir(ticketId);
+        String version;
+        try {
+            version = Files.readString(dir.resolve(index), StandardCharsets.US_ASCII).trim();
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        Path file = dir.resolve(version + EXTENSION);
+        return Files.exists(file) ? Optional.of(new StoredPdf(file, version)) : Optional.empty();
+    }
+
+    /**
+     * Render the pages if the store has no file of their version, and point the
+     * index at it. A download only sets a missing index, so it cannot undo a
+     * newer version the outbox set meanwhile; the outbox replaces it.
+     * @return the PDF, or empty after clearing the index if there are no pages
+     */
+    private Optional<StoredPdf> render(String ticketId, String index,
+                                       Optional<List<TicketPDFGenerator.TicketData>> pages,
+                                       boolean replace) throws Exception {
+        Path dir = ticketDir(ticketId);
+        if (pages.isEmpty()) {
+            Files.deleteIfExists(dir.resolve(index));
+            return Optional.empty();
+        }
+        String version = version(pages.get());
+        Path file = dir.resolve(version + EXTENSION);
+        Files.createDirectories(dir);
+        if (!Files.exists(file)) {
+            // Rendered next to the target and moved in place, so readers never see half a file
+            Path temp = Files.createTempFile(dir, version, ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    TicketPDFGenerator.generateTicketPdfBytes(out, pages.get());
+                }
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        Path temp = Files.createTempFile(dir, index, ".tmp");
+        try {
+            Files.writeString(temp, version, StandardCharsets.US_ASCII);
+            if (replace) {
+                Files.move(temp, dir.resolve(index), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                try {
+                    Files.move(temp, dir.resolve(index), StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Set meanwhile by the outbox or another download
+                    Optional<StoredPdf> current = current(ticketId, index);
+                    if (current.isPresent()) {
+                        return current;
+                    }
+                    // The index points at a file that is gone
+                    Files.move(temp, dir.resolve(index), StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return Optional.of(new StoredPdf(file, version));
+    }
+
+    // Drops the versions neither index points at
+    private void removeUnindexedVersions(Path dir) {
+        try {
+            Set<String> indexed = new HashSet<>();
+            for (String index : List.of(TICKET_INDEX, COMPLETED_INDEX)) {
+                Path file = dir.resolve(index);
+                if (Files.exists(file)) {
+                    indexed.add(Files.readString(file, StandardCharsets.US_ASCII).trim() + EXTENSION);
+                }
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+                for (Path file : files) {
+                    if (!indexed.contains(file.getFileName().toString())) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Cannot remove old PDFs in " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private void remove(String ticketId) throws IOException {
+        Path dir = ticketDir(ticketId);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private Path ticketDir(String ticketId) {
+        // Only valid ticket IDs get here, which are letters, digits and a dash
+        return storeDir.resolve(ticketId.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return a hash of the layout revision and every field printed on the pages
+     */
+    static String version(List<TicketPDFGenerator.TicketData> pages) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, LAYOUT_REVISION);
+        for (TicketPDFGenerator.TicketData page : pages) {
+            update(digest, page.ticketId);
+            update(digest, page.passengerName);
+            update(digest, page.date);
+            update(digest, page.time);
+            update(digest, page.from);
+            update(digest, page.to);
+            update(digest, page.seat);
+            update(digest, page.gate);
+            update(digest, page.boardTill);
+            update(digest, page.ticketClass);
+            update(digest, page.passengerType);
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        // Separates the fields, and tells null apart from ""
+        digest.update((byte) (value != null ? 0 : 1));
+    }
+}
@@ -0,0 +1,129 @@
+package group12.Backend.service;
+
+import group12.Backend.entity.TicketSeat;
+import group12.Backend.repository.TicketSeatRepository;
+import group12.Backend.util.SeatCodeParser;
+import group12.Backend.util.SeatSection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Maintains the ticket_seat table, the per-seat view of tickets. Every method
+ * joins the caller's transaction, so the seat rows change together with the
+ * ticket itself.
+ */
+@Service
+public class TicketSeatService {
+
+    private final TicketSeatRepository ticketSeatRepository;
+
+    @Autowired
+    public TicketSeatService(TicketSeatRepository ticketSeatRepository) {
+        this.ticketSeatRepository = ticketSeatRepository;
+    }
+
+    /**
+     * Record the seats of a ticket
+     * @param ticketId the public ticket ID
+     * @param voyageId the voyage of the ticket
+     * @param selectedSeats comma separated seat codes
+     * @return the number of seats recorded
+     * @throws IllegalStateException if any of the seats is already sold on the voyage
+     */
+    @Transactional
+    public int assignSeats(String ticketId, Integer voyageId, String selectedSeats) {
+        List<TicketSeat> seats = toRows(ticketId, voyageId, selectedSeats);
+        if (seats.isEmpty()) {
+            return 0;
+        }
+        try {
+            // Flush now so a double booking fails here and not at commit
+            ticketSeatRepository.saveAllAndFlush(seats);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Some of the seats " + selectedSeats + " are already sold on voyage " + voyageId);
+        }
+        return seats.size();
+    }
+
+    /**
+     * Replace the seats of a ticket, e.g. after its seat selection changed
+     * @return the number of seats recorded
+     * @throws IllegalStateException if any of the new seats is already sold on the voyage
+     */
+    @Transactional
+    public int reassignSeats(String ticketId, Integer voyageId, String selectedSeats) {
+        ticketSeatRepository.deleteByTicketId(ticketId);
+        return assignSeats(ticketId, voyageId, selectedSeats);
+    }
+
+    /**
+     * Free all seats of a ticket
+     * @param ticketId the public ticket ID
+     * @return the number of seats freed
+     */
+    @Transactional
+    public int releaseSeats(String ticketId) {
+        return ticketSeatRepository.deleteByTicketId(ticketId);
+    }
+
+    /**
+     * Move the seats of a ticket to another voyage, keeping the seat numbers
+     * @return the number of seats moved
+     * @throws IllegalStateException if any of the seats is already sold on the new voyage
+     */
+    @Transactional
+    public int moveSeats(String ticketId, Integer newVoyageId) {
+        try {
+            return ticketSeatRepository.updateVoyageIdByTicketId(ticketId, newVoyageId);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Seats of ticket " + ticketId + " are already sold on voyage " + newVoyageId);
+        }
+    }
+
+    /**
+     * Find the ticket holding a seat
+     * @param voyageId the voyage ID
+     * @param seatCode the seat code, e.g. "2B-5"
+     * @return the public ticket ID, or empty if the seat is free
+     */
+    public Optional<String> findTicketHoldingSeat(Integer voyageId, String seatCode) {
+        List<TicketSeat> seats = toRows(null, voyageId, seatCode);
+        if (seats.size() != 1) {
+            throw new IllegalArgumentException("Invalid seat code: " + seatCode);
+        }
+        TicketSeat seat = seats.get(0);
+        return ticketSeatRepository
+                .findByVoyageIdAndDeckAndSeatClassAndSeatIndex(voyageId, seat.getDeck(), seat.getSeatClass(), seat.getSeatIndex())
+                .map(TicketSeat::getTicketId);
+    }
+
+    /**
+     * Get all sold seats of a voyage ordered by deck, class and seat number
+     * @param voyageId the voyage ID
+     * @return the seats
+     */
+    public List<TicketSeat> getVoyageSeats(Integer voyageId) {
+        return ticketSeatRepository.findByVoyageIdOrderByDeckAscSeatClassAscSeatIndexAsc(voyageId);
+    }
+
+    private List<TicketSeat> toRows(String ticketId, Integer voyageId, String selectedSeats) {
+        // A seat listed twice is one row
+        Set<Integer> seen = new HashSet<>();
+        List<TicketSeat> seats = new ArrayList<>();
+        SeatCodeParser.forEachSeat(selectedSeats, (section, seatIndex) -> {
+            if (seen.add(seatIndex * SeatSection.COUNT + section.ordinal())) {
+                seats.add(new TicketSeat(voyageId, section.getDeck(), section.getSeatClass(), seatIndex, ticketId));
+            }
+        });
+        return seats;
+    }
+}
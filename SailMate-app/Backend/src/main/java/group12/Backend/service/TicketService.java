@@ -2,95 +2,153 @@ package group12.Backend.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import group12.Backend.dto.ActivityLogDTO;
+import group12.Backend.dto.CursorPage;
 import group12.Backend.dto.NotificationDTO;
+import group12.Backend.dto.OutboxDTO;
 import group12.Backend.dto.TicketDTO;
+import group12.Backend.dto.TicketSalesRow;
+import group12.Backend.dto.TicketVoyageView;
 import group12.Backend.entity.Ticket;
 import group12.Backend.entity.Voyage;
 import group12.Backend.entity.Notification;
 import group12.Backend.repository.TicketRepository;
 import group12.Backend.repository.VoyageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import group12.Backend.util.PageCursor;
+import group12.Backend.util.SeatCodeParser;
+import group12.Backend.util.TicketIdGenerator;
 import group12.Backend.util.TicketPDFGenerator;
-import java.io.ByteArrayOutputStream;
+import io.jsonwebtoken.Claims;
 
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.logging.Logger;
 
 @Service
 public class TicketService {
 
+    private static final Logger logger = Logger.getLogger(TicketService.class.getName());
+
     private final TicketRepository ticketRepository;
     private final VoyageRepository voyageRepository;
     private final ObjectMapper objectMapper;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
+    private final TicketSeatService ticketSeatService;
+    private final TicketPassengerService ticketPassengerService;
+    private final SeatsSoldService seatsSoldService;
+    private final SeatHoldService seatHoldService;
+    private final TicketIdGenerator ticketIdGenerator;
 
     @Autowired
     public TicketService(TicketRepository ticketRepository, 
                          VoyageRepository voyageRepository,
                          ObjectMapper objectMapper,
-                         NotificationService notificationService) {
+                         OutboxService outboxService,
+                         TicketSeatService ticketSeatService,
+                         TicketPassengerService ticketPassengerService,
+                         SeatsSoldService seatsSoldService,
+                         SeatHoldService seatHoldService,
+                         TicketIdGenerator ticketIdGenerator) {
         this.ticketRepository = ticketRepository;
         this.voyageRepository = voyageRepository;
         this.objectMapper = objectMapper;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
+        this.ticketSeatService = ticketSeatService;
+        this.ticketPassengerService = ticketPassengerService;
+        this.seatsSoldService = seatsSoldService;
+        this.seatHoldService = seatHoldService;
+        this.ticketIdGenerator = ticketIdGenerator;
     }
 
     /**
-     * Get all tickets
-     * @return list of all tickets as DTO responses
+     * Get a page of all tickets, newest first
+     * @param cursor the cursor returned with the previous page, null for the first page
+     * @param limit the requested page size, capped by {@link PageCursor#limit}
+     * @param includePassengers whether to load the passengers of the tickets
+     * @return the page of tickets as DTO responses
      */
-    public List<TicketDTO.TicketResponse> getAllTickets() {
-        return ticketRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public CursorPage<TicketDTO.TicketResponse> getAllTickets(String cursor, Integer limit, boolean includePassengers) {
+        PageCursor.Created after = PageCursor.Created.parse(cursor);
+        int pageSize = PageCursor.limit(limit);
+        CursorPage<Ticket> page = CursorPage.of(
+                ticketRepository.findPage(after.createdAt(), after.id(), Limit.of(pageSize + 1)), pageSize,
+                ticket -> PageCursor.Created.of(ticket.getCreatedAt(), ticket.getId()));
+        return new CursorPage<>(convertToDtos(page.items(), includePassengers), page.nextCursor());
     }
 
     /**
-     * Find a ticket by its ID
+     * Sum the tickets created in a year by month, class and route
+     * @param year the year of ticket creation
+     * @return one row per month, class and route
+     */
+    public List<TicketSalesRow> getSales(int year) {
+        return ticketRepository.findSales(LocalDate.of(year, 1, 1).atStartOfDay(),
+                LocalDate.of(year + 1, 1, 1).atStartOfDay());
+    }
+
+    /**
+     * Find a ticket by its ID, with voyage and station details
      * @param id the ticket ID
      * @return the ticket DTO if found
      */
     public Optional<TicketDTO.TicketResponse> getTicketById(Integer id) {
-        return ticketRepository.findById(id)
+        return ticketRepository.findVoyageViewById(id)
                 .map(this::convertToDto);
     }
 
     /**
-     * Find tickets by user ID
+     * Find tickets by user ID, with voyage and station details. Tickets, voyages
+     * and stations are loaded in one query, plus one for passengers if requested.
      * @param userId the ID of the user
+     * @param includePassengers whether to load the passengers of the tickets
      * @return list of tickets belonging to the user
      */
-    public List<TicketDTO.TicketResponse> getTicketsByUserId(String userId) {
-        return ticketRepository.findByUserId(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public List<TicketDTO.TicketResponse> getTicketsByUserId(String userId, boolean includePassengers) {
+        List<TicketVoyageView> views = ticketRepository.findVoyageViewsByUserId(userId);
+        List<Ticket> tickets = new ArrayList<>(views.size());
+        for (TicketVoyageView view : views) {
+            tickets.add(view.ticket());
+        }
+        List<TicketDTO.TicketResponse> responses = convertToDtos(tickets, includePassengers);
+        for (int i = 0; i < views.size(); i++) {
+            views.get(i).enrich(responses.get(i));
+        }
+        return responses;
     }
 
     /**
-     * Find a ticket by its unique ticketID
+     * Find a ticket by its unique ticketID, with voyage and station details
      * @param ticketID the unique ticket identifier
-     * @return the ticket DTO if found
+     * @return the ticket DTO if found; empty without a query if the ID is malformed
      */
     public Optional<TicketDTO.TicketResponse> getTicketByTicketID(String ticketID) {
-        return ticketRepository.findByTicketID(ticketID)
+        if (!TicketIdGenerator.isValid(ticketID)) {
+            return Optional.empty();
+        }
+        return ticketRepository.findVoyageViewByTicketID(ticketID)
                 .map(this::convertToDto);
     }
 
     /**
-     * Create a new ticket
+     * Create a new ticket. The notification and activity log are queued in the outbox with the ticket.
      * @param ticketRequest the ticket request DTO
+     * @param actor the claims of the user creating the ticket, for the activity log
      * @return the created ticket as a DTO response
      * @throws JsonProcessingException if there's an error processing JSON
+     * @throws IllegalStateException if any of the selected seats is already sold
      */
     @Transactional
-    public TicketDTO.TicketResponse createTicket(TicketDTO.TicketRequest ticketRequest) throws JsonProcessingException {
+    public TicketDTO.TicketResponse createTicket(TicketDTO.TicketRequest ticketRequest, Claims actor) throws JsonProcessingException {
         // Generate a unique ticket ID
-        String ticketID = generateUniqueTicketId();
+        String ticketID = ticketIdGenerator.nextId();
         
         // Convert passenger list to JSON
         String ticketData = objectMapper.writeValueAsString(ticketRequest.getPassengers());
@@ -109,24 +167,73 @@ public class TicketService {
         
         // Save ticket to database
         Ticket savedTicket = ticketRepository.save(ticket);
+        ticketPassengerService.savePassengers(savedTicket.getTicketID(), ticketRequest.getPassengers());
         
-        // Create notification for ticket creation
-        createTicketCreationNotification(savedTicket);
+        // Record the seats; the unique key rejects a double booking
+        ticketSeatService.assignSeats(savedTicket.getTicketID(), savedTicket.getVoyageId(), savedTicket.getSelectedSeats());
+        
+        // Queue the notification, activity log and boarding pass rendering for ticket creation
+        Voyage voyage = voyageRepository.findById(savedTicket.getVoyageId()).orElse(null);
+        createTicketCreationNotification(savedTicket, voyage);
+        enqueueTicketCreationLog(savedTicket, voyage, actor);
+        outboxService.enqueueTicketPdf(savedTicket.getTicketID());
         
         // Convert and return as DTO
-        return convertToDto(savedTicket);
+        return convertToDto(savedTicket, ticketRequest.getPassengers());
+    }
+
+    /**
+     * Book a ticket: claim its seats in seats_sold and create the ticket in one
+     * transaction, so there is never a ticket without its seats or the other
+     * way round. Replaces POST /api/tickets followed by /api/seats-sold/ticket-created.
+     * @param ticketRequest the ticket request DTO
+     * @param holdToken a checkout hold covering the seats, or null to claim them directly
+     * @param actor the claims of the user booking, who took the hold
+     * @return the created ticket as a DTO response
+     * @throws JsonProcessingException if there's an error processing JSON
+     * @throws IllegalArgumentException if the voyage does not exist or a seat code is invalid
+     * @throws IllegalStateException if any of the selected seats is already sold
+     */
+    @Transactional
+    public TicketDTO.TicketResponse bookTicket(TicketDTO.TicketRequest ticketRequest, String holdToken, Claims actor)
+            throws JsonProcessingException {
+        Integer voyageId = ticketRequest.getVoyageId();
+        if (voyageId == null || !voyageRepository.existsById(voyageId)) {
+            throw new IllegalArgumentException("Voyage not found with id: " + voyageId);
+        }
+        if (ticketRequest.getPassengerCount() == null || ticketRequest.getPassengerCount() < 1) {
+            throw new IllegalArgumentException("Passenger count must be at least 1");
+        }
+
+        // Seats held during checkout become a sale; otherwise (or if the hold expired) claim them directly.
+        // Either way seats_sold is updated inside this transaction.
+        String selectedSeats = ticketRequest.getSelectedSeats();
+        int seats = SeatCodeParser.count(selectedSeats);
+        int claimed = holdToken != null && seats > 0
+                ? seatHoldService.convertHoldThrough(holdToken, actor.getSubject(), voyageId, selectedSeats)
+                : 0;
+        if (claimed == 0) {
+            claimed = seatsSoldService.claimSeats(voyageId, selectedSeats);
+        }
+        if (claimed == 0 && seats > 0) {
+            throw new IllegalStateException("Some of the seats are already sold");
+        }
+
+        return createTicket(ticketRequest, actor);
     }
 
     /**
-     * Update an existing ticket
+     * Update an existing ticket. The notification and activity log are queued in the outbox with the update.
      * @param id the ID of the ticket to update
      * @param updateRequest the ticket update request DTO
+     * @param actor the claims of the user updating the ticket, for the activity log
      * @return the updated ticket as a DTO response
      * @throws JsonProcessingException if there's an error processing JSON
+     * @throws IllegalStateException if any of the new seats is already sold
      */
     @Transactional
-    public Optional<TicketDTO.TicketResponse> updateTicket(Integer id, TicketDTO.TicketUpdateRequest updateRequest) 
-            throws JsonProcessingException {
+    public Optional<TicketDTO.TicketResponse> updateTicket(Integer id, TicketDTO.TicketUpdateRequest updateRequest,
+                                                           Claims actor) throws JsonProcessingException {
         Optional<Ticket> ticketOpt = ticketRepository.findById(id);
         
         if (ticketOpt.isPresent()) {
@@ -164,6 +271,7 @@ public class TicketService {
             
             if (updateRequest.getSelectedSeats() != null && !originalSelectedSeats.equals(updateRequest.getSelectedSeats())) {
                 ticket.setSelectedSeats(updateRequest.getSelectedSeats());
+                ticketSeatService.reassignSeats(ticket.getTicketID(), ticket.getVoyageId(), ticket.getSelectedSeats());
                 changedFields.add("seat selection");
                 changedFieldsTr.add("koltuk seçimi");
             }
@@ -172,6 +280,7 @@ public class TicketService {
                 String newTicketData = objectMapper.writeValueAsString(updateRequest.getPassengers());
                 if (!originalTicketData.equals(newTicketData)) {
                     ticket.setTicketData(newTicketData);
+                    ticketPassengerService.replacePassengers(ticket.getTicketID(), updateRequest.getPassengers());
                     changedFields.add("passenger information");
                     changedFieldsTr.add("yolcu bilgileri");
                 }
@@ -183,7 +292,9 @@ public class TicketService {
             // Create notification for ticket update if there were changes
             if (!changedFields.isEmpty()) {
                 createTicketUpdateNotification(updatedTicket, changedFields, changedFieldsTr);
+                outboxService.enqueueTicketPdf(updatedTicket.getTicketID());
             }
+            enqueueTicketUpdateLog(updatedTicket, originalTicketClass, originalPassengerCount, originalSelectedSeats, actor);
             
             return Optional.of(convertToDto(updatedTicket));
         }
@@ -192,24 +303,41 @@ public class TicketService {
     }
 
     /**
-     * Delete a ticket by its ID
+     * Delete a ticket by its ID. The notification, cancellation email and
+     * activity log are queued in the outbox with the deletion.
      * @param id the ID of the ticket to delete
+     * @param actor the claims of the user deleting the ticket, who also gets the cancellation email
      * @return true if the ticket was deleted, false if not found
      */
     @Transactional
-    public boolean deleteTicket(Integer id) {
-        Optional<Ticket> ticketOpt = ticketRepository.findById(id);
+    public boolean deleteTicket(Integer id, Claims actor) {
+        // The voyage details for the notification come with the ticket
+        Optional<TicketVoyageView> viewOpt = ticketRepository.findVoyageViewById(id);
         
-        if (ticketOpt.isPresent()) {
-            Ticket ticket = ticketOpt.get();
-            
-            // Get voyage details for the notification
-            Optional<Voyage> voyageOpt = voyageRepository.findById(ticket.getVoyageId());
+        if (viewOpt.isPresent()) {
+            TicketVoyageView view = viewOpt.get();
+            Ticket ticket = view.ticket();
             
-            // Create notification for ticket deletion
-            createTicketDeletionNotification(ticket, voyageOpt.orElse(null));
+            // Queue the notification, cancellation email and activity log for ticket deletion
+            createTicketDeletionNotification(view);
+            enqueueTicketDeletionEffects(view, actor);
             
+            // Free the seats in seats_sold with the deletion, as booking claims them with the ticket
+            // Seats it cannot free are left sold; seat reconciliation frees seats no ticket holds
+            String selectedSeats = ticket.getSelectedSeats();
+            try {
+                if (seatsSoldService.releaseSeats(ticket.getVoyageId(), selectedSeats) == 0) {
+                    logger.warning("Seats " + selectedSeats + " of ticket " + ticket.getTicketID()
+                            + " were not sold on voyage " + ticket.getVoyageId());
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warning("Cannot free the seats of ticket " + ticket.getTicketID() + ": " + e.getMessage());
+            }
+            ticketSeatService.releaseSeats(ticket.getTicketID());
+            ticketPassengerService.removePassengers(ticket.getTicketID());
             ticketRepository.deleteById(id);
+            // Removes the stored boarding pass once the deletion committed
+            outboxService.enqueueTicketPdf(ticket.getTicketID());
             return true;
         }
         return false;
@@ -220,6 +348,7 @@ public class TicketService {
      * @param ticketId the ID of the ticket to update
      * @param newVoyageId the new voyage ID
      * @return updated ticket as DTO if successful, empty optional otherwise
+     * @throws IllegalStateException if the ticket's seats are already sold on the new voyage
      */
     @Transactional
     public Optional<TicketDTO.TicketResponse> updateTicketVoyage(Integer ticketId, Integer newVoyageId) {
@@ -235,12 +364,14 @@ public class TicketService {
             
             // Update voyage ID
             ticket.setVoyageId(newVoyageId);
+            ticketSeatService.moveSeats(ticket.getTicketID(), newVoyageId);
             
             // Save updated ticket
             Ticket updatedTicket = ticketRepository.save(ticket);
             
             // Create notification for voyage change
             createVoyageChangeNotification(updatedTicket, originalVoyageId, newVoyageId);
+            outboxService.enqueueTicketPdf(updatedTicket.getTicketID());
             
             return Optional.of(convertToDto(updatedTicket));
         }
@@ -248,65 +379,68 @@ public class TicketService {
         return Optional.empty();
     }
 
-    /**
-     * Generate a unique ticket ID
-     * @return a unique identifier for the ticket
-     */
-    private String generateUniqueTicketId() {
-        // Generate a UUID and take the first 8 characters
-        return "TKT-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    }
-
     /**
      * Convert ticket entity to DTO response
      * @param ticket the ticket entity
      * @return the ticket DTO response
      */
     private TicketDTO.TicketResponse convertToDto(Ticket ticket) {
-        try {
-            // Convert JSON string to PassengerInfo list
-            List<TicketDTO.PassengerInfo> passengers = objectMapper.readValue(
-                    ticket.getTicketData(),
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, TicketDTO.PassengerInfo.class)
-            );
-            
-            return new TicketDTO.TicketResponse(
-                    ticket.getId(),
-                    ticket.getTicketID(),
-                    ticket.getVoyageId(),
-                    ticket.getPassengerCount(),
-                    ticket.getTotalPrice(),
-                    ticket.getTicketClass(),
-                    ticket.getSelectedSeats(),
-                    ticket.getUserId(),
-                    passengers,
-                    ticket.getCreatedAt(),
-                    ticket.getUpdatedAt()
-            );
-        } catch (JsonProcessingException e) {
-            // Log error and return partial data if JSON processing fails
-            System.err.println("Error parsing passenger data: " + e.getMessage());
-            return new TicketDTO.TicketResponse(
-                    ticket.getId(),
-                    ticket.getTicketID(),
-                    ticket.getVoyageId(),
-                    ticket.getPassengerCount(),
-                    ticket.getTotalPrice(),
-                    ticket.getTicketClass(),
-                    ticket.getSelectedSeats(),
-                    ticket.getUserId(),
-                    null,
-                    ticket.getCreatedAt(),
-                    ticket.getUpdatedAt()
-            );
+        return convertToDto(ticket, ticketPassengerService.getPassengers(ticket.getTicketID(), ticket.getTicketData()));
+    }
+    
+    /**
+     * Convert a ticket with its voyage details to a DTO response
+     * @param view the ticket with voyage details
+     * @return the ticket DTO response including station and time fields
+     */
+    private TicketDTO.TicketResponse convertToDto(TicketVoyageView view) {
+        return view.enrich(convertToDto(view.ticket()));
+    }
+    
+    /**
+     * Convert ticket entities to DTO responses, loading passengers of all tickets with one query
+     * @param tickets the ticket entities
+     * @param includePassengers whether to load passengers; if not, passengers are null
+     * @return the ticket DTO responses
+     */
+    private List<TicketDTO.TicketResponse> convertToDtos(List<Ticket> tickets, boolean includePassengers) {
+        Map<String, List<TicketDTO.PassengerInfo>> passengers = Map.of();
+        if (includePassengers) {
+            Map<String, String> ticketData = new HashMap<>();
+            for (Ticket ticket : tickets) {
+                ticketData.put(ticket.getTicketID(), ticket.getTicketData());
+            }
+            passengers = ticketPassengerService.getPassengers(ticketData);
         }
+        List<TicketDTO.TicketResponse> responses = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            responses.add(convertToDto(ticket, passengers.get(ticket.getTicketID())));
+        }
+        return responses;
+    }
+    
+    private TicketDTO.TicketResponse convertToDto(Ticket ticket, List<TicketDTO.PassengerInfo> passengers) {
+        return new TicketDTO.TicketResponse(
+                ticket.getId(),
+                ticket.getTicketID(),
+                ticket.getVoyageId(),
+                ticket.getPassengerCount(),
+                ticket.getTotalPrice(),
+                ticket.getTicketClass(),
+                ticket.getSelectedSeats(),
+                ticket.getUserId(),
+                passengers,
+                ticket.getCreatedAt(),
+                ticket.getUpdatedAt()
+        );
     }
     
     /**
      * Create notification for ticket creation
      * @param ticket the created ticket
+     * @param voyage the voyage of the ticket (can be null)
      */
-    private void createTicketCreationNotification(Ticket ticket) {
+    private void createTicketCreationNotification(Ticket ticket, Voyage voyage) {
         NotificationDTO.NotificationCreateRequest notificationRequest = new NotificationDTO.NotificationCreateRequest();
         notificationRequest.setUserId(ticket.getUserId());
         notificationRequest.setType(Notification.NotificationType.TICKET_CREATED);
@@ -317,10 +451,7 @@ public class TicketService {
         StringBuilder messageBuilder = new StringBuilder("Your ticket " + ticket.getTicketID() + " has been successfully purchased. ");
         StringBuilder messageTrBuilder = new StringBuilder(ticket.getTicketID() + " numaralı biletiniz başarıyla satın alındı. ");
         
-        Optional<Voyage> voyageOpt = voyageRepository.findById(ticket.getVoyageId());
-        if (voyageOpt.isPresent()) {
-            Voyage voyage = voyageOpt.get();
-            
+        if (voyage != null) {
             // English message
             messageBuilder.append("Voyage details: ")
                          .append(voyage.getFromStation().getTitle())
@@ -366,7 +497,140 @@ public class TicketService {
         notificationRequest.setMessageTr(messageTrBuilder.toString());
         notificationRequest.setEntityId(ticket.getTicketID());
         
-        notificationService.createNotification(notificationRequest);
+        outboxService.enqueueNotification(notificationRequest);
+    }
+    
+    /**
+     * Queue the activity log for ticket creation
+     * @param ticket the created ticket
+     * @param voyage the voyage of the ticket (can be null)
+     * @param actor the claims of the user creating the ticket
+     */
+    private void enqueueTicketCreationLog(Ticket ticket, Voyage voyage, Claims actor) {
+        String voyageDetails = "";
+        String voyageDetailsTr = "";
+        if (voyage != null) {
+            voyageDetails = String.format(" for voyage from %s to %s on %s", 
+                voyage.getFromStation().getTitle(),
+                voyage.getToStation().getTitle(),
+                voyage.getDepartureDate()
+            );
+            voyageDetailsTr = String.format(" %s - %s seferi için, tarih: %s", 
+                voyage.getFromStation().getTitle(),
+                voyage.getToStation().getTitle(),
+                voyage.getDepartureDate()
+            );
+        }
+        
+        ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
+        logRequest.setActionType("CREATE");
+        logRequest.setEntityType("TICKET");
+        logRequest.setEntityId(ticket.getTicketID());
+        logRequest.setDescription(String.format(
+            "Created ticket %s%s for %d passenger(s), class: %s", 
+            ticket.getTicketID(),
+            voyageDetails,
+            ticket.getPassengerCount(),
+            ticket.getTicketClass()
+        ));
+        logRequest.setDescriptionTr(String.format(
+            "Bilet oluşturuldu: %s%s, %d yolcu için, sınıf: %s", 
+            ticket.getTicketID(),
+            voyageDetailsTr,
+            ticket.getPassengerCount(),
+            ticket.getTicketClass()
+        ));
+        outboxService.enqueueActivityLog(logRequest, actor);
+    }
+    
+    /**
+     * Queue the activity log for a ticket update
+     * @param ticket the updated ticket
+     * @param originalTicketClass the class before the update
+     * @param originalPassengerCount the passenger count before the update
+     * @param originalSelectedSeats the seats before the update
+     * @param actor the claims of the user updating the ticket
+     */
+    private void enqueueTicketUpdateLog(Ticket ticket, String originalTicketClass, Integer originalPassengerCount,
+                                        String originalSelectedSeats, Claims actor) {
+        List<String> changes = new ArrayList<>();
+        List<String> changesTr = new ArrayList<>();
+        
+        if (!ticket.getTicketClass().equals(originalTicketClass)) {
+            changes.add(String.format("class changed from %s to %s", originalTicketClass, ticket.getTicketClass()));
+            changesTr.add(String.format("sınıf %s'dan %s'a değiştirildi", originalTicketClass, ticket.getTicketClass()));
+        }
+        
+        if (!ticket.getPassengerCount().equals(originalPassengerCount)) {
+            changes.add(String.format("passenger count changed from %d to %d", 
+                originalPassengerCount, ticket.getPassengerCount()));
+            changesTr.add(String.format("yolcu sayısı %d'dan %d'a değiştirildi", 
+                originalPassengerCount, ticket.getPassengerCount()));
+        }
+        
+        if (!ticket.getSelectedSeats().equals(originalSelectedSeats)) {
+            changes.add(String.format("seats changed from %s to %s", originalSelectedSeats, ticket.getSelectedSeats()));
+            changesTr.add(String.format("koltuklar %s'dan %s'a değiştirildi", originalSelectedSeats, ticket.getSelectedSeats()));
+        }
+        
+        String description = String.format("Updated ticket %s", ticket.getTicketID());
+        String descriptionTr = String.format("Bilet güncellendi %s", ticket.getTicketID());
+        
+        if (!changes.isEmpty()) {
+            description += " (" + String.join(", ", changes) + ")";
+            descriptionTr += " (" + String.join(", ", changesTr) + ")";
+        }
+        
+        ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
+        logRequest.setActionType("UPDATE");
+        logRequest.setEntityType("TICKET");
+        logRequest.setEntityId(ticket.getTicketID());
+        logRequest.setDescription(description);
+        logRequest.setDescriptionTr(descriptionTr);
+        outboxService.enqueueActivityLog(logRequest, actor);
+    }
+    
+    /**
+     * Queue the cancellation email to the deleting user and the activity log for ticket deletion
+     * @param view the deleted ticket with its voyage details (which can be null)
+     * @param actor the claims of the user deleting the ticket
+     */
+    private void enqueueTicketDeletionEffects(TicketVoyageView view, Claims actor) {
+        Ticket ticket = view.ticket();
+        StringBuilder description = new StringBuilder("Deleted ticket " + ticket.getTicketID());
+        StringBuilder descriptionTr = new StringBuilder("Bilet silindi " + ticket.getTicketID());
+        
+        if (view.hasVoyage()) {
+            description.append(String.format(" for voyage from %s to %s on %s", 
+                view.fromStationTitle(),
+                view.toStationTitle(),
+                view.departureDate()
+            ));
+            descriptionTr.append(String.format(", %s - %s seferi için, tarih: %s", 
+                view.fromStationTitle(),
+                view.toStationTitle(),
+                view.departureDate()
+            ));
+        }
+        
+        outboxService.enqueueCancellationEmail(new OutboxDTO.CancellationEmailEvent(
+            actor.getSubject(),
+            ticket.getTicketID(),
+            view.hasVoyage() ? view.fromStationTitle() : null,
+            view.hasVoyage() ? view.toStationTitle() : null,
+            view.hasVoyage() ? String.valueOf(view.departureDate()) : null,
+            ticket.getPassengerCount(),
+            ticket.getTicketClass(),
+            ticket.getSelectedSeats()
+        ));
+        
+        ActivityLogDTO.ActivityLogCreateRequest logRequest = new ActivityLogDTO.ActivityLogCreateRequest();
+        logRequest.setActionType("DELETE");
+        logRequest.setEntityType("TICKET");
+        logRequest.setEntityId(ticket.getTicketID());
+        logRequest.setDescription(description.toString());
+        logRequest.setDescriptionTr(descriptionTr.toString());
+        outboxService.enqueueActivityLog(logRequest, actor);
     }
     
     /**
@@ -431,15 +695,15 @@ public class TicketService {
         notificationRequest.setMessageTr(messageTrBuilder.toString());
         notificationRequest.setEntityId(ticket.getTicketID());
         
-        notificationService.createNotification(notificationRequest);
+        outboxService.enqueueNotification(notificationRequest);
     }
     
     /**
      * Create notification for ticket deletion
-     * @param ticket the deleted ticket
-     * @param voyage the voyage associated with the ticket (can be null)
+     * @param view the deleted ticket with its voyage details (which can be null)
      */
-    private void createTicketDeletionNotification(Ticket ticket, Voyage voyage) {
+    private void createTicketDeletionNotification(TicketVoyageView view) {
+        Ticket ticket = view.ticket();
         NotificationDTO.NotificationCreateRequest notificationRequest = new NotificationDTO.NotificationCreateRequest();
         notificationRequest.setUserId(ticket.getUserId());
         notificationRequest.setType(Notification.NotificationType.TICKET_UPDATED);
@@ -452,35 +716,35 @@ public class TicketService {
         // Turkish message
         StringBuilder messageTrBuilder = new StringBuilder(ticket.getTicketID() + " numaralı biletiniz iptal edildi ve artık geçerli değil. ");
         
-        if (voyage != null) {
+        if (view.hasVoyage()) {
             // English details
             messageBuilder.append("This ticket was for the voyage from ")
-                         .append(voyage.getFromStation().getTitle())
+                         .append(view.fromStationTitle())
                          .append(" (")
-                         .append(voyage.getFromStation().getCity())
+                         .append(view.fromStationCity())
                          .append(") to ")
-                         .append(voyage.getToStation().getTitle())
+                         .append(view.toStationTitle())
                          .append(" (")
-                         .append(voyage.getToStation().getCity())
+                         .append(view.toStationCity())
                          .append(") on ")
-                         .append(voyage.getDepartureDate())
+                         .append(view.departureDate())
                          .append(" at ")
-                         .append(voyage.getDepartureTime())
+                         .append(view.departureTime())
                          .append(".");
                          
             // Turkish details
             messageTrBuilder.append("Bu bilet, ")
-                         .append(voyage.getDepartureDate())
+                         .append(view.departureDate())
                          .append(" tarihinde saat ")
-                         .append(voyage.getDepartureTime())
+                         .append(view.departureTime())
                          .append("'de ")
-                         .append(voyage.getFromStation().getTitle())
+                         .append(view.fromStationTitle())
                          .append(" (")
-                         .append(voyage.getFromStation().getCity())
+                         .append(view.fromStationCity())
                          .append(")'dan ")
-                         .append(voyage.getToStation().getTitle())
+                         .append(view.toStationTitle())
                          .append(" (")
-                         .append(voyage.getToStation().getCity())
+                         .append(view.toStationCity())
                          .append(")'a olan yolculuk içindi.");
         }
         
@@ -488,7 +752,7 @@ public class TicketService {
         notificationRequest.setMessageTr(messageTrBuilder.toString());
         notificationRequest.setEntityId(ticket.getTicketID());
         
-        notificationService.createNotification(notificationRequest);
+        outboxService.enqueueNotification(notificationRequest);
     }
     
     /**
@@ -582,64 +846,46 @@ public class TicketService {
         notificationRequest.setMessageTr(messageTrBuilder.toString());
         notificationRequest.setEntityId(ticket.getTicketID());
         
-        notificationService.createNotification(notificationRequest);
+        outboxService.enqueueNotification(notificationRequest);
     }
     
     public long getTicketCount() {
         return ticketRepository.count();
     }
     
-    public byte[] generateTicketPdfBytes(String ticketId) throws Exception {
+    /**
+     * Collect the boarding pass pages of a ticket, one per passenger
+     * @param ticketId the ticket identifier
+     * @return the pages, or empty if there is no such ticket
+     * @throws Exception if the passenger data of the ticket is invalid
+     */
+    public Optional<List<TicketPDFGenerator.TicketData>> getTicketPdfData(String ticketId) throws Exception {
         try {
-            Optional<Ticket> ticketOpt = ticketRepository.findByTicketID(ticketId);
+            Optional<Ticket> ticketOpt = TicketIdGenerator.isValid(ticketId)
+                    ? ticketRepository.findByTicketID(ticketId)
+                    : Optional.empty();
             if (ticketOpt.isEmpty()) {
-                throw new Exception("Ticket not found with ticket_id: " + ticketId);
+                return Optional.empty();
             }
             
             Ticket ticket = ticketOpt.get();
             Optional<Voyage> voyageOpt = voyageRepository.findById(ticket.getVoyageId());
             Voyage voyage= voyageOpt.get();
-            String fromStation = (voyage.getFromStation()).getTitle();
-            String toStation = (voyage.getToStation()).getTitle();
-            String departureDate = voyage.getDepartureDate().toString();
-            String departureTime = voyage.getDepartureTime().toString();
-            System.out.println("Raw JSON ticketData: " + ticket.getTicketData());
-    
-            // Deserialize only the passenger list
-            List<TicketDTO.PassengerInfo> passengers = objectMapper.readValue(
-                ticket.getTicketData(),
-                new com.fasterxml.jackson.core.type.TypeReference<List<TicketDTO.PassengerInfo>>() {}
-            );
-    
-            TicketDTO.TicketRequest ticketRequest = new TicketDTO.TicketRequest();
-            ticketRequest.setPassengers(passengers);
-            ticketRequest.setSelectedSeats(ticket.getSelectedSeats());
-            ticketRequest.setTicketClass(ticket.getTicketClass());
+            List<TicketDTO.PassengerInfo> passengers =
+                    ticketPassengerService.getPassengers(ticket.getTicketID(), ticket.getTicketData());
+            if (passengers == null) {
+                throw new Exception("Invalid passenger data for ticket_id: " + ticketId);
+            }
     
             List<TicketPDFGenerator.TicketData> ticketDataList = new ArrayList<>();
-            for (TicketDTO.PassengerInfo passenger : ticketRequest.getPassengers()) {
-                TicketPDFGenerator.TicketData ticketData = new TicketPDFGenerator.TicketData();
-                ticketData.ticketId = ticket.getTicketID();
-                ticketData.passengerName = (passenger.getName() + " " + passenger.getSurname()).toUpperCase();
-                ticketData.from = fromStation;
-                ticketData.to = toStation;
-                ticketData.date = departureDate;
-                ticketData.time = departureTime;
-                ticketData.seat = ticket.getSelectedSeats();
-                ticketData.gate = "1";
-                ticketData.boardTill = "Board 15m before";
-                ticketData.ticketClass = ticket.getTicketClass().toUpperCase();
-                ticketData.passengerType = passenger.getPassengerType().toUpperCase();
-                ticketDataList.add(ticketData);
+            for (TicketDTO.PassengerInfo passenger : passengers) {
+                ticketDataList.add(TicketPDFGenerator.TicketData.of(ticket, voyage, passenger));
             }
-            System.out.println(fromStation);
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            TicketPDFGenerator.generateTicketPdfBytes(outputStream, ticketDataList);
-            return outputStream.toByteArray();
+            return Optional.of(ticketDataList);
     
         } catch (Exception e) {
             e.printStackTrace();
-            throw new Exception("Failed to generate ticket PDF: " + e.getMessage(), e);
+            throw new Exception("Failed to prepare ticket PDF: " + e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
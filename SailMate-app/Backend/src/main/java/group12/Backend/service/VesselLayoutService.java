@@ -0,0 +1,126 @@
+package group12.Backend.service;
+
+import group12.Backend.entity.VesselLayout;
+import group12.Backend.repository.VesselLayoutRepository;
+import group12.Backend.util.SeatLayout;
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Seat layouts of all vessel types, read once from vessel_layouts and kept in
+ * memory. Every seat encoding, decoding and availability count looks its
+ * layout up here by the voyage's ship type.
+ *
+ * A changed layout applies to voyages loaded into the seat inventory
+ * afterwards; voyages already in memory keep the layout they were loaded with.
+ */
+@Service
+public class VesselLayoutService {
+
+    private static final Logger logger = Logger.getLogger(VesselLayoutService.class.getName());
+
+    // Size of the seats_sold.overflow_seats column
+    private static final int MAX_OVERFLOW_BYTES = 1024;
+
+    private final VesselLayoutRepository vesselLayoutRepository;
+    private final ConcurrentHashMap<String, SeatLayout> layouts = new ConcurrentHashMap<>();
+    private final String defaultShipType;
+
+    @Autowired
+    public VesselLayoutService(VesselLayoutRepository vesselLayoutRepository,
+                               @Value("${seats.layout.default-ship-type:Sea Bus}") String defaultShipType) {
+        this.vesselLayoutRepository = vesselLayoutRepository;
+        this.defaultShipType = defaultShipType;
+    }
+
+    @PostConstruct
+    public void loadLayouts() {
+        // The layouts are seeded by mainDB.sql like the stations and prices
+        for (VesselLayout vesselLayout : vesselLayoutRepository.findAll()) {
+            layouts.put(vesselLayout.getShipType(), toSeatLayout(vesselLayout));
+        }
+        if (layouts.isEmpty()) {
+            logger.severe("No seat layouts in vessel_layouts, run the INSERT of mainDB.sql");
+        } else {
+            logger.info("Loaded seat layouts for " + layouts.keySet());
+        }
+    }
+
+    /**
+     * Get the seat layout of a ship type. Unknown ship types get the layout of
+     * seats.layout.default-ship-type, which is what the hard-coded limits did.
+     * @param shipType the voyage's ship type
+     * @return the layout
+     */
+    public SeatLayout getLayout(String shipType) {
+        SeatLayout layout = shipType != null ? layouts.get(shipType) : null;
+        if (layout != null) {
+            return layout;
+        }
+        SeatLayout fallback = layouts.get(defaultShipType);
+        if (fallback == null) {
+            throw new IllegalStateException("No seat layout for ship type " + shipType);
+        }
+        logger.warning("No seat layout for ship type " + shipType + ", using " + defaultShipType);
+        return fallback;
+    }
+
+    public List<VesselLayout> getAllLayouts() {
+        return vesselLayoutRepository.findAll();
+    }
+
+    /**
+     * Create or replace the layout of a ship type
+     * @param vesselLayout the new seat counts
+     * @return the saved layout
+     * @throws IllegalArgumentException if a seat count is missing or negative, or the vessel is too large
+     */
+    @Transactional
+    public VesselLayout saveLayout(VesselLayout vesselLayout) {
+        SeatLayout layout = toSeatLayout(vesselLayout);
+        VesselLayout saved = vesselLayoutRepository.findByShipType(vesselLayout.getShipType())
+                .map(existing -> {
+                    vesselLayout.setId(existing.getId());
+                    return vesselLayoutRepository.save(vesselLayout);
+                })
+                .orElseGet(() -> vesselLayoutRepository.save(vesselLayout));
+        layouts.put(saved.getShipType(), layout);
+        return saved;
+    }
+
+    private static SeatLayout toSeatLayout(VesselLayout vesselLayout) {
+        if (vesselLayout.getShipType() == null || vesselLayout.getShipType().isBlank()) {
+            throw new IllegalArgumentException("Ship type is required");
+        }
+        // Same order as SeatSection
+        Integer[] seats = {
+                vesselLayout.getUpperDeckPromoSeats(),
+                vesselLayout.getUpperDeckEconomySeats(),
+                vesselLayout.getUpperDeckBusinessSeats(),
+                vesselLayout.getLowerDeckPromoSeats(),
+                vesselLayout.getLowerDeckEconomySeats(),
+                vesselLayout.getLowerDeckBusinessSeats()
+        };
+        int[] capacities = new int[seats.length];
+        for (int i = 0; i < seats.length; i++) {
+            if (seats[i] == null) {
+                throw new IllegalArgumentException("Seat counts are required for all decks and classes");
+            }
+            capacities[i] = seats[i];
+        }
+
+        SeatLayout layout = new SeatLayout(vesselLayout.getShipType(), capacities);
+        if (layout.overflowWordCount() * Long.BYTES > MAX_OVERFLOW_BYTES) {
+            throw new IllegalArgumentException("Vessel " + vesselLayout.getShipType() + " has too many seats");
+        }
+        return layout;
+    }
+}
@@ -0,0 +1,227 @@
+package group12.Backend.service;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.pdf.PdfCopy;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSmartCopy;
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.entity.Ticket;
+import group12.Backend.entity.Voyage;
+import group12.Backend.repository.TicketRepository;
+import group12.Backend.util.CsvWriter;
+import group12.Backend.util.TicketPDFGenerator;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Builds the boarding manifest of a voyage: one PDF with the boarding passes
+ * of all its passengers, and a CSV passenger list.
+ *
+ * Tickets are read a page at a time with their passengers in one query per
+ * page. For the PDF each page of tickets is rendered by a worker thread and
+ * the rendered parts are copied into the output in order; at most two parts
+ * per worker are in memory at once, so memory does not grow with the voyage.
+ */
+@Service
+public class VoyageManifestService {
+
+    private static final Logger logger = Logger.getLogger(VoyageManifestService.class.getName());
+
+    private static final int TICKETS_PER_PAGE = 25;
+    private static final String[] CSV_COLUMNS = {
+            "ticketId", "passengerNo", "name", "surname", "passengerType", "birthDate",
+            "phoneNo", "email", "ticketClass", "selectedSeats", "userId"
+    };
+
+    private final TicketRepository ticketRepository;
+    private final TicketPassengerService ticketPassengerService;
+    private final ExecutorService renderPool;
+    private final int maxPendingParts;
+
+    @Autowired
+    public VoyageManifestService(TicketRepository ticketRepository,
+                                 TicketPassengerService ticketPassengerService,
+                                 @Value("${manifest.render-threads:0}") int renderThreads) {
+        this.ticketRepository = ticketRepository;
+        this.ticketPassengerService = ticketPassengerService;
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "manifest-render-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxPendingParts = threads * 2;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Write one PDF with the boarding passes of every passenger of a voyage,
+     * in ticket order
+     * @return the number of boarding passes written
+     */
+    public int writeBoardingPasses(Voyage voyage, OutputStream out) throws IOException, DocumentException {
+        Document document = new Document();
+        // Smart copy writes the logos and font shared by the parts only once
+        PdfCopy copy = new PdfSmartCopy(document, out);
+        document.open();
+
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        int[] passes = {0};
+        try {
+            forEachPage(voyage.getId(), (tickets, passengers) -> {
+                List<TicketPDFGenerator.TicketData> pages = boardingPasses(voyage, tickets, passengers);
+                if (pages.isEmpty()) {
+                    return;
+                }
+                pending.add(renderPool.submit(() -> render(pages)));
+                if (pending.size() >= maxPendingParts) {
+                    passes[0] += append(copy, pending.poll());
+                }
+            });
+            while (!pending.isEmpty()) {
+                passes[0] += append(copy, pending.poll());
+            }
+        } finally {
+            for (Future<byte[]> part : pending) {
+                part.cancel(true);
+            }
+        }
+
+        if (passes[0] == 0) {
+            // A PDF needs a page, so a voyage without passengers gets a blank one
+            copy.addPage(PageSize.A4, 0);
+        }
+        document.close();
+        return passes[0];
+    }
+
+    /**
+     * Write the passenger list of a voyage as CSV, one row per passenger
+     * @return the number of passengers written
+     */
+    public int writeManifestCsv(Voyage voyage, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        CsvWriter csv = new CsvWriter(writer);
+        csv.writeRow((Object[]) CSV_COLUMNS);
+        int[] rows = {0};
+        forEachPage(voyage.getId(), (tickets, passengers) -> {
+            for (Ticket ticket : tickets) {
+                List<TicketDTO.PassengerInfo> ticketPassengers = passengers.get(ticket.getTicketID());
+                if (ticketPassengers == null) {
+                    continue;
+                }
+                int passengerNo = 1;
+                for (TicketDTO.PassengerInfo passenger : ticketPassengers) {
+                    csv.writeRow(ticket.getTicketID(), passengerNo++, passenger.getName(), passenger.getSurname(),
+                            passenger.getPassengerType(), passenger.getBirthDate(), passenger.getPhoneNo(),
+                            passenger.getEmail(), ticket.getTicketClass(), ticket.getSelectedSeats(), ticket.getUserId());
+                    rows[0]++;
+                }
+            }
+        });
+        writer.flush();
+        return rows[0];
+    }
+
+    private interface PageHandler {
+        void handle(List<Ticket> tickets, Map<String, List<TicketDTO.PassengerInfo>> passengers) throws IOException;
+    }
+
+    private void forEachPage(Integer voyageId, PageHandler handler) throws IOException {
+        int afterId = 0;
+        while (true) {
+            List<Ticket> tickets = ticketRepository.findByVoyageIdAndIdGreaterThanOrderByIdAsc(
+                    voyageId, afterId, Limit.of(TICKETS_PER_PAGE));
+            if (tickets.isEmpty()) {
+                return;
+            }
+            Map<String, String> ticketData = new LinkedHashMap<>();
+            for (Ticket ticket : tickets) {
+                ticketData.put(ticket.getTicketID(), ticket.getTicketData());
+            }
+            handler.handle(tickets, ticketPassengerService.getPassengers(ticketData));
+            if (tickets.size() < TICKETS_PER_PAGE) {
+                return;
+            }
+            afterId = tickets.get(tickets.size() - 1).getId();
+        }
+    }
+
+    private List<TicketPDFGenerator.TicketData> boardingPasses(Voyage voyage, List<Ticket> tickets,
+                                                                Map<String, List<TicketDTO.PassengerInfo>> passengers) {
+        List<TicketPDFGenerator.TicketData> pages = new ArrayList<>();
+        for (Ticket ticket : tickets) {
+            List<TicketDTO.PassengerInfo> ticketPassengers = passengers.get(ticket.getTicketID());
+            if (ticketPassengers == null) {
+                logger.warning("Skipping ticket " + ticket.getTicketID() + " in manifest: invalid passenger data");
+                continue;
+            }
+            for (TicketDTO.PassengerInfo passenger : ticketPassengers) {
+                pages.add(TicketPDFGenerator.TicketData.of(ticket, voyage, passenger));
+            }
+        }
+        return pages;
+    }
+
+    private static byte[] render(List<TicketPDFGenerator.TicketData> pages) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TicketPDFGenerator.generateTicketPdfBytes(out, pages);
+        return out.toByteArray();
+    }
+
+    private static int append(PdfCopy copy, Future<byte[]> part) throws IOException {
+        byte[] pdf;
+        try {
+            pdf = part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering boarding passes", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to render boarding passes: " + e.getCause().getMessage(), e.getCause());
+        }
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            int pages = reader.getNumberOfPages();
+            for (int i = 1; i <= pages; i++) {
+                copy.addPage(copy.getImportedPage(reader, i));
+            }
+            copy.freeReader(reader);
+            return pages;
+        } catch (DocumentException e) {
+            throw new IOException("Failed to merge boarding passes: " + e.getMessage(), e);
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package group12.Backend.service;
 
+import group12.Backend.dto.CursorPage;
 import group12.Backend.dto.NotificationDTO;
 import group12.Backend.dto.SeatsSoldDTO;
 import group12.Backend.dto.VoyageDTO;
@@ -10,6 +11,7 @@ import group12.Backend.entity.Voyage;
 import group12.Backend.repository.StationRepository;
 import group12.Backend.repository.TicketRepository;
 import group12.Backend.repository.VoyageRepository;
+import group12.Backend.util.PageCursor;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -21,6 +23,7 @@ import java.util.ArrayList;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,13 +42,21 @@ public class VoyageService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private OutboxService outboxService;
+
     @Autowired
     private SeatsSoldService seatsSoldService;
     
-    public List<VoyageDTO> getAllVoyages() {
-        return voyageRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // Get a page of all voyages in departure order, departing on or after fromDate if given;
+    // the cursor is null for the first page
+    public CursorPage<VoyageDTO> getAllVoyages(LocalDate fromDate, String cursor, Integer limit) {
+        PageCursor.Departure after = PageCursor.Departure.parse(cursor);
+        int pageSize = PageCursor.limit(limit);
+        return CursorPage.of(voyageRepository.findPage(fromDate, after.departureDate(), after.departureTime(), after.id(),
+                                Limit.of(pageSize + 1)), pageSize,
+                        voyage -> PageCursor.Departure.of(voyage.getDepartureDate(), voyage.getDepartureTime(), voyage.getId()))
+                .map(this::convertToDTO);
     }
     
     public List<VoyageDTO> getAllFutureVoyages() {
@@ -425,6 +436,9 @@ public class VoyageService {
         String changedFieldsStrTr = String.join(", ", changedFieldsTr);
         
         for (Ticket ticket : affectedTickets) {
+            // The boarding pass shows the stations and departure, so render it again
+            outboxService.enqueueTicketPdf(ticket.getTicketID());
+            
             NotificationDTO.NotificationCreateRequest notificationRequest = new NotificationDTO.NotificationCreateRequest();
             notificationRequest.setUserId(ticket.getUserId());
             notificationRequest.setType(Notification.NotificationType.VOYAGE_DELAYED);
@@ -1,25 +1,171 @@
 package group12.Backend.util;
 
-import com.clerk.backend_api.helpers.jwks.AuthenticateRequest;
-import com.clerk.backend_api.helpers.jwks.AuthenticateRequestOptions;
-import com.clerk.backend_api.helpers.jwks.RequestState;
-import io.github.cdimascio.dotenv.Dotenv;
 import io.jsonwebtoken.Claims;
-import java.util.List;
- import java.util.Map;
-import java.io.IOException;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
 
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Verifies Clerk session tokens locally.
+ *
+ * Tokens are checked against Clerk's signing keys (JWKS), kept in memory by
+ * key ID and reloaded every auth.jwks.refresh-ms, or when a token names a key
+ * not seen yet (at most once per auth.jwks.min-reload-seconds). The claims of
+ * a verified token are kept until it expires, for the last
+ * auth.claims-cache-size tokens used, so a token is verified once however
+ * many requests it is sent with.
+ *
+ * {@link AuthenticationFilter} resolves the claims of each request, and
+ * controllers take them as a {@link Claims} argument, null if the request is
+ * not signed in.
+ */
+@Component
 public class Authentication {
-    public static Claims getClaims(String auth) throws IOException {
-        Dotenv dotenv = Dotenv.configure().directory("../Frontend").filename(".env.local").load();
 
-        RequestState requestState = AuthenticateRequest.authenticateRequest(Map.of("Authorization", List.of(auth)), AuthenticateRequestOptions
-                .secretKey(dotenv.get("VITE_CLERK_SECRET_KEY"))
-                .build());
+    private static final Logger logger = Logger.getLogger(Authentication.class.getName());
+
+    // Request attribute holding the claims of the request, null if not signed in
+    public static final String CLAIMS_ATTRIBUTE = Authentication.class.getName() + ".claims";
+
+    private record Verified(Claims claims, long expiresAt) {
+    }
+
+    private final ClerkApi clerk;
+    private final long clockSkewMillis;
+    private final long minReloadNanos;
+    private final JwtParser parser;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private boolean keysLoaded;
+    private long keysLoadedAt;
+
+    // Least recently used first; guarded by itself
+    private final LinkedHashMap<String, Verified> verified;
+
+    @Autowired
+    public Authentication(ClerkApi clerk,
+                          @Value("${auth.claims-cache-size:10000}") int cacheSize,
+                          @Value("${auth.clock-skew-seconds:5}") long clockSkewSeconds,
+                          @Value("${auth.jwks.min-reload-seconds:30}") long minReloadSeconds) {
+        this.clerk = clerk;
+        this.clockSkewMillis = clockSkewSeconds * 1000;
+        this.minReloadNanos = minReloadSeconds * 1_000_000_000L;
+        this.parser = Jwts.parser()
+                .keyLocator(this::signingKey)
+                .clockSkewSeconds(clockSkewSeconds)
+                .build();
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${auth.jwks.refresh-ms:3600000}")
+    public void refreshKeys() {
+        synchronized (this) {
+            loadKeys();
+        }
+    }
+
+    /**
+     * Get the claims of a session token
+     * @param authorization the Authorization header, "Bearer " followed by the token
+     * @return the claims, or null if the token is missing, invalid or expired
+     */
+    public Claims getClaims(String authorization) {
+        if (authorization == null) {
+            return null;
+        }
+        String token = authorization.startsWith("Bearer ") ? authorization.substring(7).trim() : authorization.trim();
+        if (token.isEmpty()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            Verified cached = verified.get(token);
+            if (cached != null) {
+                if (now < cached.expiresAt()) {
+                    return cached.claims();
+                }
+                verified.remove(token);
+                return null;
+            }
+        }
+
+        Claims claims = verify(token, now);
+        if (claims != null && claims.getExpiration() != null) {
+            synchronized (verified) {
+                verified.put(token, new Verified(claims, claims.getExpiration().getTime() + clockSkewMillis));
+            }
+        }
+        return claims;
+    }
+
+    private Claims verify(String token, long now) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            // Expiry and not-before are checked by the parser, a token issued in the future is not
+            Date issuedAt = claims.getIssuedAt();
+            if (issuedAt != null && issuedAt.getTime() > now + clockSkewMillis) {
+                return null;
+            }
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.fine("Rejected session token: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Key signingKey(Header header) {
+        String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+        if (kid == null) {
+            throw new JwtException("Session token has no key ID");
+        }
+        PublicKey key = keys.get(kid);
+        if (key == null) {
+            key = reloadFor(kid);
+        }
+        if (key == null) {
+            throw new JwtException("Unknown signing key " + kid);
+        }
+        return key;
+    }
+
+    // Keys are rotated by Clerk: a token signed with a new key reloads them, unless they were loaded just now
+    private synchronized PublicKey reloadFor(String kid) {
+        PublicKey key = keys.get(kid);
+        if (key == null && (!keysLoaded || System.nanoTime() - keysLoadedAt >= minReloadNanos)) {
+            loadKeys();
+            key = keys.get(kid);
+        }
+        return key;
+    }
 
-        if (requestState.isSignedIn() && requestState.claims().isPresent())
-            return requestState.claims().get();
-        return null;
+    private void loadKeys() {
+        try {
+            keys = Map.copyOf(clerk.signingKeys());
+        } catch (Exception e) {
+            logger.warning("Cannot load Clerk signing keys: " + e.getMessage());
+        } finally {
+            keysLoaded = true;
+            keysLoadedAt = System.nanoTime();
+        }
     }
-}
\ No newline at end of file
+}
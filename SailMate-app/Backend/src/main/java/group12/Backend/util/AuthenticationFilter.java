@@ -0,0 +1,40 @@
+package group12.Backend.util;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Resolves the claims of the Authorization header once per request, into the
+ * {@link Authentication#CLAIMS_ATTRIBUTE} request attribute. Requests that
+ * are not signed in are let through with null claims; each controller decides
+ * what they may do.
+ */
+@Component
+public class AuthenticationFilter extends OncePerRequestFilter {
+
+    private final Authentication authentication;
+
+    @Autowired
+    public AuthenticationFilter(Authentication authentication) {
+        this.authentication = authentication;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null) {
+            request.setAttribute(Authentication.CLAIMS_ATTRIBUTE, authentication.getClaims(authorization));
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,28 @@
+package group12.Backend.util;
+
+import io.jsonwebtoken.Claims;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Passes the claims resolved by {@link AuthenticationFilter} to controller
+ * parameters of type {@link Claims}; null if the request is not signed in.
+ */
+public class ClaimsArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return Claims.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return webRequest.getAttribute(Authentication.CLAIMS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -0,0 +1,50 @@
+package group12.Backend.util;
+
+import java.security.PublicKey;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The Clerk API used by {@link ClerkUsers} and {@link Authentication}.
+ * {@link ClerkSdkApi} calls Clerk; tests can provide a local implementation
+ * instead.
+ */
+public interface ClerkApi {
+
+    /**
+     * The fields of a Clerk user the backend uses; absent values are null
+     * @param publicMetadata role, lan and news of the user, never null
+     */
+    record ClerkUser(String id,
+                     String firstName,
+                     String lastName,
+                     String email,
+                     String phone,
+                     String imageUrl,
+                     Map<String, Object> publicMetadata) {
+    }
+
+    /**
+     * @return one page of users, oldest first
+     */
+    List<ClerkUser> listUsers(int offset, int limit) throws Exception;
+
+    /**
+     * @return the user, or empty if Clerk has no such user
+     */
+    Optional<ClerkUser> getUser(String userId) throws Exception;
+
+    /**
+     * Merge fields into the public metadata of a user
+     * @return the updated user, or empty if Clerk has no such user
+     */
+    Optional<ClerkUser> updateMetadata(String userId, Map<String, Object> publicMetadata) throws Exception;
+
+    void deleteUser(String userId) throws Exception;
+
+    /**
+     * @return the public keys session tokens are signed with, by key ID (JWKS)
+     */
+    Map<String, PublicKey> signingKeys() throws Exception;
+}
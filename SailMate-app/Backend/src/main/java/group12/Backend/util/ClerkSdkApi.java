@@ -0,0 +1,168 @@
+package group12.Backend.util;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import com.clerk.backend_api.Clerk;
+import com.clerk.backend_api.models.components.ClerkError;
+import com.clerk.backend_api.models.components.Keys;
+import com.clerk.backend_api.models.components.User;
+import com.clerk.backend_api.models.errors.ClerkErrors;
+import com.clerk.backend_api.models.errors.SDKError;
+import com.clerk.backend_api.models.operations.DeleteUserResponse;
+import com.clerk.backend_api.models.operations.GetJWKSResponse;
+import com.clerk.backend_api.models.operations.GetUserListRequest;
+import com.clerk.backend_api.models.operations.GetUserListResponse;
+import com.clerk.backend_api.models.operations.GetUserResponse;
+import com.clerk.backend_api.models.operations.UpdateUserMetadataRequestBody;
+import com.clerk.backend_api.models.operations.UpdateUserMetadataResponse;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * {@link ClerkApi} backed by the Clerk SDK. The secret key is read and the
+ * client built once, instead of on every call.
+ */
+@Component
+public class ClerkSdkApi implements ClerkApi {
+
+    // Error code of a 404 response
+    private static final String NOT_FOUND = "resource_not_found";
+
+    private final Clerk sdk;
+
+    public ClerkSdkApi() {
+        Dotenv dotenv = Dotenv.configure().directory("../Frontend").filename(".env.local").load();
+        this.sdk = Clerk.builder()
+            .bearerAuth(dotenv.get("VITE_CLERK_SECRET_KEY"))
+            .build();
+    }
+
+    @Override
+    public List<ClerkUser> listUsers(int offset, int limit) throws Exception {
+        GetUserListRequest req = GetUserListRequest.builder()
+            .offset(offset)
+            .limit(limit)
+            .orderBy("+created_at")
+            .build();
+        GetUserListResponse res = sdk.users().list().request(req).call();
+        List<ClerkUser> users = new ArrayList<>();
+        if (res.userList().isPresent()) {
+            for (User user : res.userList().get()) {
+                if (user.id().isPresent()) {
+                    users.add(toClerkUser(user));
+                }
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public Optional<ClerkUser> getUser(String userId) throws Exception {
+        GetUserResponse res;
+        try {
+            res = sdk.users().get()
+                .userId(userId)
+                .call();
+        } catch (ClerkErrors e) {
+            // The SDK throws on a 404 instead of returning no user
+            if (isNotFound(e)) {
+                return Optional.empty();
+            }
+            throw e;
+        } catch (SDKError e) {
+            if (e.code() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+        return res.user().map(ClerkSdkApi::toClerkUser);
+    }
+
+    @Override
+    public Optional<ClerkUser> updateMetadata(String userId, Map<String, Object> publicMetadata) throws Exception {
+        UpdateUserMetadataResponse res = sdk.users().updateMetadata()
+            .userId(userId)
+            .requestBody(UpdateUserMetadataRequestBody.builder().publicMetadata(publicMetadata).build())
+            .call();
+        return res.user().map(ClerkSdkApi::toClerkUser);
+    }
+
+    @Override
+    public void deleteUser(String userId) throws Exception {
+        DeleteUserResponse res = sdk.users().delete()
+            .userId(userId)
+            .call();
+
+        // Success case - res.deletedObject() should be present
+        if (!res.deletedObject().isPresent()) {
+            throw new Exception("User deletion did not return expected response");
+        }
+    }
+
+    @Override
+    public Map<String, PublicKey> signingKeys() throws Exception {
+        GetJWKSResponse res = sdk.jwks().getJWKS().call();
+        Map<String, PublicKey> keys = new HashMap<>();
+        if (res.jwks().isEmpty() || res.jwks().get().keys().isEmpty()) {
+            return keys;
+        }
+        KeyFactory rsa = KeyFactory.getInstance("RSA");
+        Base64.Decoder base64 = Base64.getUrlDecoder();
+        for (Keys key : res.jwks().get().keys().get()) {
+            // Clerk signs session tokens with RS256
+            if (key.kid().isPresent() && "RSA".equals(key.kty().orElse(null))
+                    && key.n().isPresent() && key.e().isPresent()) {
+                BigInteger modulus = new BigInteger(1, base64.decode(key.n().get()));
+                BigInteger exponent = new BigInteger(1, base64.decode(key.e().get()));
+                keys.put(key.kid().get(), rsa.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+            }
+        }
+        return keys;
+    }
+
+    // ClerkErrors carries no status code, only Clerk's error codes
+    private static boolean isNotFound(ClerkErrors e) {
+        for (ClerkError error : e.errors()) {
+            if (NOT_FOUND.equals(error.code())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ClerkUser toClerkUser(User user) {
+        String email = null;
+        if (user.emailAddresses().isPresent() && !user.emailAddresses().get().isEmpty()) {
+            email = user.emailAddresses().get().get(0).emailAddress();
+        }
+        String phone = null;
+        if (user.phoneNumbers().isPresent() && !user.phoneNumbers().get().isEmpty()) {
+            phone = user.phoneNumbers().get().get(0).phoneNumber();
+        }
+        Map<String, Object> metadata = new HashMap<>();
+        if (user.publicMetadata().isPresent() && user.publicMetadata().get() instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                metadata.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        return new ClerkUser(
+            user.id().orElse(null),
+            user.firstName().orElse(null),
+            user.lastName().orElse(null),
+            email,
+            phone,
+            user.imageUrl().orElse(null),
+            metadata);
+    }
+}
@@ -1,222 +1,354 @@
 package group12.Backend.util;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
 
-import com.clerk.backend_api.Clerk;
-import com.clerk.backend_api.models.components.User;
-import com.clerk.backend_api.models.operations.DeleteUserResponse;
-import com.clerk.backend_api.models.operations.GetUserListRequest;
-import com.clerk.backend_api.models.operations.GetUserListResponse;
-import com.clerk.backend_api.models.operations.GetUserResponse;
-import com.clerk.backend_api.models.operations.UpdateUserMetadataRequestBody;
-import com.clerk.backend_api.models.operations.UpdateUserMetadataResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
 
+/**
+ * Directory of the Clerk users, kept in memory.
+ *
+ * All users are loaded page by page and reloaded in the background every
+ * clerk.users.refresh-ms; reads are served from memory, and only reload
+ * in the request if the last successful load is older than
+ * clerk.users.ttl-seconds. A user missing from the directory is fetched on
+ * its own and added; one Clerk does not know either is remembered as missing
+ * for clerk.users.missing-ttl-seconds. Updates and deletions made through
+ * this class are applied to the directory right away, and survive a reload
+ * that was already running when they were made.
+ *
+ * After a failed reload, requests do not try again for clerk.users.retry-ms:
+ * they get the users loaded before, or fail right away if there are none,
+ * instead of each waiting for its own reload while Clerk is down.
+ */
+@Component
+public class ClerkUsers {
 
-import io.github.cdimascio.dotenv.Dotenv;
+    private static final Logger logger = Logger.getLogger(ClerkUsers.class.getName());
 
-public class ClerkUsers {
-    public static Map<String, Object> allUsers(){
-        Dotenv dotenv = Dotenv.configure().directory("../Frontend").filename(".env.local").load();
-        Clerk sdk = Clerk.builder()
-            .bearerAuth(dotenv.get("VITE_CLERK_SECRET_KEY"))
-            .build();
-        
-        GetUserListRequest req = GetUserListRequest.builder().build();
-        Map<String, Object> all_users = new HashMap<>();
+    // The largest page Clerk returns
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * Counters of the directory
+     * @param hits reads answered from memory
+     * @param misses reads that had to ask Clerk
+     * @param lastRefreshMillis duration of the last successful reload
+     * @param ageSeconds time since the last successful reload, -1 before the first
+     */
+    public record Stats(long hits, long misses, double hitRatio, long refreshes, long refreshFailures,
+                        long lastRefreshMillis, long ageSeconds, int users) {
+    }
+
+    private final ClerkApi clerk;
+    private final long ttlNanos;
+    private final long missingTtlNanos;
+    private final long retryNanos;
+
+    private volatile ConcurrentHashMap<String, ClerkApi.ClerkUser> users;
+    private volatile long loadedAt;
+    // When each user was last changed through this class, to keep the change over a reload started before it
+    private final Map<String, Long> changedAt = new HashMap<>();
+    private final Object lock = new Object();
+    // When each user ID Clerk does not know was last looked up
+    private final ConcurrentHashMap<String, Long> missing = new ConcurrentHashMap<>();
+    private volatile long failedAt;
+    private volatile String failure;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private volatile long lastRefreshMillis;
+
+    @Autowired
+    public ClerkUsers(ClerkApi clerk,
+                      @Value("${clerk.users.ttl-seconds:600}") long ttlSeconds,
+                      @Value("${clerk.users.missing-ttl-seconds:60}") long missingTtlSeconds,
+                      @Value("${clerk.users.retry-ms:5000}") long retryMillis) {
+        this.clerk = clerk;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.missingTtlNanos = missingTtlSeconds * 1_000_000_000L;
+        this.retryNanos = retryMillis * 1_000_000L;
+    }
+
+    @Scheduled(fixedDelayString = "${clerk.users.refresh-ms:120000}")
+    public void refreshInBackground() {
         try {
-            GetUserListResponse res = sdk.users().list().request(req).call();
-            if (res.userList().isEmpty())
-                return null;
-            for(User a: res.userList().get()){
-                HashMap<String, Object> user = new HashMap<>();
-                user.put("full_name", a.firstName().get() + " " + a.lastName().get());
-                if (a.emailAddresses().isPresent())
-                    user.put("email", a.emailAddresses().get().getFirst().emailAddress());
-                if(a.publicMetadata().isPresent()){
-                    Object metadata = a.publicMetadata().get();
-                    if (metadata instanceof Map) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> metadataMap = (Map<String, Object>) metadata;
-                        if (metadataMap.containsKey("role")) {
-                            user.put("role", metadataMap.get("role"));
-                        }
-                        if (metadataMap.containsKey("lan")) {
-                            user.put("lan", metadataMap.get("lan"));
-                        }
-                        if (metadataMap.containsKey("news")) {
-                            user.put("news", metadataMap.get("news"));
-                        }
+            refresh();
+        } catch (Exception e) {
+            logger.warning("Cannot refresh Clerk users: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reload all users from Clerk
+     */
+    public void refresh() throws Exception {
+        long started = System.nanoTime();
+        ConcurrentHashMap<String, ClerkApi.ClerkUser> loaded = new ConcurrentHashMap<>();
+        try {
+            for (int offset = 0; ; offset += PAGE_SIZE) {
+                List<ClerkApi.ClerkUser> page = clerk.listUsers(offset, PAGE_SIZE);
+                for (ClerkApi.ClerkUser user : page) {
+                    loaded.put(user.id(), user);
+                }
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            refreshFailures.increment();
+            failure = e.getMessage();
+            failedAt = System.nanoTime();
+            throw e;
+        }
+
+        synchronized (lock) {
+            ConcurrentHashMap<String, ClerkApi.ClerkUser> current = users;
+            for (Map.Entry<String, Long> change : changedAt.entrySet()) {
+                if (change.getValue() - started >= 0 && current != null) {
+                    ClerkApi.ClerkUser user = current.get(change.getKey());
+                    if (user != null) {
+                        loaded.put(change.getKey(), user);
+                    } else {
+                        loaded.remove(change.getKey());
                     }
                 }
-                if (a.imageUrl().isPresent())
-                    user.put("image", a.imageUrl().get());
-                if (a.id().isPresent())
-                    all_users.put(a.id().get(), user);
             }
-            return all_users;
+            // Changes made before this reload started are in the loaded users
+            changedAt.values().removeIf(changed -> changed - started < 0);
+            users = loaded;
+            loadedAt = started;
+            failure = null;
+        }
+        missing.values().removeIf(lookedUp -> started - lookedUp >= missingTtlNanos);
+        refreshes.increment();
+        lastRefreshMillis = (System.nanoTime() - started) / 1_000_000;
+    }
+
+    /**
+     * Get all users by user ID
+     * @return the users (full_name, email, role, lan, news, image), or null if Clerk cannot be reached
+     */
+    public Map<String, Object> allUsers() {
+        count(isFresh());
+        Map<String, ClerkApi.ClerkUser> directory;
+        try {
+            directory = directory();
         } catch (Exception e) {
-            
-            e.printStackTrace();
+            logger.warning("Cannot load Clerk users: " + e.getMessage());
             return null;
         }
+        Map<String, Object> all_users = new HashMap<>();
+        for (ClerkApi.ClerkUser user : directory.values()) {
+            all_users.put(user.id(), listEntry(user));
+        }
+        return all_users;
     }
 
-    public static void updateUserRole(String userId, String newRole) throws Exception{
-        Dotenv dotenv = Dotenv.configure().directory("../Frontend").filename(".env.local").load();
-        Clerk sdk = Clerk.builder()
-            .bearerAuth(dotenv.get("VITE_CLERK_SECRET_KEY"))
-            .build();
+    /**
+     * Get one user
+     * @return the user (full_name, email, phone, lan, news)
+     * @throws Exception if the user does not exist or Clerk cannot be reached
+     */
+    public HashMap<String, Object> getUser(String userId) throws Exception {
+        if (userId == null) {
+            throw new Exception("Error getting user: userId is null");
+        }
+        try {
+            return details(find(userId).orElseThrow(() -> new Exception("User not found in Clerk")));
+        } catch (Exception e) {
+            throw new Exception("Error getting user: " + e.getMessage());
+        }
+    }
 
-         UpdateUserMetadataResponse res = sdk.users().updateMetadata()
-                 .userId(userId)
-                 .requestBody(UpdateUserMetadataRequestBody.builder().publicMetadata(Map.of("role", newRole)).build())
-                 .call();
-        if (res.user().isEmpty()) {
-            throw new Exception("User not found");
+    /**
+     * @return the full name of a user, or "" if it cannot be found
+     */
+    public String fullName(String userId) {
+        try {
+            return find(userId).map(ClerkUsers::fullName).orElse("");
+        } catch (Exception e) {
+            logger.warning("Cannot get full name of user " + userId + ": " + e.getMessage());
+            return "";
         }
     }
 
-    public static void updateUserLanguage(String userId, String language) throws Exception {
-        Dotenv dotenv = Dotenv.configure().directory("../Frontend").filename(".env.local").load();
-        Clerk sdk = Clerk.builder()
-            .bearerAuth(dotenv.get("VITE_CLERK_SECRET_KEY"))
-            .build();
+    public void updateUserRole(String userId, String newRole) throws Exception {
+        update(userId, Map.of("role", newRole), "User not found");
+    }
 
-        UpdateUserMetadataResponse res = sdk.users().updateMetadata()
-            .userId(userId)
-            .requestBody(UpdateUserMetadataRequestBody.builder().publicMetadata(Map.of("lan", language)).build())
-            .call();
-            
-        if (res.user().isEmpty()) {
-            throw new Exception("Failed to update user language preference");
-        }
+    public void updateUserLanguage(String userId, String language) throws Exception {
+        update(userId, Map.of("lan", language), "Failed to update user language preference");
     }
-    
+
     /**
      * Update user metadata with multiple fields at once
-     * 
+     *
      * @param userId The user ID
      * @param metadata A map of metadata fields to update
      * @throws Exception If the update fails
      */
-    public static void updateUserMetadata(String userId, Map<String, Object> metadata) throws Exception {
-        Dotenv dotenv = Dotenv.configure().directory("../Frontend").filename(".env.local").load();
-        Clerk sdk = Clerk.builder()
-            .bearerAuth(dotenv.get("VITE_CLERK_SECRET_KEY"))
-            .build();
-
-        UpdateUserMetadataResponse res = sdk.users().updateMetadata()
-            .userId(userId)
-            .requestBody(UpdateUserMetadataRequestBody.builder().publicMetadata(metadata).build())
-            .call();
-            
-        if (res.user().isEmpty()) {
-            throw new Exception("Failed to update user metadata");
-        }
-    }
-
-    public static void deleteUser(String userId) throws Exception {
-        Dotenv dotenv = Dotenv.configure().directory("../Frontend").filename(".env.local").load();
-        Clerk sdk = Clerk.builder()
-            .bearerAuth(dotenv.get("VITE_CLERK_SECRET_KEY"))
-            .build();
-        
+    public void updateUserMetadata(String userId, Map<String, Object> metadata) throws Exception {
+        update(userId, metadata, "Failed to update user metadata");
+    }
+
+    public void deleteUser(String userId) throws Exception {
         try {
-            DeleteUserResponse res = sdk.users().delete()
-                .userId(userId)
-                .call();
-            
-            // Success case - res.deletedObject() should be present
-            if (!res.deletedObject().isPresent()) {
-                throw new Exception("User deletion did not return expected response");
-            }
-            
+            clerk.deleteUser(userId);
         } catch (Exception e) {
             throw new Exception("Error deleting user: " + e.getMessage());
         }
+        synchronized (lock) {
+            if (users != null) {
+                users.remove(userId);
+            }
+            changedAt.put(userId, System.nanoTime());
+        }
+        missing.put(userId, System.nanoTime());
     }
 
-    public static HashMap<String, Object> getUser(String userId) throws Exception {
-        if (userId == null) {
-            throw new Exception("Error getting user: userId is null");
-        }
-        
-        Dotenv dotenv = Dotenv.configure().directory("../Frontend").filename(".env.local").load();
-        Clerk sdk = Clerk.builder()
-            .bearerAuth(dotenv.get("VITE_CLERK_SECRET_KEY"))
-            .build();
-        
-        try {
-            GetUserResponse res = sdk.users().get()
-                .userId(userId)
-                .call();
-            
-            if (res.user().isEmpty()) {
-                throw new Exception("User not found in Clerk");
-            }
-            
-            HashMap<String, Object> user = new HashMap<>();
-            
-            // Safe access to firstName and lastName
-            String firstName = res.user().get().firstName().orElse("");
-            String lastName = res.user().get().lastName().orElse("");
-            user.put("full_name", firstName + " " + lastName);
-            
-            // Safely get email (if available)
-            if (res.user().get().emailAddresses().isPresent() && 
-                !res.user().get().emailAddresses().get().isEmpty()) {
-                user.put("email", res.user().get().emailAddresses().get().get(0).emailAddress());
-            } else {
-                // Default email value if none exists
-                user.put("email", "");
+    public Stats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        ConcurrentHashMap<String, ClerkApi.ClerkUser> current = users;
+        return new Stats(hitCount, missCount, total > 0 ? (double) hitCount / total : 0,
+                refreshes.sum(), refreshFailures.sum(), lastRefreshMillis,
+                current != null ? (System.nanoTime() - loadedAt) / 1_000_000_000L : -1,
+                current != null ? current.size() : 0);
+    }
+
+    private void update(String userId, Map<String, Object> metadata, String notFoundMessage) throws Exception {
+        ClerkApi.ClerkUser updated = clerk.updateMetadata(userId, metadata)
+                .orElseThrow(() -> new Exception(notFoundMessage));
+        put(updated);
+    }
+
+    private void put(ClerkApi.ClerkUser user) {
+        synchronized (lock) {
+            if (users != null) {
+                users.put(user.id(), user);
             }
-            
-            // Safely get phone (if available)
-            if (res.user().get().phoneNumbers().isPresent() && 
-                !res.user().get().phoneNumbers().get().isEmpty()) {
-                user.put("phone", res.user().get().phoneNumbers().get().get(0).phoneNumber());
-            } else {
-                // Default phone value if none exists
-                user.put("phone", "");
+            changedAt.put(user.id(), System.nanoTime());
+        }
+        missing.remove(user.id());
+    }
+
+    private boolean isFresh() {
+        return users != null && System.nanoTime() - loadedAt < ttlNanos;
+    }
+
+    private void count(boolean hit) {
+        if (hit) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+
+    private boolean isRetryDue() {
+        return failure == null || System.nanoTime() - failedAt >= retryNanos;
+    }
+
+    /**
+     * @return the loaded users, loading them first if there are none or they are past the TTL;
+     * if that load fails, or failed less than clerk.users.retry-ms ago, users past the TTL are
+     * still returned
+     */
+    private Map<String, ClerkApi.ClerkUser> directory() throws Exception {
+        ConcurrentHashMap<String, ClerkApi.ClerkUser> current = users;
+        if (current != null && (System.nanoTime() - loadedAt < ttlNanos || !isRetryDue())) {
+            return current;
+        }
+        if (current == null && !isRetryDue()) {
+            throw new Exception("Clerk users unavailable: " + failure);
+        }
+        synchronized (this) {
+            if (users == null && !isRetryDue()) {
+                // The reload this request waited for failed
+                throw new Exception("Clerk users unavailable: " + failure);
             }
-            
-            // Get user preferences from metadata
-            if (res.user().get().publicMetadata().isPresent()) {
-                Object metadata = res.user().get().publicMetadata().get();
-                if (metadata instanceof Map) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> metadataMap = (Map<String, Object>) metadata;
-                    
-                    // Get language preference (default to English)
-                    if (metadataMap.containsKey("lan")) {
-                        user.put("lan", metadataMap.get("lan"));
-                    } else {
-                        user.put("lan", "en");
-                    }
-                    
-                    // Get newsletter subscription (default to false)
-                    if (metadataMap.containsKey("news")) {
-                        user.put("news", metadataMap.get("news"));
-                    } else {
-                        user.put("news", false);
+            // Another request may have reloaded while this one waited
+            if (users == current && isRetryDue()) {
+                try {
+                    refresh();
+                } catch (Exception e) {
+                    if (current == null) {
+                        throw e;
                     }
-                } else {
-                    // Default values if metadata is not a map
-                    user.put("lan", "en");
-                    user.put("news", false);
+                    logger.warning("Cannot refresh Clerk users, using users loaded before: " + e.getMessage());
                 }
-            } else {
-                // Default values if no metadata is present
-                user.put("lan", "en");
-                user.put("news", false);
             }
-            
-            return user;
         }
-        catch (Exception e) {
-            e.printStackTrace();
-            throw new Exception("Error getting user: " + e.getMessage());
+        return users;
+    }
+
+    private Optional<ClerkApi.ClerkUser> find(String userId) throws Exception {
+        boolean fresh = isFresh();
+        ClerkApi.ClerkUser user = directory().get(userId);
+        if (user != null) {
+            count(fresh);
+            return Optional.of(user);
+        }
+        Long lookedUp = missing.get(userId);
+        if (lookedUp != null && System.nanoTime() - lookedUp < missingTtlNanos) {
+            count(true);
+            return Optional.empty();
+        }
+        // Signed up since the last reload
+        misses.increment();
+        Optional<ClerkApi.ClerkUser> fetched = clerk.getUser(userId);
+        if (fetched.isPresent()) {
+            put(fetched.get());
+        } else {
+            missing.put(userId, System.nanoTime());
+        }
+        return fetched;
+    }
+
+    private static String fullName(ClerkApi.ClerkUser user) {
+        return (user.firstName() != null ? user.firstName() : "") + " "
+                + (user.lastName() != null ? user.lastName() : "");
+    }
+
+    private static HashMap<String, Object> listEntry(ClerkApi.ClerkUser user) {
+        HashMap<String, Object> entry = new HashMap<>();
+        entry.put("full_name", fullName(user));
+        if (user.email() != null)
+            entry.put("email", user.email());
+        Map<String, Object> metadata = user.publicMetadata();
+        if (metadata.containsKey("role")) {
+            entry.put("role", metadata.get("role"));
+        }
+        if (metadata.containsKey("lan")) {
+            entry.put("lan", metadata.get("lan"));
         }
+        if (metadata.containsKey("news")) {
+            entry.put("news", metadata.get("news"));
+        }
+        if (user.imageUrl() != null)
+            entry.put("image", user.imageUrl());
+        return entry;
+    }
+
+    private static HashMap<String, Object> details(ClerkApi.ClerkUser user) {
+        HashMap<String, Object> details = new HashMap<>();
+        details.put("full_name", fullName(user));
+        details.put("email", user.email() != null ? user.email() : "");
+        details.put("phone", user.phone() != null ? user.phone() : "");
+        // Language defaults to English, the newsletter to not subscribed
+        details.put("lan", user.publicMetadata().getOrDefault("lan", "en"));
+        details.put("news", user.publicMetadata().getOrDefault("news", false));
+        return details;
     }
-}
\ No newline at end of file
+}
@@ -7,11 +7,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Component;
 
+import group12.Backend.dto.OutboxDTO;
 import jakarta.mail.internet.MimeMessage;
 
 /**
@@ -24,6 +26,9 @@ public class EmailUtil {
     @Autowired
     private JavaMailSender emailSender;
     
+    @Autowired
+    private ClerkUsers clerkUsers;
+    
     private final String EMAIL_FROM = "sailmatesup@gmail.com";
     
     /**
@@ -37,7 +42,7 @@ public class EmailUtil {
     public void notifyAllUsers(String subjectEn, String subjectTr, String messageEn, String messageTr) {
         try {
             // Get all users from Clerk
-            Map<String, Object> allUsers = ClerkUsers.allUsers();
+            Map<String, Object> allUsers = clerkUsers.allUsers();
             if (allUsers == null || allUsers.isEmpty()) {
                 logger.warn("No users found to notify");
                 return;
@@ -222,7 +227,7 @@ public class EmailUtil {
                                         String attachmentName, byte[] attachmentData) {
         try {
             // Get user from Clerk
-            HashMap<String, Object> user = ClerkUsers.getUser(userId);
+            HashMap<String, Object> user = clerkUsers.getUser(userId);
             if (user == null || user.get("email") == null) {
                 logger.warn("Cannot send email: User not found or no email address for ID: {}", userId);
                 return false;
@@ -271,7 +276,7 @@ public class EmailUtil {
                                            String attachmentName, byte[] attachmentData) {
         try {
             // Get all users from Clerk
-            Map<String, Object> allUsers = ClerkUsers.allUsers();
+            Map<String, Object> allUsers = clerkUsers.allUsers();
             if (allUsers == null || allUsers.isEmpty()) {
                 logger.warn("No users found to notify with attachment");
                 return;
@@ -327,4 +332,69 @@ public class EmailUtil {
             logger.error("Error in notifyAllUsersWithAttachment: {}", e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Sends the ticket cancellation and refund email, in the user's language.
+     * Unlike the other methods this one throws on failure, so a queued email can be retried.
+     * 
+     * @param user The user as returned by ClerkUsers (email, full_name, lan)
+     * @param email The cancelled ticket; without voyage details the short version is sent
+     * @throws MailException if the email could not be sent
+     */
+    public void sendTicketCancellationEmail(Map<String, Object> user, OutboxDTO.CancellationEmailEvent email) {
+        String address = (String) user.get("email");
+        if (address == null || address.isEmpty()) {
+            throw new IllegalArgumentException("No email address for user " + email.userId());
+        }
+        boolean turkish = "tr".equals(user.get("lan"));
+        boolean detailed = email.fromStation() != null;
+        
+        StringBuilder text = new StringBuilder();
+        if (turkish) {
+            text.append("Sayın ").append(user.get("full_name")).append(",\n\n")
+                .append("Bilet no #").append(email.ticketID()).append(" başarıyla iptal edilmiştir.\n\n");
+            if (detailed) {
+                text.append("Sefer Detayları:\n")
+                    .append("Nereden: ").append(email.fromStation()).append("\n")
+                    .append("Nereye: ").append(email.toStation()).append("\n")
+                    .append("Kalkış Tarihi: ").append(email.departureDate()).append("\n")
+                    .append("Yolcu Sayısı: ").append(email.passengerCount()).append("\n")
+                    .append("Koltuk Sınıfı: ").append(email.ticketClass()).append("\n")
+                    .append("Seçilen Koltuklar: ").append(email.selectedSeats()).append("\n\n");
+            }
+            text.append("Bilet tutarının tamamı için iade işlemi başlatılmıştır ve orijinal ödeme yönteminize göre işleme alınacaktır. ")
+                .append("İade, bankanızın işlem süresine bağlı olarak 5-7 iş günü içinde hesabınızda görünmelidir.\n\n")
+                .append("İadenizle ilgili herhangi bir sorunuz varsa veya daha fazla yardıma ihtiyacınız olursa, lütfen destek ekibimizle iletişime geçin.\n\n")
+                .append("Feribot seyahat ihtiyaçlarınız için SailMate'i tercih ettiğiniz için teşekkür ederiz.\n\n")
+                .append("İyi yolculuklar,\n")
+                .append("SailMate Ekibi");
+        } else {
+            text.append("Dear ").append(user.get("full_name")).append(",\n\n")
+                .append("Your ticket #").append(email.ticketID()).append(" has been successfully cancelled.\n\n");
+            if (detailed) {
+                text.append("Voyage Details:\n")
+                    .append("From: ").append(email.fromStation()).append("\n")
+                    .append("To: ").append(email.toStation()).append("\n")
+                    .append("Departure Date: ").append(email.departureDate()).append("\n")
+                    .append("Passenger Count: ").append(email.passengerCount()).append("\n")
+                    .append("Seat Class: ").append(email.ticketClass()).append("\n")
+                    .append("Selected Seats: ").append(email.selectedSeats()).append("\n\n");
+            }
+            text.append("A refund has been initiated for the full ticket amount and will be processed according to your original payment method. ")
+                .append("The refund should appear in your account within 5-7 business days, depending on your bank's processing time.\n\n")
+                .append("If you have any questions regarding your refund or need further assistance, please contact our support team.\n\n")
+                .append("Thank you for choosing SailMate for your ferry travel needs.\n\n")
+                .append("Smooth sailing,\n")
+                .append("The SailMate Team");
+        }
+        
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(EMAIL_FROM);
+        message.setTo(address);
+        message.setSubject(turkish ? "SailMate Bilet İptali - İade Onayı" : "SailMate Ticket Cancellation - Refund Confirmation");
+        message.setText(text.toString());
+        
+        emailSender.send(message);
+        logger.info("Cancellation email for ticket {} sent to: {}", email.ticketID(), address);
+    }
+}
@@ -0,0 +1,62 @@
+package group12.Backend.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sends a stored file as a response. Where Tomcat supports sendfile the body
+ * is left to Tomcat, which copies the file to the socket in the kernel
+ * (FileChannel.transferTo); otherwise the file is streamed as a Resource.
+ * The file's version is sent as ETag and answers If-None-Match with 304.
+ */
+public final class FileDownload {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileDownload() {
+    }
+
+    /**
+     * @param request the download request, checked for If-None-Match and sendfile support
+     * @param file the file to send
+     * @param version the version of the file, sent as ETag
+     * @param contentType the content type of the file
+     * @param disposition the Content-Disposition of the response
+     */
+    public static ResponseEntity<Resource> send(HttpServletRequest request, Path file, String version,
+                                                MediaType contentType, ContentDisposition disposition) throws IOException {
+        String etag = "\"" + version + "\"";
+        if (new ServletWebRequest(request).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        long size = Files.size(file);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(contentType)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return response.build();
+        }
+        return response.body(new FileSystemResource(file));
+    }
+}
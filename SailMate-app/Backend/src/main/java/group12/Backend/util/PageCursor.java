@@ -0,0 +1,127 @@
+package group12.Backend.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursors for keyset pagination of the list endpoints. A cursor holds the
+ * sort key of the last item of a page, so the next page is read with a range
+ * condition on an index, e.g. {@code created_at < ? OR (created_at = ? AND id < ?)}.
+ * Unlike OFFSET, reading a deep page costs the same as reading the first.
+ *
+ * Cursors are opaque to clients: the key values joined by '|' and base64url
+ * encoded. The cursor of the next page is returned in the {@link #HEADER}
+ * response header, which is absent on the last page.
+ */
+public final class PageCursor {
+
+    public static final String HEADER = "X-Next-Cursor";
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private static final String SEPARATOR = "|";
+
+    private PageCursor() {
+    }
+
+    /**
+     * Apply the page size cap
+     * @param requested the requested page size, may be null
+     * @return the page size to use, between 1 and {@link #MAX_LIMIT}
+     */
+    public static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(requested, MAX_LIMIT));
+    }
+
+    /**
+     * Cursor of a list sorted by (created_at, id)
+     * @param createdAt null for the first page
+     * @param id null for the first page
+     */
+    public record Created(LocalDateTime createdAt, Integer id) {
+
+        public static final Created FIRST = new Created(null, null);
+
+        /**
+         * @param cursor a cursor returned by a previous page, or null for the first page
+         * @throws ResponseStatusException with 400 if the cursor is malformed
+         */
+        public static Created parse(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return FIRST;
+            }
+            String[] keys = decode(cursor, 2);
+            try {
+                return new Created(LocalDateTime.parse(keys[0]), Integer.valueOf(keys[1]));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw invalid();
+            }
+        }
+
+        public static String of(LocalDateTime createdAt, Integer id) {
+            return encode(createdAt.toString(), id.toString());
+        }
+    }
+
+    /**
+     * Cursor of a voyage list sorted by (departure_date, departure_time, id)
+     */
+    public record Departure(LocalDate departureDate, LocalTime departureTime, Integer id) {
+
+        public static final Departure FIRST = new Departure(null, null, null);
+
+        /**
+         * @param cursor a cursor returned by a previous page, or null for the first page
+         * @throws ResponseStatusException with 400 if the cursor is malformed
+         */
+        public static Departure parse(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return FIRST;
+            }
+            String[] keys = decode(cursor, 3);
+            try {
+                return new Departure(LocalDate.parse(keys[0]), LocalTime.parse(keys[1]), Integer.valueOf(keys[2]));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw invalid();
+            }
+        }
+
+        public static String of(LocalDate departureDate, LocalTime departureTime, Integer id) {
+            return encode(departureDate.toString(), departureTime.toString(), id.toString());
+        }
+    }
+
+    private static String encode(String... keys) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARATOR, keys).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor, int keyCount) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        String[] keys = decoded.split("\\" + SEPARATOR, -1);
+        if (keys.length != keyCount) {
+            throw invalid();
+        }
+        return keys;
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+}
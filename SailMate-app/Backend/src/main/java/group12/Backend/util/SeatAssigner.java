@@ -0,0 +1,133 @@
+package group12.Backend.util;
+
+/**
+ * Picks seats for a group booking from a voyage bitmap. Candidates are
+ * searched in this order, the first that works wins:
+ * <ol>
+ *   <li>a run of adjacent free seats in one section, preferred deck first</li>
+ *   <li>the free seats of one section with the smallest distance between the first and the last</li>
+ *   <li>the first free seats of the class over both decks</li>
+ * </ol>
+ * Runs are found with shift-and on the section words, so the first step costs
+ * a few word operations per section regardless of how many seats are sold.
+ */
+public final class SeatAssigner {
+
+    private SeatAssigner() {
+    }
+
+    /**
+     * Find seats for a group
+     * @param layout the vessel layout
+     * @param taken the voyage bitmap, sold and held seats set
+     * @param seatClass 'P', 'E' or 'B'
+     * @param count number of seats wanted
+     * @param preferredDeck '1' or '2' to try that deck first, or 0 for no preference
+     * @return the seats as a bitmap of the layout, or null if the class does not have enough free seats
+     */
+    public static long[] findSeats(SeatLayout layout, long[] taken, char seatClass, int count, char preferredDeck) {
+        char firstDeck = preferredDeck == '2' ? '2' : '1';
+        SeatSection[] sections = {
+                SeatSection.of(firstDeck, seatClass),
+                SeatSection.of(firstDeck == '1' ? '2' : '1', seatClass)
+        };
+        if (sections[0] == null || count < 1) {
+            throw new IllegalArgumentException("Invalid seat class or passenger count");
+        }
+
+        for (SeatSection section : sections) {
+            int start = firstRun(layout, taken, section, count);
+            if (start >= 0) {
+                long[] masks = new long[layout.wordCount()];
+                for (int seat = start; seat < start + count; seat++) {
+                    set(layout, masks, section, seat);
+                }
+                return masks;
+            }
+        }
+
+        long[] closest = null;
+        int closestSpan = Integer.MAX_VALUE;
+        for (SeatSection section : sections) {
+            int[] free = freeSeats(layout, taken, section);
+            for (int i = 0; i + count <= free.length; i++) {
+                int span = free[i + count - 1] - free[i];
+                if (span < closestSpan) {
+                    closestSpan = span;
+                    closest = new long[layout.wordCount()];
+                    for (int j = i; j < i + count; j++) {
+                        set(layout, closest, section, free[j]);
+                    }
+                }
+            }
+        }
+        if (closest != null) {
+            return closest;
+        }
+
+        long[] masks = new long[layout.wordCount()];
+        int remaining = count;
+        for (SeatSection section : sections) {
+            for (int seat : freeSeats(layout, taken, section)) {
+                if (remaining == 0) {
+                    break;
+                }
+                set(layout, masks, section, seat);
+                remaining--;
+            }
+        }
+        return remaining == 0 ? masks : null;
+    }
+
+    /**
+     * @return the 0-based first seat of the lowest run of {@code count} free seats, or -1
+     */
+    static int firstRun(SeatLayout layout, long[] taken, SeatSection section, int count) {
+        long[] runs = freeWords(layout, taken, section);
+        // After each step bit i is set if the `length` seats starting at i are free
+        for (int length = 1; length < count; ) {
+            int step = Math.min(length, count - length);
+            for (int w = 0; w < runs.length; w++) {
+                long next = w + 1 < runs.length ? runs[w + 1] : 0L;
+                runs[w] &= runs[w] >>> step | next << (Long.SIZE - step);
+            }
+            length += step;
+        }
+        for (int w = 0; w < runs.length; w++) {
+            if (runs[w] != 0) {
+                return w * Long.SIZE + Long.numberOfTrailingZeros(runs[w]);
+            }
+        }
+        return -1;
+    }
+
+    private static long[] freeWords(SeatLayout layout, long[] taken, SeatSection section) {
+        long[] free = new long[layout.sectionWordCount(section)];
+        int remaining = layout.capacity(section);
+        for (int w = 0; w < free.length; w++, remaining -= Long.SIZE) {
+            long valid = remaining >= Long.SIZE ? -1L : remaining > 0 ? (1L << remaining) - 1 : 0L;
+            free[w] = ~taken[layout.wordIndex(section, w)] & valid;
+        }
+        return free;
+    }
+
+    private static int[] freeSeats(SeatLayout layout, long[] taken, SeatSection section) {
+        long[] free = freeWords(layout, taken, section);
+        int total = 0;
+        for (long word : free) {
+            total += Long.bitCount(word);
+        }
+        int[] seats = new int[total];
+        int n = 0;
+        for (int w = 0; w < free.length; w++) {
+            for (long word = free[w]; word != 0; word &= word - 1) {
+                seats[n++] = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return seats;
+    }
+
+    private static void set(SeatLayout layout, long[] masks, SeatSection section, int seat) {
+        masks[layout.wordIndex(section, seat >>> 6)] |= 1L << (seat & 63);
+    }
+}
@@ -0,0 +1,165 @@
+package group12.Backend.util;
+
+/**
+ * Parser and encoder for the seat lists stored in Ticket.selectedSeats, e.g.
+ * "1E-3, 1E-4,2E-1". The list is scanned in place as a {@link CharSequence}:
+ * no substrings, split arrays or boxed numbers are created, so parsing only
+ * allocates when it has to build an error message.
+ *
+ * The parser only checks that a seat index is positive; whether the seat
+ * exists depends on the vessel and is checked by {@link SeatLayout}.
+ */
+public final class SeatCodeParser {
+
+    // Largest seat index accepted before the layout check, keeps the int from overflowing
+    private static final int MAX_SEAT_INDEX = 1_000_000;
+
+    private SeatCodeParser() {
+    }
+
+    /**
+     * Walk a comma separated seat list
+     * @param ticketData the seat codes; null, blank and "auto" contain no seats
+     * @param visitor called once per seat code, in list order
+     * @throws IllegalArgumentException if a seat code is malformed
+     */
+    public static void forEachSeat(CharSequence ticketData, SeatSection.SeatVisitor visitor) {
+        if (ticketData == null) {
+            return;
+        }
+        int end = trimEnd(ticketData, 0, ticketData.length());
+        int pos = skipSpaces(ticketData, 0, end);
+        if (pos == end || isAuto(ticketData, pos, end)) {
+            return;
+        }
+
+        while (true) {
+            int codeEnd = indexOfComma(ticketData, pos, end);
+            int codeStart = skipSpaces(ticketData, pos, codeEnd);
+            parseCode(ticketData, codeStart, trimEnd(ticketData, codeStart, codeEnd), visitor);
+            pos = codeEnd + 1;
+            // Trailing commas are tolerated, as String.split dropped them
+            if (onlyCommas(ticketData, pos, end)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of seat codes in a seat list
+     * @throws IllegalArgumentException if a seat code is malformed
+     */
+    public static int count(CharSequence ticketData) {
+        int[] count = new int[1];
+        forEachSeat(ticketData, (section, seatIndex) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Append one seat code, e.g. "1E-3"
+     */
+    public static StringBuilder appendSeatCode(StringBuilder builder, SeatSection section, int seatIndex) {
+        return builder.append(section.getDeck()).append(section.getSeatClass()).append('-').append(seatIndex);
+    }
+
+    /**
+     * Encode the seats of a bitmap as a seat list in section order
+     * @param layout the layout of the bitmap
+     * @param words the bitmap
+     * @return the seat codes separated by commas, or an empty string for no seats
+     */
+    public static String encode(SeatLayout layout, long[] words) {
+        StringBuilder builder = new StringBuilder();
+        layout.forEachSeat(words, (section, seatIndex) -> {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            appendSeatCode(builder, section, seatIndex);
+        });
+        return builder.toString();
+    }
+
+    private static void parseCode(CharSequence data, int start, int end, SeatSection.SeatVisitor visitor) {
+        if (end - start < 4 || data.charAt(start + 2) != '-') {
+            throw invalid("Invalid seat code: ", data, start, end);
+        }
+        SeatSection section = SeatSection.of(data.charAt(start), data.charAt(start + 1));
+        if (section == null) {
+            throw invalid("Invalid seat code: ", data, start, end);
+        }
+
+        int pos = start + 3;
+        boolean negative = data.charAt(pos) == '-';
+        if (negative || data.charAt(pos) == '+') {
+            pos++;
+        }
+        if (pos == end) {
+            throw invalid("Invalid seat code: ", data, start, end);
+        }
+        int index = 0;
+        for (; pos < end; pos++) {
+            int digit = data.charAt(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalid("Invalid seat code: ", data, start, end);
+            }
+            if (index > MAX_SEAT_INDEX) {
+                throw invalid("Seat index out of range: ", data, start, end);
+            }
+            index = index * 10 + digit;
+        }
+        if (negative || index < 1 || index > MAX_SEAT_INDEX) {
+            throw invalid("Seat index out of range: ", data, start, end);
+        }
+
+        visitor.visit(section, index);
+    }
+
+    private static boolean isAuto(CharSequence data, int start, int end) {
+        if (end - start != 4) {
+            return false;
+        }
+        String auto = "auto";
+        for (int i = 0; i < 4; i++) {
+            if (Character.toLowerCase(data.charAt(start + i)) != auto.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean onlyCommas(CharSequence data, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (data.charAt(i) != ',' && !Character.isWhitespace(data.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfComma(CharSequence data, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (data.charAt(i) == ',') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int skipSpaces(CharSequence data, int from, int end) {
+        while (from < end && Character.isWhitespace(data.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(CharSequence data, int from, int end) {
+        while (end > from && Character.isWhitespace(data.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static IllegalArgumentException invalid(String message, CharSequence data, int start, int end) {
+        return new IllegalArgumentException(message + data.subSequence(start, end));
+    }
+}
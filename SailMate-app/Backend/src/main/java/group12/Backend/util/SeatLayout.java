@@ -0,0 +1,180 @@
+package group12.Backend.util;
+
+/**
+ * Seat layout of a vessel type: the number of seats in each deck/class
+ * section, numbered 1..n within the section.
+ *
+ * A voyage's seats are kept as one flat bitmap of 64-bit words. The first
+ * {@link SeatSection#COUNT} words are word 0 of each section in ordinal order,
+ * matching the six bitmap columns of seats_sold. Sections with more than 64
+ * seats continue in overflow words appended after them, again in section
+ * order. For vessels with at most 64 seats per section the bitmap is exactly
+ * the six column words.
+ */
+public final class SeatLayout {
+
+    private final String shipType;
+    private final int[] capacities;
+    private final int[] overflowOffsets;
+    private final int wordCount;
+
+    /**
+     * @param capacities seats per section, indexed by {@link SeatSection} ordinal
+     */
+    public SeatLayout(String shipType, int[] capacities) {
+        if (capacities.length != SeatSection.COUNT) {
+            throw new IllegalArgumentException("A layout needs " + SeatSection.COUNT + " section sizes");
+        }
+        this.shipType = shipType;
+        this.capacities = capacities.clone();
+        this.overflowOffsets = new int[SeatSection.COUNT];
+
+        int next = SeatSection.COUNT;
+        for (int i = 0; i < SeatSection.COUNT; i++) {
+            if (capacities[i] < 0) {
+                throw new IllegalArgumentException("Seat count must not be negative");
+            }
+            overflowOffsets[i] = next;
+            next += Math.max(0, wordsFor(capacities[i]) - 1);
+        }
+        this.wordCount = next;
+    }
+
+    public String getShipType() {
+        return shipType;
+    }
+
+    public int capacity(SeatSection section) {
+        return capacities[section.ordinal()];
+    }
+
+    /**
+     * @return the number of seats of a class over both decks
+     */
+    public int classCapacity(char seatClass) {
+        int total = 0;
+        for (int i = 0; i < SeatSection.COUNT; i++) {
+            if (SeatSection.byIndex(i).getSeatClass() == seatClass) {
+                total += capacities[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the length of a voyage bitmap for this layout
+     */
+    public int wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @return the number of words stored beyond the six seats_sold columns
+     */
+    public int overflowWordCount() {
+        return wordCount - SeatSection.COUNT;
+    }
+
+    /**
+     * @return the number of words used by a section
+     */
+    public int sectionWordCount(SeatSection section) {
+        return Math.max(1, wordsFor(capacities[section.ordinal()]));
+    }
+
+    /**
+     * @param word 0-based word of the section
+     * @return the position of that word in the flat bitmap
+     */
+    public int wordIndex(SeatSection section, int word) {
+        return word == 0 ? section.ordinal() : overflowOffsets[section.ordinal()] + word - 1;
+    }
+
+    public boolean isSet(long[] words, SeatSection section, int seatIndex) {
+        int bit = seatIndex - 1;
+        return seatIndex >= 1 && seatIndex <= capacity(section)
+                && (words[wordIndex(section, bit >>> 6)] >>> (bit & 63) & 1L) != 0;
+    }
+
+    /**
+     * @return the number of set seats of a section, ignoring bits past its capacity
+     */
+    public int countSet(long[] words, SeatSection section) {
+        int remaining = capacity(section);
+        int count = 0;
+        for (int w = 0; remaining > 0; w++, remaining -= Long.SIZE) {
+            long mask = remaining >= Long.SIZE ? -1L : (1L << remaining) - 1;
+            count += Long.bitCount(words[wordIndex(section, w)] & mask);
+        }
+        return count;
+    }
+
+    /**
+     * Convert a comma separated seat list into a bitmap of this layout
+     * @param ticketData the seat codes, e.g. "1E-3,1E-4,2E-1"
+     * @return a bitmap of {@link #wordCount()} words
+     * @throws IllegalArgumentException if a seat code is malformed or past the end of its section
+     */
+    public long[] masksOf(CharSequence ticketData) {
+        long[] masks = new long[wordCount];
+        SeatCodeParser.forEachSeat(ticketData, (section, seatIndex) -> {
+            if (seatIndex > capacity(section)) {
+                throw new IllegalArgumentException("Seat index out of range: " + section.getDeck()
+                        + section.getSeatClass() + "-" + seatIndex);
+            }
+            int bit = seatIndex - 1;
+            masks[wordIndex(section, bit >>> 6)] |= 1L << (bit & 63);
+        });
+        return masks;
+    }
+
+    /**
+     * Call the visitor for every seat set in a bitmap of this layout
+     */
+    public void forEachSeat(long[] words, SeatSection.SeatVisitor visitor) {
+        for (int i = 0; i < SeatSection.COUNT; i++) {
+            SeatSection section = SeatSection.byIndex(i);
+            for (int w = 0; w < sectionWordCount(section); w++) {
+                for (long word = words[wordIndex(section, w)]; word != 0; word &= word - 1) {
+                    int seatIndex = w * Long.SIZE + Long.numberOfTrailingZeros(word) + 1;
+                    if (seatIndex <= capacity(section)) {
+                        visitor.visit(section, seatIndex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Build a bitmap from the six seats_sold columns and the overflow column.
+     * An overflow of a different length (e.g. after the layout grew) is padded
+     * or cut to this layout.
+     * @param columns the six column words, indexed by ordinal
+     * @param overflow the overflow words as little-endian bytes, may be null
+     */
+    public long[] toWords(long[] columns, byte[] overflow) {
+        long[] words = new long[wordCount];
+        System.arraycopy(columns, 0, words, 0, SeatSection.COUNT);
+        if (overflow != null) {
+            for (int b = 0; b < overflow.length && SeatSection.COUNT + b / Long.BYTES < wordCount; b++) {
+                words[SeatSection.COUNT + b / Long.BYTES] |= (overflow[b] & 0xFFL) << (b % Long.BYTES * 8);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @return the overflow words of a bitmap as little-endian bytes, for the overflow column
+     */
+    public byte[] overflowBytes(long[] words) {
+        byte[] bytes = new byte[overflowWordCount() * Long.BYTES];
+        for (int b = 0; b < bytes.length; b++) {
+            bytes[b] = (byte) (words[SeatSection.COUNT + b / Long.BYTES] >>> (b % Long.BYTES * 8));
+        }
+        return bytes;
+    }
+
+    private static int wordsFor(int seats) {
+        return (seats + Long.SIZE - 1) / Long.SIZE;
+    }
+}
@@ -0,0 +1,164 @@
+package group12.Backend.util;
+
+import java.util.AbstractList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decoded seat map of one voyage: the voyage bitmap together with the vessel
+ * layout it is laid out in and the per-class totals. The bitmap is kept as
+ * primitive words; seat lists, bit strings and base64 are only built when
+ * the map is serialized.
+ *
+ * @param words the voyage bitmap as described by {@link SeatLayout}
+ * @param layout the seat layout of the vessel
+ */
+public record SeatMap(Integer id,
+                      Integer voyageId,
+                      String shipType,
+                      long[] words,
+                      SeatLayout layout,
+                      int totalPromoTaken,
+                      int totalEconomyTaken,
+                      int totalBusinessTaken,
+                      int promoAvailable,
+                      int economyAvailable,
+                      int businessAvailable) {
+
+    /**
+     * Wire formats of a seat map
+     */
+    public enum Format {
+        /** Boolean array per section, the original response shape */
+        LEGACY,
+        /** One '0'/'1' character per seat, seat 1 first */
+        BITS,
+        /** Each section's words as 8 little-endian bytes per word in unpadded URL-safe base64 */
+        BASE64;
+
+        /**
+         * @return the format with the given name, ignoring case
+         * @throws IllegalArgumentException if the name is unknown
+         */
+        public static Format of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Compact response shape: one string per section instead of a boolean array.
+     */
+    public record Compact(Integer id,
+                          Integer voyageId,
+                          String shipType,
+                          String encoding,
+                          Map<String, String> sections,
+                          Map<String, Integer> capacities,
+                          int totalPromoTaken,
+                          int totalEconomyTaken,
+                          int totalBusinessTaken,
+                          int promoAvailable,
+                          int economyAvailable,
+                          int businessAvailable) {
+    }
+
+    public boolean isSold(SeatSection section, int seatIndex) {
+        return layout.isSet(words, section, seatIndex);
+    }
+
+    public int capacity(SeatSection section) {
+        return layout.capacity(section);
+    }
+
+    /**
+     * Serialize in the requested format
+     * @return a {@link Compact} record, or the legacy map for {@link Format#LEGACY}
+     */
+    public Object toResponse(Format format) {
+        return format == Format.LEGACY ? toLegacyMap() : toCompact(format);
+    }
+
+    /**
+     * @return the map shape of the original seatsOperations.decode, with the
+     *         boolean lists backed directly by the bitmap
+     */
+    public Map<String, Object> toLegacyMap() {
+        Map<String, Object> response = new LinkedHashMap<>(32);
+        response.put("id", id);
+        response.put("voyageId", voyageId);
+        response.put("shipType", shipType);
+        for (int i = 0; i < SeatSection.COUNT; i++) {
+            response.put(SeatSection.byIndex(i).getKey(), new SeatList(SeatSection.byIndex(i)));
+        }
+        putTotals(response);
+        return response;
+    }
+
+    private Compact toCompact(Format format) {
+        Map<String, String> sections = new LinkedHashMap<>(8);
+        Map<String, Integer> sectionCapacities = new LinkedHashMap<>(8);
+        for (int i = 0; i < SeatSection.COUNT; i++) {
+            SeatSection section = SeatSection.byIndex(i);
+            sections.put(section.getKey(), format == Format.BITS ? toBits(section) : toBase64(section));
+            sectionCapacities.put(section.getKey(), layout.capacity(section));
+        }
+        return new Compact(id, voyageId, shipType, format.name().toLowerCase(Locale.ROOT), sections, sectionCapacities,
+                totalPromoTaken, totalEconomyTaken, totalBusinessTaken,
+                promoAvailable, economyAvailable, businessAvailable);
+    }
+
+    private void putTotals(Map<String, Object> response) {
+        response.put("totalPromoTaken", totalPromoTaken);
+        response.put("totalEconomyTaken", totalEconomyTaken);
+        response.put("totalBusinessTaken", totalBusinessTaken);
+        response.put("promoAvailable", promoAvailable);
+        response.put("economyAvailable", economyAvailable);
+        response.put("businessAvailable", businessAvailable);
+    }
+
+    String toBits(SeatSection section) {
+        char[] bits = new char[layout.capacity(section)];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = layout.isSet(words, section, i + 1) ? '1' : '0';
+        }
+        return new String(bits);
+    }
+
+    String toBase64(SeatSection section) {
+        int sectionWords = layout.sectionWordCount(section);
+        byte[] bytes = new byte[sectionWords * Long.BYTES];
+        for (int i = 0; i < bytes.length; i++) {
+            long word = words[layout.wordIndex(section, i / Long.BYTES)];
+            bytes[i] = (byte) (word >>> (i % Long.BYTES * 8));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Read-only boolean view of a section, so the legacy shape does not need
+     * a list element per seat.
+     */
+    private final class SeatList extends AbstractList<Boolean> {
+        private final SeatSection section;
+
+        SeatList(SeatSection section) {
+            this.section = section;
+        }
+
+        @Override
+        public Boolean get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return layout.isSet(words, section, index + 1);
+        }
+
+        @Override
+        public int size() {
+            return layout.capacity(section);
+        }
+    }
+}
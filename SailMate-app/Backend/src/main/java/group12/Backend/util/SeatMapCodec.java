@@ -0,0 +1,70 @@
+package group12.Backend.util;
+
+import java.util.Map;
+
+/**
+ * Decodes seats_sold bitmaps into a {@link SeatMap}. Works on the primitive
+ * words only: taken seats are counted with {@link Long#bitCount(long)} on the
+ * words masked to the section size, so decoding a voyage costs a handful of
+ * instructions per word.
+ */
+public final class SeatMapCodec {
+
+    private SeatMapCodec() {
+    }
+
+    /**
+     * Decode the bitmap of a voyage
+     * @param shipType the voyage's ship type, reported as is
+     * @param layout the seat layout of the vessel
+     * @param words the voyage bitmap, {@link SeatLayout#wordCount()} words long
+     * @return the decoded seat map
+     */
+    public static SeatMap decode(Integer id, Integer voyageId, String shipType, SeatLayout layout, long[] words) {
+        int[] taken = new int[3];
+        for (int i = 0; i < SeatSection.COUNT; i++) {
+            SeatSection section = SeatSection.byIndex(i);
+            taken[classIndex(section)] += layout.countSet(words, section);
+        }
+        return new SeatMap(id, voyageId, shipType, words.clone(), layout,
+                taken[0], taken[1], taken[2],
+                layout.classCapacity('P') - taken[0],
+                layout.classCapacity('E') - taken[1],
+                layout.classCapacity('B') - taken[2]);
+    }
+
+    /**
+     * Decode a seats_sold map as sent by clients of /calculate-seats. Only the
+     * six section words are read, so seats past 64 in a section show as free.
+     * @param seatsSold map with shipType and the six section keys
+     * @param layout the seat layout of the map's ship type
+     * @return the decoded seat map
+     * @throws IllegalArgumentException if a section is missing
+     */
+    public static SeatMap decode(Map<String, Object> seatsSold, SeatLayout layout) {
+        long[] columns = new long[SeatSection.COUNT];
+        for (int i = 0; i < SeatSection.COUNT; i++) {
+            Object value = seatsSold.get(SeatSection.byIndex(i).getKey());
+            if (!(value instanceof Number)) {
+                throw new IllegalArgumentException("Missing seats for " + SeatSection.byIndex(i).getKey());
+            }
+            columns[i] = ((Number) value).longValue();
+        }
+        Object id = seatsSold.get("id");
+        Object voyageId = seatsSold.get("voyageId");
+        return decode(id instanceof Number ? ((Number) id).intValue() : null,
+                voyageId instanceof Number ? ((Number) voyageId).intValue() : null,
+                (String) seatsSold.get("shipType"), layout, layout.toWords(columns, null));
+    }
+
+    private static int classIndex(SeatSection section) {
+        switch (section.getSeatClass()) {
+            case 'P':
+                return 0;
+            case 'E':
+                return 1;
+            default:
+                return 2;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package group12.Backend.util;
+
+/**
+ * The six deck/class sections of a vessel, in the same order as the bitmap
+ * columns of the seats_sold table. Seat codes look like "1E-3": the first
+ * character is the deck ('1' lower, '2' upper), the second the class
+ * ('P' promo, 'E' economy, 'B' business) and the number after the dash is the
+ * 1-based seat index inside that section.
+ */
+public enum SeatSection {
+    UPPER_DECK_PROMO('2', 'P', "upperDeckPromo"),
+    UPPER_DECK_ECONOMY('2', 'E', "upperDeckEconomy"),
+    UPPER_DECK_BUSINESS('2', 'B', "upperDeckBusiness"),
+    LOWER_DECK_PROMO('1', 'P', "lowerDeckPromo"),
+    LOWER_DECK_ECONOMY('1', 'E', "lowerDeckEconomy"),
+    LOWER_DECK_BUSINESS('1', 'B', "lowerDeckBusiness");
+
+    public static final int COUNT = 6;
+
+    private static final SeatSection[] VALUES = values();
+
+    private final char deck;
+    private final char seatClass;
+    private final String key;
+
+    SeatSection(char deck, char seatClass, String key) {
+        this.deck = deck;
+        this.seatClass = seatClass;
+        this.key = key;
+    }
+
+    public char getDeck() {
+        return deck;
+    }
+
+    public char getSeatClass() {
+        return seatClass;
+    }
+
+    /**
+     * @return the property name used for this section in DTOs and JSON responses
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public static SeatSection byIndex(int index) {
+        return VALUES[index];
+    }
+
+    /**
+     * Find the section for a deck and class character
+     * @return the section, or null if the combination is unknown
+     */
+    public static SeatSection of(char deck, char seatClass) {
+        for (SeatSection section : VALUES) {
+            if (section.deck == deck && section.seatClass == seatClass) {
+                return section;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Receives the seats of a seat list or bitmap one by one
+     */
+    @FunctionalInterface
+    public interface SeatVisitor {
+        void visit(SeatSection section, int seatIndex);
+    }
+}
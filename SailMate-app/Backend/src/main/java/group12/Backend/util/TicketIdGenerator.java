@@ -0,0 +1,174 @@
+package group12.Backend.util;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates ticket IDs like "TKT-04CS175R00400R" without asking the database.
+ *
+ * The ID is a 63 bit number: milliseconds since 2025-01-01 (41 bits), the
+ * node number of the backend instance (10 bits) and a per-millisecond
+ * sequence (12 bits). It is written as 13 Crockford base32 characters
+ * followed by a Luhn mod 32 check character. As the time comes first, IDs
+ * sort in creation order, which keeps inserts at the end of the ticket_id
+ * index.
+ *
+ * The node number is leased from the database by {@link TicketIdNodeLease},
+ * so running instances never share one, and IDs are only issued while the
+ * lease holds. If the clock goes back, or more than 4096 IDs are asked for in
+ * one millisecond, the generator runs ahead of the clock instead of
+ * repeating; a restart with the clock set back starts after the time stored
+ * with the lease.
+ */
+@Component
+public class TicketIdGenerator {
+
+    public static final String PREFIX = "TKT-";
+
+    // Crockford base32: no I, L, O or U; ascending, so the text sorts like the number
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int BODY_LENGTH = 13;
+    private static final int ID_LENGTH = PREFIX.length() + BODY_LENGTH + 1;
+    // IDs issued before this generator: "TKT-" and 8 hex digits from a UUID
+    private static final int LEGACY_LENGTH = PREFIX.length() + 8;
+
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            VALUES[ALPHABET.charAt(i)] = (byte) i;
+            VALUES[Character.toLowerCase(ALPHABET.charAt(i))] = (byte) i;
+        }
+    }
+
+    private final long node;
+    private final LongSupplier clock;
+    // Epoch milliseconds up to which IDs may be issued
+    private final LongSupplier validUntil;
+    private final TicketIdNodeLease lease;
+    // Last issued time and sequence as (millis << SEQUENCE_BITS) | sequence
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public TicketIdGenerator(TicketIdNodeLease lease) {
+        this(lease, lease.acquire(), System::currentTimeMillis);
+    }
+
+    TicketIdGenerator(TicketIdNodeLease lease, long issuedUntil, LongSupplier clock) {
+        this(lease.getNode(), issuedUntil, lease::getValidUntil, clock, lease);
+    }
+
+    // Without a lease, for tests
+    TicketIdGenerator(int node, LongSupplier clock) {
+        this(node, 0, () -> Long.MAX_VALUE, clock, null);
+    }
+
+    private TicketIdGenerator(int node, long issuedUntil, LongSupplier validUntil, LongSupplier clock,
+                              TicketIdNodeLease lease) {
+        if (node < 0 || node >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("Ticket ID node must be between 0 and " + ((1 << NODE_BITS) - 1));
+        }
+        this.node = node;
+        this.clock = clock;
+        this.validUntil = validUntil;
+        this.lease = lease;
+        // Start after every ID the node may have issued before
+        last.set(Math.max(issuedUntil - EPOCH, 0) << SEQUENCE_BITS);
+    }
+
+    /**
+     * @return a new ticket ID
+     * @throws IllegalStateException if the node lease could not be renewed
+     */
+    public String nextId() {
+        long now = clock.getAsLong() - EPOCH;
+        long stamp = last.updateAndGet(previous -> Math.max(previous + 1, now << SEQUENCE_BITS));
+        long millis = stamp >>> SEQUENCE_BITS;
+        if (millis + EPOCH > validUntil.getAsLong()) {
+            throw new IllegalStateException("The lease of ticket ID node " + node + " has run out");
+        }
+        long sequence = stamp & ((1L << SEQUENCE_BITS) - 1);
+        return format((millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence);
+    }
+
+    @PreDestroy
+    public void releaseNode() {
+        if (lease != null) {
+            lease.release((last.get() >>> SEQUENCE_BITS) + EPOCH);
+        }
+    }
+
+    /**
+     * Check the form and check character of a ticket ID, so malformed IDs do
+     * not reach the database. Case is ignored, like the ticket_id collation
+     * does. IDs of the old "TKT-" + 8 hex digits form are accepted too.
+     */
+    public static boolean isValid(String ticketID) {
+        if (ticketID == null || !ticketID.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            return false;
+        }
+        if (ticketID.length() == LEGACY_LENGTH) {
+            for (int i = PREFIX.length(); i < LEGACY_LENGTH; i++) {
+                if (Character.digit(ticketID.charAt(i), 16) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (ticketID.length() != ID_LENGTH) {
+            return false;
+        }
+        // Luhn mod 32: with the check character included the sum is a multiple of 32
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = ID_LENGTH - 1; i >= PREFIX.length(); i--) {
+            int value = valueOf(ticketID.charAt(i));
+            if (value < 0) {
+                return false;
+            }
+            sum += luhnAddend(value, doubled);
+            doubled = !doubled;
+        }
+        return sum % ALPHABET.length() == 0;
+    }
+
+    static String format(long id) {
+        char[] chars = new char[ID_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        int sum = 0;
+        // Right to left; the check character will be the rightmost, so the last body character is doubled
+        boolean doubled = true;
+        for (int i = PREFIX.length() + BODY_LENGTH - 1; i >= PREFIX.length(); i--) {
+            int value = (int) (id & 31);
+            chars[i] = ALPHABET.charAt(value);
+            sum += luhnAddend(value, doubled);
+            doubled = !doubled;
+            id >>>= 5;
+        }
+        chars[ID_LENGTH - 1] = ALPHABET.charAt((ALPHABET.length() - sum % ALPHABET.length()) % ALPHABET.length());
+        return new String(chars);
+    }
+
+    private static int luhnAddend(int value, boolean doubled) {
+        if (!doubled) {
+            return value;
+        }
+        int addend = value * 2;
+        return addend / ALPHABET.length() + addend % ALPHABET.length();
+    }
+
+    private static int valueOf(char c) {
+        return c < VALUES.length ? VALUES[c] : -1;
+    }
+}
@@ -0,0 +1,192 @@
+package group12.Backend.util;
+
+import group12.Backend.repository.TicketIdNodeRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Leases the node number of {@link TicketIdGenerator} from the ticket_id_nodes
+ * table, so two running instances never share one.
+ *
+ * The lease is renewed well before it runs out. IDs are only issued up to the
+ * local time of the last renewal plus the lease length, which is always before
+ * the database lets another instance take the node, and that time is stored with
+ * the lease: the next owner of the node, or this host after a restart with its
+ * clock set back, starts issuing after it.
+ */
+@Component
+public class TicketIdNodeLease {
+
+    private static final Logger logger = Logger.getLogger(TicketIdNodeLease.class.getName());
+
+    static final int NODE_COUNT = 1 << 10;
+
+    private final TicketIdNodeRepository ticketIdNodeRepository;
+    private final TransactionTemplate transaction;
+    private final int configuredNode;
+    private final long leaseSeconds;
+    private final LongSupplier clock;
+    private final String owner;
+
+    private volatile int node = -1;
+    // Local epoch milliseconds up to which IDs may be issued under the current lease
+    private volatile long validUntil;
+
+    @Autowired
+    public TicketIdNodeLease(TicketIdNodeRepository ticketIdNodeRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${tickets.id.node:-1}") int configuredNode,
+                             @Value("${tickets.id.lease-seconds:60}") long leaseSeconds) {
+        this(ticketIdNodeRepository, new TransactionTemplate(transactionManager), configuredNode, leaseSeconds,
+                System::currentTimeMillis);
+    }
+
+    TicketIdNodeLease(TicketIdNodeRepository ticketIdNodeRepository, TransactionTemplate transaction,
+                      int configuredNode, long leaseSeconds, LongSupplier clock) {
+        if (configuredNode >= NODE_COUNT) {
+            throw new IllegalArgumentException("Ticket ID node must be between 0 and " + (NODE_COUNT - 1));
+        }
+        this.ticketIdNodeRepository = ticketIdNodeRepository;
+        this.transaction = transaction;
+        this.configuredNode = configuredNode;
+        this.leaseSeconds = leaseSeconds;
+        this.clock = clock;
+        this.owner = identity();
+    }
+
+    /**
+     * Lease tickets.id.node, or the lowest free node if it is not set
+     * @return the time IDs of the node may have been issued until before, in epoch milliseconds
+     * @throws IllegalStateException if the configured node is held by another instance or all nodes are taken
+     */
+    public synchronized long acquire() {
+        if (configuredNode >= 0) {
+            Long issuedUntil = tryLease(configuredNode, true);
+            if (issuedUntil == null) {
+                throw new IllegalStateException("Ticket ID node " + configuredNode
+                        + " is leased by another instance; give every instance its own tickets.id.node");
+            }
+            return issuedUntil;
+        }
+
+        // Expired leases first, so node numbers stay low
+        for (int candidate : transaction.execute(status -> ticketIdNodeRepository.findExpiredNodes())) {
+            Long issuedUntil = tryLease(candidate, false);
+            if (issuedUntil != null) {
+                return issuedUntil;
+            }
+        }
+        List<Integer> used = transaction.execute(status -> ticketIdNodeRepository.findAllNodes());
+        int candidate = 0;
+        for (int usedNode : used) {
+            if (usedNode != candidate) {
+                break;
+            }
+            candidate++;
+        }
+        for (; candidate < NODE_COUNT; candidate++) {
+            Long issuedUntil = tryLease(candidate, true);
+            if (issuedUntil != null) {
+                return issuedUntil;
+            }
+        }
+        throw new IllegalStateException("All " + NODE_COUNT + " ticket ID nodes are leased");
+    }
+
+    // Take a node; returns how far its IDs were issued before, or null if another instance holds it
+    private Long tryLease(int candidate, boolean create) {
+        long newValidUntil = clock.getAsLong() + TimeUnit.SECONDS.toMillis(leaseSeconds);
+        Long issuedUntil = transaction.execute(status -> {
+            Long previous = ticketIdNodeRepository.findIssuedUntil(candidate).orElse(null);
+            if (previous == null) {
+                return create && ticketIdNodeRepository.create(candidate, owner, leaseSeconds, newValidUntil) == 1
+                        ? 0L : null;
+            }
+            return ticketIdNodeRepository.claim(candidate, owner, leaseSeconds, newValidUntil) == 1 ? previous : null;
+        });
+        if (issuedUntil != null) {
+            node = candidate;
+            validUntil = newValidUntil;
+            logger.info("Leased ticket ID node " + candidate + " as " + owner);
+        }
+        return issuedUntil;
+    }
+
+    /**
+     * Renew the lease, a third of the lease length ahead of its end by default
+     */
+    @Scheduled(fixedDelayString = "${tickets.id.renew-interval-ms:20000}")
+    public synchronized void renew() {
+        if (node < 0) {
+            return;
+        }
+        long newValidUntil = clock.getAsLong() + TimeUnit.SECONDS.toMillis(leaseSeconds);
+        try {
+            int renewed = transaction.execute(status ->
+                    ticketIdNodeRepository.claim(node, owner, leaseSeconds, newValidUntil));
+            if (renewed == 1) {
+                validUntil = newValidUntil;
+            } else {
+                logger.severe("Ticket ID node " + node + " was taken over by another instance; "
+                        + "no ticket IDs can be issued until restart");
+            }
+        } catch (RuntimeException e) {
+            logger.warning("Cannot renew the lease of ticket ID node " + node + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Give the node up so the next instance can take it without waiting for the lease to run out
+     * @param issuedUntil epoch milliseconds of the last issued ID
+     */
+    public synchronized void release(long issuedUntil) {
+        if (node < 0) {
+            return;
+        }
+        try {
+            transaction.execute(status -> ticketIdNodeRepository.release(node, owner, issuedUntil));
+        } catch (RuntimeException e) {
+            logger.warning("Cannot release ticket ID node " + node + ": " + e.getMessage());
+        }
+        validUntil = 0;
+    }
+
+    public int getNode() {
+        return node;
+    }
+
+    /**
+     * @return epoch milliseconds (local clock) up to which IDs may be issued
+     */
+    public long getValidUntil() {
+        return validUntil;
+    }
+
+    // Host and process, plus a random part so a restarted process with the same PID is a new owner
+    private static String identity() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        String identity = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        if (identity.length() > 110) {
+            identity = identity.substring(0, 110);
+        }
+        return identity + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
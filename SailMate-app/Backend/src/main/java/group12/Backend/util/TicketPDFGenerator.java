@@ -3,17 +3,39 @@ package group12.Backend.util;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.MultiFormatWriter;
 import com.google.zxing.common.BitMatrix;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 
-import java.io.ByteArrayOutputStream;
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.entity.CompletedTicket;
+import group12.Backend.entity.Ticket;
+import group12.Backend.entity.Voyage;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 
 public class TicketPDFGenerator {
 
+    // Loaded once from the classpath and shared by all documents. iText keeps the
+    // glyphs used by each document in its PdfWriter and synchronizes subsetting,
+    // so one BaseFont serves concurrent documents; images are copied per use.
+    private static final BaseFont BASE_FONT = loadFont("fonts/DejaVuSans.ttf");
+    private static final Font HEADER_FONT = new Font(BASE_FONT, 16, Font.BOLD, BaseColor.WHITE);
+    private static final Font BOLD_FONT = new Font(BASE_FONT, 9, Font.BOLD, new BaseColor(30, 144, 255));
+    private static final Font REGULAR_FONT = new Font(BASE_FONT, 9);
+    private static final Image LOGO = loadImage("assets/logo.png");
+    private static final Image BUSINESS_LOGO = loadImage("assets/Business.png");
+    private static final Image PROMO_LOGO = loadImage("assets/Promo.png");
+    private static final Image ECONOMY_LOGO = loadImage("assets/Economy.png");
+    private static final int QR_SIZE = 120;
+
     public static class TicketData {
         public String ticketId;
         public String passengerName;
@@ -26,17 +48,48 @@ public class TicketPDFGenerator {
         public String boardTill;
         public String ticketClass;
         public String passengerType;
+
+        /**
+         * The boarding pass of one passenger of an active ticket. Single
+         * downloads and voyage manifests print the same pass, so the stored
+         * PDF versions match both.
+         */
+        public static TicketData of(Ticket ticket, Voyage voyage, TicketDTO.PassengerInfo passenger) {
+            return of(ticket.getTicketID(), voyage.getFromStation().getTitle(), voyage.getToStation().getTitle(),
+                    voyage.getDepartureDate(), voyage.getDepartureTime(), ticket.getSelectedSeats(),
+                    ticket.getTicketClass(), passenger);
+        }
+
+        /**
+         * The boarding pass of one passenger of a completed ticket, from the
+         * voyage details copied onto it
+         */
+        public static TicketData of(CompletedTicket ticket, TicketDTO.PassengerInfo passenger) {
+            return of(ticket.getTicketId(), ticket.getDepStationTitle(), ticket.getArrStationTitle(),
+                    ticket.getDepDate(), ticket.getDepTime(), ticket.getSelectedSeats(),
+                    ticket.getTicketClass(), passenger);
+        }
+
+        private static TicketData of(String ticketId, String from, String to, LocalDate date, LocalTime time,
+                                     String seat, String ticketClass, TicketDTO.PassengerInfo passenger) {
+            TicketData data = new TicketData();
+            data.ticketId = ticketId;
+            data.passengerName = (passenger.getName() + " " + passenger.getSurname()).toUpperCase();
+            data.from = from;
+            data.to = to;
+            data.date = date.toString();
+            data.time = time.toString();
+            data.seat = seat;
+            data.gate = "1";
+            data.boardTill = "Board 15m before";
+            data.ticketClass = ticketClass.toUpperCase();
+            data.passengerType = passenger.getPassengerType() != null
+                    ? passenger.getPassengerType().toUpperCase() : "ADULT";
+            return data;
+        }
     }
     
     public static void generateTicketPdfBytes(OutputStream outputStream, List<TicketData> ticketList) throws Exception {
-        BaseFont baseFont = BaseFont.createFont(
-            "src/main/resources/fonts/DejaVuSans.ttf",
-            BaseFont.IDENTITY_H,
-            BaseFont.EMBEDDED
-        );
-        Font headerFont = new Font(baseFont, 16, Font.BOLD, BaseColor.WHITE);
-        Font boldFont = new Font(baseFont, 9, Font.BOLD, new BaseColor(30, 144, 255));
-        Font regularFont = new Font(baseFont, 9);
         Document document = new Document(new Rectangle(800, 250));
         PdfWriter writer = PdfWriter.getInstance(document, outputStream);
         document.open();
@@ -50,55 +103,52 @@ public class TicketPDFGenerator {
             canvas.fill();
             // Font headerFont = new Font(Font.FontFamily.HELVETICA, 16, Font.BOLD, BaseColor.WHITE);
             ColumnText.showTextAligned(canvas, Element.ALIGN_CENTER,
-                new Phrase("SailMate Ferries - Boarding Pass", headerFont), 400, 227, 0);
+                new Phrase("SailMate Ferries - Boarding Pass", HEADER_FONT), 400, 227, 0);
 
             PdfPTable layout = new PdfPTable(2);
             layout.setWidthPercentage(100);
             layout.setWidths(new int[]{2, 1});
             layout.setSpacingBefore(10);
 
-            Image logo = Image.getInstance("assets/logo.png");
+            // Copies share the decoded image, which is written to the document once
+            Image logo = Image.getInstance(LOGO);
             logo.scaleToFit(160, 160);
             logo.setAbsolutePosition(240, 10);
             document.add(logo);
 
-            String logoPath;
+            Image classLogoTemplate;
             switch (data.ticketClass.toLowerCase()) {
                 case "business":
-                    logoPath = "assets/Business.png";
+                    classLogoTemplate = BUSINESS_LOGO;
                     break;
                 case "promo":
-                    logoPath = "assets/Promo.png";
+                    classLogoTemplate = PROMO_LOGO;
                     break;
                 default:
-                    logoPath = "assets/Economy.png";
+                    classLogoTemplate = ECONOMY_LOGO;
                     break;
             }
 
-            try {
-                Image classLogo = Image.getInstance(logoPath);
-                classLogo.setAbsolutePosition(580, 0);
-                classLogo.scaleToFit(220, 220);
-                document.add(classLogo);
-            } catch (Exception e) {
-                System.err.println("⚠ Could not load class logo: " + e.getMessage());
-            }
+            Image classLogo = Image.getInstance(classLogoTemplate);
+            classLogo.setAbsolutePosition(580, 0);
+            classLogo.scaleToFit(220, 220);
+            document.add(classLogo);
 
             PdfPTable left = new PdfPTable(2);
             left.setWidths(new int[]{1, 2});
-            addInfo(left, "Ticket ID:", data.ticketId, boldFont, regularFont);
-            addInfo(left, "Passenger:", data.passengerName, boldFont, regularFont);
-            addInfo(left, "Date:", data.date, boldFont, regularFont);
-            addInfo(left, "Time:", data.time, boldFont, regularFont);
-            addInfo(left, "From:", data.from, boldFont, regularFont);
-            addInfo(left, "To:", data.to, boldFont, regularFont);
-            addInfo(left, "Seat:", data.seat, boldFont, regularFont);
-            addInfo(left, "Gate:", data.gate, boldFont, regularFont);
-            addInfo(left, "Board Till:", data.boardTill, boldFont, regularFont);
-            addInfo(left, "Class:", data.ticketClass, boldFont, regularFont);
-            addInfo(left, "Type:", data.passengerType, boldFont, regularFont);
-            addInfo(left, "Contact us Number:", "+90 546 434 20 22", boldFont, regularFont);
-            addInfo(left, "Email:", "sailmatesup@gmail.com", boldFont, regularFont);
+            addInfo(left, "Ticket ID:", data.ticketId, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Passenger:", data.passengerName, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Date:", data.date, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Time:", data.time, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "From:", data.from, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "To:", data.to, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Seat:", data.seat, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Gate:", data.gate, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Board Till:", data.boardTill, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Class:", data.ticketClass, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Type:", data.passengerType, BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Contact us Number:", "+90 546 434 20 22", BOLD_FONT, REGULAR_FONT);
+            addInfo(left, "Email:", "sailmatesup@gmail.com", BOLD_FONT, REGULAR_FONT);
             layout.addCell(noBorderCell(left));
 
             PdfPCell spacer = new PdfPCell();
@@ -112,8 +162,8 @@ public class TicketPDFGenerator {
                 data.ticketId, data.passengerName, data.from, data.to, data.date, data.time,
                 data.seat, data.gate, data.boardTill, data.ticketClass, data.passengerType
             );
-            Image qr = Image.getInstance(generateQRCodeImage(qrData));
-            qr.scaleAbsolute(120, 120);
+            Image qr = generateQRCodeImage(qrData);
+            qr.scaleAbsolute(QR_SIZE, QR_SIZE);
             qr.setAbsolutePosition(402, 60);
             document.add(qr);
         }
@@ -138,10 +188,48 @@ public class TicketPDFGenerator {
         return cell;
     }
 
-    private static byte[] generateQRCodeImage(String text) throws Exception {
-        BitMatrix matrix = new MultiFormatWriter().encode(text, BarcodeFormat.QR_CODE, 120, 120);
-        ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream();
-        MatrixToImageWriter.writeToStream(matrix, "PNG", pngOutputStream);
-        return pngOutputStream.toByteArray();
+    /**
+     * Build the QR code as a raw 1-bit grayscale image straight from the
+     * matrix, without encoding and decoding a PNG
+     */
+    private static Image generateQRCodeImage(String text) throws Exception {
+        BitMatrix matrix = new MultiFormatWriter().encode(text, BarcodeFormat.QR_CODE, QR_SIZE, QR_SIZE);
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) / 8;
+        // 1-bit gray: a set bit is white, so dark modules stay 0
+        byte[] data = new byte[rowBytes * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!matrix.get(x, y)) {
+                    data[y * rowBytes + x / 8] |= (byte) (0x80 >>> (x % 8));
+                }
+            }
+        }
+        return Image.getInstance(width, height, 1, 1, data);
+    }
+
+    private static BaseFont loadFont(String path) {
+        try {
+            byte[] font = readResource(path);
+            // The name only has to end in .ttf; the font is read from the bytes
+            return BaseFont.createFont(path, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, false, font, null);
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("Could not load font " + path, e);
+        }
+    }
+
+    private static Image loadImage(String path) {
+        try {
+            return Image.getInstance(readResource(path));
+        } catch (BadElementException | IOException e) {
+            throw new IllegalStateException("Could not load image " + path, e);
+        }
+    }
+
+    private static byte[] readResource(String path) throws IOException {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return in.readAllBytes();
+        }
     }
 }
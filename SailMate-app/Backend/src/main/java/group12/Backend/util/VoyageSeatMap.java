@@ -0,0 +1,403 @@
+package group12.Backend.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free seat bitmap of a single voyage, laid out as described by its
+ * {@link SeatLayout}. Every 64-bit word is updated with compare-and-set, so
+ * concurrent buyers never lose each other's bits and a seat can only be
+ * claimed once.
+ *
+ * Claims and releases spanning several sections are all-or-nothing: if one
+ * section fails the sections already changed are rolled back. During that
+ * short window another buyer may see those seats as taken and get a
+ * conflict, but never a double sale.
+ *
+ * Seats can also be held for a customer during checkout. A held seat is set
+ * in the section word like a sold one, so every reader sees it as taken, and
+ * additionally flagged in a held word so it is never written to seats_sold.
+ *
+ * The map also remembers the words and ticket count last written to
+ * seats_sold, so the write-back only has to send what changed since. That
+ * state is guarded by the map's monitor; the claim/release path never takes it,
+ * and nobody holds it across a database statement.
+ */
+public class VoyageSeatMap {
+
+    private final SeatLayout layout;
+    private final int wordCount;
+    private final AtomicLongArray words;
+    private final AtomicLongArray held;
+    private final AtomicLong totalTicketsSold;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final long[] persistedWords;
+    private long persistedTotal;
+    // Write-through statements sent but not yet committed or rolled back, and all ever started
+    private int writesInFlight;
+    private long writesStarted;
+
+    /**
+     * @param initialWords the voyage bitmap, {@link SeatLayout#wordCount()} words long
+     */
+    public VoyageSeatMap(SeatLayout layout, long[] initialWords, long totalTicketsSold) {
+        this.layout = layout;
+        this.wordCount = layout.wordCount();
+        this.words = new AtomicLongArray(wordCount);
+        this.held = new AtomicLongArray(wordCount);
+        this.persistedWords = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            words.set(i, initialWords[i]);
+            persistedWords[i] = initialWords[i];
+        }
+        this.totalTicketsSold = new AtomicLong(totalTicketsSold);
+        this.persistedTotal = totalTicketsSold;
+    }
+
+    public SeatLayout getLayout() {
+        return layout;
+    }
+
+    public String getShipType() {
+        return layout.getShipType();
+    }
+
+    /**
+     * Claim every seat in the masks, or none of them.
+     * @param masks a bitmap of this map's layout
+     * @return true if all seats were free and are now taken
+     */
+    public boolean claim(long[] masks) {
+        for (int i = 0; i < wordCount; i++) {
+            if (masks[i] != 0 && !setBits(i, masks[i])) {
+                for (int j = 0; j < i; j++) {
+                    if (masks[j] != 0) {
+                        clearBits(j, masks[j]);
+                    }
+                }
+                return false;
+            }
+        }
+        recordTicket(1);
+        return true;
+    }
+
+    /**
+     * Release every seat in the masks, or none of them. Held seats are not
+     * released, so a cancellation naming a held seat cannot free it under
+     * the checkout; the hold is released with {@link #releaseHold}.
+     * @param masks a bitmap of this map's layout
+     * @return true if all seats were sold and are now free
+     */
+    public boolean release(long[] masks) {
+        for (int i = 0; i < wordCount; i++) {
+            if (masks[i] != 0 && ((masks[i] & held.get(i)) != 0 || !clearBits(i, masks[i]))) {
+                for (int j = 0; j < i; j++) {
+                    if (masks[j] != 0) {
+                        setBits(j, masks[j]);
+                    }
+                }
+                return false;
+            }
+        }
+        recordTicket(-1);
+        return true;
+    }
+
+    /**
+     * Hold every seat in the masks, or none of them. Held seats look sold to
+     * everyone else but do not count as a ticket until converted.
+     * @return true if all seats were free and are now held
+     */
+    public boolean hold(long[] masks) {
+        for (int i = 0; i < wordCount; i++) {
+            if (masks[i] != 0 && !setBits(i, masks[i])) {
+                for (int j = 0; j < i; j++) {
+                    if (masks[j] != 0) {
+                        clearBits(j, masks[j]);
+                    }
+                }
+                return false;
+            }
+        }
+        for (int i = 0; i < wordCount; i++) {
+            if (masks[i] != 0) {
+                held.getAndAccumulate(i, masks[i], (current, mask) -> current | mask);
+            }
+        }
+        // A write-back may have caught the seats between the two steps above
+        dirty.set(true);
+        return true;
+    }
+
+    /**
+     * Free held seats again. Only seats that are still flagged as held are
+     * freed, so a stale hold can never release a sold seat.
+     */
+    public void releaseHold(long[] masks) {
+        for (int i = 0; i < wordCount; i++) {
+            if (masks[i] != 0) {
+                long wasHeld = held.getAndAccumulate(i, masks[i], (current, mask) -> current & ~mask) & masks[i];
+                if (wasHeld != 0) {
+                    clearBits(i, wasHeld);
+                }
+            }
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * Turn held seats into a sale.
+     * @return true if all seats in the masks were held, false if none were converted
+     */
+    public boolean convertHold(long[] masks) {
+        for (int i = 0; i < wordCount; i++) {
+            if ((held.get(i) & masks[i]) != masks[i]) {
+                return false;
+            }
+        }
+        for (int i = 0; i < wordCount; i++) {
+            if (masks[i] != 0) {
+                held.getAndAccumulate(i, masks[i], (current, mask) -> current & ~mask);
+            }
+        }
+        recordTicket(1);
+        return true;
+    }
+
+    /**
+     * Correct the map after a reconciliation against the tickets. Missing
+     * seats are set and extra seats are cleared; held seats are left alone
+     * either way, so a repair never takes over or frees a checkout's hold.
+     * Seats already in the wanted state are left alone, so concurrent claims
+     * are never undone.
+     * @param missing seats that are sold according to the tickets but free here
+     * @param extra seats that are taken here but belong to no ticket
+     * @param ticketDelta correction of the ticket count
+     * @return the number of seats changed
+     */
+    public int reconcile(long[] missing, long[] extra, long ticketDelta) {
+        int changed = 0;
+        for (int i = 0; i < wordCount; i++) {
+            long set = missing[i] & ~held.get(i);
+            if (set != 0) {
+                long before = words.getAndAccumulate(i, set, (current, mask) -> current | mask);
+                changed += Long.bitCount(set & ~before);
+            }
+            long free = extra[i] & ~held.get(i);
+            if (free != 0) {
+                long before = words.getAndAccumulate(i, free, (current, mask) -> current & ~mask);
+                changed += Long.bitCount(free & before);
+            }
+        }
+        totalTicketsSold.addAndGet(ticketDelta);
+        dirty.set(true);
+        return changed;
+    }
+
+    /**
+     * @return true if none of the seats in the masks are taken
+     */
+    public boolean isAvailable(long[] masks) {
+        for (int i = 0; i < wordCount; i++) {
+            if ((words.get(i) & masks[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return word 0 of a section, i.e. its first 64 seats
+     */
+    public long word(SeatSection section) {
+        return words.get(section.ordinal());
+    }
+
+    /**
+     * @return a copy of the bitmap
+     */
+    public long[] snapshot() {
+        long[] copy = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * @return a copy of the bitmap without held seats, i.e. what seats_sold should contain
+     */
+    public long[] soldSnapshot() {
+        long[] copy = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            copy[i] = words.get(i);
+            copy[i] &= ~held.get(i);
+        }
+        return copy;
+    }
+
+    public long getTotalTicketsSold() {
+        return totalTicketsSold.get();
+    }
+
+    /**
+     * Mark the map as written back. Must be called before taking the
+     * snapshot that is persisted, so changes made meanwhile flag it again.
+     * @return true if there were unsaved changes
+     */
+    public boolean clearDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    /**
+     * @return a copy of the words last written to seats_sold. Caller must hold this map's monitor.
+     */
+    public long[] getPersistedWords() {
+        return persistedWords.clone();
+    }
+
+    /**
+     * @return the ticket count last written to seats_sold. Caller must hold this map's monitor.
+     */
+    public long getPersistedTotal() {
+        return persistedTotal;
+    }
+
+    /**
+     * Record that a write-back of claimed and released seats reached
+     * seats_sold. Only the written bits change, so write-throughs made in the
+     * meantime are kept. Caller must hold this map's monitor.
+     */
+    public void markPersisted(long[] claimed, long[] released, long ticketDelta) {
+        for (int i = 0; i < wordCount; i++) {
+            persistedWords[i] = (persistedWords[i] | claimed[i]) & ~released[i];
+        }
+        persistedTotal += ticketDelta;
+    }
+
+    /**
+     * Record that a claim (or release) of the masks was written to seats_sold
+     * directly. Caller must hold this map's monitor.
+     */
+    public void markPersisted(long[] masks, boolean claimed) {
+        for (int i = 0; i < wordCount; i++) {
+            persistedWords[i] = claimed ? persistedWords[i] | masks[i] : persistedWords[i] & ~masks[i];
+        }
+        persistedTotal += claimed ? 1 : -1;
+    }
+
+    /**
+     * Record that a write-through statement is about to be sent. Caller must hold this map's monitor.
+     */
+    public void beginWrite() {
+        writesInFlight++;
+        writesStarted++;
+    }
+
+    /**
+     * Record that a write-through was committed or rolled back. Caller must hold this map's monitor.
+     */
+    public void endWrite() {
+        writesInFlight--;
+    }
+
+    /**
+     * @return true if a write-through may not be committed yet. Caller must hold this map's monitor.
+     */
+    public boolean hasWritesInFlight() {
+        return writesInFlight > 0;
+    }
+
+    /**
+     * @return the number of write-throughs ever started. Caller must hold this map's monitor.
+     */
+    public long getWritesStarted() {
+        return writesStarted;
+    }
+
+    /**
+     * @return true if seats are held for a checkout
+     */
+    public boolean hasHolds() {
+        for (int i = 0; i < wordCount; i++) {
+            if (held.get(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if seats or tickets were sold since the last write to
+     * seats_sold. Caller must hold this map's monitor.
+     */
+    public boolean hasUnpersistedClaims() {
+        long[] sold = soldSnapshot();
+        for (int i = 0; i < wordCount; i++) {
+            if ((sold[i] & ~persistedWords[i]) != 0) {
+                return true;
+            }
+        }
+        return totalTicketsSold.get() != persistedTotal;
+    }
+
+    /**
+     * Start over from a seats_sold row that was changed behind this map's
+     * back. Seats sold there are taken here too, seats freed there are freed
+     * here unless they are held, and claims, releases and holds not yet
+     * written stay pending, so the next write-back sends them against the new
+     * row. Caller must hold this map's monitor and have no writes in flight.
+     * @param storedWords the bitmap of the row
+     * @param storedTotal total_tickets_sold of the row
+     */
+    public void rebase(long[] storedWords, long storedTotal) {
+        for (int i = 0; i < wordCount; i++) {
+            long added = storedWords[i] & ~persistedWords[i];
+            long removed = persistedWords[i] & ~storedWords[i] & ~held.get(i);
+            if (added != 0 || removed != 0) {
+                words.getAndUpdate(i, current -> (current | added) & ~removed);
+            }
+            persistedWords[i] = storedWords[i];
+        }
+        totalTicketsSold.addAndGet(storedTotal - persistedTotal);
+        persistedTotal = storedTotal;
+        dirty.set(true);
+    }
+
+    private void recordTicket(int delta) {
+        totalTicketsSold.addAndGet(delta);
+        dirty.set(true);
+    }
+
+    private boolean setBits(int index, long mask) {
+        long current;
+        do {
+            current = words.get(index);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, current, current | mask));
+        return true;
+    }
+
+    private boolean clearBits(int index, long mask) {
+        long current;
+        do {
+            current = words.get(index);
+            if ((current & mask) != mask) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, current, current & ~mask));
+        return true;
+    }
+}
@@ -0,0 +1,173 @@
+-- Benchmark of the activity log filters on a generated data set.
+--
+-- Creates the SAILMATE_BENCH database with @millions million activity logs
+-- spread over two years, then times the filter queries of the log views:
+--   before: the single-column indexes with the query of the old
+--           findWithFilters, "(:x IS NULL OR a.x = :x)" for every filter plus
+--           ORDER BY created_at, LIMIT/OFFSET and the count query of a Page
+--   after:  the composite indexes of mainDB.sql with only the given filters,
+--           ORDER BY (created_at, id) and a keyset cursor
+-- Values are inlined the way Connector/J sends client-side prepared statements.
+--
+-- Run on a scratch server, never on production, e.g.
+--   mysql -u root < activityLogBenchmark.sql
+-- Generating 3 million rows takes a few minutes.
+
+DROP DATABASE IF EXISTS SAILMATE_BENCH;
+CREATE DATABASE SAILMATE_BENCH;
+USE SAILMATE_BENCH;
+
+SET @millions = 3;
+SET @runs = 20;
+
+CREATE TABLE activity_log (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    action_type VARCHAR(50) NOT NULL,
+    entity_type VARCHAR(50) NOT NULL,
+    entity_id VARCHAR(50) NOT NULL,
+    user_id VARCHAR(255),
+    full_name VARCHAR(255),
+    user_role VARCHAR(50) DEFAULT 'user',
+    description TEXT NOT NULL,
+    description_tr TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE digit (d INT PRIMARY KEY);
+INSERT INTO digit VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+CREATE TABLE bench_result (
+    scenario VARCHAR(100) NOT NULL,
+    phase VARCHAR(10) NOT NULL,
+    avg_ms DECIMAL(12, 3) NOT NULL,
+    PRIMARY KEY (scenario, phase)
+);
+
+DELIMITER //
+
+-- Insert one million logs numbered from first_n: 60% READ, 5000 users of
+-- which 85% are customers, a log every 21 seconds
+CREATE PROCEDURE generate_logs(IN first_n INT)
+BEGIN
+    INSERT INTO activity_log (action_type, entity_type, entity_id, user_id, full_name, user_role,
+                              description, description_tr, created_at)
+    SELECT CASE WHEN r % 100 < 60 THEN 'READ'
+                WHEN r % 100 < 80 THEN 'UPDATE'
+                WHEN r % 100 < 95 THEN 'CREATE'
+                ELSE 'DELETE' END,
+           ELT(1 + (r DIV 100) % 8, 'TICKET', 'VOYAGE', 'STATION', 'PRICE',
+               'ANNOUNCEMENT', 'COMPLAINT', 'NOTIFICATION', 'USER'),
+           (r DIV 800) % 20000,
+           CONCAT('user_', LPAD(u, 5, '0')),
+           CONCAT('User ', u),
+           CASE WHEN u % 100 < 85 THEN 'user'
+                WHEN u % 100 < 93 THEN 'admin'
+                WHEN u % 100 < 98 THEN 'manager'
+                ELSE 'super' END,
+           CONCAT('Log ', n),
+           CONCAT('Kayıt ', n),
+           TIMESTAMP('2024-01-01') + INTERVAL n * 21 SECOND
+    FROM (SELECT n, r, CRC32(CONCAT('user', n)) % 5000 AS u
+          FROM (SELECT n, CRC32(n) AS r
+                FROM (SELECT first_n + d1.d + d2.d * 10 + d3.d * 100 + d4.d * 1000
+                             + d5.d * 10000 + d6.d * 100000 AS n
+                      FROM digit d1, digit d2, digit d3, digit d4, digit d5, digit d6) seq) hashed) logs
+    ORDER BY n;
+END //
+
+-- Average time of a query over @runs runs, plus an optional second query run
+-- with it (the count query of a Page)
+CREATE PROCEDURE bench(IN scenario VARCHAR(100), IN phase VARCHAR(10), IN page_query TEXT, IN count_query TEXT)
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    DECLARE started DATETIME(6);
+    SET @bench_page = CONCAT('SELECT COUNT(*) INTO @bench_rows FROM (', page_query, ') page');
+    SET @bench_count = CONCAT('SELECT COUNT(*) INTO @bench_total FROM (', IFNULL(count_query, 'SELECT 1'), ') total');
+    PREPARE page_stmt FROM @bench_page;
+    PREPARE count_stmt FROM @bench_count;
+    -- Warm up the buffer pool
+    EXECUTE page_stmt;
+    EXECUTE count_stmt;
+    SET started = SYSDATE(6);
+    WHILE i < @runs DO
+        EXECUTE page_stmt;
+        IF count_query IS NOT NULL THEN
+            EXECUTE count_stmt;
+        END IF;
+        SET i = i + 1;
+    END WHILE;
+    DEALLOCATE PREPARE page_stmt;
+    DEALLOCATE PREPARE count_stmt;
+    INSERT INTO bench_result VALUES (scenario, phase, TIMESTAMPDIFF(MICROSECOND, started, SYSDATE(6)) / @runs / 1000);
+END //
+
+CREATE PROCEDURE generate_all()
+BEGIN
+    DECLARE m INT DEFAULT 0;
+    WHILE m < @millions DO
+        CALL generate_logs(m * 1000000);
+        SET m = m + 1;
+    END WHILE;
+END //
+
+DELIMITER ;
+
+CALL generate_all();
+ANALYZE TABLE activity_log;
+
+-- Before: the indexes of the old schema and the old query
+CREATE INDEX idx_activity_action ON activity_log(action_type);
+CREATE INDEX idx_activity_entity ON activity_log(entity_type, entity_id);
+CREATE INDEX idx_activity_user ON activity_log(user_id);
+CREATE INDEX idx_activity_date ON activity_log(created_at, id);
+ANALYZE TABLE activity_log;
+
+SET @old = 'SELECT a.* FROM activity_log a WHERE (%A IS NULL OR a.action_type = %A) AND (%E IS NULL OR a.entity_type = %E) AND (%U IS NULL OR a.user_id = %U) AND (%R IS NULL OR a.user_role = %R) ORDER BY a.created_at DESC';
+SET @old_count = 'SELECT COUNT(a.id) FROM activity_log a WHERE (%A IS NULL OR a.action_type = %A) AND (%E IS NULL OR a.entity_type = %E) AND (%U IS NULL OR a.user_id = %U) AND (%R IS NULL OR a.user_role = %R)';
+
+DELIMITER //
+CREATE FUNCTION fill(query TEXT, a VARCHAR(50), e VARCHAR(50), u VARCHAR(50), r VARCHAR(50)) RETURNS TEXT DETERMINISTIC
+RETURN REPLACE(REPLACE(REPLACE(REPLACE(query,
+    '%A', IFNULL(QUOTE(a), 'NULL')), '%E', IFNULL(QUOTE(e), 'NULL')),
+    '%U', IFNULL(QUOTE(u), 'NULL')), '%R', IFNULL(QUOTE(r), 'NULL')) //
+DELIMITER ;
+
+CALL bench('all logs', 'before', CONCAT(fill(@old, NULL, NULL, NULL, NULL), ' LIMIT 20'), fill(@old_count, NULL, NULL, NULL, NULL));
+CALL bench('user', 'before', CONCAT(fill(@old, NULL, NULL, 'user_00042', NULL), ' LIMIT 20'), fill(@old_count, NULL, NULL, 'user_00042', NULL));
+CALL bench('action READ', 'before', CONCAT(fill(@old, 'READ', NULL, NULL, NULL), ' LIMIT 20'), fill(@old_count, 'READ', NULL, NULL, NULL));
+CALL bench('action DELETE', 'before', CONCAT(fill(@old, 'DELETE', NULL, NULL, NULL), ' LIMIT 20'), fill(@old_count, 'DELETE', NULL, NULL, NULL));
+CALL bench('entity type', 'before', CONCAT(fill(@old, NULL, 'COMPLAINT', NULL, NULL), ' LIMIT 20'), fill(@old_count, NULL, 'COMPLAINT', NULL, NULL));
+CALL bench('role', 'before', CONCAT(fill(@old, NULL, NULL, NULL, 'manager'), ' LIMIT 20'), fill(@old_count, NULL, NULL, NULL, 'manager'));
+CALL bench('user and action', 'before', CONCAT(fill(@old, 'UPDATE', NULL, 'user_00042', NULL), ' LIMIT 20'), fill(@old_count, 'UPDATE', NULL, 'user_00042', NULL));
+CALL bench('action READ, page 100', 'before', CONCAT(fill(@old, 'READ', NULL, NULL, NULL), ' LIMIT 20 OFFSET 1980'), fill(@old_count, 'READ', NULL, NULL, NULL));
+
+-- After: the composite indexes and the queries built from the given filters
+DROP INDEX idx_activity_action ON activity_log;
+DROP INDEX idx_activity_entity ON activity_log;
+DROP INDEX idx_activity_user ON activity_log;
+CREATE INDEX idx_activity_action_date ON activity_log(action_type, created_at, id);
+CREATE INDEX idx_activity_entity_type_date ON activity_log(entity_type, created_at, id);
+CREATE INDEX idx_activity_entity_date ON activity_log(entity_type, entity_id, created_at, id);
+CREATE INDEX idx_activity_user_date ON activity_log(user_id, created_at, id);
+CREATE INDEX idx_activity_role_date ON activity_log(user_role, created_at, id);
+ANALYZE TABLE activity_log;
+
+SET @order = ' ORDER BY a.created_at DESC, a.id DESC LIMIT 21';
+-- Cursor of page 100 of the READ logs
+SELECT created_at, id INTO @cursor_at, @cursor_id FROM activity_log
+WHERE action_type = 'READ' ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET 1979;
+
+CALL bench('all logs', 'after', CONCAT('SELECT a.* FROM activity_log a', @order), NULL);
+CALL bench('user', 'after', CONCAT('SELECT a.* FROM activity_log a WHERE a.user_id = ''user_00042''', @order), NULL);
+CALL bench('action READ', 'after', CONCAT('SELECT a.* FROM activity_log a WHERE a.action_type = ''READ''', @order), NULL);
+CALL bench('action DELETE', 'after', CONCAT('SELECT a.* FROM activity_log a WHERE a.action_type = ''DELETE''', @order), NULL);
+CALL bench('entity type', 'after', CONCAT('SELECT a.* FROM activity_log a WHERE a.entity_type = ''COMPLAINT''', @order), NULL);
+CALL bench('role', 'after', CONCAT('SELECT a.* FROM activity_log a WHERE a.user_role = ''manager''', @order), NULL);
+CALL bench('user and action', 'after', CONCAT('SELECT a.* FROM activity_log a WHERE a.action_type = ''UPDATE'' AND a.user_id = ''user_00042''', @order), NULL);
+CALL bench('action READ, page 100', 'after', CONCAT('SELECT a.* FROM activity_log a WHERE a.action_type = ''READ'' AND a.created_at <= ',
+    QUOTE(@cursor_at), ' AND (a.created_at < ', QUOTE(@cursor_at), ' OR a.id < ', @cursor_id, ')', @order), NULL);
+
+SELECT b.scenario, b.avg_ms AS before_ms, a.avg_ms AS after_ms, ROUND(b.avg_ms / a.avg_ms, 1) AS speedup
+FROM bench_result b JOIN bench_result a ON a.scenario = b.scenario AND a.phase = 'after'
+WHERE b.phase = 'before'
+ORDER BY b.scenario;
@@ -27,14 +27,49 @@ CREATE TABLE activity_log (
     user_role VARCHAR(50) DEFAULT 'user',
     description TEXT NOT NULL,
     description_tr TEXT NOT NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Create indexes for better query performance
-CREATE INDEX idx_activity_action ON activity_log(action_type);
-CREATE INDEX idx_activity_entity ON activity_log(entity_type, entity_id);
-CREATE INDEX idx_activity_user ON activity_log(user_id);
-CREATE INDEX idx_activity_date ON activity_log(created_at);
+-- Activity logs are filtered by one of these columns and sorted by (created_at, id)
+CREATE INDEX idx_activity_date ON activity_log(created_at, id);
+CREATE INDEX idx_activity_action_date ON activity_log(action_type, created_at, id);
+CREATE INDEX idx_activity_entity_type_date ON activity_log(entity_type, created_at, id);
+CREATE INDEX idx_activity_entity_date ON activity_log(entity_type, entity_id, created_at, id);
+CREATE INDEX idx_activity_user_date ON activity_log(user_id, created_at, id);
+CREATE INDEX idx_activity_role_date ON activity_log(user_role, created_at, id);
+
+-- Daily activity log counts read by the count endpoints, maintained by ActivityLogRollupService;
+-- logs up to activity_log_rollup_state.rolled_up_id are counted
+CREATE TABLE activity_log_daily_count (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    log_date DATE NOT NULL,
+    action_type VARCHAR(50) NOT NULL,
+    entity_type VARCHAR(50) NOT NULL,
+    user_role VARCHAR(50) NOT NULL,
+    log_count BIGINT NOT NULL,
+    UNIQUE KEY uk_activity_count_day (log_date, action_type, entity_type, user_role),
+    INDEX idx_activity_count_action (action_type, log_count),
+    INDEX idx_activity_count_entity (entity_type, log_count)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE activity_log_rollup_state (
+    id INT PRIMARY KEY,
+    rolled_up_id INT NOT NULL,
+    updated_at DATETIME
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Months of activity logs moved to gzipped files by ActivityLogArchiveService
+CREATE TABLE activity_log_archive (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    month VARCHAR(7) NOT NULL,
+    part INT NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    log_count BIGINT NOT NULL,
+    last_log_id INT NOT NULL,
+    archived_at DATETIME,
+    UNIQUE KEY uk_activity_archive_part (month, part)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 CREATE TABLE notification (
     id INT AUTO_INCREMENT PRIMARY KEY,
@@ -46,13 +81,14 @@ CREATE TABLE notification (
     message_tr TEXT NOT NULL,
     entity_id VARCHAR(255),
     is_read BOOLEAN NOT NULL DEFAULT FALSE,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     
     INDEX idx_notification_user (user_id),
     INDEX idx_notification_read (is_read),
     INDEX idx_notification_type (type),
     INDEX idx_notification_entity (entity_id),
-    INDEX idx_notification_date (created_at)
+    INDEX idx_notification_date (created_at),
+    INDEX idx_notification_user_date (user_id, created_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 CREATE TABLE voyages (
@@ -90,10 +126,12 @@ CREATE TABLE seats_sold (
     lower_deck_economy BIGINT DEFAULT 0,
     lower_deck_business BIGINT DEFAULT 0,
     total_tickets_sold BIGINT DEFAULT 0,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    overflow_seats VARBINARY(1024),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (voyage_id) REFERENCES voyages(id) ON DELETE CASCADE,
-    INDEX idx_seats_voyage (voyage_id)
+    INDEX idx_seats_voyage (voyage_id),
+    INDEX idx_seats_date (created_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Tickets table with snake_case naming
@@ -107,7 +145,7 @@ CREATE TABLE tickets (
     selected_seats VARCHAR(255) NOT NULL,
     user_id VARCHAR(255) NOT NULL,
     ticket_data JSON NOT NULL COMMENT 'Stores passenger information including name, surname, birthDate, email, phoneNo',
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     PRIMARY KEY(id),
     
@@ -120,6 +158,7 @@ CREATE TABLE tickets (
 CREATE INDEX idx_ticket_voyage ON tickets(voyage_id);
 CREATE INDEX idx_ticket_class ON tickets(ticket_class);
 CREATE INDEX idx_ticket_user ON tickets(user_id);
+CREATE INDEX idx_ticket_date ON tickets(created_at, id);
 
 CREATE TABLE announcement (
     id INTEGER NOT NULL AUTO_INCREMENT UNIQUE,
@@ -140,9 +179,10 @@ CREATE TABLE complaint (
     message TEXT NOT NULL,
     reply TEXT,
     status ENUM('active', 'solved') DEFAULT 'active',
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    PRIMARY KEY(id)
+    PRIMARY KEY(id),
+    INDEX idx_complaint_date (created_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 CREATE TABLE prices (
@@ -171,7 +211,7 @@ CREATE TABLE completed_tickets (
     selected_seats VARCHAR(255) NOT NULL,
     user_id VARCHAR(255) NOT NULL,
     ticket_data JSON NOT NULL COMMENT 'Stores passenger information including name, surname, birthDate, email, phoneNo',
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     PRIMARY KEY(id),
     
@@ -181,11 +221,12 @@ CREATE TABLE completed_tickets (
     INDEX idx_completed_user (user_id),
     INDEX idx_completed_dep_date (dep_date),
     INDEX idx_completed_class (ticket_class),
-    INDEX idx_completed_cities (dep_city, arr_city)
+    INDEX idx_completed_cities (dep_city, arr_city),
+    INDEX idx_completed_date (created_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Create indexes for better performance
-CREATE INDEX idx_voyage_date ON voyages(departure_date);
+CREATE INDEX idx_voyage_date ON voyages(departure_date, departure_time, id);
 CREATE INDEX idx_voyage_status ON voyages(status);
 CREATE INDEX idx_voyage_stations ON voyages(from_station, to_station);
 
@@ -206,4 +247,74 @@ VALUES
     ('Business', 800),
     ('Fee', 10),
     ('Senior', 15),
-    ('Student', 20);
\ No newline at end of file
+    ('Student', 20);
+
+-- Ticket ID node numbers leased by the running backend instances (TicketIdNodeLease)
+CREATE TABLE ticket_id_nodes (
+    node INT PRIMARY KEY,
+    owner VARCHAR(128) NOT NULL,
+    leased_until DATETIME(3) NOT NULL,
+    issued_until BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- One row per sold seat; the unique key stops a seat being sold twice
+CREATE TABLE ticket_seat (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    voyage_id INTEGER NOT NULL,
+    deck CHAR(1) NOT NULL,
+    seat_class CHAR(1) NOT NULL,
+    seat_index INT NOT NULL,
+    ticket_id VARCHAR(32) NOT NULL,
+    FOREIGN KEY (voyage_id) REFERENCES voyages(id) ON DELETE CASCADE,
+    UNIQUE KEY uk_ticket_seat_voyage_seat (voyage_id, deck, seat_class, seat_index),
+    INDEX idx_ticket_seat_ticket (ticket_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Passengers of tickets and completed tickets, in the order they were entered.
+-- Keyed by the public ticket ID like ticket_seat; ticket_data keeps the same data as JSON.
+CREATE TABLE ticket_passenger (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    ticket_id VARCHAR(32) NOT NULL,
+    position INT NOT NULL,
+    name VARCHAR(255),
+    surname VARCHAR(255),
+    birth_date VARCHAR(32),
+    email VARCHAR(255),
+    phone_no VARCHAR(64),
+    passenger_type VARCHAR(32),
+    UNIQUE KEY uk_ticket_passenger_position (ticket_id, position)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Seats per deck and class of each vessel type
+CREATE TABLE vessel_layouts (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    ship_type VARCHAR(255) NOT NULL UNIQUE,
+    upper_deck_promo_seats INT NOT NULL,
+    upper_deck_economy_seats INT NOT NULL,
+    upper_deck_business_seats INT NOT NULL,
+    lower_deck_promo_seats INT NOT NULL,
+    lower_deck_economy_seats INT NOT NULL,
+    lower_deck_business_seats INT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO vessel_layouts (ship_type, upper_deck_promo_seats, upper_deck_economy_seats, upper_deck_business_seats,
+                            lower_deck_promo_seats, lower_deck_economy_seats, lower_deck_business_seats)
+VALUES
+    ('Fast Ferry', 40, 40, 20, 60, 60, 30),
+    ('Sea Bus', 20, 20, 20, 40, 40, 10);
+
+-- Side effects of ticket changes (notifications, activity logs, emails), written in the same
+-- transaction as the change and processed by OutboxDispatcher
+CREATE TABLE outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(32) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME NOT NULL,
+    last_error VARCHAR(512),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    processed_at DATETIME,
+    INDEX idx_outbox_due (status, next_attempt_at, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
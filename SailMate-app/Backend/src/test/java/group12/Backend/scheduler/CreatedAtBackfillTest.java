@@ -0,0 +1,51 @@
+package group12.Backend.scheduler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import group12.Backend.repository.ActivityLogRepository;
+import group12.Backend.repository.ComplaintRepository;
+import group12.Backend.repository.CompletedTicketRepository;
+import group12.Backend.repository.NotificationRepository;
+import group12.Backend.repository.SeatsSoldRepository;
+import group12.Backend.repository.TicketRepository;
+
+class CreatedAtBackfillTest {
+
+    @Test
+    void rowsWithoutCreatedAtAreUpdatedInBatchesUntilNoneAreLeft() {
+        ActivityLogRepository activityLogRepository = mock(ActivityLogRepository.class);
+        NotificationRepository notificationRepository = mock(NotificationRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(activityLogRepository.fillMissingCreatedAt(any(), anyInt())).thenReturn(1000, 1000, 3);
+        when(notificationRepository.fillMissingCreatedAt(any(), anyInt())).thenReturn(0);
+
+        CreatedAtBackfill backfill = new CreatedAtBackfill();
+        ReflectionTestUtils.setField(backfill, "activityLogRepository", activityLogRepository);
+        ReflectionTestUtils.setField(backfill, "notificationRepository", notificationRepository);
+        ReflectionTestUtils.setField(backfill, "complaintRepository", mock(ComplaintRepository.class));
+        ReflectionTestUtils.setField(backfill, "seatsSoldRepository", mock(SeatsSoldRepository.class));
+        ReflectionTestUtils.setField(backfill, "ticketRepository", mock(TicketRepository.class));
+        ReflectionTestUtils.setField(backfill, "completedTicketRepository", mock(CompletedTicketRepository.class));
+        ReflectionTestUtils.setField(backfill, "transactionTemplate", new TransactionTemplate(transactionManager));
+
+        backfill.backfill();
+
+        verify(activityLogRepository, times(3)).fillMissingCreatedAt(eq(CreatedAtBackfill.MISSING_CREATED_AT), eq(1000));
+        verify(notificationRepository, times(1)).fillMissingCreatedAt(any(), anyInt());
+        // One transaction per batch of each of the six tables
+        verify(transactionManager, times(8)).commit(any());
+    }
+}
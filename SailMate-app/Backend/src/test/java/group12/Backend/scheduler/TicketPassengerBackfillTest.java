@@ -0,0 +1,103 @@
+package group12.Backend.scheduler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import group12.Backend.entity.CompletedTicket;
+import group12.Backend.entity.Ticket;
+import group12.Backend.repository.CompletedTicketRepository;
+import group12.Backend.repository.TicketPassengerRepository;
+import group12.Backend.repository.TicketRepository;
+import group12.Backend.service.TicketPassengerService;
+
+class TicketPassengerBackfillTest {
+
+    private static final String ONE_PASSENGER = "[{\"name\":\"Ada\",\"surname\":\"Yılmaz\"}]";
+
+    private TicketRepository ticketRepository;
+    private CompletedTicketRepository completedTicketRepository;
+    private TicketPassengerRepository ticketPassengerRepository;
+    private PlatformTransactionManager transactionManager;
+    private TicketPassengerBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        completedTicketRepository = mock(CompletedTicketRepository.class);
+        ticketPassengerRepository = mock(TicketPassengerRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(completedTicketRepository.findWithoutPassengerRows(anyInt(), anyInt())).thenReturn(List.of());
+
+        backfill = new TicketPassengerBackfill();
+        ReflectionTestUtils.setField(backfill, "ticketRepository", ticketRepository);
+        ReflectionTestUtils.setField(backfill, "completedTicketRepository", completedTicketRepository);
+        ReflectionTestUtils.setField(backfill, "ticketPassengerService",
+                new TicketPassengerService(ticketPassengerRepository, new ObjectMapper()));
+        ReflectionTestUtils.setField(backfill, "transactionTemplate", new TransactionTemplate(transactionManager));
+    }
+
+    private static Ticket ticket(int id, String ticketData) {
+        Ticket ticket = new Ticket("TKT-" + id, 1, 1, 500.0, "Economy", "1E-" + id, "user", ticketData);
+        ticket.setId(id);
+        return ticket;
+    }
+
+    @Test
+    void eachTicketIsWrittenInItsOwnTransaction() {
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            tickets.add(ticket(i, ONE_PASSENGER));
+        }
+        when(ticketRepository.findWithoutPassengerRows(0, 500)).thenReturn(tickets);
+        when(ticketRepository.findWithoutPassengerRows(500, 500)).thenReturn(List.of(ticket(501, ONE_PASSENGER)));
+
+        backfill.backfill();
+
+        verify(ticketPassengerRepository, times(501)).saveAll(anyList());
+        verify(transactionManager, times(501)).commit(any());
+    }
+
+    @Test
+    void ticketEditedDuringTheBackfillIsSkippedAndTheRestContinue() {
+        when(ticketRepository.findWithoutPassengerRows(0, 500))
+                .thenReturn(List.of(ticket(1, ONE_PASSENGER), ticket(2, "not json"), ticket(3, ONE_PASSENGER)));
+        // replacePassengers wrote the rows of ticket 1 after it was read
+        when(ticketPassengerRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'uk_ticket_passenger_position'"))
+                .thenReturn(List.of());
+        CompletedTicket completed = new CompletedTicket();
+        completed.setId(9);
+        completed.setTicketId("TKT-9");
+        completed.setTicketData(ONE_PASSENGER);
+        when(completedTicketRepository.findWithoutPassengerRows(0, 500)).thenReturn(List.of(completed));
+
+        backfill.backfill();
+
+        // Ticket 1 rolled back on its own, ticket 2 was never written
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(ticketPassengerRepository, times(3)).saveAll(anyList());
+        verify(ticketRepository, never()).findWithoutPassengerRows(eq(3), anyInt());
+    }
+}
@@ -0,0 +1,170 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import group12.Backend.dto.ActivityLogDTO;
+import group12.Backend.entity.ActivityLogArchiveFile;
+import group12.Backend.repository.ActivityLogArchiveFileRepository;
+import group12.Backend.repository.ActivityLogRepository;
+import group12.Backend.repository.ActivityLogSpecifications;
+import group12.Backend.util.PageCursor;
+
+class ActivityLogArchiveServiceTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+    @TempDir
+    Path archiveDir;
+
+    private ActivityLogRepository activityLogRepository;
+    private ActivityLogRollupService rollupService;
+    private ActivityLogArchiveService archiveService;
+    private final List<ActivityLogArchiveFile> archiveFiles = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        activityLogRepository = mock(ActivityLogRepository.class);
+        rollupService = mock(ActivityLogRollupService.class);
+        when(rollupService.getRolledUpId()).thenReturn(100);
+
+        // The archive table, kept in a list
+        ActivityLogArchiveFileRepository archiveFileRepository = mock(ActivityLogArchiveFileRepository.class);
+        when(archiveFileRepository.save(any())).thenAnswer(invocation -> {
+            archiveFiles.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(archiveFileRepository.findByMonthOrderByPart(anyString())).thenAnswer(invocation ->
+                archiveFiles.stream().filter(file -> file.getMonth().equals(invocation.getArgument(0))).toList());
+        when(archiveFileRepository.findArchivedMonths()).thenAnswer(invocation ->
+                archiveFiles.stream().map(ActivityLogArchiveFile::getMonth).distinct().sorted().toList().reversed());
+
+        archiveService = new ActivityLogArchiveService(activityLogRepository, archiveFileRepository, rollupService,
+                new ObjectMapper().findAndRegisterModules(), mock(PlatformTransactionManager.class),
+                archiveDir.toString(), 6);
+    }
+
+    private static ActivityLogDTO log(int id, String actionType, int day, String description) {
+        return new ActivityLogDTO(id, actionType, "TICKET", "TKT-" + id, "user_1", "Ada Lovelace", "user",
+                description, description, LocalDateTime.of(2024, 1, day, 12, 0));
+    }
+
+    private void inTable(int lastId, ActivityLogDTO... logs) {
+        when(activityLogRepository.findMaxIdCreatedBetween(FROM, TO)).thenReturn(lastId);
+        when(activityLogRepository.streamForArchive(FROM, TO, lastId)).thenReturn(Stream.of(logs));
+    }
+
+    @Test
+    void monthIsMovedToAFileAndFoundThere() throws Exception {
+        inTable(3, log(1, "READ", 2, "Viewed, \"quoted\"\nline"), log(2, "CREATE", 5, "Created"), log(3, "READ", 9, "Viewed"));
+
+        assertTrue(archiveService.archiveMonth(JANUARY));
+
+        assertTrue(Files.exists(archiveDir.resolve("2024-01.1.jsonl.gz")));
+        assertEquals(1, archiveFiles.size());
+        assertEquals(3L, archiveFiles.get(0).getLogCount());
+        assertEquals(3, archiveFiles.get(0).getLastLogId());
+        verify(activityLogRepository).deleteArchived(eq(FROM), eq(TO), eq(3), anyInt());
+
+        List<ActivityLogDTO> archived = archiveService.read(JANUARY);
+        assertEquals(3, archived.size());
+        assertEquals("Viewed, \"quoted\"\nline", archived.get(0).getDescription());
+        assertEquals(LocalDateTime.of(2024, 1, 2, 12, 0), archived.get(0).getCreatedAt());
+
+        // Filtered like MySQL compares text, newest first, continuing after a cursor
+        ActivityLogSpecifications.Filter reads = new ActivityLogSpecifications.Filter("read", null, null, null, null, null);
+        List<ActivityLogDTO> found = archiveService.find(reads, PageCursor.Created.FIRST, 10, 1).logs();
+        assertEquals(List.of(3, 1), found.stream().map(ActivityLogDTO::getId).toList());
+        PageCursor.Created after = new PageCursor.Created(found.get(0).getCreatedAt(), found.get(0).getId());
+        assertEquals(List.of(1), archiveService.find(reads, after, 10, 1).logs().stream().map(ActivityLogDTO::getId).toList());
+
+        ActivityLogSpecifications.Filter february = new ActivityLogSpecifications.Filter(
+                null, null, null, null, TO, null);
+        assertTrue(archiveService.find(february, PageCursor.Created.FIRST, 10, 1).logs().isEmpty());
+    }
+
+    @Test
+    void monthIsKeptUntilItIsRolledUp() throws Exception {
+        inTable(101, log(101, "READ", 2, "Viewed"));
+
+        assertFalse(archiveService.archiveMonth(JANUARY));
+
+        assertTrue(archiveFiles.isEmpty());
+        verify(activityLogRepository, never()).streamForArchive(any(), any(), any());
+        verify(activityLogRepository, never()).deleteArchived(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void logsLeftBehindGoToTheNextPart() throws Exception {
+        inTable(3, log(1, "READ", 2, "Viewed"), log(3, "READ", 9, "Viewed"));
+        archiveService.archiveMonth(JANUARY);
+
+        // A log of the month written late, after the first part
+        inTable(7, log(7, "DELETE", 30, "Deleted"));
+        assertTrue(archiveService.archiveMonth(JANUARY));
+
+        // The deletes of the first part are finished before the second part is written
+        verify(activityLogRepository, times(2)).deleteArchived(eq(FROM), eq(TO), eq(3), anyInt());
+        verify(activityLogRepository).deleteArchived(eq(FROM), eq(TO), eq(7), anyInt());
+        assertEquals(List.of(1, 2), archiveFiles.stream().map(ActivityLogArchiveFile::getPart).toList());
+        assertEquals(3, archiveService.read(JANUARY).size());
+        assertEquals(List.of(JANUARY), archiveService.getArchivedMonths());
+    }
+
+    @Test
+    void pageReadsOneMonthAndContinuesBeforeIt() throws Exception {
+        inTable(3, log(1, "DELETE", 2, "Deleted"), log(2, "READ", 5, "Viewed"), log(3, "READ", 9, "Viewed"));
+        archiveService.archiveMonth(JANUARY);
+        LocalDateTime march = LocalDateTime.of(2024, 3, 1, 0, 0);
+        when(activityLogRepository.findMaxIdCreatedBetween(TO, march)).thenReturn(5);
+        when(activityLogRepository.streamForArchive(TO, march, 5)).thenReturn(Stream.of(
+                new ActivityLogDTO(4, "READ", "TICKET", "TKT-4", "user_1", "Ada Lovelace", "user",
+                        "Viewed", "Viewed", LocalDateTime.of(2024, 2, 3, 12, 0)),
+                new ActivityLogDTO(5, "READ", "TICKET", "TKT-5", "user_1", "Ada Lovelace", "user",
+                        "Viewed", "Viewed", LocalDateTime.of(2024, 2, 4, 12, 0))));
+        archiveService.archiveMonth(JANUARY.plusMonths(1));
+
+        // The only delete is in January, so the first page ends after February
+        ActivityLogSpecifications.Filter deletes = new ActivityLogSpecifications.Filter("DELETE", null, null, null, null, null);
+        ActivityLogArchiveService.Page first = archiveService.find(deletes, PageCursor.Created.FIRST, 10, 1);
+        assertTrue(first.logs().isEmpty());
+        assertEquals(new PageCursor.Created(TO, 0), first.resumeAfter());
+
+        ActivityLogArchiveService.Page second = archiveService.find(deletes, first.resumeAfter(), 10, 1);
+        assertEquals(List.of(1), second.logs().stream().map(ActivityLogDTO::getId).toList());
+        assertEquals(null, second.resumeAfter());
+
+        // Only the newest logs of a month are kept
+        ActivityLogArchiveService.Page newest = archiveService.find(ActivityLogSpecifications.Filter.ALL,
+                PageCursor.Created.FIRST, 3, 2);
+        assertEquals(List.of(5, 4, 3), newest.logs().stream().map(ActivityLogDTO::getId).toList());
+        assertEquals(null, newest.resumeAfter());
+    }
+}
@@ -0,0 +1,175 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.ResponseEntity;
+
+import group12.Backend.controller.ActivityLogController;
+import group12.Backend.dto.ActivityLogDTO;
+import group12.Backend.entity.ActivityLog;
+import group12.Backend.repository.ActivityLogRepository;
+import group12.Backend.repository.ActivityLogSpecifications;
+import group12.Backend.util.ClerkUsers;
+import group12.Backend.util.PageCursor;
+import io.jsonwebtoken.Claims;
+
+/**
+ * The filters and keyset paging of the activity log view, run against H2
+ * through {@link ActivityLogSpecifications} and the /filter endpoint.
+ */
+@DataJpaTest(properties = {
+        // month and value are column names in this schema
+        "spring.datasource.url=jdbc:h2:mem:logs;MODE=MySQL;NON_KEYWORDS=MONTH,VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ActivityLogFilterTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ActivityLogRepository activityLogRepository;
+
+    private ActivityLogArchiveService archive;
+    private ActivityLogController controller;
+    private Claims claims;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        archive = mock(ActivityLogArchiveService.class);
+        when(archive.find(any(), any(), anyInt(), anyInt()))
+                .thenReturn(new ActivityLogArchiveService.Page(new ArrayList<>(), null));
+        controller = new ActivityLogController(new ActivityLogService(activityLogRepository, mock(ClerkUsers.class),
+                mock(ActivityLogWriter.class), mock(ActivityLogRollupService.class), archive));
+        claims = mock(Claims.class);
+        when(claims.get("meta_data", HashMap.class)).thenReturn(new HashMap<>(Map.of("role", "admin")));
+    }
+
+    private void log(String actionType, String userRole, LocalDateTime createdAt) {
+        ActivityLog log = entityManager.persist(new ActivityLog(actionType, "TICKET", "TKT-1", "user_1", "Ada Doe",
+                userRole, "Description", "Açıklama"));
+        entityManager.flush();
+        // created_at is set on insert and not updatable through the entity
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE activity_log SET created_at = :createdAt WHERE id = :id")
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", log.getId())
+                .executeUpdate();
+        entityManager.clear();
+    }
+
+    private List<ActivityLog> find(ActivityLogSpecifications.Filter filter, PageCursor.Created after) {
+        return activityLogRepository.findAll(ActivityLogSpecifications.matching(filter)
+                .and(ActivityLogSpecifications.after(after)), ActivityLogSpecifications.NEWEST_FIRST);
+    }
+
+    private ResponseEntity<List<ActivityLogDTO>> filter(String actionType, String userRole, String cursor, int limit)
+            throws Exception {
+        ActivityLogDTO.ActivityLogFilterRequest request = new ActivityLogDTO.ActivityLogFilterRequest();
+        request.setActionType(actionType);
+        request.setUserRole(userRole);
+        request.setCursor(cursor);
+        request.setLimit(limit);
+        return controller.filterActivityLogs(request, claims);
+    }
+
+    @Test
+    void onlyTheGivenFiltersApply() {
+        log("DELETE", "admin", NOON);
+        log("DELETE", "user", NOON.plusMinutes(1));
+        log("READ", "admin", NOON.plusMinutes(2));
+        log("DELETE", "admin", NOON.minusDays(2));
+
+        assertEquals(4, find(ActivityLogSpecifications.Filter.ALL, PageCursor.Created.parse(null)).size());
+        assertEquals(2, find(new ActivityLogSpecifications.Filter("DELETE", null, null, "admin", null, null),
+                PageCursor.Created.parse(null)).size());
+        List<ActivityLog> today = find(new ActivityLogSpecifications.Filter("DELETE", null, null, null,
+                NOON.minusHours(1), NOON.plusHours(1)), PageCursor.Created.parse(null));
+        assertEquals(2, today.size());
+        assertEquals("user", today.get(0).getUserRole());
+    }
+
+    @Test
+    void afterContinuesPastLogsOfTheSameTime() {
+        log("CREATE", "user", NOON);
+        log("CREATE", "user", NOON);
+        log("CREATE", "user", NOON);
+        log("CREATE", "user", NOON.minusMinutes(1));
+        List<ActivityLog> all = find(ActivityLogSpecifications.Filter.ALL, PageCursor.Created.parse(null));
+
+        // After the second of three logs with the same created_at
+        ActivityLog second = all.get(1);
+        List<ActivityLog> rest = find(ActivityLogSpecifications.Filter.ALL,
+                new PageCursor.Created(second.getCreatedAt(), second.getId()));
+
+        assertEquals(all.subList(2, 4).stream().map(ActivityLog::getId).toList(),
+                rest.stream().map(ActivityLog::getId).toList());
+    }
+
+    @Test
+    void filterEndpointReturnsPagesWithTheNextCursorInAHeader() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            log("DELETE", "admin", NOON.minusMinutes(i));
+            log("READ", "admin", NOON.minusMinutes(i));
+        }
+
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ResponseEntity<List<ActivityLogDTO>> response = filter("DELETE", "", cursor, 2);
+            for (ActivityLogDTO log : response.getBody()) {
+                assertEquals("DELETE", log.getActionType());
+                assertFalse(seen.contains(log.getId()));
+                seen.add(log.getId());
+            }
+            cursor = response.getHeaders().getFirst(PageCursor.HEADER);
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+        ResponseEntity<List<ActivityLogDTO>> all = filter(null, null, null, 10);
+        assertEquals(10, all.getBody().size());
+        assertNull(all.getHeaders().getFirst(PageCursor.HEADER));
+        assertTrue(all.getBody().get(0).getCreatedAt().isEqual(NOON));
+    }
+
+    @Test
+    void pageEndsEarlyWhereTheArchiveSearchStopped() throws Exception {
+        log("READ", "admin", NOON);
+        PageCursor.Created beforeMay = new PageCursor.Created(LocalDateTime.of(2025, 5, 1, 0, 0), 0);
+        when(archive.find(any(), any(), anyInt(), anyInt()))
+                .thenReturn(new ActivityLogArchiveService.Page(new ArrayList<>(), beforeMay));
+
+        ResponseEntity<List<ActivityLogDTO>> response = filter(null, null, null, 10);
+
+        assertEquals(1, response.getBody().size());
+        assertEquals(beforeMay, PageCursor.Created.parse(response.getHeaders().getFirst(PageCursor.HEADER)));
+    }
+}
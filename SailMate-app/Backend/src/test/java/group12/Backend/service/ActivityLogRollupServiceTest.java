@@ -0,0 +1,114 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import group12.Backend.entity.ActivityLog;
+import group12.Backend.entity.ActivityLogRollupState;
+import group12.Backend.repository.ActivityLogDailyCountRepository;
+import group12.Backend.repository.ActivityLogRepository;
+import group12.Backend.repository.ActivityLogRollupStateRepository;
+
+class ActivityLogRollupServiceTest {
+
+    private ActivityLogRepository activityLogRepository;
+    private ActivityLogDailyCountRepository dailyCountRepository;
+    private ActivityLogRollupState state;
+    private ActivityLogRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        activityLogRepository = mock(ActivityLogRepository.class);
+        dailyCountRepository = mock(ActivityLogDailyCountRepository.class);
+        ActivityLogRollupStateRepository stateRepository = mock(ActivityLogRollupStateRepository.class);
+        state = new ActivityLogRollupState();
+        state.setRolledUpId(0);
+        when(stateRepository.lockById(ActivityLogRollupState.ID)).thenReturn(Optional.of(state));
+        when(stateRepository.findById(ActivityLogRollupState.ID)).thenReturn(Optional.of(state));
+        rollupService = new ActivityLogRollupService(activityLogRepository, dailyCountRepository, stateRepository,
+                mock(PlatformTransactionManager.class), 2);
+    }
+
+    @Test
+    void logsAreRolledUpOneRunAfterTheyAreSeen() {
+        when(activityLogRepository.findMaxId()).thenReturn(120_000, 130_000);
+
+        rollupService.rollUp();
+        verify(dailyCountRepository, never()).addLogs(anyInt(), anyInt());
+
+        // Only up to the ID seen by the first run, in chunks
+        rollupService.rollUp();
+        verify(dailyCountRepository).addLogs(0, 50_000);
+        verify(dailyCountRepository).addLogs(50_000, 100_000);
+        verify(dailyCountRepository).addLogs(100_000, 120_000);
+        assertEquals(120_000, state.getRolledUpId());
+    }
+
+    @Test
+    void logsRolledUpByAnotherInstanceAreNotAddedAgain() {
+        state.setRolledUpId(150);
+        when(activityLogRepository.findMaxId()).thenReturn(120, 160);
+
+        rollupService.rollUp();
+        rollupService.rollUp();
+
+        verify(dailyCountRepository, never()).addLogs(anyInt(), anyInt());
+        assertEquals(150, state.getRolledUpId());
+    }
+
+    @Test
+    void countsAddTheLogsAfterTheRollups() {
+        state.setRolledUpId(100);
+        when(dailyCountRepository.sumLogCountByActionType("READ")).thenReturn(40L);
+        when(activityLogRepository.countByIdGreaterThanAndActionType(100, "READ")).thenReturn(2L);
+
+        assertEquals(42, rollupService.countByActionType("READ"));
+    }
+
+    private static ActivityLog log(int id, String userRole) {
+        ActivityLog log = mock(ActivityLog.class);
+        when(log.getId()).thenReturn(id);
+        when(log.getActionType()).thenReturn("READ");
+        when(log.getEntityType()).thenReturn("TICKET");
+        when(log.getUserRole()).thenReturn(userRole);
+        when(log.getCreatedAt()).thenReturn(LocalDateTime.of(2024, 1, 2, 12, 0));
+        return log;
+    }
+
+    @Test
+    void onlyRolledUpLogsAreTakenOffTheCounts() {
+        state.setRolledUpId(100);
+        ActivityLog counted = log(50, null);
+        ActivityLog recent = log(150, "user");
+
+        rollupService.forget(recent);
+        verify(dailyCountRepository, never()).subtractLog(any(), anyString(), anyString(), anyString());
+
+        rollupService.forget(counted);
+        verify(dailyCountRepository).subtractLog(LocalDate.of(2024, 1, 2), "READ", "TICKET", "");
+    }
+
+    @Test
+    void recentDaysAreCountedAgainUpToTheRolledUpId() {
+        state.setRolledUpId(100);
+
+        rollupService.reconcile(LocalDate.of(2024, 1, 2));
+
+        verify(dailyCountRepository).deleteSince(LocalDate.of(2024, 1, 2));
+        verify(dailyCountRepository).countSince(LocalDateTime.of(2024, 1, 2, 0, 0), 100);
+    }
+}
@@ -0,0 +1,113 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import group12.Backend.util.ClerkUsers;
+
+class ActivityLogWriterTest {
+
+    /**
+     * Keeps the rows of each INSERT instead of writing them
+     */
+    static class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<Object[]> inserts = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public int update(String sql, Object... args) {
+            assertEquals(args.length, 9 * (sql.split("\\(\\?").length - 1));
+            inserts.add(args);
+            return args.length / 9;
+        }
+    }
+
+    private RecordingJdbcTemplate jdbcTemplate;
+    private ClerkUsers clerkUsers;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new RecordingJdbcTemplate();
+        clerkUsers = mock(ClerkUsers.class);
+        when(clerkUsers.fullName(anyString())).thenReturn("Ada Lovelace");
+    }
+
+    private ActivityLogWriter writer(int capacity, int batchSize, String overflow) {
+        return new ActivityLogWriter(jdbcTemplate, clerkUsers, capacity, batchSize, 50, overflow, 10);
+    }
+
+    @Test
+    void logsAreWrittenInBatches() throws Exception {
+        ActivityLogWriter writer = writer(1000, 200, "block");
+        for (int i = 0; i < 450; i++) {
+            assertTrue(writer.write("CREATE", "TICKET", String.valueOf(i), "user_1", "user", "Created", "Oluşturuldu"));
+        }
+        writer.start();
+        writer.stop();
+
+        int rows = 0;
+        for (Object[] insert : jdbcTemplate.inserts) {
+            assertTrue(insert.length / 9 <= 200);
+            assertEquals("Ada Lovelace", insert[4]);
+            rows += insert.length / 9;
+        }
+        assertEquals(450, rows);
+        assertEquals(3, jdbcTemplate.inserts.size());
+        // Names are looked up once per batch
+        verify(clerkUsers, times(3)).fullName("user_1");
+
+        ActivityLogWriter.Stats stats = writer.stats();
+        assertEquals(450, stats.written());
+        assertEquals(0, stats.queued());
+        assertEquals(150.0, stats.averageBatchSize());
+    }
+
+    @Test
+    void partialBatchesAreWrittenAfterTheFlushInterval() throws Exception {
+        ActivityLogWriter writer = writer(1000, 200, "block");
+        writer.start();
+        writer.write("UPDATE", "VOYAGE", "7", "user_1", "admin", "Updated", "Güncellendi");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (jdbcTemplate.inserts.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        writer.stop();
+        assertEquals(1, jdbcTemplate.inserts.size());
+        assertEquals("VOYAGE", jdbcTemplate.inserts.get(0)[1]);
+    }
+
+    @Test
+    void fullQueueDropsReadLogsFirst() throws Exception {
+        // Not started, so nothing leaves the queue
+        ActivityLogWriter writer = writer(2, 200, "drop-reads");
+        assertTrue(writer.write("READ", "TICKET", "1", "user_1", "user", "Viewed", "Görüntülendi"));
+        assertTrue(writer.write("CREATE", "TICKET", "2", "user_1", "user", "Created", "Oluşturuldu"));
+
+        assertFalse(writer.write("READ", "TICKET", "3", "user_1", "user", "Viewed", "Görüntülendi"));
+        assertTrue(writer.write("DELETE", "TICKET", "2", "user_1", "user", "Deleted", "Silindi"));
+        // No READ log left to drop: the log waits for room, then is dropped
+        assertFalse(writer.write("UPDATE", "TICKET", "4", "user_1", "user", "Updated", "Güncellendi"));
+        assertEquals(3, writer.stats().dropped());
+
+        writer.start();
+        writer.stop();
+        assertEquals(1, jdbcTemplate.inserts.size());
+        Object[] rows = jdbcTemplate.inserts.get(0);
+        assertEquals("CREATE", rows[0]);
+        assertEquals("DELETE", rows[9]);
+    }
+}
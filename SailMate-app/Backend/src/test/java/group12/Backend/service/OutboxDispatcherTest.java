@@ -0,0 +1,139 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import group12.Backend.entity.OutboxEvent;
+import group12.Backend.repository.OutboxEventRepository;
+import group12.Backend.util.ClerkUsers;
+import group12.Backend.util.EmailUtil;
+
+class OutboxDispatcherTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long LEASE_SECONDS = 120;
+
+    private OutboxEventRepository outboxEventRepository;
+    private TicketPdfService ticketPdfService;
+    private PlatformTransactionManager transactionManager;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        ticketPdfService = mock(TicketPdfService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        dispatcher = new OutboxDispatcher(outboxEventRepository, mock(NotificationService.class),
+                mock(ActivityLogService.class), mock(EmailUtil.class), ticketPdfService, mock(ClerkUsers.class),
+                new ObjectMapper(), transactionManager, BATCH_SIZE, MAX_ATTEMPTS, 2000, 600_000, LEASE_SECONDS, 7);
+    }
+
+    private static OutboxEvent pdfEvent(long id, int attempts) {
+        OutboxEvent event = new OutboxEvent(OutboxEvent.EventType.TICKET_PDF, "{\"ticketID\":\"SM-" + id + "\"}");
+        ReflectionTestUtils.setField(event, "id", id);
+        event.setAttempts(attempts);
+        return event;
+    }
+
+    @Test
+    void eventsAreLeasedBeforeTheyAreHandled() throws Exception {
+        OutboxEvent event = pdfEvent(1, 0);
+        when(outboxEventRepository.lockDueEvents(any(), eq(BATCH_SIZE))).thenReturn(List.of(event));
+        List<LocalDateTime> leasedUntil = new ArrayList<>();
+        doAnswer(invocation -> leasedUntil.add(event.getNextAttemptAt())).when(ticketPdfService).refresh("SM-1");
+        // The dispatcher dies before it can record the result
+        when(transactionManager.getTransaction(any()))
+                .thenAnswer(invocation -> new SimpleTransactionStatus())
+                .thenThrow(new TransactionSystemException("connection lost"));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertThrows(TransactionSystemException.class, () -> dispatcher.dispatchBatch());
+
+        // Still pending, so another dispatcher picks it up again once the lease runs out
+        assertEquals(OutboxEvent.Status.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertEquals(1, leasedUntil.size());
+        assertFalse(leasedUntil.get(0).isBefore(before.plusSeconds(LEASE_SECONDS)));
+        assertFalse(leasedUntil.get(0).isAfter(LocalDateTime.now().plusSeconds(LEASE_SECONDS)));
+        verify(outboxEventRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    void backoffDoublesPerAttemptUpToTheMaximumWithJitter() {
+        for (int i = 0; i < 100; i++) {
+            long first = dispatcher.backoffMillis(1);
+            assertTrue(first >= 1600 && first <= 2000, "attempt 1: " + first);
+            long third = dispatcher.backoffMillis(3);
+            assertTrue(third >= 6400 && third <= 8000, "attempt 3: " + third);
+            long capped = dispatcher.backoffMillis(40);
+            assertTrue(capped >= 480_000 && capped <= 600_000, "attempt 40: " + capped);
+        }
+    }
+
+    @Test
+    void failedEventsAreRetriedWithBackoffThenGivenUp() throws Exception {
+        OutboxEvent retried = pdfEvent(1, 0);
+        OutboxEvent exhausted = pdfEvent(2, MAX_ATTEMPTS - 1);
+        OutboxEvent sent = pdfEvent(3, 0);
+        when(outboxEventRepository.lockDueEvents(any(), eq(BATCH_SIZE)))
+                .thenReturn(List.of(retried, exhausted), List.of(sent), List.of());
+        doThrow(new IllegalStateException("disk full")).when(ticketPdfService).refresh("SM-1");
+        doThrow(new IllegalStateException("disk full")).when(ticketPdfService).refresh("SM-2");
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        // A full batch is followed by another one straight away, a partial one ends the poll
+        verify(outboxEventRepository, times(2)).lockDueEvents(any(), anyInt());
+        verify(outboxEventRepository).markSent(eq(List.of(3L)), any());
+
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxEventRepository).markFailedAttempt(eq(1L), eq(OutboxEvent.Status.PENDING),
+                nextAttempt.capture(), eq("TICKET_PDF: disk full"));
+        long delay = Duration.between(before, nextAttempt.getValue()).toMillis();
+        assertTrue(delay >= 1600 && delay < 2000 + 1000, "retry delay: " + delay);
+
+        verify(outboxEventRepository).markFailedAttempt(eq(2L), eq(OutboxEvent.Status.FAILED), any(), anyString());
+    }
+
+    @Test
+    void dispatchStopsWhenNothingIsDue() {
+        when(outboxEventRepository.lockDueEvents(any(), anyInt())).thenReturn(List.of());
+
+        dispatcher.dispatch();
+
+        verify(outboxEventRepository, times(1)).lockDueEvents(any(), anyInt());
+        verify(outboxEventRepository, never()).markFailedAttempt(anyLong(), any(), any(), any());
+    }
+}
@@ -0,0 +1,116 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import group12.Backend.entity.SeatsSold;
+import group12.Backend.entity.Voyage;
+import group12.Backend.repository.SeatsSoldRepository;
+import group12.Backend.repository.VoyageRepository;
+import group12.Backend.util.SeatLayout;
+import group12.Backend.util.SeatSection;
+import group12.Backend.util.VoyageSeatMap;
+
+class SeatInventoryServiceTest {
+
+    private static final int VOYAGE = 7;
+    private static final SeatLayout FAST_FERRY = new SeatLayout("Fast Ferry", new int[]{40, 40, 20, 60, 60, 30});
+    private static final int ECONOMY = SeatSection.LOWER_DECK_ECONOMY.ordinal();
+
+    private SeatsSoldRepository seatsSoldRepository;
+    private SeatsSold row;
+    private SeatInventoryService inventory;
+
+    @BeforeEach
+    void setUp() {
+        seatsSoldRepository = mock(SeatsSoldRepository.class);
+        row = new SeatsSold(mock(Voyage.class), "Fast Ferry");
+        row.setLowerDeckEconomy(0b1L);
+        row.setTotalTicketsSold(1L);
+        when(seatsSoldRepository.findByVoyageId(VOYAGE)).thenAnswer(invocation -> Optional.of(row));
+
+        VesselLayoutService vesselLayoutService = mock(VesselLayoutService.class);
+        when(vesselLayoutService.getLayout("Fast Ferry")).thenReturn(FAST_FERRY);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        inventory = new SeatInventoryService(seatsSoldRepository, mock(VoyageRepository.class), vesselLayoutService,
+                new TransactionTemplate(transactionManager));
+    }
+
+    private void claimsInDatabase(long economy, int result) {
+        when(seatsSoldRepository.claimSeats(eq(VOYAGE), anyLong(), anyLong(), anyLong(), anyLong(), eq(economy),
+                anyLong(), anyLong())).thenReturn(result);
+    }
+
+    @Test
+    void rejectedWriteBackIsReconciledInsteadOfDropped() {
+        assertTrue(inventory.claimSeats(VOYAGE, "1E-2"));
+        assertTrue(inventory.holdSeats(VOYAGE, FAST_FERRY.masksOf("1E-3")));
+
+        // Another instance sold 1E-5, so the row no longer matches what this one wrote
+        row.setLowerDeckEconomy(0b10001L);
+        row.setTotalTicketsSold(2L);
+        when(seatsSoldRepository.claimSeats(eq(VOYAGE), anyLong(), anyLong(), anyLong(), anyLong(), eq(0b10L),
+                anyLong(), eq(1L))).thenReturn(0, 1);
+
+        inventory.flush();
+
+        // The sale and the hold survive and the sale is sent again against the new row
+        VoyageSeatMap seatMap = inventory.peek(VOYAGE).orElseThrow();
+        assertEquals(0b10111L, seatMap.word(SeatSection.LOWER_DECK_ECONOMY));
+        assertEquals(3, seatMap.getTotalTicketsSold());
+        assertTrue(seatMap.hasHolds());
+        verify(seatsSoldRepository, times(2)).claimSeats(eq(VOYAGE), anyLong(), anyLong(), anyLong(), anyLong(),
+                eq(0b10L), anyLong(), eq(1L));
+        synchronized (seatMap) {
+            assertFalse(seatMap.hasUnpersistedClaims());
+            assertEquals(0b10011L, seatMap.getPersistedWords()[ECONOMY]);
+        }
+    }
+
+    @Test
+    void writeThroughDoesNotHoldTheSeatMapDuringTheUpdate() {
+        VoyageSeatMap seatMap = inventory.getSeatMap(VOYAGE);
+        when(seatsSoldRepository.claimSeats(eq(VOYAGE), anyLong(), anyLong(), anyLong(), anyLong(), eq(0b100L),
+                anyLong(), eq(1L))).thenAnswer(invocation -> Thread.holdsLock(seatMap) ? 0 : 1);
+
+        assertEquals(1, inventory.claimSeatsThrough(VOYAGE, "1E-3"));
+
+        // Already persisted, so the next write-back has nothing to send
+        synchronized (seatMap) {
+            assertFalse(seatMap.hasUnpersistedClaims());
+            assertFalse(seatMap.hasWritesInFlight());
+        }
+    }
+
+    @Test
+    void failedWriteThroughIsUndone() {
+        claimsInDatabase(0b100L, 0);
+
+        assertEquals(0, inventory.claimSeatsThrough(VOYAGE, "1E-3"));
+
+        VoyageSeatMap seatMap = inventory.peek(VOYAGE).orElseThrow();
+        assertEquals(0b1L, seatMap.word(SeatSection.LOWER_DECK_ECONOMY));
+        assertEquals(1, seatMap.getTotalTicketsSold());
+        synchronized (seatMap) {
+            assertEquals(0b1L, seatMap.getPersistedWords()[ECONOMY]);
+            assertFalse(seatMap.hasWritesInFlight());
+        }
+    }
+}
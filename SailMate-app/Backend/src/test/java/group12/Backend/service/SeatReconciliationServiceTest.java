@@ -0,0 +1,117 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import group12.Backend.dto.SeatReconciliationDTO;
+import group12.Backend.entity.Voyage;
+import group12.Backend.repository.SeatsSoldRepository;
+import group12.Backend.repository.TicketRepository;
+import group12.Backend.util.SeatLayout;
+import group12.Backend.util.VoyageSeatMap;
+
+class SeatReconciliationServiceTest {
+
+    private static final int VOYAGE = 3;
+    private static final SeatLayout FAST_FERRY = new SeatLayout("Fast Ferry", new int[]{40, 40, 20, 60, 60, 30});
+
+    private SeatsSoldRepository seatsSoldRepository;
+    private TicketRepository ticketRepository;
+    private SeatInventoryService seatInventoryService;
+    private SeatReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        seatsSoldRepository = mock(SeatsSoldRepository.class);
+        ticketRepository = mock(TicketRepository.class);
+        seatInventoryService = mock(SeatInventoryService.class);
+        when(seatsSoldRepository.findVoyageIdsByVoyageStatus(Voyage.VoyageStatus.active)).thenReturn(List.of(VOYAGE));
+        when(seatInventoryService.peek(VOYAGE)).thenReturn(Optional.empty());
+
+        VesselLayoutService vesselLayoutService = mock(VesselLayoutService.class);
+        when(vesselLayoutService.getLayout("Fast Ferry")).thenReturn(FAST_FERRY);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        reconciliationService = new SeatReconciliationService(seatsSoldRepository, ticketRepository,
+                seatInventoryService, vesselLayoutService, transactionManager, 2);
+    }
+
+    private void tickets(String... selectedSeats) {
+        when(ticketRepository.streamSelectedSeatsByVoyageId(VOYAGE)).thenAnswer(invocation -> Stream.of(selectedSeats));
+    }
+
+    private void inDatabase(String seats, long tickets) {
+        long[] words = FAST_FERRY.masksOf(seats);
+        SeatsSoldRepository.SeatBitmaps row = mock(SeatsSoldRepository.SeatBitmaps.class, CALLS_REAL_METHODS);
+        when(row.getShipType()).thenReturn("Fast Ferry");
+        when(row.getUpperDeckPromo()).thenReturn(words[0]);
+        when(row.getUpperDeckEconomy()).thenReturn(words[1]);
+        when(row.getUpperDeckBusiness()).thenReturn(words[2]);
+        when(row.getLowerDeckPromo()).thenReturn(words[3]);
+        when(row.getLowerDeckEconomy()).thenReturn(words[4]);
+        when(row.getLowerDeckBusiness()).thenReturn(words[5]);
+        when(row.getTotalTicketsSold()).thenReturn(tickets);
+        when(seatsSoldRepository.findBitmapsByVoyageId(VOYAGE)).thenReturn(Optional.of(row));
+    }
+
+    @Test
+    void voyagesNotInMemoryAreCheckedAgainstSeatsSoldWithoutLoadingThem() {
+        inDatabase("1E-1,1E-7", 2);
+        tickets("1E-1", "1E-2");
+
+        SeatReconciliationDTO result = reconciliationService.reconcile(true);
+
+        assertEquals(1, result.discrepancies().size());
+        SeatReconciliationDTO.VoyageDiscrepancy discrepancy = result.discrepancies().get(0);
+        assertEquals("1E-2", discrepancy.missingSeats());
+        assertEquals("1E-7", discrepancy.extraSeats());
+        assertEquals(0, discrepancy.seatsRepaired());
+        verify(seatInventoryService, never()).getSeatMap(any());
+        verify(seatInventoryService, never()).reconcile(any(), any(), any(), anyLong());
+
+        // Seen twice in a row, so it is repaired through the inventory
+        reconciliationService.reconcile(true);
+        ArgumentCaptor<long[]> missing = ArgumentCaptor.forClass(long[].class);
+        ArgumentCaptor<long[]> extra = ArgumentCaptor.forClass(long[].class);
+        verify(seatInventoryService).reconcile(any(), missing.capture(), extra.capture(), anyLong());
+        assertArrayEquals(FAST_FERRY.masksOf("1E-2"), missing.getValue());
+        assertArrayEquals(FAST_FERRY.masksOf("1E-7"), extra.getValue());
+    }
+
+    @Test
+    void heldSeatOfATicketIsDoubleSoldButNotMissing() {
+        VoyageSeatMap seatMap = new VoyageSeatMap(FAST_FERRY, FAST_FERRY.masksOf("1E-1"), 1);
+        seatMap.hold(FAST_FERRY.masksOf("1E-2"));
+        when(seatInventoryService.peek(VOYAGE)).thenReturn(Optional.of(seatMap));
+        tickets("1E-1", "1E-2");
+
+        reconciliationService.reconcile(true);
+        SeatReconciliationDTO result = reconciliationService.reconcile(true);
+
+        // The hold would sell 1E-2 a second time, so it is reported, but kept
+        assertEquals(1, result.discrepancies().size());
+        assertEquals("", result.discrepancies().get(0).missingSeats());
+        assertEquals("", result.discrepancies().get(0).extraSeats());
+        assertEquals("1E-2", result.discrepancies().get(0).doubleSoldSeats());
+        assertTrue(seatMap.hasHolds());
+        verify(seatsSoldRepository, never()).findBitmapsByVoyageId(any());
+    }
+}
@@ -0,0 +1,119 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.entity.TicketPassenger;
+import group12.Backend.repository.TicketPassengerRepository;
+
+class TicketPassengerServiceTest {
+
+    private static final String TICKET_DATA = "[{\"name\":\"Ada\",\"surname\":\"Yılmaz\",\"birthDate\":\"1990-01-01\","
+            + "\"email\":\"ada@example.com\",\"phoneNo\":\"555\",\"passengerType\":\"Adult\"},"
+            + "{\"name\":\"Can\",\"surname\":\"Yılmaz\",\"passengerType\":\"Child\"}]";
+
+    private TicketPassengerRepository ticketPassengerRepository;
+    private TicketPassengerService ticketPassengerService;
+
+    @BeforeEach
+    void setUp() {
+        ticketPassengerRepository = mock(TicketPassengerRepository.class);
+        ticketPassengerService = new TicketPassengerService(ticketPassengerRepository, new ObjectMapper());
+    }
+
+    private static TicketPassenger row(String ticketId, int position, String name) {
+        return new TicketPassenger(ticketId, position, name, "Demir", "1985-05-05", null, null, "Adult");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void passengersAreStoredInBookingOrder() throws Exception {
+        List<TicketDTO.PassengerInfo> passengers = ticketPassengerService.parseTicketData(TICKET_DATA);
+
+        assertEquals(2, ticketPassengerService.savePassengers("TKT-1", passengers));
+
+        ArgumentCaptor<List<TicketPassenger>> rows = ArgumentCaptor.forClass(List.class);
+        verify(ticketPassengerRepository).saveAll(rows.capture());
+        assertEquals(2, rows.getValue().size());
+        assertEquals(1, rows.getValue().get(1).getPosition());
+        assertEquals("Can", rows.getValue().get(1).getName());
+        assertEquals("Child", rows.getValue().get(1).getPassengerType());
+        assertEquals("ada@example.com", rows.getValue().get(0).getEmail());
+    }
+
+    @Test
+    void replacedPassengersAreDeletedBeforeTheNewRowsAreWritten() throws Exception {
+        ticketPassengerService.replacePassengers("TKT-1", ticketPassengerService.parseTicketData(TICKET_DATA));
+
+        InOrder order = inOrder(ticketPassengerRepository);
+        order.verify(ticketPassengerRepository).deleteByTicketId("TKT-1");
+        order.verify(ticketPassengerRepository).flush();
+        order.verify(ticketPassengerRepository).saveAll(any());
+    }
+
+    @Test
+    void passengerRowsAreReadInsteadOfTicketData() {
+        when(ticketPassengerRepository.findByTicketIdOrderByPositionAsc("TKT-1"))
+                .thenReturn(List.of(row("TKT-1", 0, "Ece"), row("TKT-1", 1, "Efe")));
+
+        // ticket_data is not even looked at
+        List<TicketDTO.PassengerInfo> passengers = ticketPassengerService.getPassengers("TKT-1", "not json");
+
+        assertEquals(2, passengers.size());
+        assertEquals("Efe", passengers.get(1).getName());
+        assertEquals("Adult", passengers.get(1).getPassengerType());
+    }
+
+    @Test
+    void ticketsWithoutRowsFallBackToTicketData() {
+        when(ticketPassengerRepository.findByTicketIdOrderByPositionAsc(any())).thenReturn(List.of());
+
+        List<TicketDTO.PassengerInfo> passengers = ticketPassengerService.getPassengers("TKT-1", TICKET_DATA);
+
+        assertEquals(2, passengers.size());
+        assertEquals("Can", passengers.get(1).getName());
+        assertNull(ticketPassengerService.getPassengers("TKT-2", "not json"));
+        assertNull(ticketPassengerService.getPassengers("TKT-3", null));
+    }
+
+    @Test
+    void passengersOfSeveralTicketsAreReadWithOneQuery() {
+        when(ticketPassengerRepository.findByTicketIdInOrderByTicketIdAscPositionAsc(anyCollection()))
+                .thenReturn(List.of(row("TKT-1", 0, "Ece"), row("TKT-1", 1, "Efe"), row("TKT-2", 0, "Ali")));
+        Map<String, String> ticketData = new LinkedHashMap<>();
+        ticketData.put("TKT-1", "not json");
+        ticketData.put("TKT-2", "not json");
+        ticketData.put("TKT-3", TICKET_DATA);
+        ticketData.put("TKT-4", "not json");
+
+        Map<String, List<TicketDTO.PassengerInfo>> passengers = ticketPassengerService.getPassengers(ticketData);
+
+        assertEquals(2, passengers.get("TKT-1").size());
+        assertEquals("Ali", passengers.get("TKT-2").get(0).getName());
+        // Not backfilled yet
+        assertEquals("Ada", passengers.get("TKT-3").get(0).getName());
+        assertNull(passengers.get("TKT-4"));
+        assertEquals(Set.of("TKT-1", "TKT-2", "TKT-3", "TKT-4"), passengers.keySet());
+        verify(ticketPassengerRepository, times(1)).findByTicketIdInOrderByTicketIdAscPositionAsc(anyCollection());
+    }
+}
@@ -0,0 +1,154 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.entity.CompletedTicket;
+import group12.Backend.entity.Station;
+import group12.Backend.entity.Ticket;
+import group12.Backend.entity.Voyage;
+import group12.Backend.util.TicketPDFGenerator;
+
+class TicketPdfServiceTest {
+
+    private static final String TICKET_ID = "TKT-0000ABCD";
+
+    @TempDir
+    Path storeDir;
+
+    private TicketService ticketService;
+    private CompletedTicketService completedTicketService;
+    private TicketPdfService ticketPdfService;
+
+    @BeforeEach
+    void setUp() {
+        ticketService = mock(TicketService.class);
+        completedTicketService = mock(CompletedTicketService.class);
+        ticketPdfService = new TicketPdfService(ticketService, completedTicketService, storeDir.toString());
+    }
+
+    @Test
+    void downloadsAreServedFromTheStoreWithoutLoadingTheTicket() throws Exception {
+        when(ticketService.getTicketPdfData(TICKET_ID)).thenReturn(Optional.of(pages("ALICE")));
+
+        TicketPdfService.StoredPdf first = ticketPdfService.getTicketPdf(TICKET_ID).orElseThrow();
+        long modified = Files.getLastModifiedTime(first.file()).toMillis();
+        TicketPdfService.StoredPdf second = ticketPdfService.getTicketPdf(TICKET_ID).orElseThrow();
+
+        assertEquals(first, second);
+        assertEquals(modified, Files.getLastModifiedTime(second.file()).toMillis());
+        assertTrue(Files.size(first.file()) > 0);
+        verify(ticketService, times(1)).getTicketPdfData(TICKET_ID);
+    }
+
+    @Test
+    void refreshReplacesTheOldVersion() throws Exception {
+        when(ticketService.getTicketPdfData(TICKET_ID)).thenReturn(Optional.of(pages("ALICE")));
+        when(completedTicketService.getCompletedTicketPdfData(TICKET_ID)).thenReturn(Optional.empty());
+        TicketPdfService.StoredPdf before = ticketPdfService.getTicketPdf(TICKET_ID).orElseThrow();
+
+        // The changed ticket is served once the outbox has rendered it
+        when(ticketService.getTicketPdfData(TICKET_ID)).thenReturn(Optional.of(pages("BOB")));
+        assertEquals(before, ticketPdfService.getTicketPdf(TICKET_ID).orElseThrow());
+        ticketPdfService.refresh(TICKET_ID);
+        TicketPdfService.StoredPdf after = ticketPdfService.getTicketPdf(TICKET_ID).orElseThrow();
+
+        assertNotEquals(before.version(), after.version());
+        assertFalse(Files.exists(before.file()));
+        assertTrue(Files.exists(after.file()));
+    }
+
+    @Test
+    void completingTheTicketMovesThePdfOver() throws Exception {
+        when(ticketService.getTicketPdfData(TICKET_ID)).thenReturn(Optional.of(pages("ALICE")));
+        TicketPdfService.StoredPdf ticket = ticketPdfService.getTicketPdf(TICKET_ID).orElseThrow();
+
+        when(ticketService.getTicketPdfData(TICKET_ID)).thenReturn(Optional.empty());
+        when(completedTicketService.getCompletedTicketPdfData(TICKET_ID)).thenReturn(Optional.of(pages("ALICE")));
+        ticketPdfService.refresh(TICKET_ID);
+
+        assertTrue(ticketPdfService.getTicketPdf(TICKET_ID).isEmpty());
+        assertEquals(ticket, ticketPdfService.getCompletedTicketPdf(TICKET_ID).orElseThrow());
+    }
+
+    @Test
+    void completedTicketReusesTheTicketPdf() throws Exception {
+        when(ticketService.getTicketPdfData(TICKET_ID)).thenReturn(Optional.of(pages("ALICE")));
+        TicketPdfService.StoredPdf ticket = ticketPdfService.getTicketPdf(TICKET_ID).orElseThrow();
+
+        when(completedTicketService.getCompletedTicketPdfData(TICKET_ID)).thenReturn(Optional.of(pages("ALICE")));
+        assertEquals(ticket, ticketPdfService.getCompletedTicketPdf(TICKET_ID).orElseThrow());
+    }
+
+    @Test
+    void refreshRemovesPdfsOfDeletedTickets() throws Exception {
+        when(ticketService.getTicketPdfData(TICKET_ID)).thenReturn(Optional.of(pages("ALICE")));
+        Path file = ticketPdfService.getTicketPdf(TICKET_ID).orElseThrow().file();
+
+        when(ticketService.getTicketPdfData(TICKET_ID)).thenReturn(Optional.empty());
+        when(completedTicketService.getCompletedTicketPdfData(TICKET_ID)).thenReturn(Optional.empty());
+        ticketPdfService.refresh(TICKET_ID);
+
+        assertFalse(Files.exists(file.getParent()));
+    }
+
+    @Test
+    void ticketAndItsCompletedCopyPrintTheSamePass() {
+        Voyage voyage = new Voyage();
+        voyage.setFromStation(new Station(null, "Izmir", "Konak", "Personnel", "555", "Address",
+                Station.Status.active, null, null));
+        voyage.setToStation(new Station(null, "Izmir", "Cesme", "Personnel", "555", "Address",
+                Station.Status.active, null, null));
+        voyage.setDepartureDate(LocalDate.of(2025, 6, 1));
+        voyage.setDepartureTime(LocalTime.of(9, 30));
+        Ticket ticket = new Ticket(TICKET_ID, 1, 1, 500.0, "Economy", "B1", "user", "[]");
+
+        CompletedTicket completed = new CompletedTicket();
+        completed.setTicketId(TICKET_ID);
+        completed.setDepStationTitle("Konak");
+        completed.setArrStationTitle("Cesme");
+        completed.setDepDate(voyage.getDepartureDate());
+        completed.setDepTime(voyage.getDepartureTime());
+        completed.setSelectedSeats("B1");
+        completed.setTicketClass("Economy");
+
+        TicketDTO.PassengerInfo passenger = new TicketDTO.PassengerInfo("Alice", "Smith", null, null, null);
+        assertEquals(
+                TicketPdfService.version(List.of(TicketPDFGenerator.TicketData.of(ticket, voyage, passenger))),
+                TicketPdfService.version(List.of(TicketPDFGenerator.TicketData.of(completed, passenger))));
+    }
+
+    private static List<TicketPDFGenerator.TicketData> pages(String passengerName) {
+        TicketPDFGenerator.TicketData data = new TicketPDFGenerator.TicketData();
+        data.ticketId = TICKET_ID;
+        data.passengerName = passengerName;
+        data.date = "2025-06-01";
+        data.time = "09:30";
+        data.from = "Izmir";
+        data.to = "Cesme";
+        data.seat = "B1";
+        data.gate = "1";
+        data.boardTill = "Board 15m before";
+        data.ticketClass = "ECONOMY";
+        data.passengerType = "ADULT";
+        return List.of(data);
+    }
+}
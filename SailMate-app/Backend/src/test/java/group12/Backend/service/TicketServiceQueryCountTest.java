@@ -0,0 +1,147 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.dto.TicketSalesRow;
+import group12.Backend.entity.Station;
+import group12.Backend.entity.Ticket;
+import group12.Backend.entity.TicketPassenger;
+import group12.Backend.entity.Voyage;
+import group12.Backend.repository.TicketPassengerRepository;
+import group12.Backend.repository.TicketRepository;
+import group12.Backend.repository.VoyageRepository;
+import group12.Backend.util.TicketIdGenerator;
+
+/**
+ * Counts the statements of the ticket list queries against H2, so a lazy
+ * association or per-ticket lookup that sneaks back in fails the test.
+ */
+@DataJpaTest(properties = {
+        // month and value are column names in this schema
+        "spring.datasource.url=jdbc:h2:mem:tickets;MODE=MySQL;NON_KEYWORDS=MONTH,VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TicketServiceQueryCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private VoyageRepository voyageRepository;
+
+    @Autowired
+    private TicketPassengerRepository ticketPassengerRepository;
+
+    private TicketService ticketService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ticketService = new TicketService(ticketRepository, voyageRepository, objectMapper,
+                mock(OutboxService.class), mock(TicketSeatService.class),
+                new TicketPassengerService(ticketPassengerRepository, objectMapper),
+                mock(SeatsSoldService.class), mock(SeatHoldService.class), mock(TicketIdGenerator.class));
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Station station(String city, String title) {
+        return entityManager.persist(new Station(null, city, title, "Personnel", "555", "Address",
+                Station.Status.active, null, null));
+    }
+
+    // Tickets of one user, each on its own voyage and with two passengers
+    private void ticketsOf(String userId, int count) {
+        Station from = station("İstanbul", "Kadıköy");
+        Station to = station("İstanbul", "Karaköy");
+        for (int i = 0; i < count; i++) {
+            Voyage voyage = new Voyage();
+            voyage.setFromStation(from);
+            voyage.setToStation(to);
+            voyage.setDepartureDate(LocalDate.of(2025, 6, 1).plusDays(i));
+            voyage.setDepartureTime(LocalTime.of(10, 30));
+            voyage.setArrivalTime(LocalTime.of(11, 0));
+            voyage.setShipType("Fast Ferry");
+            entityManager.persist(voyage);
+
+            String ticketId = userId + "-" + i;
+            entityManager.persist(new Ticket(ticketId, voyage.getId(), 2, 500.0, "Economy", "1E-1,1E-2", userId, "[]"));
+            entityManager.persist(new TicketPassenger(ticketId, 0, "Ada", "Yılmaz", null, null, null, "Adult"));
+            entityManager.persist(new TicketPassenger(ticketId, 1, "Can", "Yılmaz", null, null, null, "Child"));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long statementsToList(String userId, int expectedTickets, boolean includePassengers) {
+        statistics.clear();
+        List<TicketDTO.TicketResponse> tickets = ticketService.getTicketsByUserId(userId, includePassengers);
+        assertEquals(expectedTickets, tickets.size());
+        assertEquals("Karaköy", tickets.get(expectedTickets - 1).getToStationTitle());
+        if (includePassengers) {
+            assertEquals(2, tickets.get(expectedTickets - 1).getPassengers().size());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void ticketsOfUserAreLoadedWithConstantQueries() {
+        ticketsOf("one", 1);
+        ticketsOf("many", 25);
+
+        long one = statementsToList("one", 1, true);
+        long many = statementsToList("many", 25, true);
+
+        // One query for tickets, voyages and stations, one for the passengers
+        assertEquals(2, one);
+        assertEquals(one, many);
+        assertEquals(1, statementsToList("many", 25, false));
+    }
+
+    @Test
+    void salesAreSummedByMonthClassAndRoute() {
+        ticketsOf("user", 3);
+        Ticket lastYear = new Ticket("old", 1, 1, 100.0, "Economy", "1E-3", "user", "[]");
+        entityManager.persist(lastYear);
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE tickets SET created_at = '2024-12-31 23:00:00' WHERE ticket_id = 'old'")
+                .executeUpdate();
+
+        List<TicketSalesRow> sales = ticketService.getSales(LocalDate.now().getYear());
+
+        assertEquals(1, sales.size());
+        TicketSalesRow row = sales.get(0);
+        assertEquals(LocalDate.now().getMonthValue(), row.month());
+        assertEquals("Kadıköy", row.fromStationTitle());
+        assertEquals(3, row.tickets());
+        assertEquals(1500.0, row.revenue());
+        assertEquals(6, row.passengers());
+    }
+}
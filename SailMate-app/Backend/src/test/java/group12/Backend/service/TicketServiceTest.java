@@ -0,0 +1,219 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.dto.TicketVoyageView;
+import group12.Backend.entity.SeatsSold;
+import group12.Backend.entity.Ticket;
+import group12.Backend.entity.Voyage;
+import group12.Backend.repository.SeatsSoldRepository;
+import group12.Backend.repository.TicketRepository;
+import group12.Backend.repository.VoyageRepository;
+import group12.Backend.util.SeatLayout;
+import group12.Backend.util.SeatSection;
+import group12.Backend.util.TicketIdGenerator;
+import group12.Backend.util.VoyageSeatMap;
+import io.jsonwebtoken.Claims;
+
+class TicketServiceTest {
+
+    private TicketRepository ticketRepository;
+    private VoyageRepository voyageRepository;
+    private TicketPassengerService ticketPassengerService;
+    private TicketService ticketService;
+
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        voyageRepository = mock(VoyageRepository.class);
+        ticketPassengerService = mock(TicketPassengerService.class);
+        ticketService = new TicketService(ticketRepository, voyageRepository, new ObjectMapper(),
+                mock(OutboxService.class), mock(TicketSeatService.class), ticketPassengerService,
+                mock(SeatsSoldService.class), mock(SeatHoldService.class), mock(TicketIdGenerator.class));
+    }
+
+    @Test
+    void deletionReadsVoyageDetailsFromTheTicketQuery() {
+        when(ticketRepository.findVoyageViewById(5)).thenReturn(Optional.of(view(5)));
+        Claims actor = mock(Claims.class);
+        when(actor.getSubject()).thenReturn("user");
+
+        assertTrue(ticketService.deleteTicket(5, actor));
+
+        verify(ticketRepository, times(1)).findVoyageViewById(5);
+        verify(ticketRepository).deleteById(5);
+        verifyNoInteractions(voyageRepository);
+    }
+
+    private static final int VOYAGE = 7;
+    private static final SeatLayout FAST_FERRY = new SeatLayout("Fast Ferry", new int[]{40, 40, 20, 60, 60, 30});
+
+    private SeatsSoldRepository seatsSoldRepository;
+    private SeatInventoryService seatInventoryService;
+    private SeatHoldService seatHoldService;
+
+    // A TicketService booking against a real seat inventory and hold service, with 1E-1 already sold
+    private TicketService bookingService(long holdTtlSeconds) {
+        seatsSoldRepository = mock(SeatsSoldRepository.class);
+        SeatsSold row = new SeatsSold(mock(Voyage.class), "Fast Ferry");
+        row.setLowerDeckEconomy(0b1L);
+        row.setTotalTicketsSold(1L);
+        when(seatsSoldRepository.findByVoyageId(VOYAGE)).thenReturn(Optional.of(row));
+        sellsInDatabase(1);
+
+        VesselLayoutService vesselLayoutService = mock(VesselLayoutService.class);
+        when(vesselLayoutService.getLayout("Fast Ferry")).thenReturn(FAST_FERRY);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        seatInventoryService = new SeatInventoryService(seatsSoldRepository, voyageRepository, vesselLayoutService,
+                new TransactionTemplate(transactionManager));
+        seatHoldService = new SeatHoldService(seatInventoryService, holdTtlSeconds);
+        SeatsSoldService seatsSoldService = new SeatsSoldService(seatsSoldRepository, voyageRepository,
+                seatInventoryService, vesselLayoutService);
+
+        when(voyageRepository.existsById(VOYAGE)).thenReturn(true);
+        when(ticketRepository.save(any())).then(returnsFirstArg());
+        return new TicketService(ticketRepository, voyageRepository, new ObjectMapper(),
+                mock(OutboxService.class), mock(TicketSeatService.class), ticketPassengerService,
+                seatsSoldService, seatHoldService, mock(TicketIdGenerator.class));
+    }
+
+    private void sellsInDatabase(int result) {
+        when(seatsSoldRepository.claimSeats(eq(VOYAGE), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong())).thenReturn(result);
+    }
+
+    private static TicketDTO.TicketRequest request(String seats) {
+        return new TicketDTO.TicketRequest(VOYAGE, 1, 500.0, "Economy", seats, "user", List.of());
+    }
+
+    private static Claims user() {
+        Claims actor = mock(Claims.class);
+        when(actor.getSubject()).thenReturn("user");
+        return actor;
+    }
+
+    private long economy() {
+        return seatInventoryService.peek(VOYAGE).orElseThrow().word(SeatSection.LOWER_DECK_ECONOMY);
+    }
+
+    @Test
+    void bookingWithAHoldSellsTheHeldSeats() throws Exception {
+        TicketService bookingService = bookingService(600);
+        String token = seatHoldService.holdSeats(VOYAGE, "1E-2,1E-3", "user").orElseThrow().getToken();
+
+        bookingService.bookTicket(request("1E-2"), token, user());
+
+        // 1E-3 was held but not bought, so it is free again
+        VoyageSeatMap seatMap = seatInventoryService.peek(VOYAGE).orElseThrow();
+        assertEquals(0b11L, economy());
+        assertEquals(2, seatMap.getTotalTicketsSold());
+        assertFalse(seatMap.hasHolds());
+        assertFalse(seatHoldService.releaseHold(token, "user"));
+    }
+
+    @Test
+    void bookingWithAnExpiredHoldClaimsTheSeats() throws Exception {
+        TicketService bookingService = bookingService(0);
+        String token = seatHoldService.holdSeats(VOYAGE, "1E-2", "user").orElseThrow().getToken();
+        VoyageSeatMap seatMap = seatInventoryService.peek(VOYAGE).orElseThrow();
+        seatHoldService.startExpiryThread();
+        try {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (seatMap.hasHolds() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            seatHoldService.stopExpiryThread();
+        }
+        assertEquals(0b1L, economy());
+
+        bookingService.bookTicket(request("1E-2"), token, user());
+
+        assertEquals(0b11L, economy());
+        assertEquals(2, seatMap.getTotalTicketsSold());
+        assertFalse(seatMap.hasHolds());
+    }
+
+    @Test
+    void bookingWithAHoldOfAnEvictedSeatMapClaimsTheSeats() throws Exception {
+        TicketService bookingService = bookingService(600);
+        String token = seatHoldService.holdSeats(VOYAGE, "1E-2", "user").orElseThrow().getToken();
+        seatInventoryService.evict(VOYAGE);
+        // Someone else holds the seat next to it on the reloaded map
+        seatHoldService.holdSeats(VOYAGE, "1E-3", "other").orElseThrow();
+
+        bookingService.bookTicket(request("1E-2"), token, user());
+
+        // The other hold is neither converted nor released by the stale one
+        assertEquals(0b111L, economy());
+        assertTrue(seatInventoryService.peek(VOYAGE).orElseThrow().hasHolds());
+        assertFalse(seatHoldService.releaseHold(token, "user"));
+    }
+
+    @Test
+    void holdWhoseSaleIsRejectedDoesNotKeepItsSeats() throws Exception {
+        TicketService bookingService = bookingService(600);
+        String token = seatHoldService.holdSeats(VOYAGE, "1E-2", "user").orElseThrow().getToken();
+        // Sold by another instance in the meantime
+        sellsInDatabase(0);
+
+        assertThrows(IllegalStateException.class, () -> bookingService.bookTicket(request("1E-2"), token, user()));
+
+        VoyageSeatMap seatMap = seatInventoryService.peek(VOYAGE).orElseThrow();
+        assertFalse(seatMap.hasHolds());
+        assertEquals(0b1L, economy());
+        assertEquals(1, seatMap.getTotalTicketsSold());
+    }
+
+    @Test
+    void deletionFreesTheSeatsInTheSameTransaction() {
+        TicketService bookingService = bookingService(600);
+        when(seatsSoldRepository.releaseSeats(eq(VOYAGE), anyLong(), anyLong(), anyLong(), anyLong(), eq(0b1L),
+                anyLong(), eq(-1L))).thenReturn(1);
+        Ticket ticket = new Ticket("TKT-9", VOYAGE, 1, 500.0, "Economy", "1E-1", "user", "[]");
+        ticket.setId(9);
+        when(ticketRepository.findVoyageViewById(9)).thenReturn(Optional.of(new TicketVoyageView(ticket,
+                "İstanbul", "Kadıköy", "İstanbul", "Karaköy", LocalDate.of(2025, 6, 1), LocalTime.of(10, 30),
+                LocalTime.of(11, 0))));
+
+        assertTrue(bookingService.deleteTicket(9, user()));
+
+        assertEquals(0L, economy());
+        assertEquals(0, seatInventoryService.peek(VOYAGE).orElseThrow().getTotalTicketsSold());
+        verify(ticketRepository).deleteById(9);
+    }
+
+    private static TicketVoyageView view(int i) {
+        Ticket ticket = new Ticket("TKT-" + i, 100 + i, 1, 500.0, "Economy", "E-12", "user", "[]");
+        ticket.setId(i);
+        return new TicketVoyageView(ticket, "İstanbul", "Kadıköy", "İstanbul", "Karaköy",
+                LocalDate.of(2025, 6, 1), LocalTime.of(10, 30), LocalTime.of(11, 0));
+    }
+}
@@ -0,0 +1,123 @@
+package group12.Backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import com.itextpdf.text.pdf.PdfReader;
+
+import group12.Backend.dto.TicketDTO;
+import group12.Backend.entity.Station;
+import group12.Backend.entity.Ticket;
+import group12.Backend.entity.Voyage;
+import group12.Backend.repository.TicketRepository;
+
+class VoyageManifestServiceTest {
+
+    private static final int TICKETS = 60;
+
+    private TicketRepository ticketRepository;
+    private TicketPassengerService ticketPassengerService;
+    private VoyageManifestService manifestService;
+    private Voyage voyage;
+
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        ticketPassengerService = mock(TicketPassengerService.class);
+        manifestService = new VoyageManifestService(ticketRepository, ticketPassengerService, 4);
+
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 1; i <= TICKETS; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setId(i);
+            ticket.setTicketID(String.format("TKT-%08X", i));
+            ticket.setVoyageId(1);
+            ticket.setTicketClass("economy");
+            ticket.setSelectedSeats("B" + i);
+            ticket.setUserId("user");
+            ticket.setTicketData("[]");
+            tickets.add(ticket);
+        }
+        when(ticketRepository.findByVoyageIdAndIdGreaterThanOrderByIdAsc(eq(1), anyInt(), any(Limit.class)))
+                .thenAnswer(call -> {
+                    int afterId = call.getArgument(1);
+                    int limit = call.<Limit>getArgument(2).max();
+                    return tickets.stream().filter(t -> t.getId() > afterId).limit(limit).toList();
+                });
+        when(ticketPassengerService.getPassengers(anyMap())).thenAnswer(call -> {
+            Map<String, List<TicketDTO.PassengerInfo>> passengers = new HashMap<>();
+            for (Object ticketId : call.<Map<?, ?>>getArgument(0).keySet()) {
+                passengers.put((String) ticketId, List.of(passenger("Ada"), passenger("Can")));
+            }
+            return passengers;
+        });
+
+        Station from = new Station();
+        from.setTitle("Izmir");
+        Station to = new Station();
+        to.setTitle("Cesme");
+        voyage = new Voyage();
+        voyage.setId(1);
+        voyage.setFromStation(from);
+        voyage.setToStation(to);
+        voyage.setDepartureDate(LocalDate.of(2025, 6, 1));
+        voyage.setDepartureTime(LocalTime.of(9, 30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        manifestService.shutdown();
+    }
+
+    @Test
+    void boardingPassesAreMergedInTicketOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(TICKETS * 2, manifestService.writeBoardingPasses(voyage, out));
+
+        PdfReader reader = new PdfReader(out.toByteArray());
+        assertEquals(TICKETS * 2, reader.getNumberOfPages());
+        reader.close();
+        // 25 tickets per page: 25, 25, 10
+        verify(ticketRepository, times(3)).findByVoyageIdAndIdGreaterThanOrderByIdAsc(eq(1), anyInt(), any(Limit.class));
+        verify(ticketPassengerService, times(3)).getPassengers(anyMap());
+    }
+
+    @Test
+    void manifestHasOneRowPerPassenger() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(TICKETS * 2, manifestService.writeManifestCsv(voyage, out));
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(TICKETS * 2 + 1, lines.size());
+        assertEquals("TKT-00000001,2,Can,Doe,adult,,,,economy,B1,user", lines.get(2));
+    }
+
+    private static TicketDTO.PassengerInfo passenger(String name) {
+        TicketDTO.PassengerInfo passenger = new TicketDTO.PassengerInfo();
+        passenger.setName(name);
+        passenger.setSurname("Doe");
+        passenger.setPassengerType("adult");
+        return passenger;
+    }
+}
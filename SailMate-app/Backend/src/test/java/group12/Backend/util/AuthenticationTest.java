@@ -0,0 +1,159 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+class AuthenticationTest {
+
+    /**
+     * Signing keys held in memory, counting the loads
+     */
+    static class LocalKeys implements ClerkApi {
+        final Map<String, PublicKey> keys = new ConcurrentHashMap<>();
+        final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public Map<String, PublicKey> signingKeys() {
+            loads.incrementAndGet();
+            return new HashMap<>(keys);
+        }
+
+        @Override
+        public List<ClerkUser> listUsers(int offset, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<ClerkUser> getUser(String userId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<ClerkUser> updateMetadata(String userId, Map<String, Object> publicMetadata) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteUser(String userId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static KeyPair rsaKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private static String token(KeyPair keys, String kid, String subject, long issuedAgoMs, long expiresInMs) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .header().keyId(kid).and()
+                .subject(subject)
+                .claim("meta_data", Map.of("role", "admin"))
+                .issuedAt(new Date(now - issuedAgoMs))
+                .expiration(new Date(now + expiresInMs))
+                .signWith(keys.getPrivate(), Jwts.SIG.RS256)
+                .compact();
+    }
+
+    @Test
+    void verifiesTokensLocally() throws Exception {
+        KeyPair keys = rsaKeys();
+        LocalKeys clerk = new LocalKeys();
+        clerk.keys.put("key_1", keys.getPublic());
+        Authentication authentication = new Authentication(clerk, 100, 5, 30);
+
+        Claims claims = authentication.getClaims("Bearer " + token(keys, "key_1", "user_1", 0, 60_000));
+        assertEquals("user_1", claims.getSubject());
+        assertEquals("admin", claims.get("meta_data", HashMap.class).get("role"));
+
+        // Keys are loaded once, not for every token
+        authentication.getClaims("Bearer " + token(keys, "key_1", "user_2", 0, 60_000));
+        assertEquals(1, clerk.loads.get());
+    }
+
+    @Test
+    void claimsAreCachedUntilExpiry() throws Exception {
+        KeyPair keys = rsaKeys();
+        LocalKeys clerk = new LocalKeys();
+        clerk.keys.put("key_1", keys.getPublic());
+        Authentication authentication = new Authentication(clerk, 2, 0, 30);
+
+        String first = "Bearer " + token(keys, "key_1", "user_1", 0, 60_000);
+        Claims claims = authentication.getClaims(first);
+        assertSame(claims, authentication.getClaims(first));
+
+        // Only the last two tokens are kept
+        authentication.getClaims("Bearer " + token(keys, "key_1", "user_2", 0, 60_000));
+        authentication.getClaims("Bearer " + token(keys, "key_1", "user_3", 0, 60_000));
+        Claims again = authentication.getClaims(first);
+        assertNotSame(claims, again);
+        assertEquals("user_1", again.getSubject());
+
+        String expiring = "Bearer " + token(keys, "key_1", "user_4", 0, 1_000);
+        assertEquals("user_4", authentication.getClaims(expiring).getSubject());
+        Thread.sleep(1_100);
+        assertNull(authentication.getClaims(expiring));
+    }
+
+    @Test
+    void invalidTokensAreRejected() throws Exception {
+        KeyPair keys = rsaKeys();
+        KeyPair otherKeys = rsaKeys();
+        LocalKeys clerk = new LocalKeys();
+        clerk.keys.put("key_1", keys.getPublic());
+        Authentication authentication = new Authentication(clerk, 100, 5, 30);
+
+        assertNull(authentication.getClaims(null));
+        assertNull(authentication.getClaims("Bearer "));
+        assertNull(authentication.getClaims("Bearer not.a.token"));
+        assertNull(authentication.getClaims("Bearer " + token(otherKeys, "key_1", "user_1", 0, 60_000)));
+        assertNull(authentication.getClaims("Bearer " + token(keys, "key_1", "user_1", 120_000, -60_000)));
+        assertNull(authentication.getClaims("Bearer " + token(keys, "key_1", "user_1", -60_000, 120_000)));
+
+        String unsigned = Jwts.builder().header().keyId("key_1").and().subject("user_1")
+                .expiration(new Date(System.currentTimeMillis() + 60_000)).compact();
+        assertNull(authentication.getClaims("Bearer " + unsigned));
+    }
+
+    @Test
+    void unknownKeysReloadAtMostOncePerInterval() throws Exception {
+        KeyPair keys = rsaKeys();
+        KeyPair rotated = rsaKeys();
+        LocalKeys clerk = new LocalKeys();
+        clerk.keys.put("key_1", keys.getPublic());
+        Authentication authentication = new Authentication(clerk, 100, 5, 30);
+        authentication.refreshKeys();
+
+        // Rotated after the keys were loaded: the reload is held back until the interval has passed
+        clerk.keys.put("key_2", rotated.getPublic());
+        assertNull(authentication.getClaims("Bearer " + token(rotated, "key_2", "user_1", 0, 60_000)));
+        assertEquals(1, clerk.loads.get());
+
+        Authentication fresh = new Authentication(clerk, 100, 5, 0);
+        fresh.refreshKeys();
+        clerk.keys.put("key_3", rotated.getPublic());
+        assertEquals("user_1", fresh.getClaims("Bearer " + token(rotated, "key_3", "user_1", 0, 60_000)).getSubject());
+        assertEquals(3, clerk.loads.get());
+        assertNull(fresh.getClaims("Bearer " + token(rotated, "key_9", "user_1", 0, 60_000)));
+    }
+}
@@ -0,0 +1,217 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ClerkUsersTest {
+
+    /**
+     * Clerk users held in memory, counting the calls made
+     */
+    static class LocalClerk implements ClerkApi {
+        final Map<String, ClerkUser> users = new LinkedHashMap<>();
+        final AtomicInteger listCalls = new AtomicInteger();
+        final AtomicInteger getCalls = new AtomicInteger();
+        volatile boolean down;
+
+        void add(String id, String firstName, Map<String, Object> metadata) {
+            users.put(id, new ClerkUser(id, firstName, "Doe", id + "@example.com", null, null, metadata));
+        }
+
+        @Override
+        public synchronized List<ClerkUser> listUsers(int offset, int limit) throws Exception {
+            listCalls.incrementAndGet();
+            if (down) {
+                throw new Exception("Clerk is down");
+            }
+            List<ClerkUser> all = new ArrayList<>(users.values());
+            return new ArrayList<>(all.subList(Math.min(offset, all.size()), Math.min(offset + limit, all.size())));
+        }
+
+        @Override
+        public synchronized Optional<ClerkUser> getUser(String userId) throws Exception {
+            getCalls.incrementAndGet();
+            if (down) {
+                throw new Exception("Clerk is down");
+            }
+            return Optional.ofNullable(users.get(userId));
+        }
+
+        @Override
+        public synchronized Optional<ClerkUser> updateMetadata(String userId, Map<String, Object> metadata) {
+            ClerkUser user = users.get(userId);
+            if (user == null) {
+                return Optional.empty();
+            }
+            Map<String, Object> merged = new HashMap<>(user.publicMetadata());
+            merged.putAll(metadata);
+            ClerkUser updated = new ClerkUser(user.id(), user.firstName(), user.lastName(), user.email(),
+                    user.phone(), user.imageUrl(), merged);
+            users.put(userId, updated);
+            return Optional.of(updated);
+        }
+
+        @Override
+        public synchronized void deleteUser(String userId) {
+            users.remove(userId);
+        }
+
+        @Override
+        public Map<String, PublicKey> signingKeys() {
+            return Map.of();
+        }
+    }
+
+    @Test
+    void loadsEveryPage() {
+        LocalClerk clerk = new LocalClerk();
+        for (int i = 0; i < 1234; i++) {
+            clerk.add("user_" + i, "User" + i, Map.of("role", "user"));
+        }
+        ClerkUsers clerkUsers = new ClerkUsers(clerk, 600, 60, 5000);
+
+        Map<String, Object> all = clerkUsers.allUsers();
+        assertEquals(1234, all.size());
+        assertEquals(3, clerk.listCalls.get());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> last = (Map<String, Object>) all.get("user_1233");
+        assertEquals("User1233 Doe", last.get("full_name"));
+        assertEquals("user", last.get("role"));
+    }
+
+    @Test
+    void readsAreServedFromMemory() throws Exception {
+        LocalClerk clerk = new LocalClerk();
+        clerk.add("user_1", "Ada", Map.of("lan", "tr"));
+        ClerkUsers clerkUsers = new ClerkUsers(clerk, 600, 60, 5000);
+
+        clerkUsers.allUsers();
+        for (int i = 0; i < 9; i++) {
+            assertEquals("Ada Doe", clerkUsers.fullName("user_1"));
+        }
+        HashMap<String, Object> user = clerkUsers.getUser("user_1");
+        assertEquals("tr", user.get("lan"));
+        assertEquals(false, user.get("news"));
+        assertEquals("", user.get("phone"));
+
+        assertEquals(1, clerk.listCalls.get());
+        assertEquals(0, clerk.getCalls.get());
+        ClerkUsers.Stats stats = clerkUsers.stats();
+        assertEquals(10, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.refreshes());
+        assertEquals(1, stats.users());
+    }
+
+    @Test
+    void newUsersAreFetchedOnce() throws Exception {
+        LocalClerk clerk = new LocalClerk();
+        ClerkUsers clerkUsers = new ClerkUsers(clerk, 600, 60, 5000);
+        clerkUsers.allUsers();
+
+        clerk.add("user_new", "Grace", Map.of());
+        assertEquals("Grace Doe", clerkUsers.fullName("user_new"));
+        assertEquals("Grace Doe", clerkUsers.fullName("user_new"));
+        assertEquals(1, clerk.getCalls.get());
+
+        assertEquals("", clerkUsers.fullName("user_missing"));
+        assertThrows(Exception.class, () -> clerkUsers.getUser("user_missing"));
+    }
+
+    @Test
+    void unknownUsersAreRememberedAsMissing() throws Exception {
+        LocalClerk clerk = new LocalClerk();
+        clerk.add("user_1", "Ada", Map.of());
+        ClerkUsers clerkUsers = new ClerkUsers(clerk, 600, 60, 5000);
+        clerkUsers.allUsers();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("", clerkUsers.fullName("user_missing"));
+        }
+        clerkUsers.deleteUser("user_1");
+        assertEquals("", clerkUsers.fullName("user_1"));
+        assertEquals(1, clerk.getCalls.get());
+
+        // Signed up after the lookup, found once the missing entry expires
+        ClerkUsers shortLived = new ClerkUsers(clerk, 600, 0, 5000);
+        shortLived.allUsers();
+        assertEquals("", shortLived.fullName("user_late"));
+        clerk.add("user_late", "Grace", Map.of());
+        assertEquals("Grace Doe", shortLived.fullName("user_late"));
+    }
+
+    @Test
+    void failedReloadsAreNotRetriedRightAway() throws Exception {
+        LocalClerk clerk = new LocalClerk();
+        clerk.down = true;
+        ClerkUsers clerkUsers = new ClerkUsers(clerk, 600, 60, 60_000);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(null, clerkUsers.allUsers());
+            assertEquals("", clerkUsers.fullName("user_1"));
+        }
+        assertEquals(1, clerk.listCalls.get());
+        assertEquals(0, clerk.getCalls.get());
+
+        // The background reload still runs and ends the wait
+        clerk.down = false;
+        clerk.add("user_1", "Ada", Map.of());
+        clerkUsers.refreshInBackground();
+        assertEquals("Ada Doe", clerkUsers.fullName("user_1"));
+    }
+
+    @Test
+    void changesAreAppliedToTheDirectory() throws Exception {
+        LocalClerk clerk = new LocalClerk();
+        clerk.add("user_1", "Ada", Map.of("role", "user"));
+        clerk.add("user_2", "Alan", Map.of("role", "user"));
+        ClerkUsers clerkUsers = new ClerkUsers(clerk, 600, 60, 5000);
+        clerkUsers.allUsers();
+
+        clerkUsers.updateUserRole("user_1", "admin");
+        clerkUsers.updateUserMetadata("user_1", Map.of("lan", "tr", "news", true));
+        clerkUsers.deleteUser("user_2");
+
+        Map<String, Object> all = clerkUsers.allUsers();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> user = (Map<String, Object>) all.get("user_1");
+        assertEquals("admin", user.get("role"));
+        assertEquals("tr", user.get("lan"));
+        assertEquals(true, user.get("news"));
+        assertFalse(all.containsKey("user_2"));
+        assertEquals(1, clerk.listCalls.get());
+
+        assertThrows(Exception.class, () -> clerkUsers.updateUserRole("user_2", "admin"));
+    }
+
+    @Test
+    void staleUsersAreKeptWhenClerkIsDown() throws Exception {
+        LocalClerk clerk = new LocalClerk();
+        clerk.add("user_1", "Ada", Map.of());
+        // Every read is past the TTL
+        ClerkUsers clerkUsers = new ClerkUsers(clerk, 0, 60, 5000);
+
+        assertNotNull(clerkUsers.allUsers());
+        clerk.down = true;
+        assertEquals("Ada Doe", clerkUsers.fullName("user_1"));
+        assertTrue(clerkUsers.stats().refreshFailures() > 0);
+
+        ClerkUsers empty = new ClerkUsers(clerk, 600, 60, 5000);
+        assertEquals(null, empty.allUsers());
+        assertEquals("", empty.fullName("user_1"));
+    }
+}
@@ -0,0 +1,21 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+class CsvWriterTest {
+
+    @Test
+    void fieldsAreQuotedOnlyWhenNeeded() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+        csv.writeRow("plain", 42, null, "a,b", "say \"hi\"", "two\nlines");
+        csv.writeRow();
+
+        assertEquals("plain,42,,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\"\r\n\r\n", out.toString());
+    }
+}
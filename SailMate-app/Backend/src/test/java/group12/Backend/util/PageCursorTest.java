@@ -0,0 +1,63 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import group12.Backend.dto.CursorPage;
+
+class PageCursorTest {
+
+    @Test
+    void cursorsRoundTrip() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 6, 1, 12, 0);
+        assertEquals(new PageCursor.Created(createdAt, 42),
+                PageCursor.Created.parse(PageCursor.Created.of(createdAt, 42)));
+
+        LocalDate date = LocalDate.of(2025, 6, 1);
+        LocalTime time = LocalTime.of(9, 30, 15);
+        assertEquals(new PageCursor.Departure(date, time, 7),
+                PageCursor.Departure.parse(PageCursor.Departure.of(date, time, 7)));
+
+        assertSame(PageCursor.Created.FIRST, PageCursor.Created.parse(null));
+        assertSame(PageCursor.Departure.FIRST, PageCursor.Departure.parse(""));
+    }
+
+    @Test
+    void malformedCursorsAreBadRequests() {
+        String departure = PageCursor.Departure.of(LocalDate.of(2025, 6, 1), LocalTime.of(9, 30), 7);
+        for (String cursor : new String[]{"not base64!", "bm9wZQ", departure}) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> PageCursor.Created.parse(cursor));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void pageSizeIsCapped() {
+        assertEquals(PageCursor.DEFAULT_LIMIT, PageCursor.limit(null));
+        assertEquals(1, PageCursor.limit(0));
+        assertEquals(PageCursor.MAX_LIMIT, PageCursor.limit(100_000));
+    }
+
+    @Test
+    void extraRowOnlyProducesTheNextCursor() {
+        CursorPage<Integer> page = CursorPage.of(List.of(5, 4, 3), 2, String::valueOf);
+        assertEquals(List.of(5, 4), page.items());
+        assertEquals("4", page.nextCursor());
+
+        CursorPage<Integer> last = CursorPage.of(List.of(2, 1), 2, String::valueOf);
+        assertEquals(List.of(2, 1), last.items());
+        assertNull(last.nextCursor());
+    }
+}
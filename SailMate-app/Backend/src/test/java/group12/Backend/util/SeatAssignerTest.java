@@ -0,0 +1,49 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class SeatAssignerTest {
+
+    private static final SeatLayout FAST_FERRY = new SeatLayout("Fast Ferry", new int[]{40, 40, 20, 60, 60, 30});
+
+    @Test
+    void picksFirstRunOfAdjacentSeatsOnPreferredDeck() {
+        long[] taken = FAST_FERRY.masksOf("2E-1,2E-2,2E-5,2E-9");
+
+        long[] seats = SeatAssigner.findSeats(FAST_FERRY, taken, 'E', 3, '2');
+
+        assertEquals("2E-6,2E-7,2E-8", SeatCodeParser.encode(FAST_FERRY, seats));
+        assertEquals("1E-1,1E-2,1E-3", SeatCodeParser.encode(FAST_FERRY,
+                SeatAssigner.findSeats(FAST_FERRY, taken, 'E', 3, (char) 0)));
+    }
+
+    @Test
+    void findsRunsAcrossWordBoundaries() {
+        SeatLayout layout = new SeatLayout("Large", new int[]{10, 10, 10, 10, 130, 10});
+        StringBuilder sold = new StringBuilder();
+        for (int seat = 1; seat <= 62; seat++) {
+            sold.append(seat > 1 ? "," : "").append("1E-").append(seat);
+        }
+        long[] taken = layout.masksOf(sold + ",1E-68");
+
+        long[] seats = SeatAssigner.findSeats(layout, taken, 'E', 5, '1');
+
+        assertEquals("1E-63,1E-64,1E-65,1E-66,1E-67", SeatCodeParser.encode(layout, seats));
+    }
+
+    @Test
+    void fallsBackToClosestSeatsThenToBothDecks() {
+        SeatLayout layout = new SeatLayout("Small", new int[]{4, 4, 4, 8, 4, 4});
+        // Lower deck promo has seats 2, 4, 5 and 7 free, upper deck promo only seat 1
+        long[] taken = layout.masksOf("1P-1,1P-3,1P-6,1P-8,2P-2,2P-3,2P-4");
+
+        assertEquals("1P-2,1P-4,1P-5", SeatCodeParser.encode(layout,
+                SeatAssigner.findSeats(layout, taken, 'P', 3, '1')));
+        assertEquals("2P-1,1P-2,1P-4,1P-5,1P-7", SeatCodeParser.encode(layout,
+                SeatAssigner.findSeats(layout, taken, 'P', 5, '1')));
+        assertNull(SeatAssigner.findSeats(layout, taken, 'P', 6, '1'));
+    }
+}
@@ -0,0 +1,59 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SeatCodeParserTest {
+
+    private static final SeatLayout FAST_FERRY = new SeatLayout("Fast Ferry", new int[]{40, 40, 20, 60, 60, 30});
+
+    @Test
+    void parsesSeatListsWithSpacesAndTrailingCommas() {
+        assertEquals(List.of("1E-3", "1E-4", "2B-12"), parse(" 1E-3 ,1E-4,\t2B-12 ,"));
+        assertEquals(List.of("1P-7"), parse(new StringBuilder("1P-+7")));
+        assertEquals(List.of(), parse(null));
+        assertEquals(List.of(), parse("  "));
+        assertEquals(List.of(), parse(" AUTO "));
+    }
+
+    @Test
+    void rejectsMalformedSeatCodes() {
+        for (String malformed : new String[]{"1E3", "1E-", "1E-x", "3E-1", "1X-1", "1E-1a", "1E-3,,1E-4",
+                "1E-3, ,1E-4", ",1E-3", "1E - 3", "1E-+", "auto,1E-1", "1E-99999999999"}) {
+            assertThrows(IllegalArgumentException.class, () -> parse(malformed), malformed);
+        }
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> parse("1E-3, 1Q-4 "));
+        assertEquals("Invalid seat code: 1Q-4", error.getMessage());
+    }
+
+    @Test
+    void rejectsSeatsOutsideTheLayout() {
+        assertThrows(IllegalArgumentException.class, () -> parse("1E-0"));
+        assertThrows(IllegalArgumentException.class, () -> parse("1E--3"));
+        assertThrows(IllegalArgumentException.class, () -> FAST_FERRY.masksOf("1B-31"));
+        assertEquals(1L << 29, FAST_FERRY.masksOf("1B-30")[SeatSection.LOWER_DECK_BUSINESS.ordinal()]);
+    }
+
+    @Test
+    void encodeRoundTripsThroughTheLayout() {
+        long[] words = FAST_FERRY.masksOf("2E-40,1P-1,2E-1,1B-30");
+
+        String encoded = SeatCodeParser.encode(FAST_FERRY, words);
+
+        assertEquals("2E-1,2E-40,1P-1,1B-30", encoded);
+        assertEquals(4, SeatCodeParser.count(encoded));
+        assertEquals("", SeatCodeParser.encode(FAST_FERRY, new long[FAST_FERRY.wordCount()]));
+    }
+
+    private static List<String> parse(CharSequence ticketData) {
+        List<String> codes = new ArrayList<>();
+        SeatCodeParser.forEachSeat(ticketData, (section, seatIndex) ->
+                codes.add(SeatCodeParser.appendSeatCode(new StringBuilder(), section, seatIndex).toString()));
+        return codes;
+    }
+}
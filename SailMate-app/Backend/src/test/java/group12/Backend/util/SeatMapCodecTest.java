@@ -0,0 +1,71 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class SeatMapCodecTest {
+
+    private static final SeatLayout FAST_FERRY = new SeatLayout("Fast Ferry", new int[]{40, 40, 20, 60, 60, 30});
+    private static final SeatLayout SEA_BUS = new SeatLayout("Sea Bus", new int[]{20, 20, 20, 40, 40, 10});
+
+    @Test
+    void countsOnlySeatsInsideTheLayout() {
+        long[] words = new long[SeatSection.COUNT];
+        words[SeatSection.LOWER_DECK_BUSINESS.ordinal()] = 0b101L | 1L << 40;   // bit 40 is past the 30 seats
+        words[SeatSection.UPPER_DECK_PROMO.ordinal()] = -1L;
+
+        SeatMap seatMap = SeatMapCodec.decode(1, 7, "Fast Ferry", FAST_FERRY, words);
+
+        assertEquals(2, seatMap.totalBusinessTaken());
+        assertEquals(48, seatMap.businessAvailable());
+        assertEquals(40, seatMap.totalPromoTaken());
+        assertEquals(60, seatMap.promoAvailable());
+        assertTrue(seatMap.isSold(SeatSection.LOWER_DECK_BUSINESS, 3));
+        assertFalse(seatMap.isSold(SeatSection.LOWER_DECK_BUSINESS, 2));
+    }
+
+    @Test
+    void legacyShapeMatchesOldDecode() {
+        Map<String, Object> seatsSold = new HashMap<>();
+        seatsSold.put("id", 1);
+        seatsSold.put("voyageId", 7);
+        seatsSold.put("shipType", "Sea Bus");
+        for (SeatSection section : SeatSection.values()) {
+            seatsSold.put(section.getKey(), 0L);
+        }
+        seatsSold.put("upperDeckBusiness", 0b110L);
+
+        Map<String, Object> legacy = SeatMapCodec.decode(seatsSold, SEA_BUS).toLegacyMap();
+
+        List<?> business = (List<?>) legacy.get("upperDeckBusiness");
+        assertEquals(20, business.size());
+        assertEquals(List.of(false, true, true), business.subList(0, 3));
+        assertEquals(10, ((List<?>) legacy.get("lowerDeckBusiness")).size());
+        assertEquals(2, legacy.get("totalBusinessTaken"));
+        assertEquals(28, legacy.get("businessAvailable"));
+        assertEquals(60, legacy.get("economyAvailable"));
+        assertEquals(7, legacy.get("voyageId"));
+    }
+
+    @Test
+    void compactFormatsEncodeSeatOneFirst() {
+        SeatLayout layout = new SeatLayout("Test", new int[]{4, 64, 70, 0, 0, 0});
+        long[] words = new long[layout.wordCount()];
+        words[SeatSection.UPPER_DECK_PROMO.ordinal()] = 0b0101L;
+        words[SeatSection.UPPER_DECK_ECONOMY.ordinal()] = -1L;
+        words[SeatSection.UPPER_DECK_BUSINESS.ordinal()] = 1L;
+        SeatMap seatMap = SeatMapCodec.decode(1, 7, "Test", layout, words);
+
+        assertEquals("1010", seatMap.toBits(SeatSection.UPPER_DECK_PROMO));
+        assertEquals("__________8", seatMap.toBase64(SeatSection.UPPER_DECK_ECONOMY));
+        // Sections past 64 seats encode every word
+        assertEquals("AQAAAAAAAAAAAAAAAAAAAA", seatMap.toBase64(SeatSection.UPPER_DECK_BUSINESS));
+    }
+}
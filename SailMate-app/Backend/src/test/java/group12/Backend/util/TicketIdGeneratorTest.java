@@ -0,0 +1,93 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TicketIdGeneratorTest {
+
+    private static final long NOW = Instant.parse("2025-06-01T12:00:00Z").toEpochMilli();
+
+    @Test
+    void idsAreUniqueAndSortInIssueOrder() {
+        long[] clock = {NOW};
+        TicketIdGenerator generator = new TicketIdGenerator(7, () -> clock[0]);
+        Set<String> seen = new HashSet<>();
+        String previous = "";
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                // Clock going back must not repeat IDs
+                clock[0] = NOW - 60_000;
+            }
+            String id = generator.nextId();
+            assertEquals(18, id.length());
+            assertTrue(id.compareTo(previous) > 0, id + " after " + previous);
+            assertTrue(seen.add(id), id);
+            assertTrue(TicketIdGenerator.isValid(id), id);
+            previous = id;
+        }
+    }
+
+    @Test
+    void nodesNeverShareIds() {
+        String a = new TicketIdGenerator(1, () -> NOW).nextId();
+        String b = new TicketIdGenerator(2, () -> NOW).nextId();
+
+        assertFalse(a.equals(b));
+        assertEquals(a.substring(0, 10), b.substring(0, 10));
+    }
+
+    @Test
+    void restartWithTheClockSetBackStartsAfterTheLeasedNodesIds() {
+        String before = new TicketIdGenerator(5, () -> NOW + 60_000).nextId();
+        TicketIdNodeLease lease = mock(TicketIdNodeLease.class);
+        when(lease.getNode()).thenReturn(5);
+        when(lease.getValidUntil()).thenReturn(NOW + 120_000);
+
+        // The previous run may have issued IDs up to a minute ahead of this clock
+        TicketIdGenerator generator = new TicketIdGenerator(lease, NOW + 60_000, () -> NOW);
+
+        String after = generator.nextId();
+        assertTrue(after.compareTo(before) > 0, after + " after " + before);
+    }
+
+    @Test
+    void noIdsAreIssuedWhenTheLeaseRunsOut() {
+        long[] clock = {NOW};
+        TicketIdNodeLease lease = mock(TicketIdNodeLease.class);
+        when(lease.getNode()).thenReturn(5);
+        when(lease.getValidUntil()).thenReturn(NOW + 60_000);
+        TicketIdGenerator generator = new TicketIdGenerator(lease, 0, () -> clock[0]);
+        assertTrue(TicketIdGenerator.isValid(generator.nextId()));
+
+        // Not renewed, so another instance may have the node by now
+        clock[0] = NOW + 60_001;
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void rejectsMalformedIdsAndTypos() {
+        String id = new TicketIdGenerator(3, () -> NOW).nextId();
+        assertTrue(TicketIdGenerator.isValid(id.toLowerCase()));
+        assertTrue(TicketIdGenerator.isValid("TKT-1A2B3C4D"));
+
+        for (int i = TicketIdGenerator.PREFIX.length(); i < id.length(); i++) {
+            char[] typo = id.toCharArray();
+            typo[i] = typo[i] == 'Z' ? 'Y' : 'Z';
+            assertFalse(TicketIdGenerator.isValid(new String(typo)), new String(typo));
+        }
+        for (String malformed : new String[]{null, "", "TKT-", "TKT-1A2B3C4G", "ABC-1A2B3C4D",
+                id + "0", id.substring(0, id.length() - 1), id.replace('-', '_'), "TKT-' OR 1=1 --xx"}) {
+            assertFalse(TicketIdGenerator.isValid(malformed), String.valueOf(malformed));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import group12.Backend.repository.TicketIdNodeRepository;
+
+class TicketIdNodeLeaseTest {
+
+    private static final long NOW = 1_750_000_000_000L;
+
+    private TicketIdNodeRepository ticketIdNodeRepository;
+    private TransactionTemplate transaction;
+    private long[] clock;
+
+    @BeforeEach
+    void setUp() {
+        ticketIdNodeRepository = mock(TicketIdNodeRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        transaction = new TransactionTemplate(transactionManager);
+        clock = new long[]{NOW};
+    }
+
+    private TicketIdNodeLease lease(int configuredNode) {
+        return new TicketIdNodeLease(ticketIdNodeRepository, transaction, configuredNode, 60, () -> clock[0]);
+    }
+
+    @Test
+    void configuredNodeHeldByAnotherInstanceFailsStartup() {
+        when(ticketIdNodeRepository.findIssuedUntil(3)).thenReturn(Optional.of(NOW));
+        when(ticketIdNodeRepository.claim(eq(3), anyString(), anyLong(), anyLong())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> lease(3).acquire());
+    }
+
+    @Test
+    void expiredNodeIsTakenOverAfterItsIssuedIds() {
+        when(ticketIdNodeRepository.findExpiredNodes()).thenReturn(List.of(1, 4));
+        when(ticketIdNodeRepository.findIssuedUntil(1)).thenReturn(Optional.of(NOW - 5_000));
+        when(ticketIdNodeRepository.findIssuedUntil(4)).thenReturn(Optional.of(NOW + 30_000));
+        // Another instance took node 1 first
+        when(ticketIdNodeRepository.claim(eq(1), anyString(), anyLong(), anyLong())).thenReturn(0);
+        when(ticketIdNodeRepository.claim(eq(4), anyString(), eq(60L), eq(NOW + 60_000))).thenReturn(1);
+
+        TicketIdNodeLease lease = lease(-1);
+
+        assertEquals(NOW + 30_000, lease.acquire());
+        assertEquals(4, lease.getNode());
+        assertEquals(NOW + 60_000, lease.getValidUntil());
+        verify(ticketIdNodeRepository, never()).create(anyInt(), anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void lowestUnusedNodeIsCreatedWhenNoneExpired() {
+        when(ticketIdNodeRepository.findExpiredNodes()).thenReturn(List.of());
+        when(ticketIdNodeRepository.findAllNodes()).thenReturn(List.of(0, 1, 3));
+        when(ticketIdNodeRepository.findIssuedUntil(anyInt())).thenReturn(Optional.empty());
+        when(ticketIdNodeRepository.create(eq(2), anyString(), anyLong(), anyLong())).thenReturn(1);
+
+        TicketIdNodeLease lease = lease(-1);
+
+        assertEquals(0, lease.acquire());
+        assertEquals(2, lease.getNode());
+    }
+
+    @Test
+    void renewalExtendsTheLeaseOnlyWhileItIsHeld() {
+        when(ticketIdNodeRepository.findIssuedUntil(3)).thenReturn(Optional.empty());
+        when(ticketIdNodeRepository.create(eq(3), anyString(), anyLong(), anyLong())).thenReturn(1);
+        TicketIdNodeLease lease = lease(3);
+        lease.acquire();
+
+        clock[0] = NOW + 20_000;
+        when(ticketIdNodeRepository.claim(eq(3), anyString(), anyLong(), anyLong())).thenReturn(1);
+        lease.renew();
+        assertEquals(NOW + 80_000, lease.getValidUntil());
+
+        clock[0] = NOW + 40_000;
+        when(ticketIdNodeRepository.claim(eq(3), anyString(), anyLong(), anyLong())).thenReturn(0);
+        lease.renew();
+        assertEquals(NOW + 80_000, lease.getValidUntil());
+
+        // A database error does not end the lease early either
+        when(ticketIdNodeRepository.claim(eq(3), anyString(), anyLong(), anyLong()))
+                .thenThrow(new IllegalStateException("connection lost"));
+        lease.renew();
+        assertEquals(NOW + 80_000, lease.getValidUntil());
+    }
+}
@@ -0,0 +1,94 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.itextpdf.text.pdf.PRIndirectReference;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+
+class TicketPDFGeneratorTest {
+
+    @Test
+    void rendersOnePagePerPassenger() throws Exception {
+        PdfReader reader = new PdfReader(render(tickets(6)));
+        assertEquals(6, reader.getNumberOfPages());
+        assertTrue(PdfTextExtractor.getTextFromPage(reader, 6).contains("Passenger 6"));
+        reader.close();
+    }
+
+    @Test
+    void imagesAreWrittenOncePerDocument() throws Exception {
+        PdfReader reader = new PdfReader(render(tickets(50)));
+        Set<Integer> images = new HashSet<>();
+        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+            PdfDictionary xObjects = reader.getPageN(page).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+            for (PdfName name : xObjects.getKeys()) {
+                images.add(((PRIndirectReference) xObjects.get(name)).getNumber());
+            }
+        }
+        reader.close();
+        // A QR code per page; the logo, its transparency mask and the three class logos are shared by all pages
+        assertEquals(50 + 5, images.size());
+    }
+
+    @Test
+    void concurrentDocumentsShareTheResources() throws Exception {
+        String expected = PdfTextExtractor.getTextFromPage(new PdfReader(render(tickets(3))), 3);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() -> render(tickets(3))));
+            }
+            for (Future<byte[]> result : results) {
+                PdfReader reader = new PdfReader(result.get());
+                assertEquals(3, reader.getNumberOfPages());
+                assertEquals(expected, PdfTextExtractor.getTextFromPage(reader, 3));
+                reader.close();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] render(List<TicketPDFGenerator.TicketData> tickets) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TicketPDFGenerator.generateTicketPdfBytes(out, tickets);
+        return out.toByteArray();
+    }
+
+    private static List<TicketPDFGenerator.TicketData> tickets(int count) {
+        String[] classes = {"Business", "Promo", "Economy"};
+        List<TicketPDFGenerator.TicketData> tickets = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            TicketPDFGenerator.TicketData data = new TicketPDFGenerator.TicketData();
+            data.ticketId = "SM-" + i;
+            data.passengerName = "Passenger " + i;
+            data.date = "2025-06-01";
+            data.time = "09:30";
+            data.from = "İzmir";
+            data.to = "Çeşme";
+            data.seat = "B" + i;
+            data.gate = "3";
+            data.boardTill = "09:15";
+            data.ticketClass = classes[i % classes.length];
+            data.passengerType = "Adult";
+            tickets.add(data);
+        }
+        return tickets;
+    }
+}
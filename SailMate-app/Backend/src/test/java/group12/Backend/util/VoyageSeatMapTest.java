@@ -0,0 +1,220 @@
+package group12.Backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class VoyageSeatMapTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 20_000;
+    private static final int SEATS_PER_SECTION = 60;
+
+    private static final SeatLayout FAST_FERRY = new SeatLayout("Fast Ferry", new int[]{40, 40, 20, 60, 60, 30});
+
+    @Test
+    void claimRejectsDoubleSale() {
+        VoyageSeatMap seatMap = new VoyageSeatMap(FAST_FERRY, new long[SeatSection.COUNT], 0);
+
+        assertTrue(seatMap.claim(FAST_FERRY.masksOf("1E-3,1E-4,2E-1")));
+        assertFalse(seatMap.claim(FAST_FERRY.masksOf("1E-4,1B-1")));
+
+        // The failed claim must not leave 1B-1 behind
+        assertTrue(seatMap.isAvailable(FAST_FERRY.masksOf("1B-1")));
+        assertEquals(0b1100L, seatMap.word(SeatSection.LOWER_DECK_ECONOMY));
+        assertEquals(1L, seatMap.word(SeatSection.UPPER_DECK_ECONOMY));
+        assertEquals(1, seatMap.getTotalTicketsSold());
+    }
+
+    @Test
+    void repeatedReleaseDoesNotCorruptNeighbours() {
+        VoyageSeatMap seatMap = new VoyageSeatMap(FAST_FERRY, new long[SeatSection.COUNT], 0);
+        seatMap.claim(FAST_FERRY.masksOf("1P-1"));
+        seatMap.claim(FAST_FERRY.masksOf("1P-2"));
+
+        assertTrue(seatMap.release(FAST_FERRY.masksOf("1P-1")));
+        assertFalse(seatMap.release(FAST_FERRY.masksOf("1P-1")));
+
+        assertEquals(0b10L, seatMap.word(SeatSection.LOWER_DECK_PROMO));
+        assertEquals(1, seatMap.getTotalTicketsSold());
+    }
+
+    @Test
+    void heldSeatsAreTakenButNeverPersisted() {
+        VoyageSeatMap seatMap = new VoyageSeatMap(FAST_FERRY, new long[SeatSection.COUNT], 0);
+        assertTrue(seatMap.hold(FAST_FERRY.masksOf("2B-1,2B-2")));
+
+        assertFalse(seatMap.claim(FAST_FERRY.masksOf("2B-2")));
+        assertEquals(0L, seatMap.soldSnapshot()[SeatSection.UPPER_DECK_BUSINESS.ordinal()]);
+
+        assertTrue(seatMap.convertHold(FAST_FERRY.masksOf("2B-1")));
+        seatMap.releaseHold(FAST_FERRY.masksOf("2B-1,2B-2"));
+
+        // The converted seat stays sold, the rest of the hold is free again
+        assertEquals(1L, seatMap.soldSnapshot()[SeatSection.UPPER_DECK_BUSINESS.ordinal()]);
+        assertEquals(1L, seatMap.word(SeatSection.UPPER_DECK_BUSINESS));
+        assertEquals(1, seatMap.getTotalTicketsSold());
+    }
+
+    @Test
+    void releaseRefusesHeldSeats() {
+        VoyageSeatMap seatMap = new VoyageSeatMap(FAST_FERRY, new long[SeatSection.COUNT], 0);
+        seatMap.claim(FAST_FERRY.masksOf("1E-1"));
+        seatMap.hold(FAST_FERRY.masksOf("2E-1"));
+
+        // A cancellation naming a held seat frees nothing, not even the sold one
+        assertFalse(seatMap.release(FAST_FERRY.masksOf("1E-1,2E-1")));
+        assertFalse(seatMap.claim(FAST_FERRY.masksOf("2E-1")));
+        assertEquals(1L, seatMap.word(SeatSection.LOWER_DECK_ECONOMY));
+        assertEquals(1, seatMap.getTotalTicketsSold());
+        assertTrue(seatMap.convertHold(FAST_FERRY.masksOf("2E-1")));
+        assertEquals(1L, seatMap.soldSnapshot()[SeatSection.UPPER_DECK_ECONOMY.ordinal()]);
+    }
+
+    @Test
+    void reconcileKeepsHeldSeatsAndFixesTicketCount() {
+        VoyageSeatMap seatMap = new VoyageSeatMap(FAST_FERRY, FAST_FERRY.masksOf("1E-1,1E-2"), 3);
+        seatMap.hold(FAST_FERRY.masksOf("1E-5,1E-6"));
+
+        // Tickets say 1E-3 and 1E-6 are sold and 1E-2 and 1E-5 are not; the held seats stay held
+        int changed = seatMap.reconcile(FAST_FERRY.masksOf("1E-3,1E-6"), FAST_FERRY.masksOf("1E-2,1E-5"), -1);
+
+        assertEquals(2, changed);
+        assertEquals(0b101L, seatMap.soldSnapshot()[SeatSection.LOWER_DECK_ECONOMY.ordinal()]);
+        assertEquals(0b110101L, seatMap.word(SeatSection.LOWER_DECK_ECONOMY));
+        assertEquals(2, seatMap.getTotalTicketsSold());
+        assertTrue(seatMap.convertHold(FAST_FERRY.masksOf("1E-5,1E-6")));
+    }
+
+    @Test
+    void rebaseKeepsUnwrittenClaimsAndHolds() {
+        VoyageSeatMap seatMap = new VoyageSeatMap(FAST_FERRY, FAST_FERRY.masksOf("1E-1,1E-2"), 2);
+        seatMap.claim(FAST_FERRY.masksOf("1E-3"));
+        seatMap.hold(FAST_FERRY.masksOf("1E-4"));
+
+        // Meanwhile seats_sold lost 1E-2 and gained 1E-8 and a ticket
+        synchronized (seatMap) {
+            seatMap.rebase(FAST_FERRY.masksOf("1E-1,1E-8"), 3);
+            assertTrue(seatMap.hasUnpersistedClaims());
+        }
+
+        assertEquals(0b10001101L, seatMap.word(SeatSection.LOWER_DECK_ECONOMY));
+        assertEquals(0b10000101L, seatMap.soldSnapshot()[SeatSection.LOWER_DECK_ECONOMY.ordinal()]);
+        assertArrayEquals(FAST_FERRY.masksOf("1E-1,1E-8"), seatMap.getPersistedWords());
+        assertEquals(4, seatMap.getTotalTicketsSold());
+        assertTrue(seatMap.hasHolds());
+        assertTrue(seatMap.isDirty());
+    }
+
+    @Test
+    void sixtyFourthSeatIsTheSignBit() {
+        SeatLayout layout = new SeatLayout("Full Word", new int[]{10, 64, 10, 10, 64, 10});
+        VoyageSeatMap seatMap = new VoyageSeatMap(layout, new long[layout.wordCount()], 0);
+
+        assertTrue(seatMap.claim(layout.masksOf("1E-64,1E-1")));
+        assertFalse(seatMap.claim(layout.masksOf("1E-64")));
+        assertEquals(Long.MIN_VALUE | 1L, seatMap.word(SeatSection.LOWER_DECK_ECONOMY));
+        assertEquals(0, layout.overflowWordCount());
+
+        assertTrue(seatMap.release(layout.masksOf("1E-64")));
+        assertEquals(1L, seatMap.word(SeatSection.LOWER_DECK_ECONOMY));
+    }
+
+    @Test
+    void sectionsLargerThan64SeatsUseOverflowWords() {
+        SeatLayout layout = new SeatLayout("Large", new int[]{10, 130, 10, 10, 70, 10});
+        assertEquals(SeatSection.COUNT + 3, layout.wordCount());
+
+        VoyageSeatMap seatMap = new VoyageSeatMap(layout, new long[layout.wordCount()], 0);
+        assertTrue(seatMap.claim(layout.masksOf("2E-1,2E-65,2E-130,1E-70")));
+        assertFalse(seatMap.claim(layout.masksOf("2E-130")));
+        assertThrows(IllegalArgumentException.class, () -> layout.masksOf("2E-131"));
+
+        // Overflow words survive the round trip through the seats_sold columns
+        long[] words = seatMap.snapshot();
+        long[] columns = Arrays.copyOf(words, SeatSection.COUNT);
+        long[] reloaded = layout.toWords(columns, layout.overflowBytes(words));
+        assertArrayEquals(words, reloaded);
+        assertTrue(layout.isSet(reloaded, SeatSection.UPPER_DECK_ECONOMY, 130));
+        assertTrue(layout.isSet(reloaded, SeatSection.LOWER_DECK_ECONOMY, 70));
+        assertEquals(3, layout.countSet(reloaded, SeatSection.UPPER_DECK_ECONOMY));
+    }
+
+    @Test
+    void concurrentBuyersNeverLoseOrDuplicateSeats() throws Exception {
+        SeatLayout layout = new SeatLayout("Test", new int[]{60, 60, 60, 60, 60, 60});
+        VoyageSeatMap seatMap = new VoyageSeatMap(layout, new long[SeatSection.COUNT], 0);
+        AtomicIntegerArray owners = new AtomicIntegerArray(SeatSection.COUNT * SEATS_PER_SECTION);
+        AtomicLong successfulClaims = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    // Each buyer wants two seats, possibly in different sections
+                    int first = random.nextInt(SeatSection.COUNT * SEATS_PER_SECTION);
+                    int second = random.nextInt(SeatSection.COUNT * SEATS_PER_SECTION);
+                    if (first == second) {
+                        continue;
+                    }
+
+                    long[] masks = new long[SeatSection.COUNT];
+                    masks[first / SEATS_PER_SECTION] |= 1L << (first % SEATS_PER_SECTION);
+                    masks[second / SEATS_PER_SECTION] |= 1L << (second % SEATS_PER_SECTION);
+
+                    if (seatMap.claim(masks)) {
+                        owners.incrementAndGet(first);
+                        owners.incrementAndGet(second);
+                        successfulClaims.incrementAndGet();
+
+                        // Cancel some tickets so seats are contended again
+                        if (random.nextInt(4) == 0 && seatMap.release(masks)) {
+                            owners.decrementAndGet(first);
+                            owners.decrementAndGet(second);
+                            successfulClaims.decrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        long[] expected = new long[SeatSection.COUNT];
+        for (int seat = 0; seat < owners.length(); seat++) {
+            int count = owners.get(seat);
+            assertTrue(count == 0 || count == 1, "Seat " + seat + " sold " + count + " times");
+            if (count == 1) {
+                expected[seat / SEATS_PER_SECTION] |= 1L << (seat % SEATS_PER_SECTION);
+            }
+        }
+
+        assertArrayEquals(expected, seatMap.snapshot());
+        assertEquals(successfulClaims.get(), seatMap.getTotalTicketsSold());
+    }
+}
@@ -110,7 +110,8 @@ const NotificationBell = ({ userId, isMaxZoom }) => {
       const response = await axios.get(`${API_BASE_URL}/notifications/all`, {
         headers: {
           Authorization: `Bearer ${token}`,
-        }
+        },
+        params: { limit: 5 }
       });
       // Only show up to 5 most recent notifications in the dropdown
       setNotifications(response.data.slice(0, 5));
@@ -1,6 +1,7 @@
 import React, { useState, useEffect, useRef } from 'react';
 import axios from 'axios';
 import { useSessionToken } from '../utils/sessions';
+import { fetchPage } from '../utils/pagination';
 import { X, Bell, Check, Trash2 } from 'lucide-react';
 import { useNavigate } from 'react-router-dom';
 import { useTranslation } from 'react-i18next';
@@ -10,6 +11,8 @@ const API_BASE_URL = 'http://localhost:8080/api';
 const NotificationsModal = ({ isOpen, onClose, userId }) => {
   const [notifications, setNotifications] = useState([]);
   const [isLoading, setIsLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState(null);
   const [activeTab, setActiveTab] = useState('all'); // 'all', 'unread', or 'read'
   const navigate = useNavigate();
@@ -86,23 +89,47 @@ const NotificationsModal = ({ isOpen, onClose, userId }) => {
     
     try {
       const token = useSessionToken();
-      let endpoint = `${API_BASE_URL}/notifications/all`;
+      const config = {
+        headers: {
+          Authorization: `Bearer ${token}`,
+        }
+      };
       
       if (activeTab === 'unread') {
-        endpoint = `${API_BASE_URL}/notifications/unread`;
+        const response = await axios.get(`${API_BASE_URL}/notifications/unread`, config);
+        setNotifications(response.data);
+        setNextCursor(null);
+      } else {
+        // All notifications are paginated, newest first
+        const page = await fetchPage(`${API_BASE_URL}/notifications/all`, config);
+        setNotifications(page.items);
+        setNextCursor(page.nextCursor);
       }
-      
-      const response = await axios.get(endpoint, {
+    } catch (err) {
+      console.error('Error fetching notifications:', err);
+      setError(t('notifications.error.load'));
+    } finally {
+      setIsLoading(false);
+    }
+  };
+
+  // Append the next page of notifications
+  const loadMoreNotifications = async () => {
+    try {
+      setLoadingMore(true);
+      const token = useSessionToken();
+      const page = await fetchPage(`${API_BASE_URL}/notifications/all`, {
         headers: {
           Authorization: `Bearer ${token}`,
         }
-      });
-      setNotifications(response.data);
+      }, nextCursor);
+      setNotifications(prevNotifications => [...prevNotifications, ...page.items]);
+      setNextCursor(page.nextCursor);
     } catch (err) {
       console.error('Error fetching notifications:', err);
       setError(t('notifications.error.load'));
     } finally {
-      setIsLoading(false);
+      setLoadingMore(false);
     }
   };
 
@@ -407,6 +434,18 @@ const NotificationsModal = ({ isOpen, onClose, userId }) => {
                     })}
                   </div>
                 )}
+
+                {nextCursor && (
+                  <div className="flex justify-center mt-4">
+                    <button
+                      onClick={loadMoreNotifications}
+                      disabled={loadingMore}
+                      className="px-4 py-2 text-sm text-[#0D3A73] hover:bg-gray-100 rounded-lg disabled:opacity-50"
+                    >
+                      {t('notifications.loadMore')}
+                    </button>
+                  </div>
+                )}
               </>
             )}
           </div>
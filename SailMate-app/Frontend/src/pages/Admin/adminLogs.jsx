@@ -2,11 +2,14 @@ import React, { useState, useEffect } from "react";
 import { Trash2, Clock, User, Calendar, X, Search, Filter, ChevronDown, Tag, Activity } from "lucide-react";
 import { useSessionToken } from "../../utils/sessions";
 import axios from "axios";
+import { postPage } from "../../utils/pagination";
 import { useTranslation } from "react-i18next";
 
 const AdminLogs = () => {
     const { t, i18n } = useTranslation();
     const [logs, setLogs] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
     const [selectedLogDetails, setSelectedLogDetails] = useState(null);
@@ -28,21 +31,35 @@ const AdminLogs = () => {
     // Available action types for filtering
     const actionTypes = ["CREATE", "UPDATE", "DELETE", "CANCEL", "READ", "BROADCAST", "BULK_CREATE"];
 
-    // Fetch logs
+    // Logs per page
+    const PAGE_SIZE = 50;
+
+    // Get a page of the logs matching the selected filters from the server
+    const fetchLogsPage = (cursor = null) => postPage(
+        `${'http://localhost:8080'}/api/activity-logs/filter`,
+        {
+            userRole: filters.roles[0] || null,
+            actionType: filters.actionTypes[0] || null,
+            entityType: filters.entityTypes[0] || null,
+            limit: PAGE_SIZE
+        },
+        {
+            headers: {
+                Authorization: `Bearer ${useSessionToken()}`
+            }
+        },
+        cursor
+    );
+
+    // Fetch logs again whenever the filters change
     useEffect(() => {
         const fetchLogs = async () => {
             try {
                 setLoading(true);
                 
-                const response = await axios.get(
-                    `${'http://localhost:8080'}/api/activity-logs`,
-                    {
-                        headers: {
-                            Authorization: `Bearer ${useSessionToken()}`
-                        }
-                    }
-                );
-                setLogs(response.data);
+                const page = await fetchLogsPage();
+                setLogs(page.items);
+                setNextCursor(page.nextCursor);
                 setError(null);
             } catch (err) {
                 console.error("Error fetching activity logs:", err);
@@ -53,7 +70,22 @@ const AdminLogs = () => {
         };
 
         fetchLogs();
-    }, [t]);
+    }, [t, filters]);
+
+    // Append the next page of logs
+    const loadMoreLogs = async () => {
+        try {
+            setLoadingMore(true);
+            const page = await fetchLogsPage(nextCursor);
+            setLogs(prevLogs => [...prevLogs, ...page.items]);
+            setNextCursor(page.nextCursor);
+        } catch (err) {
+            console.error("Error fetching activity logs:", err);
+            setError(t("admin.logs.error"));
+        } finally {
+            setLoadingMore(false);
+        }
+    };
 
     // Handle sorting
     const requestSort = (key) => {
@@ -64,11 +96,11 @@ const AdminLogs = () => {
         setSortConfig({ key, direction });
     };
 
-    // Apply sorting and filtering
+    // Apply sorting and search; the filters are applied by the server
     const getSortedAndFilteredLogs = () => {
         let filteredLogs = [...logs];
         
-        // Apply search
+        // Apply search to the loaded logs
         if (searchTerm) {
             filteredLogs = filteredLogs.filter(log => 
                 (log.fullName && log.fullName.toLowerCase().includes(searchTerm.toLowerCase())) ||
@@ -79,26 +111,6 @@ const AdminLogs = () => {
             );
         }
         
-        // Apply role filters
-        if (filters.roles.length > 0) {
-            filteredLogs = filteredLogs.filter(log => 
-                filters.roles.includes(log.userRole)
-            );
-        }
-        
-        // Apply action type filters
-        if (filters.actionTypes.length > 0) {
-            filteredLogs = filteredLogs.filter(log => 
-                filters.actionTypes.includes(log.actionType)
-            );
-        }
-
-        if (filters.entityTypes.length > 0) {
-            filteredLogs = filteredLogs.filter(log => 
-                filters.entityTypes.includes(log.entityType)
-            );
-        }
-        
         // Apply sorting
         if (sortConfig.key) {
             filteredLogs.sort((a, b) => {
@@ -148,9 +160,8 @@ const AdminLogs = () => {
 
     const handleRoleFilter = (role) => {
         setFilters(prev => {
-            const newRoles = prev.roles.includes(role) 
-                ? prev.roles.filter(r => r !== role)
-                : [...prev.roles, role];
+            // One of each group, as the server filters by a single value
+            const newRoles = prev.roles.includes(role) ? [] : [role];
             
             return { ...prev, roles: newRoles };
         });
@@ -158,9 +169,7 @@ const AdminLogs = () => {
 
     const handleActionTypeFilter = (actionType) => {
         setFilters(prev => {
-            const newActionTypes = prev.actionTypes.includes(actionType) 
-                ? prev.actionTypes.filter(a => a !== actionType)
-                : [...prev.actionTypes, actionType];
+            const newActionTypes = prev.actionTypes.includes(actionType) ? [] : [actionType];
             
             return { ...prev, actionTypes: newActionTypes };
         });
@@ -168,9 +177,7 @@ const AdminLogs = () => {
 
     const handleEntityTypeFilter = (entityType) => {
         setFilters(prev => {
-            const newEntityTypes = prev.entityTypes.includes(entityType) 
-                ? prev.entityTypes.filter(e => e !== entityType)
-                : [...prev.entityTypes, entityType];
+            const newEntityTypes = prev.entityTypes.includes(entityType) ? [] : [entityType];
             
             return { ...prev, entityTypes: newEntityTypes };
         });
@@ -555,6 +562,18 @@ const AdminLogs = () => {
                         </div>
                     )}
                 </div>
+
+                {nextCursor && (
+                    <div className="flex justify-center mt-6">
+                        <button
+                            onClick={loadMoreLogs}
+                            disabled={loadingMore}
+                            className="px-4 py-2 bg-[#06AED5] text-white rounded-lg hover:bg-[#0599c2] transition-colors disabled:opacity-50"
+                        >
+                            {loadingMore ? t("admin.logs.loading") : t("admin.logs.loadMore")}
+                        </button>
+                    </div>
+                )}
             </div>
             
             {/* Log Details Modal */}
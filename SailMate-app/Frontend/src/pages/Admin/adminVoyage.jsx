@@ -3,6 +3,7 @@ import { Trash2, Edit, Plus, Search, X, Check, RefreshCcw, AlertCircle, Calendar
 import { useSessionToken } from "../../utils/sessions";
 import { useLocation } from 'react-router-dom';
 import axios from 'axios';
+import { fetchPage } from '../../utils/pagination';
 import { useTranslation } from 'react-i18next';
 import i18next from 'i18next';
 
@@ -17,31 +18,24 @@ const VOYAGE_STATUS = {
 };
 
 const voyageService = {
-  // Get all voyages with optional filters
-  getVoyages: async (filters = {}) => {
+  // Get a page of voyages in departure order, departing on or after fromDate if given
+  getVoyages: async (fromDate = null, cursor = null) => {
     try {
-      let url = `${API_BASE_URL}/voyages`;
-      
-      // Add query parameters for filtering
-      if (Object.keys(filters).length > 0) {
-        const queryParams = new URLSearchParams();
-        
-        if (filters.fromStationId) queryParams.append('fromStationId', filters.fromStationId);
-        if (filters.toStationId) queryParams.append('toStationId', filters.toStationId);
-        if (filters.date) queryParams.append('departureDate', filters.date);
-        if (filters.status) queryParams.append('status', filters.status === 'normal' ? 'active' : 'cancel');
-        
-        url += `?${queryParams.toString()}`;
-      }
-      
-      const response = await axios.get(url);
-      return response.data;
+      const params = {};
+      if (fromDate) params.fromDate = fromDate;
+      return await fetchPage(`${API_BASE_URL}/voyages`, { params }, cursor);
     } catch (error) {
       console.error('Error fetching voyages:', error);
       throw error;
     }
   },
 
+  // Get a single voyage
+  getVoyage: async (id) => {
+    const response = await axios.get(`${API_BASE_URL}/voyages/${id}`);
+    return response.data;
+  },
+
   getSeatsSoldByVoyageId: async (voyageId) => {
     try {
       const response = await axios.get(`${API_BASE_URL}/seats-sold/voyage/${voyageId}`);
@@ -149,6 +143,8 @@ const AdminVoyage = () => {
   const location = useLocation();
   // State management
   const [voyages, setVoyages] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [filteredVoyages, setFilteredVoyages] = useState([]);
   const [stations, setStations] = useState([]);
   const [isLoading, setIsLoading] = useState(true);
@@ -162,7 +158,8 @@ const AdminVoyage = () => {
   const [isEditing, setIsEditing] = useState(false);
   const [isWeeklyScheduleModalOpen, setIsWeeklyScheduleModalOpen] = useState(false);
   const [validationErrors, setValidationErrors] = useState({});
-  const fetchSeatsSoldData = async (voyageIds) => {
+  // Seats sold of the given voyages, added to those of the voyages already loaded if append is set
+  const fetchSeatsSoldData = async (voyageIds, append = false) => {
     const seatsSoldMap = {};
     
     await Promise.all(
@@ -178,7 +175,7 @@ const AdminVoyage = () => {
       })
     );
     
-    setSeatsSoldData(seatsSoldMap);
+    setSeatsSoldData(prev => append ? { ...prev, ...seatsSoldMap } : seatsSoldMap);
   };
   
   
@@ -232,7 +229,6 @@ const AdminVoyage = () => {
 
   // Fetch data on component mount
   useEffect(() => {
-    fetchVoyages();
     fetchStations();
     
     // Check for openAddModal in location state (from quick action)
@@ -243,21 +239,34 @@ const AdminVoyage = () => {
     }
   }, [location]);
   
+  // Voyages are loaded a page at a time from the date the filters start at
+  useEffect(() => {
+    fetchVoyages();
+  }, [filters.date, filters.status]);
+
   // Apply filters whenever filters change
   useEffect(() => {
     applyFilters();
   }, [filters, voyages, stationFilters]);
 
+  // First departure date to load: the filtered date, today for upcoming voyages, or the first voyage for completed ones
+  const pageStartDate = () => {
+    if (filters.date) return filters.date;
+    return filters.status === 'completed' ? null : new Date().toISOString().substr(0, 10);
+  };
+
   const fetchVoyages = async () => {
     setIsLoading(true);
     setError(null);
     try {
-      const data = await voyageService.getVoyages();
+      const page = await voyageService.getVoyages(pageStartDate());
+      const data = page.items;
       
       // Process voyages to mark completed ones and set edit/delete permissions
       const processedData = processVoyagesStatus(data);
       
       setVoyages(processedData);
+      setNextCursor(page.nextCursor);
       
       // Apply the default filter (normal status)
       const normalVoyages = processedData.filter(voyage => 
@@ -265,7 +274,7 @@ const AdminVoyage = () => {
       );
       setFilteredVoyages(normalVoyages);
       
-      // Fetch seats sold data for all voyages
+      // Fetch seats sold data for the loaded voyages
       const voyageIds = data.map(voyage => voyage.id);
       await fetchSeatsSoldData(voyageIds);
       
@@ -278,6 +287,21 @@ const AdminVoyage = () => {
   };
   
 
+  // Append the next page of voyages
+  const loadMoreVoyages = async () => {
+    setLoadingMore(true);
+    try {
+      const page = await voyageService.getVoyages(pageStartDate(), nextCursor);
+      setVoyages(prev => [...prev, ...processVoyagesStatus(page.items)]);
+      setNextCursor(page.nextCursor);
+      await fetchSeatsSoldData(page.items.map(voyage => voyage.id), true);
+    } catch (err) {
+      showAlert('error', t('adminVoyage.alerts.failedToLoad'));
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const processVoyagesStatus = (voyages) => {
     return voyages.map(voyage => {
       // Create a copy to avoid mutating the original
@@ -863,8 +887,7 @@ const applyFilters = () => {
     // Check if voyage might have become completed while editing
     if (isEditing) {
       try {
-        const response = await voyageService.getVoyages({ id: currentVoyage.id });
-        const serverVoyage = response.find(v => v.id === currentVoyage.id);
+        const serverVoyage = await voyageService.getVoyage(currentVoyage.id);
         
         if (serverVoyage && isVoyageCompleted(serverVoyage)) {
           showAlert('error', t('adminVoyage.alerts.cannotEditCompleted'));
@@ -1317,6 +1340,17 @@ const applyFilters = () => {
                   )}
                 </tbody>
               </table>
+              {nextCursor && (
+                <div className="flex justify-center py-3 border-t border-gray-200">
+                  <button
+                    onClick={loadMoreVoyages}
+                    disabled={loadingMore}
+                    className="px-4 py-2 text-sm font-medium text-blue-600 bg-blue-50 hover:bg-blue-100 rounded-md disabled:opacity-50"
+                  >
+                    {t('adminVoyage.table.loadMore')}
+                  </button>
+                </div>
+              )}
               {filteredVoyages.length > 0 && (
                 <div className="bg-white px-4 py-3 flex items-center justify-between border-t border-gray-200 sm:px-6">
                   <div className="flex-1 flex items-center justify-between">
@@ -338,18 +338,9 @@ const FerryTicketForm = () => {
         passengers: departurePassengers
       };
   
-      // Create departure ticket
+      // Create departure ticket; its seats are claimed in the same request
       console.log("Departure ticket request:", departureTicketRequest);
-      const departureTicketResponse = await axios.post(`${API_URL}/tickets`, departureTicketRequest, {
-        headers: {
-          Authorization: `Bearer ${useSessionToken()}`
-        }
-      });
-      const seatSoldResponse = await axios.post(`${API_URL}/seats-sold/ticket-created`, null, {
-        params: {
-          ticketData: departureTicketRequest.selectedSeats,
-          voyageId: departureTicketRequest.voyageId
-        },
+      const departureTicketResponse = await axios.post(`${API_URL}/tickets/book`, departureTicketRequest, {
         headers: {
           Authorization: `Bearer ${useSessionToken()}`
         }
@@ -376,16 +367,7 @@ const FerryTicketForm = () => {
         };
   
         // Create return ticket
-        returnTicketResponse = await axios.post(`${API_URL}/tickets`, returnTicketRequest, {
-          headers: {
-            Authorization: `Bearer ${useSessionToken()}`
-          }
-        });
-        const seatSoldResponse2 = await axios.post(`${API_URL}/seats-sold/ticket-created`, null, {
-          params: {
-            ticketData: returnTicketRequest.selectedSeats,
-            voyageId: returnTicketRequest.voyageId
-          },
+        returnTicketResponse = await axios.post(`${API_URL}/tickets/book`, returnTicketRequest, {
           headers: {
             Authorization: `Bearer ${useSessionToken()}`
           }
@@ -38,25 +38,20 @@ const ManagerCharts = () => {
           'Authorization': nbr
         };
         
-        // Make parallel API calls to get all the data we need
+        // The sales are summed by month, class and route on the server
+        const params = { year: activeYear };
         const [
-          ticketsResponse, 
-          completedTicketsResponse,
-          voyagesResponse, 
-          stationsResponse
+          ticketSalesResponse,
+          completedSalesResponse
         ] = await Promise.all([
-          axios.get(`${API_BASE_URL}/tickets`, { headers }),
-          axios.get(`${API_BASE_URL}/completed-tickets`, { headers }),
-          axios.get(`${API_BASE_URL}/voyages`, { headers }),
-          axios.get(`${API_BASE_URL}/stations`, { headers })
+          axios.get(`${API_BASE_URL}/tickets/sales`, { headers, params }),
+          axios.get(`${API_BASE_URL}/completed-tickets/sales`, { headers, params })
         ]);
         
         // Process the data to create dashboard metrics
         const processedData = processApiData(
-          ticketsResponse.data, 
-          completedTicketsResponse.data, 
-          voyagesResponse.data, 
-          stationsResponse.data
+          ticketSalesResponse.data,
+          completedSalesResponse.data
         );
         setDashboardData(processedData);
       } catch (err) {
@@ -71,75 +66,18 @@ const ManagerCharts = () => {
   }, [activeYear]);
   
   // Process the API data to create dashboard metrics
-  const processApiData = (tickets, completedTickets, voyages, stations) => {
-    // Create a station lookup map for easy access
-    const stationMap = {};
-    stations.forEach(station => {
-      stationMap[station.id] = station;
-    });
-    
-    // Create a voyage lookup map for easy access
-    const voyageMap = {};
-    voyages.forEach(voyage => {
-      voyageMap[voyage.id] = {
-        ...voyage,
-        fromStation: stationMap[voyage.fromStationId],
-        toStation: stationMap[voyage.toStationId]
-      };
-    });
-    
-    // Combine active and completed tickets
-    // First, normalize completed tickets to match the structure of active tickets
-    const normalizedCompletedTickets = completedTickets.map(ticket => {
-      return {
-        ...ticket,
-        ticketID: ticket.ticketId, // Map ticketId to ticketID for consistency
-        voyageId: ticket.voyageId,
-        // For completed tickets, use the stored static data
-        fromStationCity: ticket.depCity,
-        fromStationTitle: ticket.depStationTitle,
-        toStationCity: ticket.arrCity,
-        toStationTitle: ticket.arrStationTitle,
-        departureDate: ticket.depDate,
-        departureTime: ticket.depTime,
-        arrivalTime: ticket.arrTime,
-        // These fields should already be the same
-        passengerCount: ticket.passengerCount,
-        totalPrice: ticket.totalPrice,
-        ticketClass: ticket.ticketClass,
-        selectedSeats: ticket.selectedSeats,
-        userId: ticket.userId,
-        // Time fields
-        createdAt: ticket.createdAt,
-        updatedAt: ticket.updatedAt,
-        // Flag to identify completed tickets
-        isCompletedTicket: true
-      };
-    });
-    
-    // Add flag to active tickets
-    const normalizedActiveTickets = tickets.map(ticket => ({
-      ...ticket,
-      isCompletedTicket: false
-    }));
-    
-    // Combine both types of tickets
-    const allTickets = [...normalizedActiveTickets, ...normalizedCompletedTickets];
+  const processApiData = (ticketSales, completedSales) => {
+    // Each row sums the tickets of one class on one route in one month of the active year
+    const salesRows = [
+      ...ticketSales.map(row => ({ ...row, isCompletedTicket: false })),
+      ...completedSales.map(row => ({ ...row, isCompletedTicket: true }))
+    ];
     
-    // Filter tickets for the active year
-    const yearTickets = allTickets.filter(ticket => {
-      const ticketDate = new Date(ticket.createdAt);
-      return ticketDate.getFullYear() === activeYear;
-    });
-    
-    // Group tickets by month
+    // Group sales by month
     const months = ["Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"];
     const monthlyData = months.map((month, monthIndex) => {
-      // Filter tickets for this month
-      const monthTickets = yearTickets.filter(ticket => {
-        const ticketDate = new Date(ticket.createdAt);
-        return ticketDate.getMonth() === monthIndex;
-      });
+      // Rows of this month; months are 1 to 12 on the server
+      const monthRows = salesRows.filter(row => row.month === monthIndex + 1);
       
       // Count tickets by class
       const ticketsByClass = {
@@ -162,18 +100,13 @@ const ManagerCharts = () => {
         business: 0
       };
       
-      // Process each ticket for this month
-      monthTickets.forEach(ticket => {
-        const ticketClass = ticket.ticketClass.toLowerCase();
-        
-        // Count tickets by class
-        ticketsByClass[ticketClass]++;
+      // Process each row for this month
+      monthRows.forEach(row => {
+        const ticketClass = row.ticketClass.toLowerCase();
         
-        // Add revenue by class
-        revenueByClass[ticketClass] += ticket.totalPrice;
-        
-        // Add passengers by class
-        passengersByClass[ticketClass] += ticket.passengerCount;
+        ticketsByClass[ticketClass] += row.tickets;
+        revenueByClass[ticketClass] += row.revenue;
+        passengersByClass[ticketClass] += row.passengers;
       });
       
       // Calculate totals
@@ -194,50 +127,26 @@ const ManagerCharts = () => {
     
     const routeCounts = {};
     const routeRevenue = {};
-    const routeDetails = {}; // Properly declare routeDetails at the same scope level as other variables
+    const routeDetails = {};
     
-    yearTickets.forEach(ticket => {
-      // Skip tickets without voyage info for active tickets
-      if (!ticket.isCompletedTicket && (!ticket.voyageId || !voyageMap[ticket.voyageId])) return;
-      
-      let fromCity, fromTitle, toCity, toTitle;
-      
-      if (ticket.isCompletedTicket) {
-        // For completed tickets, we already have the station info stored
-        fromCity = ticket.fromStationCity || ticket.depCity;
-        fromTitle = ticket.fromStationTitle || ticket.depStationTitle;
-        toCity = ticket.toStationCity || ticket.arrCity;
-        toTitle = ticket.toStationTitle || ticket.arrStationTitle;
-      } else {
-        // For active tickets, get info from the voyage
-        const voyage = voyageMap[ticket.voyageId];
-        
-        // Skip if voyage or station info is missing
-        if (!voyage || !voyage.fromStation || !voyage.toStation) return;
-        
-        fromCity = voyage.fromStation.city;
-        fromTitle = voyage.fromStation.title;
-        toCity = voyage.toStation.city;
-        toTitle = voyage.toStation.title;
-      }
-      
-      // Skip if we're missing any essential route information
-      if (!fromCity || !toCity) return;
+    salesRows.forEach(row => {
+      // Skip tickets whose voyage or stations no longer exist
+      if (!row.fromCity || !row.toCity) return;
       
       // Create a consistent route key based on city names for both types of tickets
-      const routeKey = `${fromCity}-${toCity}`;
+      const routeKey = `${row.fromCity}-${row.toCity}`;
       
       // Count routes
-      routeCounts[routeKey] = (routeCounts[routeKey] || 0) + 1;
+      routeCounts[routeKey] = (routeCounts[routeKey] || 0) + row.tickets;
       
       // Sum revenue by route
-      routeRevenue[routeKey] = (routeRevenue[routeKey] || 0) + ticket.totalPrice;
+      routeRevenue[routeKey] = (routeRevenue[routeKey] || 0) + row.revenue;
       
       // Store the station titles for this route (for the first occurrence)
       if (!routeDetails[routeKey]) {
         routeDetails[routeKey] = {
-          fromTitle: fromTitle,
-          toTitle: toTitle
+          fromTitle: row.fromStationTitle,
+          toTitle: row.toStationTitle
         };
       }
     });
@@ -268,11 +177,11 @@ const ManagerCharts = () => {
       business: { totalSold: 0, totalRevenue: 0 }
     };
     
-    yearTickets.forEach(ticket => {
-      const ticketClass = ticket.ticketClass.toLowerCase();
+    salesRows.forEach(row => {
+      const ticketClass = row.ticketClass.toLowerCase();
       if (classTotals[ticketClass]) {
-        classTotals[ticketClass].totalSold++;
-        classTotals[ticketClass].totalRevenue += ticket.totalPrice;
+        classTotals[ticketClass].totalSold += row.tickets;
+        classTotals[ticketClass].totalRevenue += row.revenue;
       }
     });
     
@@ -288,7 +197,7 @@ const ManagerCharts = () => {
     });
     
     // Calculate percentages
-    const totalTickets = yearTickets.length;
+    const totalTickets = salesRows.reduce((sum, row) => sum + row.tickets, 0);
     
     const classPerformance = Object.keys(classTotals).map(className => ({
       class: className,
@@ -300,13 +209,17 @@ const ManagerCharts = () => {
         : 0
     }));
     
-    const totalRevenue = yearTickets.reduce((sum, ticket) => sum + ticket.totalPrice, 0);
-    const totalPassengers = yearTickets.reduce((sum, ticket) => sum + ticket.passengerCount, 0);
+    const totalRevenue = salesRows.reduce((sum, row) => sum + row.revenue, 0);
+    const totalPassengers = salesRows.reduce((sum, row) => sum + row.passengers, 0);
     const avgTicketPrice = totalTickets > 0 ? (totalRevenue / totalTickets) : 0;
     
     // Count active vs completed tickets
-    const activeTicketsCount = yearTickets.filter(ticket => !ticket.isCompletedTicket).length;
-    const completedTicketsCount = yearTickets.filter(ticket => ticket.isCompletedTicket).length;
+    const activeTicketsCount = salesRows
+      .filter(row => !row.isCompletedTicket)
+      .reduce((sum, row) => sum + row.tickets, 0);
+    const completedTicketsCount = salesRows
+      .filter(row => row.isCompletedTicket)
+      .reduce((sum, row) => sum + row.tickets, 0);
     
     const summaryStats = {
       totalTickets,
@@ -2,6 +2,7 @@ import React, { useState, useEffect } from "react";
 import { Trash2, User, MessageSquare, Send, CheckCircle, Clock, AlertCircle, X, RefreshCw } from "lucide-react";
 import axios from "axios";
 import {useSessionToken} from "../../utils/sessions";
+import { fetchPage } from "../../utils/pagination";
 import { useTranslation } from 'react-i18next';
 
 const ManageComplaints = () => {
@@ -11,6 +12,8 @@ const ManageComplaints = () => {
     const [activeFilter, setActiveFilter] = useState("all");
     const [loading, setLoading] = useState(true);
     const [refreshing, setRefreshing] = useState(false);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [error, setError] = useState(null);
     const [replyData, setReplyData] = useState({ id: null, message: "" });
     const [expandedComplaint, setExpandedComplaint] = useState(null);
@@ -19,23 +22,29 @@ const ManageComplaints = () => {
     const [replyLoading, setReplyLoading] = useState(null);
     const [deleteLoading, setDeleteLoading] = useState(false);
 
-    // Fetch all complaints from the backend
+    // Complaints of a page, with the status mapped to the UI's status format
+    const fetchComplaintPage = async (cursor) => {
+        const token = useSessionToken();
+        const page = await fetchPage("http://localhost:8080/api/complaints", {
+            headers: {
+                Authorization: `Bearer ${token}`
+              }
+        }, cursor);
+        const formattedComplaints = page.items.map(complaint => ({
+            ...complaint,
+            status: complaint.status === "solved" ? "resolved" : "pending"
+        }));
+        return { complaints: formattedComplaints, nextCursor: page.nextCursor };
+    };
+
+    // Fetch the newest page of complaints from the backend
     const fetchComplaints = async () => {
         try {
             setRefreshing(true);
-            const token = useSessionToken();
-            const response = await axios.get("http://localhost:8080/api/complaints", {
-                headers: {
-                    Authorization: `Bearer ${token}`
-                  }
-            });
-            const formattedComplaints = response.data.map(complaint => ({
-                ...complaint,
-                // Map the status from the backend to the UI's status format
-                status: complaint.status === "solved" ? "resolved" : "pending"
-            }));
-            setComplaints(formattedComplaints);
-            applyFilter(activeFilter, formattedComplaints);
+            const page = await fetchComplaintPage(null);
+            setComplaints(page.complaints);
+            setNextCursor(page.nextCursor);
+            applyFilter(activeFilter, page.complaints);
             setError(null);
         } catch (err) {
             console.error("Error fetching complaints:", err);
@@ -46,6 +55,23 @@ const ManageComplaints = () => {
         }
     };
 
+    // Append the next page of complaints
+    const loadMoreComplaints = async () => {
+        try {
+            setLoadingMore(true);
+            const page = await fetchComplaintPage(nextCursor);
+            const allComplaints = [...complaints, ...page.complaints];
+            setComplaints(allComplaints);
+            setNextCursor(page.nextCursor);
+            applyFilter(activeFilter, allComplaints);
+        } catch (err) {
+            console.error("Error fetching complaints:", err);
+            setError("Failed to load complaints. Please try again later.");
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     // Apply filter to complaints
     const applyFilter = (filter, complaintsToFilter = complaints) => {
         setActiveFilter(filter);
@@ -427,6 +453,19 @@ const ManageComplaints = () => {
                         </div>
                     )}
                 </div>
+
+                {nextCursor && (
+                    <div className="flex justify-center p-6 border-t border-gray-100">
+                        <button
+                            onClick={loadMoreComplaints}
+                            disabled={loadingMore}
+                            className="flex items-center gap-2 text-blue-600 hover:text-blue-700 bg-blue-50 hover:bg-blue-100 transition px-4 py-2 rounded-lg font-medium text-sm border border-blue-200 shadow-sm disabled:opacity-70 disabled:cursor-not-allowed"
+                        >
+                            {loadingMore && <RefreshCw size={16} className="animate-spin" />}
+                            {t('manager.complaints.loadMore')}
+                        </button>
+                    </div>
+                )}
             </div>
         </div>
     );
@@ -128,11 +128,13 @@ const MyTickets = () => {
       // Fetch both active and completed tickets in parallel
       const [activeResponse, completedResponse] = await Promise.all([
         axios.get(`${API_URL}/tickets/by-user`, {
+          params: { includePassengers: true },
           headers: {
             Authorization: `Bearer ${useSessionToken()}`
           }
         }),
         axios.get(`${API_URL}/completed-tickets/by-user`, {
+          params: { includePassengers: true },
           headers: {
             Authorization: `Bearer ${useSessionToken()}`
           }
@@ -318,21 +318,12 @@ const TicketCancel = () => {
         
         // Use the correct endpoint for deletion - with numeric ID
         if (ticketDetails && ticketDetails.id) {
+          // Deleting the ticket also frees its seats
           await axios.delete(`${API_URL}/tickets/${ticketDetails.id}`, {
             headers: {
               Authorization: `Bearer ${useSessionToken()}`
             }
           });
-
-          const seatSoldResponse2 = await axios.post(`${API_URL}/seats-sold/ticket-cancelled`, null, {
-            params: {
-              ticketData: ticketDetails.selectedSeats,
-              voyageId: ticketDetails.voyageId
-            },
-            headers: {
-              Authorization: `Bearer ${useSessionToken()}`
-            }
-          });
           
           setLoading(false);
           
@@ -318,7 +318,9 @@ const Homepage = () => {
           params: {
             fromStationId: stationsArray.find(station => station.title === formData.departure).id,
             toStationId: stationsArray.find(station => station.title === formData.arrival).id,
-            departureDate: formData.departureDate
+            departureDate: formData.departureDate,
+            withSeats: true,
+            seatMapFormat: 'legacy'
           }
         });
   
@@ -327,7 +329,9 @@ const Homepage = () => {
           params: {
             fromStationId: stationsArray.find(station => station.title === formData.arrival).id,
             toStationId: stationsArray.find(station => station.title === formData.departure).id,
-            departureDate: formData.returnDate
+            departureDate: formData.returnDate,
+            withSeats: true,
+            seatMapFormat: 'legacy'
           }
         });
   
@@ -338,14 +342,11 @@ const Homepage = () => {
   
         const allVoyages = [...response1.data, ...response2.data];
         
-        // Combined API call to get seat information
-        const seatsResponse = await axios.post(`${API_URL}/seats-sold/calculate-seats-with-voyage`, {
-          voyages: allVoyages
-        });
+        // Seat information comes back with the search results
+        const seatInfos = allVoyages.map(voyage => voyage.seatAvailability?.seatMap).filter(Boolean);
   
         voyageData.voyages = [[...response1.data], [...response2.data]];
-        voyageData.seatInformation = seatsResponse.data;
-        const seatInfos = seatsResponse.data;
+        voyageData.seatInformation = seatInfos;
         const passengerTotal = passengerDetails.adult + passengerDetails.child + passengerDetails.senior;
   
         // Split into departure and return seat info arrays
@@ -375,7 +376,9 @@ const Homepage = () => {
           params: {
             fromStationId: stationsArray.find(station => station.title === formData.departure).id,
             toStationId: stationsArray.find(station => station.title === formData.arrival).id,
-            departureDate: formData.departureDate
+            departureDate: formData.departureDate,
+            withSeats: true,
+            seatMapFormat: 'legacy'
           }
         });
   
@@ -384,12 +387,8 @@ const Homepage = () => {
           return;
         }
   
-        // Combined API call to get seat information
-        const seatsResponse = await axios.post(`${API_URL}/seats-sold/calculate-seats-with-voyage`, {
-          voyages: response.data
-        });
-  
-        const seatInfos = seatsResponse.data;
+        // Seat information comes back with the search results
+        const seatInfos = response.data.map(voyage => voyage.seatAvailability?.seatMap).filter(Boolean);
         const passengerTotal = passengerDetails.adult + passengerDetails.child + passengerDetails.senior;
   
         const isFull = seatInfos.every(seatInfo => 
@@ -404,7 +403,7 @@ const Homepage = () => {
         }
   
         voyageData.voyages = [response.data];
-        voyageData.seatInformation = seatsResponse.data;
+        voyageData.seatInformation = seatInfos;
       }
   
       console.log(voyageData);
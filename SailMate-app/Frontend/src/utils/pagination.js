@@ -0,0 +1,24 @@
+import axios from "axios";
+
+// List endpoints return one page at a time; the cursor of the next page is in
+// this header and is missing on the last page.
+const NEXT_CURSOR_HEADER = 'x-next-cursor';
+
+export async function fetchPage(url, config = {}, cursor = null) {
+  const params = { ...(config.params || {}) };
+  if (cursor) params.cursor = cursor;
+  const response = await axios.get(url, { ...config, params });
+  return {
+    items: response.data,
+    nextCursor: response.headers[NEXT_CURSOR_HEADER] || null
+  };
+}
+
+// Same for list endpoints that take their filters in a POST body; the cursor goes in the body too.
+export async function postPage(url, body = {}, config = {}, cursor = null) {
+  const response = await axios.post(url, cursor ? { ...body, cursor } : body, config);
+  return {
+    items: response.data,
+    nextCursor: response.headers[NEXT_CURSOR_HEADER] || null
+  };
+}